@@ -0,0 +1,76 @@
+package com.foodora.benchmark;
+
+import com.foodora.CLUIServer;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.user.Customer;
+import com.foodora.util.Coordinate;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Load test for the CLUI server: each operation is one complete client
+ * session (connect, log in, run a command, log out, disconnect), so the
+ * score is sessions per second across the benchmark threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class CLUIServerBenchmark {
+    private static final int CUSTOMERS = 64;
+
+    private CLUIServer server;
+    private InetSocketAddress address;
+
+    @State(Scope.Thread)
+    public static class Client {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        MyFoodoraSystem system = MyFoodoraSystem.getInstance();
+        system.reset();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            system.addUser(new Customer("Customer" + i, "Bench", new Coordinate(i, i),
+                "customer" + i + "@foodora.com", "555-0000", "customer" + i, "pass123"));
+        }
+        server = CLUIServer.listen(0);
+        address = (InetSocketAddress) server.getAddress();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Benchmark
+    public int session(Client client) throws IOException {
+        String username = "customer" + (client.next++ % CUSTOMERS);
+        try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out.write("login " + username + " pass123\nhelp\nlogout\nexit\n");
+            out.flush();
+            int statuses = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.equals(CLUIServer.OK) || line.startsWith("Error: ")) {
+                    statuses++;
+                }
+            }
+            return statuses;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.foodora.benchmark;
+
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Order;
+import com.foodora.user.Courier;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Orders placed and completed per second by concurrent clients sharing one
+ * system. Run with {@code -t 1}, {@code -t 2}, ... to see how throughput
+ * scales with the number of threads; by default one thread per core is used.
+ * Every invocation places a new order copied from the client's pool, and the
+ * system is rebuilt before each iteration, so iterations start from the same
+ * state instead of an ever longer order history.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Threads(Threads.MAX)
+public class ConcurrentOrderBenchmark {
+    private static final int USERS = 10_000;
+    private static final int ORDERS = 1024;
+
+    @State(Scope.Benchmark)
+    public static class SharedSystem {
+        MyFoodoraSystem system;
+        Population population;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            system = MyFoodoraSystem.getInstance();
+            system.reset();
+            population = Population.create(system, USERS, new Random(42));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ClientOrders {
+        private Order[] orders;
+        private int next;
+
+        // Runs after the shared system is rebuilt, so the pool refers to the new users
+        @Setup(Level.Iteration)
+        public void setUp(SharedSystem shared) {
+            Random random = new Random(Thread.currentThread().getId());
+            orders = new Order[ORDERS];
+            for (int i = 0; i < ORDERS; i++) {
+                orders[i] = shared.population.randomOrder(random, 3);
+            }
+        }
+
+        Order nextOrder() {
+            Order order = orders[next];
+            next = (next + 1) & (ORDERS - 1);
+            return order;
+        }
+    }
+
+    @Benchmark
+    public Courier placeAndCompleteOrder(SharedSystem shared, ClientOrders client) {
+        Order order = Population.copyOf(client.nextOrder());
+        shared.system.placeOrder(order);
+        shared.system.completeOrder(order);
+        return order.getCourier();
+    }
+}
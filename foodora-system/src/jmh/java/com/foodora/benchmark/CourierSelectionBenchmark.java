@@ -0,0 +1,85 @@
+package com.foodora.benchmark;
+
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Order;
+import com.foodora.policy.delivery.FastestDeliveryPolicy;
+import com.foodora.user.Courier;
+import com.foodora.user.Customer;
+import com.foodora.user.Restaurant;
+import com.foodora.util.Coordinate;
+import com.foodora.util.IDGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the fastest-courier selection through the spatial index with the
+ * linear scan over all couriers, for growing numbers of on-duty couriers
+ * spread over a city-sized map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CourierSelectionBenchmark {
+    private static final double MAP_SIZE = 200.0;
+    private static final int ORDERS = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    public int couriers;
+
+    private MyFoodoraSystem system;
+    private FastestDeliveryPolicy policy;
+    private List<Courier> courierList;
+    private Order[] orders;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+        policy = new FastestDeliveryPolicy();
+        Random random = new Random(42);
+
+        courierList = new ArrayList<>(couriers);
+        for (int i = 0; i < couriers; i++) {
+            Courier courier = new Courier(IDGenerator.generateID("CR"), "Courier" + i, "Bench", randomPoint(random),
+                "555-0000", "courier" + i, Population.PASSWORD);
+            system.addUser(courier);
+            courier.setOnDuty(true);
+            courierList.add(courier);
+        }
+
+        Customer customer = new Customer(IDGenerator.generateID("C"), "Bench", "Customer", randomPoint(random),
+            "bench@foodora.com", "555-0000", "customer", Population.PASSWORD);
+        orders = new Order[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            Restaurant restaurant = new Restaurant(IDGenerator.generateID("R"), "R" + i, randomPoint(random), "restaurant" + i, Population.PASSWORD);
+            orders[i] = new Order(customer, restaurant, null, null, null);
+        }
+    }
+
+    @Benchmark
+    public Courier linearScan() {
+        return policy.selectCourier(courierList, nextOrder());
+    }
+
+    @Benchmark
+    public Courier spatialIndex() {
+        return policy.selectCourier(system.getCourierIndex(), nextOrder());
+    }
+
+    private Order nextOrder() {
+        Order order = orders[next];
+        next = (next + 1) & (ORDERS - 1);
+        return order;
+    }
+
+    private static Coordinate randomPoint(Random random) {
+        return new Coordinate(random.nextDouble() * MAP_SIZE, random.nextDouble() * MAP_SIZE);
+    }
+}
@@ -0,0 +1,74 @@
+package com.foodora.benchmark;
+
+import com.foodora.fidelity.BasicFidelityCard;
+import com.foodora.fidelity.FidelityCard;
+import com.foodora.fidelity.LotteryFidelityCard;
+import com.foodora.fidelity.PointFidelityCard;
+import com.foodora.user.Customer;
+import com.foodora.util.IDGenerator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * FidelityCard.applyDiscount for each card type, over growing customer populations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FidelityCardBenchmark {
+    private static final int PRICES = 1024;
+
+    @Param({"BASIC", "POINT", "LOTTERY"})
+    public String card;
+
+    @Param({"1000", "1000000"})
+    public int customers;
+
+    private FidelityCard fidelityCard;
+    private Customer[] customerPool;
+    private double[] prices;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        fidelityCard = fidelityCard(card);
+
+        customerPool = new Customer[customers];
+        for (int i = 0; i < customers; i++) {
+            customerPool[i] = new Customer(IDGenerator.generateID("C"), "Customer" + i, "Bench", Population.randomPoint(random),
+                "customer" + i + "@foodora.com", "555-0000", "customer" + i, Population.PASSWORD);
+            customerPool[i].registerFidelityCard(fidelityCard);
+        }
+        prices = new double[PRICES];
+        for (int i = 0; i < PRICES; i++) {
+            prices[i] = 5.0 + Math.round(random.nextDouble() * 20000) / 100.0;
+        }
+    }
+
+    @Benchmark
+    public double applyDiscount() {
+        int i = next;
+        if (++next == customerPool.length) {
+            next = 0;
+        }
+        return fidelityCard.applyDiscount(prices[i & (PRICES - 1)], customerPool[i]);
+    }
+
+    static FidelityCard fidelityCard(String name) {
+        switch (name) {
+            case "BASIC":
+                return new BasicFidelityCard();
+            case "POINT":
+                return new PointFidelityCard();
+            case "LOTTERY":
+                return new LotteryFidelityCard();
+            default:
+                throw new IllegalArgumentException("Unknown fidelity card: " + name);
+        }
+    }
+}
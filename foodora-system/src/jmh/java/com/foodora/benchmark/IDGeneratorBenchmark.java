@@ -0,0 +1,57 @@
+package com.foodora.benchmark;
+
+import com.foodora.util.IDGenerator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the lock-free id generator with the previous synchronized,
+ * String.format based implementation, single-threaded and under contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IDGeneratorBenchmark {
+
+    /**
+     * Copy of the previous implementation, kept as the baseline.
+     */
+    static class LegacyIDGenerator {
+        private static final Map<String, Integer> counters = new HashMap<>();
+
+        static synchronized String generateID(String prefix) {
+            int count = counters.getOrDefault(prefix, 0) + 1;
+            counters.put(prefix, count);
+            return String.format("%s-%04d", prefix, count);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String legacySingleThread() {
+        return LegacyIDGenerator.generateID("O");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String lockFreeSingleThread() {
+        return IDGenerator.generateID("O");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String legacyContended() {
+        return LegacyIDGenerator.generateID("O");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String lockFreeContended() {
+        return IDGenerator.generateID("O");
+    }
+}
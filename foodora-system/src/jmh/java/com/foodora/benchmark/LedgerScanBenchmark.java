@@ -0,0 +1,76 @@
+package com.foodora.benchmark;
+
+import com.foodora.MyFoodoraSystem;
+import com.foodora.analytics.CompletedOrderLedger;
+import com.foodora.analytics.ParallelOrderAnalyzer;
+import com.foodora.model.Order;
+import com.foodora.user.Restaurant;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Full scans over the completed-order history: walking the Order objects
+ * against the columnar ledger, for income and per-restaurant counts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class LedgerScanBenchmark {
+    private static final int USERS = 10_000;
+
+    @Param({"100000", "1000000"})
+    public int orders;
+
+    private List<Order> completed;
+    private CompletedOrderLedger ledger;
+    private ParallelOrderAnalyzer sequential;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MyFoodoraSystem system = MyFoodoraSystem.getInstance();
+        system.reset();
+        Random random = new Random(42);
+        Population population = Population.create(system, USERS, random);
+        for (int i = 0; i < orders; i++) {
+            Order order = population.randomOrder(random, 2);
+            system.placeOrder(order);
+            system.completeOrder(order);
+        }
+        completed = system.getCompletedOrders();
+        ledger = system.getCompletedOrderLedger();
+        sequential = new ParallelOrderAnalyzer(ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        completed = null;
+        MyFoodoraSystem.getInstance().reset();
+    }
+
+    @Benchmark
+    public double totalIncomeFromOrders() {
+        return completed.stream().mapToDouble(Order::getFinalPrice).sum();
+    }
+
+    @Benchmark
+    public double totalIncomeFromLedger() {
+        return ledger.getTotalIncome();
+    }
+
+    @Benchmark
+    public Map<Restaurant, Integer> restaurantCountsFromOrders() {
+        return sequential.countRestaurantOrders(completed);
+    }
+
+    @Benchmark
+    public long[] restaurantCountsFromLedger() {
+        return ledger.countByRestaurant();
+    }
+}
@@ -0,0 +1,77 @@
+package com.foodora.benchmark;
+
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Order;
+import com.foodora.policy.order.*;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * analyzeOrders for each order sorting policy over growing order histories,
+ * from the running popularity index and from a recount over the order list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class OrderAnalysisBenchmark {
+    private static final int USERS = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int orders;
+
+    @Param({"MOST_ORDERED_HALF_MEAL", "LEAST_ORDERED_HALF_MEAL", "MOST_ORDERED_ITEM", "LEAST_ORDERED_ITEM"})
+    public String policy;
+
+    private MyFoodoraSystem system;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+        Random random = new Random(42);
+        Population population = Population.create(system, USERS, random);
+
+        for (int i = 0; i < orders; i++) {
+            Order order = population.randomOrder(random, 3);
+            system.placeOrder(order);
+            system.completeOrder(order);
+        }
+        system.setOrderSortingPolicy(sortingPolicy(policy));
+    }
+
+    @Benchmark
+    public Map<String, Integer> analyzeOrders() {
+        return system.analyzeOrders();
+    }
+
+    @Benchmark
+    public Map<String, Integer> analyzeTop10() {
+        return system.analyzeOrders(10);
+    }
+
+    @Benchmark
+    public Map<String, Integer> analyzeOrderList() {
+        // Rebuilds the counts from the order history, as every call did before the running index
+        return system.getOrderSortingPolicy().analyzeOrders(system.getCompletedOrders());
+    }
+
+    static OrderSortingPolicy sortingPolicy(String name) {
+        switch (name) {
+            case "MOST_ORDERED_HALF_MEAL":
+                return new MostOrderedHalfMealPolicy();
+            case "LEAST_ORDERED_HALF_MEAL":
+                return new LeastOrderedHalfMealPolicy();
+            case "MOST_ORDERED_ITEM":
+                return new MostOrderedItemAlaCartePolicy();
+            case "LEAST_ORDERED_ITEM":
+                return new LeastOrderedItemAlaCartePolicy();
+            default:
+                throw new IllegalArgumentException("Unknown sorting policy: " + name);
+        }
+    }
+}
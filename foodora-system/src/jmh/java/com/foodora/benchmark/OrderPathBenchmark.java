@@ -0,0 +1,90 @@
+package com.foodora.benchmark;
+
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Order;
+import com.foodora.policy.delivery.DeliveryPolicy;
+import com.foodora.policy.delivery.FairOccupationPolicy;
+import com.foodora.policy.delivery.FastestDeliveryPolicy;
+import com.foodora.user.Courier;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Order intake and completion under each delivery policy, for growing user
+ * populations. Both benchmarks place a new copy of a pooled order and unindex
+ * it at the end, so the cost of completeOrder alone is the difference between
+ * placeAndCompleteOrder and placeOrder. The system is rebuilt before each
+ * iteration, so the completed history does not grow from one to the next.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class OrderPathBenchmark {
+    private static final int ORDERS = 4096;
+
+    @Param({"1000", "100000", "1000000"})
+    public int users;
+
+    @Param({"FASTEST", "FAIR_LIFETIME", "FAIR_RECENT"})
+    public String policy;
+
+    private MyFoodoraSystem system;
+    private Order[] orders;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+        system.setDeliveryPolicy(deliveryPolicy(policy));
+        Random random = new Random(42);
+        Population population = Population.create(system, users, random);
+
+        orders = new Order[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            orders[i] = population.randomOrder(random, 3);
+        }
+    }
+
+    @Benchmark
+    public Courier placeOrder() {
+        Order order = Population.copyOf(nextOrder());
+        system.placeOrder(order);
+        // Drop the order again so the active set does not grow with the iteration count
+        system.getOrderIndex().remove(order);
+        return order.getCourier();
+    }
+
+    @Benchmark
+    public Courier placeAndCompleteOrder() {
+        Order order = Population.copyOf(nextOrder());
+        system.placeOrder(order);
+        system.completeOrder(order);
+        // Unindexed like in placeOrder, so the two differ by completeOrder alone
+        system.getOrderIndex().remove(order);
+        return order.getCourier();
+    }
+
+    private Order nextOrder() {
+        Order order = orders[next];
+        next = (next + 1) & (ORDERS - 1);
+        return order;
+    }
+
+    static DeliveryPolicy deliveryPolicy(String name) {
+        switch (name) {
+            case "FASTEST":
+                return new FastestDeliveryPolicy();
+            case "FAIR_LIFETIME":
+                return new FairOccupationPolicy(FairOccupationPolicy.Workload.LIFETIME);
+            case "FAIR_RECENT":
+                return new FairOccupationPolicy(FairOccupationPolicy.Workload.RECENT);
+            default:
+                throw new IllegalArgumentException("Unknown delivery policy: " + name);
+        }
+    }
+}
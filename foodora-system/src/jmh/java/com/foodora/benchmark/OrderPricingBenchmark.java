@@ -0,0 +1,52 @@
+package com.foodora.benchmark;
+
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Order;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Order.calculateTotalPrice over a large pool of orders, so the benchmark
+ * also sees the cache misses of walking many orders.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class OrderPricingBenchmark {
+    private static final int USERS = 1000;
+
+    @Param({"1000", "1000000"})
+    public int orders;
+
+    @Param({"3", "30"})
+    public int itemsPerOrder;
+
+    private Order[] pool;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MyFoodoraSystem system = MyFoodoraSystem.getInstance();
+        system.reset();
+        Random random = new Random(42);
+        Population population = Population.create(system, USERS, random);
+
+        pool = new Order[orders];
+        for (int i = 0; i < orders; i++) {
+            pool[i] = population.randomOrder(random, itemsPerOrder);
+        }
+    }
+
+    @Benchmark
+    public double calculateTotalPrice() {
+        Order order = pool[next];
+        if (++next == pool.length) {
+            next = 0;
+        }
+        return order.calculateTotalPrice();
+    }
+}
@@ -0,0 +1,97 @@
+package com.foodora.benchmark;
+
+import com.foodora.MyFoodoraSystem;
+import com.foodora.analytics.ParallelOrderAnalyzer;
+import com.foodora.model.Meal;
+import com.foodora.model.MenuItem;
+import com.foodora.model.Order;
+import com.foodora.policy.order.MostOrderedItemAlaCartePolicy;
+import com.foodora.policy.order.OrderSortingPolicy;
+import com.foodora.user.Courier;
+import com.foodora.user.Restaurant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Re-analysis of large order histories, sequential against fork/join
+ * chunks on the common pool. The orders are not registered in the system,
+ * and share a small set of item and meal lists to keep 10M orders in memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ParallelAnalysisBenchmark {
+    private static final int USERS = 10_000;
+    private static final int SHARED_LISTS = 1024;
+
+    @Param({"1000000", "10000000"})
+    public int orders;
+
+    private List<Order> history;
+    private OrderSortingPolicy policy;
+    private ParallelOrderAnalyzer sequential;
+    private ParallelOrderAnalyzer parallel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MyFoodoraSystem system = MyFoodoraSystem.getInstance();
+        system.reset();
+        Random random = new Random(42);
+        Population population = Population.create(system, USERS, random);
+
+        List<List<MenuItem>> itemLists = new ArrayList<>(SHARED_LISTS);
+        List<List<Meal>> mealLists = new ArrayList<>(SHARED_LISTS);
+        for (int i = 0; i < SHARED_LISTS; i++) {
+            itemLists.add(List.of(population.items.get(random.nextInt(population.items.size())),
+                population.items.get(random.nextInt(population.items.size()))));
+            mealLists.add(List.of(population.meals.get(random.nextInt(population.meals.size()))));
+        }
+
+        history = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            Restaurant restaurant = population.restaurants.get(random.nextInt(population.restaurants.size()));
+            Courier courier = population.couriers.get(random.nextInt(population.couriers.size()));
+            history.add(new Order(population.customers.get(random.nextInt(population.customers.size())),
+                restaurant, courier, itemLists.get(random.nextInt(SHARED_LISTS)),
+                mealLists.get(random.nextInt(SHARED_LISTS))));
+        }
+
+        policy = new MostOrderedItemAlaCartePolicy();
+        sequential = new ParallelOrderAnalyzer(ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+        parallel = ParallelOrderAnalyzer.getDefault();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        history = null;
+        MyFoodoraSystem.getInstance().reset();
+    }
+
+    @Benchmark
+    public Map<String, Integer> analyzeOrdersSequential() {
+        return policy.analyzeOrders(history);
+    }
+
+    @Benchmark
+    public Map<String, Integer> analyzeOrdersParallel() {
+        return parallel.analyzeOrders(policy, history);
+    }
+
+    @Benchmark
+    public Map<Restaurant, Integer> countRestaurantOrdersSequential() {
+        return sequential.countRestaurantOrders(history);
+    }
+
+    @Benchmark
+    public Map<Restaurant, Integer> countRestaurantOrdersParallel() {
+        return parallel.countRestaurantOrders(history);
+    }
+}
@@ -0,0 +1,124 @@
+package com.foodora.benchmark;
+
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Meal;
+import com.foodora.model.MenuItem;
+import com.foodora.model.Order;
+import com.foodora.user.Courier;
+import com.foodora.user.Customer;
+import com.foodora.user.Restaurant;
+import com.foodora.util.Coordinate;
+import com.foodora.util.IDGenerator;
+import com.foodora.util.PasswordHash;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic system population shared by the benchmarks: 80% customers,
+ * 10% restaurants and 10% on-duty couriers spread over a city-sized map,
+ * plus a catalog of menu items and meals to fill orders with.
+ */
+final class Population {
+    static final double MAP_SIZE = 200.0;
+    private static final int CATALOG_SIZE = 50;
+    // Hashed once and shared, so creating millions of users does not hash millions of passwords
+    static final PasswordHash PASSWORD = PasswordHash.of("pass123");
+
+    final List<Customer> customers = new ArrayList<>();
+    final List<Restaurant> restaurants = new ArrayList<>();
+    final List<Courier> couriers = new ArrayList<>();
+    final List<MenuItem> items = new ArrayList<>();
+    final List<Meal> meals = new ArrayList<>();
+
+    private Population() {
+    }
+
+    /**
+     * Creates the users and registers them in the system.
+     */
+    static Population create(MyFoodoraSystem system, int users, Random random) {
+        Population population = new Population();
+        int restaurants = Math.max(1, users / 10);
+        int couriers = Math.max(1, users / 10);
+        int customers = Math.max(1, users - restaurants - couriers);
+
+        for (int i = 0; i < customers; i++) {
+            Customer customer = new Customer(IDGenerator.generateID("C"), "Customer" + i, "Bench", randomPoint(random),
+                "customer" + i + "@foodora.com", "555-0000", "customer" + i, PASSWORD);
+            system.addUser(customer);
+            population.customers.add(customer);
+        }
+        for (int i = 0; i < restaurants; i++) {
+            Restaurant restaurant = new Restaurant(IDGenerator.generateID("R"), "Restaurant" + i, randomPoint(random), "restaurant" + i, PASSWORD);
+            system.addUser(restaurant);
+            population.restaurants.add(restaurant);
+        }
+        for (int i = 0; i < couriers; i++) {
+            Courier courier = new Courier(IDGenerator.generateID("CR"), "Courier" + i, "Bench", randomPoint(random),
+                "555-0000", "courier" + i, PASSWORD);
+            system.addUser(courier);
+            courier.setOnDuty(true);
+            population.couriers.add(courier);
+        }
+        population.createCatalog(random);
+        return population;
+    }
+
+    private void createCatalog(Random random) {
+        List<MenuItem> starters = new ArrayList<>();
+        List<MenuItem> mains = new ArrayList<>();
+        List<MenuItem> desserts = new ArrayList<>();
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            starters.add(new MenuItem("Starter" + i, price(random), MenuItem.Category.STARTER, MenuItem.Type.STANDARD, false));
+            mains.add(new MenuItem("Main" + i, price(random), MenuItem.Category.MAIN_DISH, MenuItem.Type.STANDARD, false));
+            desserts.add(new MenuItem("Dessert" + i, price(random), MenuItem.Category.DESSERT, MenuItem.Type.STANDARD, false));
+        }
+        items.addAll(starters);
+        items.addAll(mains);
+        items.addAll(desserts);
+
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            meals.add(new Meal("HalfMeal" + i, List.of(starters.get(i), mains.get(i)),
+                Meal.MealType.STANDARD, Meal.MealSize.HALF_MEAL, false, 0.05));
+            meals.add(new Meal("FullMeal" + i, List.of(starters.get(i), mains.get(i), desserts.get(i)),
+                Meal.MealType.STANDARD, Meal.MealSize.FULL_MEAL, false, 0.05));
+        }
+    }
+
+    /**
+     * Creates an order from a random customer at a random restaurant, with the
+     * given number of a la carte items and one meal.
+     */
+    Order randomOrder(Random random, int itemCount) {
+        List<MenuItem> orderItems = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            orderItems.add(items.get(random.nextInt(items.size())));
+        }
+        List<Meal> orderMeals = new ArrayList<>(List.of(meals.get(random.nextInt(meals.size()))));
+        Order order = new Order(customers.get(random.nextInt(customers.size())),
+            restaurants.get(random.nextInt(restaurants.size())), null, orderItems, orderMeals);
+        order.setFinalPrice(order.calculateTotalPrice());
+        return order;
+    }
+
+    /**
+     * Creates a new order, never placed, with the customer, restaurant, items,
+     * meals and price of a pooled one. Placing and completing a copy measures
+     * the path a real order takes, which a pooled order completed before does not.
+     */
+    static Order copyOf(Order template) {
+        Order order = new Order(template.getCustomer(), template.getRestaurant(), null,
+            new ArrayList<>(template.getItems()), new ArrayList<>(template.getMeals()));
+        order.setFinalPrice(template.getFinalPrice());
+        return order;
+    }
+
+    static Coordinate randomPoint(Random random) {
+        return new Coordinate(random.nextDouble() * MAP_SIZE, random.nextDouble() * MAP_SIZE);
+    }
+
+    private static double price(Random random) {
+        return 2.0 + Math.round(random.nextDouble() * 2000) / 100.0;
+    }
+}
@@ -19,23 +19,83 @@ import com.foodora.policy.order.*;
 /**
  * Command Line User Interface (CLUI) for the MyFoodora system.
  * This class handles all command-line interactions and delegates operations to MyFoodoraSystem.
+ * Commands are declared once in a {@link CommandRegistry}, with the role
+ * allowed to run them, their argument count and their argument parser.
  */
 public class CLUI {
-    // Current session state
-    private static String currentUser = null;
-    private static UserType currentUserType = null;
-    
+    // Session used by the console and scenario runners
+    private static final CLUISession CONSOLE = new CLUISession();
+
     // Reference to the system
     private static final MyFoodoraSystem system = MyFoodoraSystem.getInstance();
 
-    // Enums for user types
-    private enum UserType {
-        MANAGER, RESTAURANT, CUSTOMER, COURIER
-    }
+    // Parsed arguments
+    private record NewRestaurant(String name, Coordinate location, String username, String password) {}
+    private record NewPerson(String firstName, String lastName, String username, Coordinate location, String password) {}
+    private record Dish(String name, MenuItem.Category category, MenuItem.Type type, boolean glutenFree, double price) {}
+    private record Named<T>(String name, T value) {}
+
+    private static final CommandRegistry COMMANDS = new CommandRegistry()
+        .command("login")
+            .arity(2, "Invalid arguments. Usage: login <username> <password>")
+            .run(CLUI::handleLogin)
+        .command("logout")
+            .arity(0, "Invalid arguments. Usage: logout")
+            .run(CLUI::handleLogout)
+        .command("registerRestaurant")
+            .arity(4, "Invalid arguments. Usage: registerRestaurant <name> <location> <username> <password>")
+            .parse(CLUI::parseRestaurant)
+            .run(CLUI::handleRegisterRestaurant)
+        .command("registerCustomer")
+            .arity(5, "Invalid arguments. Usage: registerCustomer <firstName> <lastName> <username> <address> <password>")
+            .parse(args -> parsePerson(args, "Invalid address format. Use: x,y"))
+            .run(CLUI::handleRegisterCustomer)
+        .command("registerCourier")
+            .arity(5, "Invalid arguments. Usage: registerCourier <firstName> <lastName> <username> <position> <password>")
+            .parse(args -> parsePerson(args, "Invalid position format. Use: x,y"))
+            .run(CLUI::handleRegisterCourier)
+        .command("addDishRestaurantMenu", "addDishRestauarantMenu")
+            .role(CLUISession.UserType.RESTAURANT, "Only restaurants can add dishes to menu")
+            .arity(4, "Adding dish requires: <dishName> <category (starter/main/dessert)> <foodType (standard/vegetarian/gluten-free)> <price>")
+            .parse(CLUI::parseDish)
+            .run(CLUI::handleAddDishToMenu)
+        .command("createOrder")
+            .role(CLUISession.UserType.CUSTOMER, "Only customers can create orders")
+            .arity(2, "CreateOrder requires: <restaurantName> <orderID>")
+            .parse(CLUI::unquoted)
+            .run(CLUI::handleCreateOrder)
+        .command("addItem2Order")
+            .arity(2, "Invalid arguments. Usage: addItem2Order <orderId> <itemName>")
+            .run(CLUI::handleAddItemToOrder)
+        .command("endOrder")
+            .role(CLUISession.UserType.CUSTOMER, "Only customers can end orders")
+            .arity(2, "EndOrder requires order ID and date (YYYY-MM-DD)")
+            .parse(args -> new Named<>(removeQuotes(args[0]), parseDate(args[1])))
+            .run(CLUI::handleEndOrder)
+        .command("onDuty")
+            .role(CLUISession.UserType.COURIER, "Only couriers can change duty status")
+            .arity(1, "Setting duty status requires courier username")
+            .run((session, args) -> handleDutyChange(session, args[0], true))
+        .command("offDuty")
+            .role(CLUISession.UserType.COURIER, "Only couriers can change duty status")
+            .arity(1, "Setting duty status requires courier username")
+            .run((session, args) -> handleDutyChange(session, args[0], false))
+        .command("setDeliveryPolicy")
+            .role(CLUISession.UserType.MANAGER, "Only managers can set delivery policy")
+            .arity(1, "SetDeliveryPolicy requires policy name")
+            .parse(CLUI::parseDeliveryPolicy)
+            .run(CLUI::handleSetDeliveryPolicy)
+        .command("setProfitPolicy")
+            .role(CLUISession.UserType.MANAGER, "Only managers can set profit policy")
+            .arity(1, "SetProfitPolicy requires policy name")
+            .parse(CLUI::parseProfitPolicy)
+            .run(CLUI::handleSetProfitPolicy)
+        .command("help")
+            .run((session, args) -> handleHelp(session));
 
     static {
         // Initialize CEO user if not exists
-        if (system.getUsers().stream().noneMatch(u -> u.getUsername().equals("ceo"))) {
+        if (!system.getUserRegistry().containsUsername("ceo")) {
             Manager ceo = new Manager(
                 "CEO",
                 "Manager",
@@ -47,471 +107,305 @@ public class CLUI {
     }
 
     /**
-     * Executes a command with the given arguments.
+     * Executes a command with the given arguments in the console session.
      */
     public static void executeCommand(String command, String[] args) throws Exception {
-        command = command.toLowerCase();
-        
-        switch (command) {
-            case "login":
-                handleLogin(args);
-                break;
-            case "logout":
-                handleLogout(args);
-                break;
-            case "registerrestaurant":
-                handleRegisterRestaurant(args);
-                break;
-            case "registercustomer":
-                handleRegisterCustomer(args);
-                break;
-            case "registercourier":
-                handleRegisterCourier(args);
-                break;
-            case "adddishrestaurantmenu":
-            case "adddishrestauarantmenu":
-                handleAddDishToMenu(args);
-                break;
-            case "createorder":
-                handleCreateOrder(args);
-                break;
-            case "additem2order":
-                handleAddItemToOrder(args);
-                break;
-            case "endorder":
-                handleEndOrder(args);
-                break;
-            case "onduty":
-                handleOnDuty(args);
-                break;
-            case "offduty":
-                handleOffDuty(args);
-                break;
-            case "setdeliverypolicy":
-                handleSetDeliveryPolicy(args);
-                break;
-            case "setprofitpolicy":
-                handleSetProfitPolicy(args);
-                break;
-            case "help":
-                handleHelp();
-                break;
-            default:
-                throw new Exception("Unknown command: " + command);
-        }
+        executeCommand(CONSOLE, command, args);
     }
 
-    private static String handleLogin(String[] args) throws Exception {
-        if (args.length != 2) {
-            throw new Exception("Invalid arguments. Usage: login <username> <password>");
-        }
+    /**
+     * Executes a command with the given arguments in a client's session.
+     * Command names are case-insensitive.
+     */
+    public static void executeCommand(CLUISession session, String command, String[] args) throws Exception {
+        COMMANDS.execute(session, command, args);
+    }
+
+    // Session
+    private static void handleLogin(CLUISession session, String[] args) throws Exception {
         String username = args[0];
         String password = args[1];
 
-        Optional<User> user = system.getUsers().stream()
-            .filter(u -> u.getUsername().equals(username))
-            .findFirst();
-
-        if (!user.isPresent() || !user.get().authenticate(username, password)) {
-            throw new Exception("Invalid credentials");
-        }
-
-        currentUser = username;
-        if (user.get() instanceof Manager) {
-            currentUserType = UserType.MANAGER;
-        } else if (user.get() instanceof Restaurant) {
-            currentUserType = UserType.RESTAURANT;
-        } else if (user.get() instanceof Customer) {
-            currentUserType = UserType.CUSTOMER;
-        } else if (user.get() instanceof Courier) {
-            currentUserType = UserType.COURIER;
-        }
-        
-        return "Logged in as " + username;
+        SessionStore.Session login = system.getSessions().login(username, password)
+            .orElseThrow(() -> new CommandException("Invalid credentials"));
+
+        CLUISession.UserType type = session.currentUserType;
+        User user = login.getUser();
+        if (user instanceof Manager) {
+            type = CLUISession.UserType.MANAGER;
+        } else if (user instanceof Restaurant) {
+            type = CLUISession.UserType.RESTAURANT;
+        } else if (user instanceof Customer) {
+            type = CLUISession.UserType.CUSTOMER;
+        } else if (user instanceof Courier) {
+            type = CLUISession.UserType.COURIER;
+        }
+        // A new login replaces the session's previous one
+        system.getSessions().logout(session.getToken());
+        session.login(login, type);
     }
 
-    private static String handleLogout(String[] args) throws Exception {
-        if (args.length != 0) {
-            throw new Exception("Invalid arguments. Usage: logout");
+    private static void handleLogout(CLUISession session, String[] args) throws Exception {
+        if (!session.isLoggedIn()) {
+            throw new CommandException("Not logged in");
         }
-        if (currentUser == null) {
-            throw new Exception("Not logged in");
-        }
-        currentUser = null;
-        currentUserType = null;
-        return "Logged out successfully";
+        system.getSessions().logout(session.getToken());
+        session.logout();
     }
 
-    private static String handleRegisterRestaurant(String[] args) throws Exception {
-        if (args.length != 4) {
-            throw new Exception("Invalid arguments. Usage: registerRestaurant <name> <location> <username> <password>");
-        }
+    // Registration
+    private static NewRestaurant parseRestaurant(String[] args) throws Exception {
         String name = removeQuotes(args[0]);
         String location = removeQuotes(args[1]);
         String username = removeQuotes(args[2]);
         String password = removeQuotes(args[3]);
+        return new NewRestaurant(name, parseCoordinate(location, "Invalid location format. Use: x,y"),
+            username, password);
+    }
 
-        // Parse location into Coordinate
-        String[] coords = location.split(",");
-        if (coords.length != 2) {
-            throw new Exception("Invalid location format. Use: x,y");
-        }
-        Coordinate coord = new Coordinate(Double.parseDouble(coords[0]), Double.parseDouble(coords[1]));
+    // Customer and courier arguments are taken as typed, quotes included
+    private static NewPerson parsePerson(String[] args, String formatError) throws Exception {
+        return new NewPerson(args[0], args[1], args[2], parseCoordinate(args[3], formatError), args[4]);
+    }
 
-        // Check if username already exists
-        if (system.getUsers().stream().anyMatch(u -> u.getUsername().equals(username))) {
-            throw new Exception("Username already exists");
-        }
+    private static void handleRegisterRestaurant(CLUISession session, NewRestaurant args) throws Exception {
+        requireNewUsername(args.username());
 
         // Create and register new restaurant
-        Restaurant restaurant = new Restaurant(name, coord, username, password);
+        Restaurant restaurant = new Restaurant(args.name(), args.location(), args.username(), args.password());
         system.addUser(restaurant);
-        return "Registered restaurant: " + name;
     }
 
-    private static String handleRegisterCustomer(String[] args) throws Exception {
-        if (args.length != 5) {
-            throw new Exception("Invalid arguments. Usage: registerCustomer <firstName> <lastName> <username> <address> <password>");
-        }
-        String firstName = args[0];
-        String lastName = args[1];
-        String username = args[2];
-        String address = args[3];
-        String password = args[4];
-
-        // Parse address into Coordinate
-        String[] coords = address.split(",");
-        if (coords.length != 2) {
-            throw new Exception("Invalid address format. Use: x,y");
-        }
-        Coordinate coord = new Coordinate(Double.parseDouble(coords[0]), Double.parseDouble(coords[1]));
-
-        if (system.getUsers().stream().anyMatch(u -> u.getUsername().equals(username))) {
-            throw new Exception("Username already exists");
-        }
+    private static void handleRegisterCustomer(CLUISession session, NewPerson args) throws Exception {
+        requireNewUsername(args.username());
 
         // Create and register new customer
         Customer customer = new Customer(
-            firstName,
-            lastName,
-            coord,
-            username + "@foodora.com", // Default email
+            args.firstName(),
+            args.lastName(),
+            args.location(),
+            args.username() + "@foodora.com", // Default email
             "123-456-7890", // Default phone
-            username,
-            password
+            args.username(),
+            args.password()
         );
         system.addUser(customer);
-        return "Registered customer: " + firstName + " " + lastName;
     }
 
-    private static String handleRegisterCourier(String[] args) throws Exception {
-        if (args.length != 5) {
-            throw new Exception("Invalid arguments. Usage: registerCourier <firstName> <lastName> <username> <position> <password>");
-        }
-        String firstName = args[0];
-        String lastName = args[1];
-        String username = args[2];
-        String position = args[3];
-        String password = args[4];
-
-        // Parse position into Coordinate
-        String[] coords = position.split(",");
-        if (coords.length != 2) {
-            throw new Exception("Invalid position format. Use: x,y");
-        }
-        Coordinate coord = new Coordinate(Double.parseDouble(coords[0]), Double.parseDouble(coords[1]));
-
-        if (system.getUsers().stream().anyMatch(u -> u.getUsername().equals(username))) {
-            throw new Exception("Username already exists");
-        }
+    private static void handleRegisterCourier(CLUISession session, NewPerson args) throws Exception {
+        requireNewUsername(args.username());
 
         // Create and register new courier
         Courier courier = new Courier(
-            firstName,
-            lastName,
-            coord,
+            args.firstName(),
+            args.lastName(),
+            args.location(),
             "123-456-7890", // Default phone
-            username,
-            password
+            args.username(),
+            args.password()
         );
         system.addUser(courier);
-        return "Registered courier: " + firstName + " " + lastName;
     }
 
-    private static void handleAddDishToMenu(String[] args) throws Exception {
-        if (currentUserType != UserType.RESTAURANT) {
-            throw new Exception("Only restaurants can add dishes to menu");
-        }
-
-        if (args.length != 4) {
-            throw new Exception("Adding dish requires: <dishName> <category (starter/main/dessert)> <foodType (standard/vegetarian/gluten-free)> <price>");
+    private static void requireNewUsername(String username) throws CommandException {
+        if (system.getUserRegistry().containsUsername(username)) {
+            throw new CommandException("Username already exists");
         }
+    }
 
+    // Menus
+    private static Dish parseDish(String[] args) throws Exception {
         String dishName = removeQuotes(args[0]);
         String category = removeQuotes(args[1]).toLowerCase();
         String foodType = removeQuotes(args[2]).toLowerCase();
         double price;
-        
+
         try {
             price = Double.parseDouble(removeQuotes(args[3]));
         } catch (NumberFormatException e) {
-            throw new Exception("Invalid price format. Must be a number");
+            throw new CommandException("Invalid price format. Must be a number");
         }
 
         // Convert category string to MenuItem.Category
-        MenuItem.Category menuCategory;
-        switch (category) {
-            case "starter":
-                menuCategory = MenuItem.Category.STARTER;
-                break;
-            case "main":
-                menuCategory = MenuItem.Category.MAIN_DISH;
-                break;
-            case "dessert":
-                menuCategory = MenuItem.Category.DESSERT;
-                break;
-            default:
-                throw new Exception("Invalid category. Must be one of: starter, main, dessert");
-        }
+        MenuItem.Category menuCategory = switch (category) {
+            case "starter" -> MenuItem.Category.STARTER;
+            case "main" -> MenuItem.Category.MAIN_DISH;
+            case "dessert" -> MenuItem.Category.DESSERT;
+            default -> throw new CommandException("Invalid category. Must be one of: starter, main, dessert");
+        };
 
         // Convert food type string to MenuItem.Type and gluten-free flag
-        MenuItem.Type menuType;
-        boolean isGlutenFree = false;
-        switch (foodType) {
-            case "standard":
-                menuType = MenuItem.Type.STANDARD;
-                break;
-            case "vegetarian":
-                menuType = MenuItem.Type.VEGETARIAN;
-                break;
-            case "gluten-free":
-                menuType = MenuItem.Type.STANDARD;
-                isGlutenFree = true;
-                break;
-            default:
-                throw new Exception("Invalid food type. Must be one of: standard, vegetarian, gluten-free");
-        }
+        MenuItem.Type menuType = switch (foodType) {
+            case "standard", "gluten-free" -> MenuItem.Type.STANDARD;
+            case "vegetarian" -> MenuItem.Type.VEGETARIAN;
+            default -> throw new CommandException("Invalid food type. Must be one of: standard, vegetarian, gluten-free");
+        };
+        return new Dish(dishName, menuCategory, menuType, foodType.equals("gluten-free"), price);
+    }
 
+    private static void handleAddDishToMenu(CLUISession session, Dish dish) throws Exception {
         // Get the current restaurant
-        Restaurant restaurant = (Restaurant) system.getUsers().stream()
-            .filter(u -> u instanceof Restaurant && u.getUsername().equals(currentUser))
-            .findFirst()
-            .orElseThrow(() -> new Exception("Restaurant not found"));
+        Restaurant restaurant = session.user(Restaurant.class)
+            .orElseThrow(() -> new CommandException("Restaurant not found"));
 
         // Create and add the menu item
-        MenuItem menuItem = new MenuItem(dishName, price, menuCategory, menuType, isGlutenFree);
+        MenuItem menuItem = new MenuItem(dish.name(), dish.price(), dish.category(), dish.type(), dish.glutenFree());
         restaurant.addMenuItem(menuItem);
-        System.out.println("Added dish to menu: " + dishName);
+        session.out().println("Added dish to menu: " + dish.name());
     }
 
-    private static void handleCreateOrder(String[] args) throws Exception {
-        if (currentUserType != UserType.CUSTOMER) {
-            throw new Exception("Only customers can create orders");
-        }
-
-        if (args.length != 2) {
-            throw new Exception("CreateOrder requires: <restaurantName> <orderID>");
-        }
-
-        String restaurantName = removeQuotes(args[0]);
-        String orderId = removeQuotes(args[1]);
+    // Orders
+    private static void handleCreateOrder(CLUISession session, String[] args) throws Exception {
+        String restaurantName = args[0];
+        String orderId = args[1];
 
         // Find restaurant by name
-        Restaurant restaurant = (Restaurant) system.getUsers().stream()
-            .filter(u -> u instanceof Restaurant && u.getName().equals(restaurantName))
-            .findFirst()
-            .orElseThrow(() -> new Exception("Restaurant not found: " + restaurantName));
+        Restaurant restaurant = system.getUserRegistry().findRestaurantByName(restaurantName)
+            .orElseThrow(() -> new CommandException("Restaurant not found: " + restaurantName));
 
         // Get the current customer
-        Customer customer = (Customer) system.getUsers().stream()
-            .filter(u -> u instanceof Customer && u.getUsername().equals(currentUser))
-            .findFirst()
-            .orElseThrow(() -> new Exception("Customer not found"));
-        
+        Customer customer = session.user(Customer.class)
+            .orElseThrow(() -> new CommandException("Customer not found"));
+
         // Create new order
         Order order = new Order(customer, restaurant, null, new ArrayList<>(), new ArrayList<>());
-        system.placeOrder(order);
-        System.out.println("Created order: " + orderId + " at restaurant: " + restaurantName);
+        system.placeOrder(order, orderId);
+        session.out().println("Created order: " + orderId + " at restaurant: " + restaurantName);
     }
 
-    private static String handleAddItemToOrder(String[] args) throws Exception {
-        if (args.length != 2) {
-            throw new Exception("Invalid arguments. Usage: addItem2Order <orderId> <itemName>");
-        }
-        
+    private static void handleAddItemToOrder(CLUISession session, String[] args) throws Exception {
         String orderId = args[0];
         String itemName = args[1];
-        
+
         // Find the order
-        Order order = system.getCompletedOrders().stream()
-            .filter(o -> o.getOrderId().equals(orderId))
-            .findFirst()
-            .orElseThrow(() -> new Exception("Order not found: " + orderId));
-        
-        // Find the menu item
-        MenuItem menuItem = order.getRestaurant().getMenu().getItems().stream()
-            .filter(item -> item.getName().equals(itemName))
-            .findFirst()
-            .orElseThrow(() -> new Exception("Item not found in restaurant menu: " + itemName));
-        
-        order.getItems().add(menuItem);
-        return "Added item to order: " + itemName;
-    }
+        Order order = findActiveOrder(orderId);
 
-    private static void handleEndOrder(String[] args) throws Exception {
-        if (currentUserType != UserType.CUSTOMER) {
-            throw new Exception("Only customers can end orders");
-        }
+        // Find the menu item
+        MenuItem menuItem = order.getRestaurant().getMenu().findItem(itemName)
+            .orElseThrow(() -> new CommandException("Item not found in restaurant menu: " + itemName));
 
-        if (args.length != 2) {
-            throw new Exception("EndOrder requires order ID and date (YYYY-MM-DD)");
-        }
+        order.addItem(menuItem);
+    }
 
-        String orderId = removeQuotes(args[0]);
-        String dateStr = removeQuotes(args[1]);
-        LocalDate date = parseDate(dateStr);
+    private static void handleEndOrder(CLUISession session, Named<LocalDate> args) throws Exception {
+        String orderId = args.name();
 
         // Find the order
-        Order order = system.getCompletedOrders().stream()
-            .filter(o -> o.getOrderId().equals(orderId))
-            .findFirst()
-            .orElseThrow(() -> new Exception("Order not found: " + orderId));
+        Order order = findActiveOrder(orderId);
 
         order.setStatus(Order.OrderStatus.READY_FOR_DELIVERY);
         system.completeOrder(order);
-        
-        System.out.println("Order completed: " + orderId);
-    }
 
-    private static void handleOnDuty(String[] args) throws Exception {
-        if (currentUserType != UserType.COURIER) {
-            throw new Exception("Only couriers can change duty status");
-        }
-
-        if (args.length != 1) {
-            throw new Exception("Setting duty status requires courier username");
-        }
-
-        String username = args[0];
-        Courier courier = (Courier) system.getUsers().stream()
-            .filter(u -> u instanceof Courier && u.getUsername().equals(username))
-            .findFirst()
-            .orElseThrow(() -> new Exception("Courier not found"));
-
-        courier.setOnDuty(true);
-        System.out.println("Courier " + username + " is now on duty");
+        session.out().println("Order completed: " + orderId);
     }
 
-    private static void handleOffDuty(String[] args) throws Exception {
-        if (currentUserType != UserType.COURIER) {
-            throw new Exception("Only couriers can change duty status");
-        }
-
-        if (args.length != 1) {
-            throw new Exception("Setting duty status requires courier username");
-        }
+    // Couriers
+    private static void handleDutyChange(CLUISession session, String username, boolean onDuty) throws Exception {
+        Courier courier = system.getUserRegistry().findByUsername(username, Courier.class)
+            .orElseThrow(() -> new CommandException("Courier not found"));
 
-        String username = args[0];
-        Courier courier = (Courier) system.getUsers().stream()
-            .filter(u -> u instanceof Courier && u.getUsername().equals(username))
-            .findFirst()
-            .orElseThrow(() -> new Exception("Courier not found"));
+        courier.setOnDuty(onDuty);
+        session.out().println("Courier " + username + " is now " + (onDuty ? "on" : "off") + " duty");
+    }
 
-        courier.setOnDuty(false);
-        System.out.println("Courier " + username + " is now off duty");
+    // Policies
+    private static Named<DeliveryPolicy> parseDeliveryPolicy(String[] args) throws Exception {
+        String policy = removeQuotes(args[0]).toLowerCase();
+        DeliveryPolicy newPolicy = switch (policy) {
+            case "fastest" -> new FastestDeliveryPolicy();
+            case "fair" -> new FairOccupationPolicy();
+            default -> throw new CommandException("Invalid delivery policy. Must be one of: fastest, fair");
+        };
+        return new Named<>(policy, newPolicy);
     }
 
-    private static void handleSetDeliveryPolicy(String[] args) throws Exception {
-        if (currentUserType != UserType.MANAGER) {
-            throw new Exception("Only managers can set delivery policy");
-        }
+    private static void handleSetDeliveryPolicy(CLUISession session, Named<DeliveryPolicy> policy) throws Exception {
+        Manager manager = session.user(Manager.class)
+            .orElseThrow(() -> new CommandException("Current user is not a manager"));
 
-        if (args.length != 1) {
-            throw new Exception("SetDeliveryPolicy requires policy name");
-        }
+        manager.determineDeliveryPolicy(policy.value());
+        session.out().println("Delivery policy set to: " + policy.name());
+    }
 
+    private static Named<TargetProfitPolicy> parseProfitPolicy(String[] args) throws Exception {
         String policy = removeQuotes(args[0]).toLowerCase();
-        DeliveryPolicy newPolicy;
-        
-        switch (policy) {
-            case "fastest":
-                newPolicy = new FastestDeliveryPolicy();
-                break;
-            case "fair":
-                newPolicy = new FairOccupationPolicy();
-                break;
-            default:
-                throw new Exception("Invalid delivery policy. Must be one of: fastest, fair");
-        }
-        
-        Manager manager = (Manager) system.getUsers().stream()
-            .filter(u -> u instanceof Manager && u.getUsername().equals(currentUser))
-            .findFirst()
-            .orElseThrow(() -> new Exception("Current user is not a manager"));
-            
-        manager.determineDeliveryPolicy(newPolicy);
-        System.out.println("Delivery policy set to: " + policy);
+        TargetProfitPolicy newPolicy = switch (policy) {
+            case "targeted" -> new TargetProfitByServiceFee();
+            case "markup" -> new TargetProfitByMarkup();
+            default -> throw new CommandException("Invalid profit policy. Must be one of: targeted, markup");
+        };
+        return new Named<>(policy, newPolicy);
     }
 
-    private static void handleSetProfitPolicy(String[] args) throws Exception {
-        if (currentUserType != UserType.MANAGER) {
-            throw new Exception("Only managers can set profit policy");
-        }
+    private static void handleSetProfitPolicy(CLUISession session, Named<TargetProfitPolicy> policy) {
+        system.setTargetProfitPolicy(policy.value());
+        session.out().println("Profit policy set to: " + policy.name());
+    }
 
-        if (args.length != 1) {
-            throw new Exception("SetProfitPolicy requires policy name");
-        }
+    private static void handleHelp(CLUISession session) {
+        PrintStream out = session.out();
+        out.println("Available commands:");
+        out.println("  login <username> <password>");
+        out.println("  logout");
+        out.println("  registerRestaurant <name> <location> <username> <password>");
+        out.println("  registerCustomer <firstName> <lastName> <username> <address> <password>");
+        out.println("  registerCourier <firstName> <lastName> <username> <position> <password>");
+        out.println("  addDishRestaurantMenu <dishName> <category> <foodType> <unitPrice>");
+        out.println("  createOrder <restaurantName> <orderName>");
+        out.println("  addItem2Order <orderName> <itemName>");
+        out.println("  endOrder <orderName> <date>");
+        out.println("  onDuty <username>");
+        out.println("  offDuty <username>");
+        out.println("  setDeliveryPolicy <policy>");
+        out.println("  setProfitPolicy <policy>");
+        out.println("  help");
+    }
 
-        String policy = removeQuotes(args[0]).toLowerCase();
-        TargetProfitPolicy newPolicy;
-        
-        switch (policy) {
-            case "targeted":
-                newPolicy = new TargetProfitByServiceFee();
-                break;
-            case "markup":
-                newPolicy = new TargetProfitByMarkup();
-                break;
-            default:
-                throw new Exception("Invalid profit policy. Must be one of: targeted, markup");
+    // Helpers
+    private static Order findActiveOrder(String orderName) throws CommandException {
+        Order order = system.findOrder(orderName)
+            .orElseThrow(() -> new CommandException("Order not found: " + orderName));
+        if (!system.isOrderActive(order)) {
+            throw new CommandException("Order already completed: " + orderName);
         }
-        
-        system.setTargetProfitPolicy(newPolicy);
-        System.out.println("Profit policy set to: " + policy);
+        return order;
     }
 
-    private static void handleHelp() {
-        System.out.println("Available commands:");
-        System.out.println("  login <username> <password>");
-        System.out.println("  logout");
-        System.out.println("  registerRestaurant <name> <location> <username> <password>");
-        System.out.println("  registerCustomer <firstName> <lastName> <username> <address> <password>");
-        System.out.println("  registerCourier <firstName> <lastName> <username> <position> <password>");
-        System.out.println("  addDishRestaurantMenu <dishName> <category> <foodType> <unitPrice>");
-        System.out.println("  createOrder <restaurantName> <orderName>");
-        System.out.println("  addItem2Order <orderName> <itemName>");
-        System.out.println("  endOrder <orderName> <date>");
-        System.out.println("  onDuty <username>");
-        System.out.println("  offDuty <username>");
-        System.out.println("  setDeliveryPolicy <policy>");
-        System.out.println("  setProfitPolicy <policy>");
-        System.out.println("  help");
+    private static String[] unquoted(String[] args) {
+        String[] result = new String[args.length];
+        for (int i = 0; i < args.length; i++) {
+            result[i] = removeQuotes(args[i]);
+        }
+        return result;
     }
 
+    // Drops one leading and one trailing double quote
     private static String removeQuotes(String str) {
         if (str == null) return null;
-        return str.replaceAll("^\"|\"$", "");
+        int start = str.startsWith("\"") ? 1 : 0;
+        int end = str.length() > start && str.endsWith("\"") ? str.length() - 1 : str.length();
+        return start == 0 && end == str.length() ? str : str.substring(start, end);
+    }
+
+    // Parses "x,y"; the parts are parsed with Double.parseDouble
+    private static Coordinate parseCoordinate(String value, String formatError) throws CommandException {
+        int comma = value.indexOf(',');
+        if (comma < 0 || value.indexOf(',', comma + 1) >= 0) {
+            throw new CommandException(formatError);
+        }
+        return new Coordinate(Double.parseDouble(value.substring(0, comma)),
+            Double.parseDouble(value.substring(comma + 1)));
     }
 
     private static LocalDate parseDate(String dateStr) throws Exception {
         if (dateStr == null) {
-            throw new Exception("Date cannot be null");
+            throw new CommandException("Date cannot be null");
         }
         dateStr = removeQuotes(dateStr);
         try {
             return LocalDate.parse(dateStr);
         } catch (Exception e) {
-            throw new Exception("Invalid date format. Use YYYY-MM-DD format");
+            throw new CommandException("Invalid date format. Use YYYY-MM-DD format");
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,176 @@
+package com.foodora;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves the CLUI command set to many clients at once over a local TCP port
+ * or a Unix domain socket, all driving the same {@link MyFoodoraSystem}.
+ * Each connection gets its own {@link CLUISession} and its own thread.
+ * <p>
+ * Clients send one command per line, split as by {@link CommandTokenizer}.
+ * Every command is answered with its output followed by a status line,
+ * {@code OK} or {@code Error: <message>}. Sending {@code exit}, or closing
+ * the connection, ends the session.
+ */
+public class CLUIServer implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(CLUIServer.class.getName());
+
+    public static final String OK = "OK";
+
+    private final ServerSocketChannel server;
+    private final SocketAddress address;
+    private final ExecutorService sessions;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private final LongAdder sessionCount = new LongAdder();
+    private final LongAdder commandCount = new LongAdder();
+    private volatile boolean closed;
+
+    private CLUIServer(ServerSocketChannel server) throws IOException {
+        this.server = server;
+        this.address = server.getLocalAddress();
+
+        AtomicInteger threads = new AtomicInteger();
+        // Java 17 has no virtual threads: one platform thread per session, reused across sessions
+        this.sessions = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "foodora-session-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Thread acceptor = new Thread(this::acceptLoop, "foodora-clui-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Listens on a loopback TCP port; port 0 picks a free one.
+     */
+    public static CLUIServer listen(int port) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        return new CLUIServer(server);
+    }
+
+    /**
+     * Listens on a Unix domain socket, replacing a stale socket file at the path.
+     */
+    public static CLUIServer listen(Path socket) throws IOException {
+        Files.deleteIfExists(socket);
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket));
+        return new CLUIServer(server);
+    }
+
+    public SocketAddress getAddress() {
+        return address;
+    }
+
+    public int getActiveSessions() {
+        return connections.size();
+    }
+
+    /**
+     * Returns the number of sessions served since the server started.
+     */
+    public long getSessionCount() {
+        return sessionCount.sum();
+    }
+
+    public long getCommandCount() {
+        return commandCount.sum();
+    }
+
+    /**
+     * Stops accepting connections and ends every open session.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        for (SocketChannel connection : connections) {
+            connection.close();
+        }
+        sessions.shutdownNow();
+        if (address instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath());
+        }
+    }
+
+    // Sessions
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                SocketChannel connection = server.accept();
+                connections.add(connection);
+                sessionCount.increment();
+                sessions.execute(() -> serve(connection));
+            } catch (AsynchronousCloseException e) {
+                return;
+            } catch (IOException e) {
+                if (!closed) {
+                    LOGGER.log(Level.WARNING, "Failed to accept a CLUI connection", e);
+                }
+            }
+        }
+    }
+
+    private void serve(SocketChannel connection) {
+        try (connection;
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                 Channels.newInputStream(connection), StandardCharsets.UTF_8));
+             PrintStream out = new PrintStream(new BufferedOutputStream(Channels.newOutputStream(connection)),
+                 false, StandardCharsets.UTF_8)) {
+            CLUISession session = new CLUISession(out);
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] tokens = CommandTokenizer.tokenize(line);
+                if (tokens.length == 0 || tokens[0].startsWith("#")) {
+                    continue;
+                }
+                if (tokens[0].equalsIgnoreCase("exit")) {
+                    break;
+                }
+                commandCount.increment();
+                try {
+                    CLUI.executeCommand(session, tokens[0], Arrays.copyOfRange(tokens, 1, tokens.length));
+                    out.println(OK);
+                } catch (Exception e) {
+                    out.print("Error: ");
+                    out.println(e.getMessage());
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                LOGGER.log(Level.FINE, "CLUI session ended", e);
+            }
+        } finally {
+            connections.remove(connection);
+        }
+    }
+}
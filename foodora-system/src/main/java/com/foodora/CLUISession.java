@@ -0,0 +1,81 @@
+package com.foodora;
+
+import com.foodora.user.SessionStore;
+import com.foodora.user.User;
+import java.io.PrintStream;
+import java.util.Optional;
+
+/**
+ * The state of one CLUI client: who is logged in, and where command output
+ * goes. Each connection to a {@link CLUIServer} has its own session, so
+ * several users can be logged in to the same system at once.
+ * <p>
+ * Logging in opens a session in the system's {@link SessionStore}; the
+ * session keeps its token and the logged-in user, so commands check the
+ * token with one lookup and never look the user up again.
+ * <p>
+ * A session is used by one thread at a time.
+ */
+public class CLUISession {
+    enum UserType {
+        MANAGER, RESTAURANT, CUSTOMER, COURIER
+    }
+
+    private final PrintStream out;
+    private String token;
+    private User user;
+    UserType currentUserType;
+
+    /**
+     * Creates a session printing to whatever {@code System.out} is when a
+     * command runs, as the console does.
+     */
+    public CLUISession() {
+        this(null);
+    }
+
+    public CLUISession(PrintStream out) {
+        this.out = out;
+    }
+
+    public PrintStream out() {
+        return out != null ? out : System.out;
+    }
+
+    /**
+     * Returns the username logged in to this session, or null.
+     */
+    public String getCurrentUser() {
+        return user == null ? null : user.getUsername();
+    }
+
+    /**
+     * Returns the token of the session in the session store, or null when logged out.
+     */
+    public String getToken() {
+        return token;
+    }
+
+    boolean isLoggedIn() {
+        return token != null;
+    }
+
+    /**
+     * Returns the logged-in user if it has the given type.
+     */
+    <T extends User> Optional<T> user(Class<T> type) {
+        return type.isInstance(user) ? Optional.of(type.cast(user)) : Optional.empty();
+    }
+
+    void login(SessionStore.Session session, UserType type) {
+        token = session.getToken();
+        user = session.getUser();
+        currentUserType = type;
+    }
+
+    void logout() {
+        token = null;
+        user = null;
+        currentUserType = null;
+    }
+}
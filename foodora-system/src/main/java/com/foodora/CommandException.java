@@ -0,0 +1,15 @@
+package com.foodora;
+
+/**
+ * A command the CLUI rejects: wrong arguments, wrong role, or an operation
+ * that cannot be carried out. The message is shown to the user as is.
+ * These are expected and frequent with scripted clients, so no stack trace
+ * is captured.
+ */
+public class CommandException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public CommandException(String message) {
+        super(message, null, false, false);
+    }
+}
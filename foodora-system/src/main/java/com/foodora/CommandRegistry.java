@@ -0,0 +1,113 @@
+package com.foodora;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The CLUI's commands, each declared once with its names, the role allowed
+ * to run it, its number of arguments and how its arguments are parsed.
+ * Running a command looks it up by name, ignoring case, checks the role and
+ * then the argument count, parses the arguments and runs the action with
+ * the parsed value. Checks that fail throw a {@link CommandException}.
+ * Commands restricted to a role also need the session's token to be valid
+ * in the system's {@link com.foodora.user.SessionStore}.
+ */
+final class CommandRegistry {
+    // Any number of arguments
+    static final int ANY = -1;
+
+    @FunctionalInterface
+    interface Parser<A> {
+        A parse(String[] args) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface Action<A> {
+        void run(CLUISession session, A args) throws Exception;
+    }
+
+    // Case-insensitive lookup without lowercasing, and so without copying, the name
+    private final Map<String, Command<?>> commands = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * Starts declaring a command under one or more names.
+     */
+    Declaration<String[]> command(String... names) {
+        return new Declaration<>(names, null, null, ANY, null, args -> args);
+    }
+
+    void execute(CLUISession session, String name, String[] args) throws Exception {
+        Command<?> command = commands.get(name);
+        if (command == null) {
+            throw new CommandException("Unknown command: " + name.toLowerCase());
+        }
+        command.execute(session, args);
+    }
+
+    /**
+     * A command being declared; {@link #run(Action)} completes and registers it.
+     */
+    final class Declaration<A> {
+        private final String[] names;
+        private final CLUISession.UserType role;
+        private final String roleError;
+        private final int arity;
+        private final String arityError;
+        private final Parser<A> parser;
+
+        private Declaration(String[] names, CLUISession.UserType role, String roleError, int arity,
+                            String arityError, Parser<A> parser) {
+            this.names = names;
+            this.role = role;
+            this.roleError = roleError;
+            this.arity = arity;
+            this.arityError = arityError;
+            this.parser = parser;
+        }
+
+        /**
+         * Only sessions logged in with the given role may run the command.
+         */
+        Declaration<A> role(CLUISession.UserType role, String error) {
+            return new Declaration<>(names, role, error, arity, arityError, parser);
+        }
+
+        Declaration<A> arity(int arity, String error) {
+            return new Declaration<>(names, role, roleError, arity, error, parser);
+        }
+
+        <B> Declaration<B> parse(Parser<B> parser) {
+            return new Declaration<>(names, role, roleError, arity, arityError, parser);
+        }
+
+        CommandRegistry run(Action<A> action) {
+            Command<A> command = new Command<>(role, roleError, arity, arityError, parser, action);
+            for (String name : names) {
+                if (commands.putIfAbsent(name, command) != null) {
+                    throw new IllegalStateException("Command declared twice: " + name);
+                }
+            }
+            return CommandRegistry.this;
+        }
+    }
+
+    private record Command<A>(CLUISession.UserType role, String roleError, int arity, String arityError,
+                              Parser<A> parser, Action<A> action) {
+        void execute(CLUISession session, String[] args) throws Exception {
+            if (role != null) {
+                if (session.isLoggedIn()
+                        && MyFoodoraSystem.getInstance().getSessions().resolve(session.getToken()).isEmpty()) {
+                    session.logout();
+                    throw new CommandException("Session expired, please log in again");
+                }
+                if (session.currentUserType != role) {
+                    throw new CommandException(roleError);
+                }
+            }
+            if (arity != ANY && args.length != arity) {
+                throw new CommandException(arityError);
+            }
+            action.run(session, parser.parse(args));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.foodora;
+
+import java.util.Arrays;
+
+/**
+ * Splits a command line into its command and arguments in a single pass,
+ * without regular expressions.
+ * {@link #tokenize(String)} separates tokens by whitespace. Text in double
+ * quotes is taken as is, spaces included, and the quotes are dropped, so
+ * {@code "Le Bistro"} is one argument. A quote left open runs to the end of
+ * the line. {@link #split(String)} only splits on whitespace, keeping quotes
+ * in the tokens, as the console and scenario files always have.
+ */
+final class CommandTokenizer {
+    private static final String[] NO_TOKENS = new String[0];
+
+    private CommandTokenizer() {
+    }
+
+    static String[] tokenize(String line) {
+        String[] tokens = NO_TOKENS;
+        int count = 0;
+        StringBuilder token = null;
+        boolean inToken = false;
+        boolean quoted = false;
+        int start = 0;  // Start of the unquoted run being read
+
+        int length = line.length();
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (token == null) {
+                    token = new StringBuilder();
+                }
+                // Keep the text read since the last quote or the start of the token
+                token.append(line, start, i);
+                quoted = !quoted;
+                inToken = true;
+                start = i + 1;
+            } else if (!quoted && Character.isWhitespace(c)) {
+                if (inToken) {
+                    tokens = add(tokens, count++, finish(token, line, start, i));
+                    token = null;
+                    inToken = false;
+                }
+                start = i + 1;
+            } else if (!inToken) {
+                inToken = true;
+                start = i;
+            }
+        }
+        if (inToken) {
+            tokens = add(tokens, count++, finish(token, line, start, length));
+        }
+        return count == tokens.length ? tokens : Arrays.copyOf(tokens, count);
+    }
+
+    /**
+     * Splits on runs of whitespace, like {@code line.trim().split("\\s+")}.
+     */
+    static String[] split(String line) {
+        String[] tokens = NO_TOKENS;
+        int count = 0;
+        int start = -1;  // Start of the token being read, if any
+
+        int length = line.length();
+        for (int i = 0; i < length; i++) {
+            if (isSpace(line.charAt(i))) {
+                if (start >= 0) {
+                    tokens = add(tokens, count++, line.substring(start, i));
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        if (start >= 0) {
+            tokens = add(tokens, count++, line.substring(start));
+        }
+        return count == tokens.length ? tokens : Arrays.copyOf(tokens, count);
+    }
+
+    // The characters matched by \s
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // Unquoted tokens are substrings of the line; quoted ones are assembled in the builder
+    private static String finish(StringBuilder token, String line, int start, int end) {
+        if (token == null) {
+            return line.substring(start, end);
+        }
+        return token.append(line, start, end).toString();
+    }
+
+    private static String[] add(String[] tokens, int index, String token) {
+        if (index == tokens.length) {
+            tokens = Arrays.copyOf(tokens, Math.max(8, index * 2));
+        }
+        tokens[index] = token;
+        return tokens;
+    }
+}
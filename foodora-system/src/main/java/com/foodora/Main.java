@@ -1,21 +1,73 @@
 package com.foodora;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Scanner;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
 
 public class Main {
+    // Directory holding the journal and snapshots; persistence is off when unset
+    private static final String DATA_DIR_PROPERTY = "foodora.dataDir";
+    // Age in days after which completed orders move to the archive under the data directory
+    private static final String ARCHIVE_DAYS_PROPERTY = "foodora.archiveAfterDays";
+
     public static void main(String[] args) {
+        // Deliver the special offers still queued before the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(MyFoodoraSystem.getInstance().getNotifications()::close));
+        enablePersistence();
         if (args.length > 0 && args[0].equals("runTest")) {
             if (args.length != 2) {
                 System.err.println("Usage: runTest <test-scenario-file>");
                 System.exit(1);
             }
             runTestScenario(args[1]);
+        } else if (args.length > 0 && args[0].equals("runBatch")) {
+            boolean quiet = args.length == 3 && args[2].equals("--quiet");
+            if (args.length != 2 && !quiet) {
+                System.err.println("Usage: runBatch <scenario-file> [--quiet]");
+                System.exit(1);
+            }
+            runBatch(args[1], quiet);
+        } else if (args.length > 0 && args[0].equals("serve")) {
+            if (args.length != 2) {
+                System.err.println("Usage: serve <port | unix-socket-path>");
+                System.exit(1);
+            }
+            serve(args[1]);
         } else {
             runInteractiveMode();
         }
     }
 
+    private static void enablePersistence() {
+        String dataDir = System.getProperty(DATA_DIR_PROPERTY);
+        if (dataDir == null) {
+            return;
+        }
+        MyFoodoraSystem system = MyFoodoraSystem.getInstance();
+        try {
+            system.enablePersistence(Paths.get(dataDir));
+            String archiveDays = System.getProperty(ARCHIVE_DAYS_PROPERTY);
+            if (archiveDays != null) {
+                system.enableArchive(Paths.get(dataDir, "archive"), Duration.ofDays(Long.parseLong(archiveDays)));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error restoring state from " + dataDir + ": " + e.getMessage());
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            system.disableArchive();
+            system.disablePersistence();
+        }));
+    }
+
     private static void runTestScenario(String testFile) {
         try {
             // Create output file name based on input file
@@ -51,6 +103,99 @@ public class Main {
         }
     }
 
+    /**
+     * Replays a scenario file as fast as possible. Commands are split with
+     * {@link CommandTokenizer}, so quoted arguments may contain spaces. All
+     * output, errors and log records included, goes in order through one
+     * buffered stream to the output file; with {@code quiet}, commands are not
+     * echoed and only warnings are logged. The console only gets the
+     * throughput at the end.
+     */
+    static void runBatch(String scenarioFile, boolean quiet) {
+        String outputFile = scenarioFile.replace(".txt", "output.txt");
+        PrintStream console = System.out;
+        long commands = 0;
+        long errors = 0;
+        long start = System.nanoTime();
+        Logger logger = Logger.getLogger("com.foodora");
+        Level level = logger.getLevel();
+        boolean useParentHandlers = logger.getUseParentHandlers();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(scenarioFile), StandardCharsets.UTF_8);
+             PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(outputFile), 1 << 16),
+                 false, StandardCharsets.UTF_8)) {
+            System.setOut(out);
+            // Logs would otherwise go unbuffered to the console, one write per record
+            Handler handler = new PrintStreamHandler(out);
+            logger.addHandler(handler);
+            logger.setUseParentHandlers(false);
+            if (quiet) {
+                logger.setLevel(Level.WARNING);
+            }
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    if (!quiet) {
+                        out.print("> ");
+                        out.println(line);
+                    }
+                    commands++;
+                    try {
+                        execute(CommandTokenizer.tokenize(line));
+                    } catch (Exception e) {
+                        errors++;
+                        out.print("Error: ");
+                        out.println(e.getMessage());
+                    }
+                }
+            } finally {
+                logger.removeHandler(handler);
+                logger.setUseParentHandlers(useParentHandlers);
+                logger.setLevel(level);
+                System.setOut(console);
+            }
+        } catch (IOException e) {
+            System.err.println("Error running batch: " + e.getMessage());
+            System.exit(1);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        console.println(String.format("Batch completed: %d commands (%d errors) in %.3f s, %.0f commands/s. Output saved to: %s",
+            commands, errors, seconds, commands / Math.max(seconds, 1e-9), outputFile));
+    }
+
+    /**
+     * Serves CLUI sessions on a loopback port, or on a Unix domain socket when
+     * the argument is not a number, until the JVM is stopped.
+     */
+    private static void serve(String endpoint) {
+        CLUIServer server;
+        try {
+            server = endpoint.chars().allMatch(Character::isDigit)
+                ? CLUIServer.listen(Integer.parseInt(endpoint))
+                : CLUIServer.listen(Paths.get(endpoint));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error starting CLUI server on " + endpoint + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        System.out.println("MyFoodora CLUI server listening on " + server.getAddress());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                System.err.println("Error stopping CLUI server: " + e.getMessage());
+            }
+        }));
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private static void runInteractiveMode() {
         Scanner scanner = new Scanner(System.in);
         System.out.println("Welcome to MyFoodora System!");
@@ -75,21 +220,51 @@ public class Main {
 
     private static void executeCommand(String line) {
         try {
-            String[] parts = line.split("\\s+");
-            if (parts.length == 0) {
-                return;
-            }
-            
-            String command = parts[0];
-            String[] commandArgs = new String[parts.length - 1];
-            System.arraycopy(parts, 1, commandArgs, 0, parts.length - 1);
-            
-            CLUI.executeCommand(command, commandArgs);
+            execute(CommandTokenizer.split(line));
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
         }
     }
 
+    // Runs a tokenized command line: the command followed by its arguments
+    private static void execute(String[] parts) throws Exception {
+        if (parts.length == 0) {
+            return;
+        }
+        String command = parts[0];
+        String[] commandArgs = new String[parts.length - 1];
+        System.arraycopy(parts, 1, commandArgs, 0, parts.length - 1);
+
+        CLUI.executeCommand(command, commandArgs);
+    }
+
+    // Log handler writing formatted records to a stream, interleaved with the other output
+    private static class PrintStreamHandler extends Handler {
+        private final PrintStream out;
+
+        PrintStreamHandler(PrintStream out) {
+            this.out = out;
+            setFormatter(new SimpleFormatter());
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            if (isLoggable(record)) {
+                out.print(getFormatter().format(record));
+            }
+        }
+
+        @Override
+        public void flush() {
+            out.flush();
+        }
+
+        @Override
+        public void close() {
+            // The stream belongs to the batch run
+        }
+    }
+
     // Helper class to output to multiple streams
     private static class MultiOutputStream extends PrintStream {
         private final PrintStream second;
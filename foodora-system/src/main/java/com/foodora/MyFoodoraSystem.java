@@ -1,13 +1,43 @@
 package com.foodora;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import com.foodora.analytics.CompletedOrderLedger;
+import com.foodora.analytics.DispatchMetrics;
+import com.foodora.analytics.FinancialAggregates;
+import com.foodora.analytics.NotificationMetrics;
+import com.foodora.analytics.OrderPopularityIndex;
+import com.foodora.analytics.TimeWindowAnalytics;
+import com.foodora.notification.NotificationDispatcher;
+import com.foodora.notification.SubscriptionIndex;
+import com.foodora.persistence.OrderArchive;
+import com.foodora.persistence.PersistenceManager;
+import com.foodora.persistence.StateJournal;
+import com.foodora.policy.delivery.BatchDeliveryPolicy;
+import com.foodora.policy.delivery.CourierIndex;
 import com.foodora.policy.delivery.DeliveryPolicy;
 import com.foodora.policy.delivery.FastestDeliveryPolicy;
+import com.foodora.policy.delivery.MinTotalDistanceBatchPolicy;
 import com.foodora.policy.target.TargetProfitPolicy;
 import com.foodora.policy.target.TargetProfitByServiceFee;
 import com.foodora.policy.order.OrderSortingPolicy;
@@ -15,185 +45,663 @@ import com.foodora.policy.order.MostOrderedHalfMealPolicy;
 import com.foodora.user.*;
 import com.foodora.model.*;
 
+/**
+ * Core of the MyFoodora system: users, orders, fees and policies.
+ * The system is safe for concurrent use. Users and orders live in concurrent
+ * collections, fees are published as one immutable snapshot, and policies are
+ * swapped through volatile fields, so placeOrder, completeOrder, addUser and
+ * removeUser can run from many threads without a system-wide lock.
+ */
 public class MyFoodoraSystem {
-    private static MyFoodoraSystem instance;
+    private static final Logger LOGGER = Logger.getLogger(MyFoodoraSystem.class.getName());
+
+    public static final Duration DEFAULT_ARCHIVE_INTERVAL = Duration.ofMinutes(1);
+
+    // Lazily created, thread-safe singleton (initialization-on-demand holder)
+    private static class Holder {
+        private static final MyFoodoraSystem INSTANCE = new MyFoodoraSystem();
+    }
+
+    // Immutable fee snapshot, replaced as a whole so readers never see a mix
+    private record Fees(double serviceFee, double markupPercentage, double deliveryCost) {}
 
     // System state
-    private List<User> users;
-    private List<Order> orders;
-    private List<Order> completedOrders; 
+    private final UserRegistry userRegistry;
+    private final SessionStore sessions;
+    private final CourierIndex courierIndex;
+    private final OrderIndex orderIndex;
+    private final Queue<Order> completedOrders;
+    private final FinancialAggregates financials;
+    private final CompletedOrderLedger ledger;
+    private final OrderPopularityIndex orderPopularity;
+    private volatile TimeWindowAnalytics timeWindows;
+    private final DispatchMetrics singleDispatchMetrics;
+    private final DispatchMetrics batchDispatchMetrics;
+    private final SubscriptionIndex subscriptions;
+    private final NotificationDispatcher notifications;
 
-    private double serviceFee;
-    private double markupPercentage;
-    private double deliveryCost;
+    private volatile Fees fees;
+    private volatile StateJournal journal = StateJournal.NONE;
+    private volatile OrderArchive archive;
+    private volatile Duration archiveRetention;
+    private ScheduledExecutorService archiveScheduler;
 
-    private DeliveryPolicy deliveryPolicy;
-    private TargetProfitPolicy targetProfitPolicy;
-    private OrderSortingPolicy orderSortingPolicy;
+    private volatile DeliveryPolicy deliveryPolicy;
+    private volatile BatchDeliveryPolicy batchDeliveryPolicy;
+    private volatile TargetProfitPolicy targetProfitPolicy;
+    private volatile OrderSortingPolicy orderSortingPolicy;
+    private volatile boolean autoFollow;
 
     private MyFoodoraSystem() {
-        // Initialize lists
-        users = new ArrayList<>();
-        orders = new ArrayList<>();
-        completedOrders = new ArrayList<>();
+        // Initialize registry and concurrent collections
+        userRegistry = new UserRegistry();
+        sessions = new SessionStore(userRegistry);
+        courierIndex = new CourierIndex(CourierIndex.DEFAULT_CELL_SIZE, userRegistry::contains);
+        orderIndex = new OrderIndex();
+        completedOrders = new ConcurrentLinkedQueue<>();
+        financials = new FinancialAggregates();
+        ledger = new CompletedOrderLedger();
+        orderPopularity = new OrderPopularityIndex();
+        singleDispatchMetrics = new DispatchMetrics();
+        batchDispatchMetrics = new DispatchMetrics();
+        subscriptions = new SubscriptionIndex();
+        notifications = new NotificationDispatcher(subscriptions::recipients);
 
-        // Initialize default fees
-        serviceFee = 5.0;  // Default service fee
-        markupPercentage = 0.1;  // Default 10% markup
-        deliveryCost = 10.0;  // Default delivery cost
+        applyDefaults();
+    }
+
+    private void applyDefaults() {
+        // Initialize default fees: 5.0 service fee, 10% markup, 10.0 delivery cost
+        fees = new Fees(5.0, 0.1, 10.0);
 
         // Initialize default policies
         deliveryPolicy = new FastestDeliveryPolicy();  // Default to fastest delivery
+        batchDeliveryPolicy = new MinTotalDistanceBatchPolicy();  // Default batch assignment
         targetProfitPolicy = new TargetProfitByServiceFee();  // Default profit optimization strategy
         orderSortingPolicy = new MostOrderedHalfMealPolicy();  // Default sorting strategy
+        autoFollow = true;  // Customers follow the restaurants they order from
+
+        // Default windows: one day of one-minute buckets
+        timeWindows = new TimeWindowAnalytics();
+    }
+
+    /**
+     * Clears all users and orders and restores the default fees and policies.
+     * Persistence and archiving are disabled first, so the persisted state is
+     * left untouched. Intended for tests and scenario replays that need a fresh system.
+     */
+    public void reset() {
+        disablePersistence();
+        disableArchive();
+        userRegistry.clear();
+        sessions.clear();
+        courierIndex.clear();
+        orderIndex.clear();
+        completedOrders.clear();
+        financials.clear();
+        ledger.clear();
+        orderPopularity.clear();
+        singleDispatchMetrics.reset();
+        batchDispatchMetrics.reset();
+        subscriptions.clear();
+        notifications.clear();
+        applyDefaults();
     }
 
     // Singleton pattern
     public static MyFoodoraSystem getInstance() {
-        if (instance == null) {
-            instance = new MyFoodoraSystem();
+        return Holder.INSTANCE;
+    }
+
+    // Persistence
+    /**
+     * Replaces the current state with the state persisted in a directory, then
+     * journals every change to it. Commits are forced to disk and a snapshot
+     * is written every {@link PersistenceManager#DEFAULT_SNAPSHOT_INTERVAL} records.
+     */
+    public PersistenceManager enablePersistence(Path directory) throws IOException {
+        return enablePersistence(directory, true, PersistenceManager.DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Replaces the current state with the state persisted in a directory, then
+     * journals every change to it.
+     * @param fsync whether commits are forced to the storage device
+     * @param snapshotInterval number of journal records between automatic snapshots
+     */
+    public synchronized PersistenceManager enablePersistence(Path directory, boolean fsync, long snapshotInterval)
+            throws IOException {
+        reset();
+        PersistenceManager persistence = PersistenceManager.open(this, directory, fsync, snapshotInterval);
+        journal = persistence;
+        return persistence;
+    }
+
+    /**
+     * Stops journaling changes and closes the journal, if persistence is enabled.
+     */
+    public synchronized void disablePersistence() {
+        StateJournal current = journal;
+        journal = StateJournal.NONE;
+        if (current instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to close the journal", e);
+            }
+        }
+    }
+
+    /**
+     * Returns the journal receiving state changes; {@link StateJournal#NONE} when
+     * persistence is disabled.
+     */
+    public StateJournal getJournal() {
+        return journal;
+    }
+
+    // Archive of old completed orders
+    /**
+     * Moves completed orders older than the retention out of the heap into an
+     * archive in a directory, now and then every {@link #DEFAULT_ARCHIVE_INTERVAL}.
+     * @see #enableArchive(Path, Duration, Duration)
+     */
+    public OrderArchive enableArchive(Path directory, Duration retention) throws IOException {
+        return enableArchive(directory, retention, DEFAULT_ARCHIVE_INTERVAL);
+    }
+
+    /**
+     * Moves completed orders created more than {@code retention} ago out of the
+     * heap into an archive in a directory, now and then every {@code checkInterval}.
+     * Orders already in the archive that are not in memory are added to the
+     * aggregates, the ledger and the popularity index, so call this after
+     * {@link #enablePersistence} when both are used.
+     * <p>
+     * Archived orders are no longer returned by {@link #getCompletedOrders()}
+     * or written to snapshots, but still count in every aggregate and can be
+     * found by id with {@link #findOrder}.
+     */
+    public synchronized OrderArchive enableArchive(Path directory, Duration retention, Duration checkInterval)
+            throws IOException {
+        if (retention.isNegative()) {
+            throw new IllegalArgumentException("Retention cannot be negative");
+        }
+        if (checkInterval.isNegative() || checkInterval.isZero()) {
+            throw new IllegalArgumentException("Check interval must be positive");
+        }
+        disableArchive();
+        OrderArchive opened = OrderArchive.open(directory);
+        opened.forEach(this::resolveUser, order -> {
+            // Orders restored from a snapshot or the journal are already counted
+            if (orderIndex.findById(order.getOrderId()).isEmpty()) {
+                financials.record(order);
+                ledger.append(order);
+                orderPopularity.record(order);
+            }
+        });
+        archive = opened;
+        archiveRetention = retention;
+        archiveCompletedOrders();
+
+        archiveScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "foodora-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = checkInterval.toMillis();
+        archiveScheduler.scheduleWithFixedDelay(this::archiveInBackground, interval, interval, TimeUnit.MILLISECONDS);
+        return opened;
+    }
+
+    /**
+     * Stops archiving and closes the archive, if archiving is enabled. Orders
+     * archived so far stay counted in the aggregates but can no longer be looked up.
+     */
+    public synchronized void disableArchive() {
+        if (archiveScheduler != null) {
+            archiveScheduler.shutdown();
+            archiveScheduler = null;
+        }
+        OrderArchive current = archive;
+        archive = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * Moves the completed orders created before the retention cutoff to the
+     * archive, then drops them from memory.
+     * @return the number of orders dropped from memory; 0 if archiving is disabled
+     */
+    public synchronized int archiveCompletedOrders() throws IOException {
+        OrderArchive current = archive;
+        if (current == null) {
+            return 0;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(archiveRetention);
+        List<Order> expired = new ArrayList<>();
+        for (Order order : completedOrders) {
+            if (order.getCreatedAt().isBefore(cutoff)) {
+                expired.add(order);
+            }
+        }
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        // Orders restored from a journal written before they were archived are already on disk
+        List<Order> fresh = new ArrayList<>();
+        for (Order order : expired) {
+            if (!current.contains(order.getOrderId())) {
+                fresh.add(order);
+            }
+        }
+        current.append(fresh, order -> orderIndex.nameOf(order).orElse(null));
+
+        Set<Order> archived = Collections.newSetFromMap(new IdentityHashMap<>());
+        archived.addAll(expired);
+        completedOrders.removeIf(archived::contains);
+        for (Order order : expired) {
+            orderIndex.remove(order);
+        }
+        return expired.size();
+    }
+
+    /**
+     * Returns the archive of old completed orders, or null if archiving is disabled.
+     */
+    public OrderArchive getArchive() {
+        return archive;
+    }
+
+    private void archiveInBackground() {
+        try {
+            int archived = archiveCompletedOrders();
+            if (archived > 0) {
+                LOGGER.info(String.format("Archived %d completed orders", archived));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to archive completed orders", e);
         }
-        return instance;
+    }
+
+    private User resolveUser(String id) {
+        return userRegistry.findById(id).orElse(null);
     }
 
     // User management
     public void addUser(User user) {
-        users.add(user);
+        userRegistry.add(user);
+        if (user instanceof Courier courier) {
+            courierIndex.refresh(courier);
+        } else if (user instanceof Customer customer) {
+            subscriptions.register(customer);
+        }
+        journal.userAdded(user);
     }
 
     public void removeUser(User user) {
-        users.remove(user);
+        if (userRegistry.remove(user)) {
+            sessions.invalidate(user);
+            if (user instanceof Courier courier) {
+                courierIndex.refresh(courier);
+            } else if (user instanceof Customer customer) {
+                subscriptions.unregister(customer);
+            } else if (user instanceof Restaurant restaurant) {
+                subscriptions.unregister(restaurant);
+            }
+            journal.userRemoved(user);
+        }
+    }
+
+    /**
+     * Called by a courier whenever its duty status, location or delivered orders change,
+     * to keep the courier index in sync.
+     */
+    public void courierUpdated(Courier courier) {
+        courierIndex.refresh(courier);
     }
 
     // set Fees
     public void setFees(double serviceFee, double markupPercentage, double deliveryCost) {
-        this.serviceFee = serviceFee;
-        this.markupPercentage = markupPercentage;
-        this.deliveryCost = deliveryCost;
+        this.fees = new Fees(serviceFee, markupPercentage, deliveryCost);
+        journal.feesChanged(serviceFee, markupPercentage, deliveryCost);
     }
 
     // Getters for fees
     public double getServiceFee() { 
-        return serviceFee; 
+        return fees.serviceFee(); 
     }
 
     public double getMarkupPercentage() {
-        return markupPercentage; 
+        return fees.markupPercentage(); 
     }
 
     public double getDeliveryCost() { 
-        return deliveryCost; 
+        return fees.deliveryCost(); 
     }
 
     // Order management
+    /**
+     * Places an order and binds a client-supplied name to it, so later commands
+     * can refer to the order by that name.
+     * @throws IllegalArgumentException if the name is already used by an active order
+     */
+    public void placeOrder(Order order, String orderName) {
+        assignCourier(order);
+        try {
+            orderIndex.bindName(orderName, order);
+        } catch (IllegalArgumentException e) {
+            orderIndex.remove(order);
+            throw e;
+        }
+        journal.orderPlaced(order, orderName);
+        timeWindows.recordPlaced(order);
+    }
+
     public void placeOrder(Order order) {
+        assignCourier(order);
+        journal.orderPlaced(order, null);
+        timeWindows.recordPlaced(order);
+    }
+
+    private void assignCourier(Order order) {
         // Allocate courier based on current delivery policy
-        Courier courier = deliveryPolicy.selectCourier(
-            users.stream()
-                .filter(u -> u instanceof Courier)
-                .map(u -> (Courier) u)
-                .collect(Collectors.toList()),
-            order
-        );
+        long start = System.nanoTime();
+        Courier courier = deliveryPolicy.selectCourier(courierIndex, order);
+        long latency = System.nanoTime() - start;
         
         if (courier != null) {
             order.setCourier(courier);
-            orders.add(order);
+            orderIndex.addActive(order);
+            singleDispatchMetrics.record(order, latency);
         } else {
             throw new RuntimeException("No available courier found for the order");
         }
     }
 
+    /**
+     * Places a batch of pending orders at once, assigning couriers with the
+     * batch delivery policy so the assignment is optimised over the whole batch.
+     * @return the orders that could not be assigned a courier; they are not placed
+     */
+    public List<Order> placeOrders(List<Order> orders) {
+        long start = System.nanoTime();
+        Map<Order, Courier> assignment = batchDeliveryPolicy.assignCouriers(orders, courierIndex);
+        long latency = System.nanoTime() - start;
+
+        List<Order> unassigned = new ArrayList<>();
+        for (Order order : orders) {
+            Courier courier = assignment.get(order);
+            if (courier == null) {
+                unassigned.add(order);
+                continue;
+            }
+            order.setCourier(courier);
+            orderIndex.addActive(order);
+            // Every order in the batch waited for the whole assignment
+            batchDispatchMetrics.record(order, latency);
+            journal.orderPlaced(order, null);
+            timeWindows.recordPlaced(order);
+        }
+        return unassigned;
+    }
+
     public void completeOrder(Order order) {
-        if (orders.remove(order)) {
+        // Only the thread that removes the order from the active set completes it
+        if (orderIndex.complete(order)) {
+            // Restored orders keep the completion time they were persisted with
+            boolean restored = order.getCompletedAt() != null;
+            if (!restored) {
+                order.setCompletedAt(LocalDateTime.now(timeWindows.getClock()));
+            }
             completedOrders.add(order);
-            if (order.getCourier() != null) {
-                order.getCourier().completeDelivery();
+            financials.record(order);
+            ledger.append(order);
+            orderPopularity.record(order);
+            timeWindows.recordCompleted(order);
+            if (autoFollow) {
+                subscriptions.follow(order.getCustomer(), order.getRestaurant());
             }
+            Courier courier = order.getCourier();
+            if (courier != null) {
+                if (restored) {
+                    // Replayed deliveries decay from when they happened, not from the restart
+                    courier.completeDelivery(order.getCompletedAt()
+                        .atZone(timeWindows.getClock().getZone()).toInstant());
+                } else {
+                    courier.completeDelivery();
+                }
+            }
+            journal.orderCompleted(order, orderIndex.nameOf(order).orElse(null));
+        }
+    }
+
+    /**
+     * Re-inserts a previously placed order as active, with the courier it was
+     * assigned, without selecting a courier or journaling it. Used to restore
+     * persisted state.
+     */
+    public void restoreOrder(Order order, String orderName) {
+        orderIndex.addActive(order);
+        if (orderName != null) {
+            orderIndex.bindName(orderName, order);
         }
+        timeWindows.recordPlaced(order);
     }
 
     // Notification system
+    /**
+     * Queues a special offer for the restaurant's followers, and for the customers
+     * following no restaurant, that have notifications enabled; delivery happens
+     * on the notification workers.
+     */
     public void notifySpecialOffer(Restaurant restaurant, String offerMessage) {
-        users.stream()
-            .filter(u -> u instanceof Customer)
-            .map(u -> (Customer) u)
-            .filter(Customer::hasNotificationsEnabled)
-            .forEach(c -> c.notifySpecialOffer(restaurant, offerMessage));
+        notifications.submit(restaurant, offerMessage);
+    }
+
+    public SubscriptionIndex getSubscriptions() {
+        return subscriptions;
     }
 
-    // Financial calculations
+    /**
+     * Sets whether customers start following a restaurant when one of their orders there completes.
+     */
+    public void setAutoFollow(boolean autoFollow) {
+        this.autoFollow = autoFollow;
+    }
+
+    public boolean isAutoFollow() {
+        return autoFollow;
+    }
+
+    public NotificationDispatcher getNotifications() {
+        return notifications;
+    }
+
+    // Financial calculations, answered in O(1) from the running aggregates
     public double computeTotalIncome() {
-        return completedOrders.stream()
-            .mapToDouble(Order::getFinalPrice)
-            .sum();
+        return financials.getTotalIncome();
     }
 
     public double computeProfitForOrder(Order order) {
-        return order.getFinalPrice() * markupPercentage + serviceFee - deliveryCost;
+        Fees current = fees;
+        return order.getFinalPrice() * current.markupPercentage() + current.serviceFee() - current.deliveryCost();
     }
 
     public double computeTotalProfit() {
-        return completedOrders.stream()
-            .mapToDouble(this::computeProfitForOrder)
-            .sum();
+        Fees current = fees;
+        return financials.computeProfit(current.serviceFee(), current.markupPercentage(), current.deliveryCost());
     }
 
     public double computeAvgIncomePerCustomer() {
-        Map<Customer, Double> customerIncome = new HashMap<>();
-        
-        // Sum up income for each customer
-        for (Order order : completedOrders) {
-            Customer customer = order.getCustomer();
-            customerIncome.merge(customer, order.getFinalPrice(), Double::sum);
-        }
-        
-        // If no customers with orders, return 0
-        if (customerIncome.isEmpty()) {
-            return 0.0;
-        }
-        
-        // Calculate average
-        return customerIncome.values().stream()
-            .mapToDouble(Double::doubleValue)
-            .average()
-            .orElse(0.0);
+        return financials.getAverageIncomePerCustomer();
+    }
+
+    public FinancialAggregates getFinancialAggregates() {
+        return financials;
     }
 
     // Policy management
     public void setDeliveryPolicy(DeliveryPolicy policy) {
         this.deliveryPolicy = policy;
+        journal.policyChanged(policy);
+    }
+
+    public DeliveryPolicy getDeliveryPolicy() {
+        return deliveryPolicy;
+    }
+
+    public void setBatchDeliveryPolicy(BatchDeliveryPolicy policy) {
+        this.batchDeliveryPolicy = policy;
+        journal.policyChanged(policy);
+    }
+
+    public BatchDeliveryPolicy getBatchDeliveryPolicy() {
+        return batchDeliveryPolicy;
     }
 
     public void setTargetProfitPolicy(TargetProfitPolicy policy) {
         this.targetProfitPolicy = policy;
+        journal.policyChanged(policy);
     }
 
-    public void optimizeForTargetProfit(double targetProfit) {
-        if (targetProfitPolicy != null) {
-            targetProfitPolicy.apply(this, targetProfit);
+    public TargetProfitPolicy getTargetProfitPolicy() {
+        return targetProfitPolicy;
+    }
+
+    /**
+     * Adjusts the fees with the current target profit policy.
+     * @return the profit of the completed orders with the new fees
+     */
+    public double optimizeForTargetProfit(double targetProfit) {
+        TargetProfitPolicy policy = targetProfitPolicy;
+        if (policy != null) {
+            return policy.apply(this, targetProfit);
         }
+        return computeTotalProfit();
     }
 
     // to change order sorting policy
     public void setOrderSortingPolicy(OrderSortingPolicy policy) {
         this.orderSortingPolicy = policy;
+        journal.policyChanged(policy);
+    }
+
+    public OrderSortingPolicy getOrderSortingPolicy() {
+        return orderSortingPolicy;
     }
 
     // to sort orders
     public Map<String, Integer> analyzeOrders() {
-        if (orderSortingPolicy != null) {
-            return orderSortingPolicy.analyzeOrders(completedOrders);
+        return analyzeOrders(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns only the first {@code limit} entries of the sorting policy's ranking.
+     */
+    public Map<String, Integer> analyzeOrders(int limit) {
+        OrderSortingPolicy policy = orderSortingPolicy;
+        if (policy != null) {
+            return policy.analyzeOrders(orderPopularity, limit);
         }
         return new HashMap<>();
     }
 
+    /**
+     * Returns the columnar record of completed orders, in completion order.
+     */
+    public CompletedOrderLedger getCompletedOrderLedger() {
+        return ledger;
+    }
+
+    public OrderPopularityIndex getOrderPopularity() {
+        return orderPopularity;
+    }
+
+    public TimeWindowAnalytics getTimeWindows() {
+        return timeWindows;
+    }
+
+    /**
+     * Replaces the windowed counters with ones of the given granularity.
+     * Counts gathered so far are discarded.
+     */
+    public void configureTimeWindows(Duration bucketWidth, int bucketCount) {
+        timeWindows = new TimeWindowAnalytics(bucketWidth, bucketCount);
+    }
+
+    /**
+     * Finds an active or completed order by client-supplied name or internal id.
+     * Archived orders are found by id only, and every lookup returns a fresh copy.
+     */
+    public Optional<Order> findOrder(String nameOrId) {
+        Optional<Order> found = orderIndex.find(nameOrId);
+        OrderArchive current = archive;
+        if (found.isPresent() || current == null) {
+            return found;
+        }
+        return current.findById(nameOrId, this::resolveUser);
+    }
+
+    public boolean isOrderActive(Order order) {
+        return orderIndex.isActive(order);
+    }
+
     // Getters
+    public CourierIndex getCourierIndex() {
+        return courierIndex;
+    }
+
+    public OrderIndex getOrderIndex() {
+        return orderIndex;
+    }
+
+    /**
+     * Returns the metrics of orders assigned one at a time by {@link #placeOrder(Order)}.
+     */
+    public DispatchMetrics getSingleDispatchMetrics() {
+        return singleDispatchMetrics;
+    }
+
+    /**
+     * Returns the metrics of orders assigned in batches by {@link #placeOrders(List)}.
+     */
+    public DispatchMetrics getBatchDispatchMetrics() {
+        return batchDispatchMetrics;
+    }
+
+    /**
+     * Returns the metrics of special offer notifications: queue depth, batches and delivery latency.
+     */
+    public NotificationMetrics getNotificationMetrics() {
+        return notifications.getMetrics();
+    }
+
+    /**
+     * Returns a snapshot of the completed orders still in memory, in completion
+     * order; archived orders are left out.
+     */
     public List<Order> getCompletedOrders() {
-        return completedOrders;
+        return new ArrayList<>(completedOrders);
+    }
+
+    public int getCompletedOrderCount() {
+        return (int) financials.getOrderCount();
     }
 
     public List<User> getUsers() {
-        return users;
+        return List.copyOf(userRegistry.getAll());
+    }
+
+    /**
+     * Returns the logged-in sessions of the CLUI clients.
+     */
+    public SessionStore getSessions() {
+        return sessions;
+    }
+
+    public UserRegistry getUserRegistry() {
+        return userRegistry;
     }
 }
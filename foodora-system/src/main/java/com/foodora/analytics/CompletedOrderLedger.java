@@ -0,0 +1,211 @@
+package com.foodora.analytics;
+
+import com.foodora.model.Order;
+import com.foodora.user.User;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Append-only columnar record of completed orders.
+ * Each completed order becomes one row spread over parallel primitive
+ * columns (final price, restaurant, courier and customer indexes, creation
+ * time in epoch millis, item and meal counts), about 36 bytes per order
+ * instead of the object graph of an {@link Order}. Users are stored once in
+ * a dictionary and referenced by index; a missing courier is {@link #NONE}.
+ * <p>
+ * Rows live in fixed-size pages that never move, so appending does not copy
+ * earlier rows and scans run over contiguous arrays. Appends are serialized;
+ * scans do not lock and see every row appended before they started.
+ */
+public class CompletedOrderLedger {
+    public static final int NONE = -1;
+    static final int PAGE_SHIFT = 14;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    private final Map<User, Integer> userIndex = new HashMap<>();
+    private final List<User> users = new ArrayList<>();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private volatile Page[] pages = new Page[0];
+    private volatile int size;
+
+    /**
+     * One page of rows, read column by column.
+     */
+    public static final class Page {
+        private final double[] finalPrice = new double[PAGE_SIZE];
+        private final int[] restaurant = new int[PAGE_SIZE];
+        private final int[] courier = new int[PAGE_SIZE];
+        private final int[] customer = new int[PAGE_SIZE];
+        private final long[] createdAt = new long[PAGE_SIZE];
+        private final int[] itemCount = new int[PAGE_SIZE];
+        private final int[] mealCount = new int[PAGE_SIZE];
+
+        public double finalPrice(int row) { return finalPrice[row]; }
+        public int restaurant(int row) { return restaurant[row]; }
+        public int courier(int row) { return courier[row]; }
+        public int customer(int row) { return customer[row]; }
+        public long createdAtMillis(int row) { return createdAt[row]; }
+        public int itemCount(int row) { return itemCount[row]; }
+        public int mealCount(int row) { return mealCount[row]; }
+    }
+
+    /**
+     * Receives the rows of a scan, one page range at a time.
+     */
+    @FunctionalInterface
+    public interface PageScan {
+        /**
+         * @param page the page holding the rows
+         * @param from first row in the page, inclusive
+         * @param to last row in the page, exclusive
+         */
+        void accept(Page page, int from, int to);
+    }
+
+    /**
+     * Appends a completed order as a new row.
+     */
+    public synchronized void append(Order order) {
+        int row = size;
+        Page[] current = pages;
+        if (row >> PAGE_SHIFT == current.length) {
+            current = Arrays.copyOf(current, current.length + 1);
+            current[current.length - 1] = new Page();
+            pages = current;
+        }
+        Page page = current[row >> PAGE_SHIFT];
+        int offset = row & (PAGE_SIZE - 1);
+        page.finalPrice[offset] = order.getFinalPrice();
+        page.restaurant[offset] = indexOf(order.getRestaurant());
+        page.courier[offset] = indexOf(order.getCourier());
+        page.customer[offset] = indexOf(order.getCustomer());
+        page.createdAt[offset] = order.getCreatedAt() == null ? 0L
+            : order.getCreatedAt().atZone(zone).toInstant().toEpochMilli();
+        page.itemCount[offset] = order.getItems() == null ? 0 : order.getItems().size();
+        page.mealCount[offset] = order.getMeals() == null ? 0 : order.getMeals().size();
+        // Publishes the row to scans
+        size = row + 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Visits every row appended so far, in completion order.
+     */
+    public void scan(PageScan scan) {
+        int rows = size;
+        Page[] current = pages;
+        for (int start = 0; start < rows; start += PAGE_SIZE) {
+            scan.accept(current[start >> PAGE_SHIFT], 0, Math.min(PAGE_SIZE, rows - start));
+        }
+    }
+
+    /**
+     * Returns the user stored at a dictionary index.
+     */
+    public synchronized User getUser(int index) {
+        return users.get(index);
+    }
+
+    /**
+     * Returns the number of users in the dictionary; indexes range from 0 to this value, exclusive.
+     */
+    public synchronized int getUserCount() {
+        return users.size();
+    }
+
+    // Aggregates over the columns
+
+    /**
+     * Returns the sum of final prices, summed in completion order with the
+     * same compensated summation as {@link FinancialAggregates}.
+     */
+    public double getTotalIncome() {
+        double[] sum = new double[3];  // high-order sum, negated compensation, simple sum
+        scan((page, from, to) -> {
+            for (int i = from; i < to; i++) {
+                double price = page.finalPrice[i];
+                double tmp = price - sum[1];
+                double velvel = sum[0] + tmp;
+                sum[1] = (velvel - sum[0]) - tmp;
+                sum[0] = velvel;
+                sum[2] += price;
+            }
+        });
+        double total = sum[0] - sum[1];
+        if (Double.isNaN(total) && Double.isInfinite(sum[2])) {
+            return sum[2];
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of rows per restaurant, indexed by dictionary index.
+     */
+    public long[] countByRestaurant() {
+        return countBy(page -> page.restaurant);
+    }
+
+    /**
+     * Returns the number of rows per courier, indexed by dictionary index.
+     * Rows without a courier are not counted.
+     */
+    public long[] countByCourier() {
+        return countBy(page -> page.courier);
+    }
+
+    /**
+     * Converts per-index counts to per-user counts, leaving out zero counts.
+     */
+    public <U extends User> Map<U, Integer> toUserCounts(long[] counts, Class<U> type) {
+        Map<U, Integer> result = new HashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                result.put(type.cast(getUser(i)), (int) Math.min(counts[i], Integer.MAX_VALUE));
+            }
+        }
+        return result;
+    }
+
+    public synchronized void clear() {
+        pages = new Page[0];
+        size = 0;
+        userIndex.clear();
+        users.clear();
+    }
+
+    // Helper methods
+    private long[] countBy(Function<Page, int[]> column) {
+        int rows = size;
+        long[] counts = new long[getUserCount()];
+        Page[] current = pages;
+        for (int start = 0; start < rows; start += PAGE_SIZE) {
+            int[] values = column.apply(current[start >> PAGE_SHIFT]);
+            int length = Math.min(PAGE_SIZE, rows - start);
+            for (int i = 0; i < length; i++) {
+                int index = values[i];
+                if (index != NONE) {
+                    counts[index]++;
+                }
+            }
+        }
+        return counts;
+    }
+
+    private int indexOf(User user) {
+        if (user == null) {
+            return NONE;
+        }
+        Integer index = userIndex.get(user);
+        if (index == null) {
+            index = users.size();
+            users.add(user);
+            userIndex.put(user, index);
+        }
+        return index;
+    }
+}
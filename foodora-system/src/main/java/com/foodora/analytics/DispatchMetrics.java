@@ -0,0 +1,87 @@
+package com.foodora.analytics;
+
+import com.foodora.model.Order;
+import com.foodora.user.Courier;
+import com.foodora.util.Coordinate;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Courier assignment metrics for one dispatch path (per-order or batch):
+ * number of assigned orders, total delivery distance and assignment latency.
+ * Updates are lock-free, so recording does not slow down order intake.
+ */
+public class DispatchMetrics {
+    private final LongAdder orders = new LongAdder();
+    private final DoubleAdder totalDistance = new DoubleAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * Records an assigned order.
+     * @param order the order, with its courier set
+     * @param latencyNanos time the order waited for its courier
+     */
+    public void record(Order order, long latencyNanos) {
+        orders.increment();
+        totalDistance.add(deliveryDistance(order));
+        totalLatencyNanos.add(latencyNanos);
+        maxLatencyNanos.accumulate(latencyNanos);
+    }
+
+    public long getOrderCount() {
+        return orders.sum();
+    }
+
+    /**
+     * Returns the total distance couriers travel for the recorded orders:
+     * courier to restaurant, then restaurant to customer.
+     */
+    public double getTotalDistance() {
+        return totalDistance.sum();
+    }
+
+    public double getAverageDistance() {
+        long count = orders.sum();
+        return count == 0 ? 0.0 : totalDistance.sum() / count;
+    }
+
+    public double getAverageLatencyMicros() {
+        long count = orders.sum();
+        return count == 0 ? 0.0 : totalLatencyNanos.sum() / 1_000.0 / count;
+    }
+
+    public double getMaxLatencyMicros() {
+        return maxLatencyNanos.get() / 1_000.0;
+    }
+
+    public void reset() {
+        orders.reset();
+        totalDistance.reset();
+        totalLatencyNanos.reset();
+        maxLatencyNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("orders=%d, totalDistance=%.2f, avgDistance=%.2f, avgLatency=%.1fus, maxLatency=%.1fus",
+            getOrderCount(), getTotalDistance(), getAverageDistance(),
+            getAverageLatencyMicros(), getMaxLatencyMicros());
+    }
+
+    /**
+     * Distance the order's courier travels: to the restaurant, then to the customer.
+     * Orders with a missing location count as 0.
+     */
+    public static double deliveryDistance(Order order) {
+        Courier courier = order.getCourier();
+        Coordinate courierLoc = courier == null ? null : courier.getLocation();
+        Coordinate restaurantLoc = order.getRestaurant().getLocation();
+        Coordinate customerLoc = order.getCustomer().getAddress();
+        if (courierLoc == null || restaurantLoc == null || customerLoc == null) {
+            return 0.0;
+        }
+        return courierLoc.distanceTo(restaurantLoc) + restaurantLoc.distanceTo(customerLoc);
+    }
+}
@@ -0,0 +1,204 @@
+package com.foodora.analytics;
+
+import com.foodora.model.Order;
+import com.foodora.user.Customer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running financial aggregates over completed orders.
+ * Updated once per completed order, so total income, order count and
+ * per-customer revenue are O(1) reads instead of scans over the order history.
+ * <p>
+ * Income and order count are kept in stripes, one picked per thread, so
+ * completing orders on several threads does not serialize on one lock; reads
+ * merge the stripes. Sums use the same compensated (Kahan) summation as
+ * {@code DoubleStream.sum()}, and stripes merge the way its parallel combiner
+ * does, so orders completed on one thread match a full scan in completion
+ * order bit for bit.
+ */
+public class FinancialAggregates {
+    private static final int STRIPES = Integer.highestOneBit(
+        Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Map<Customer, CustomerRevenue> revenueByCustomer = new ConcurrentHashMap<>();
+
+    /**
+     * Income and order count read together, so that they describe the same
+     * set of orders.
+     */
+    public record Totals(double income, long orderCount) {
+        /**
+         * Returns the total profit of these orders for the given fee settings.
+         */
+        public double profit(double serviceFee, double markupPercentage, double deliveryCost) {
+            return income * markupPercentage + orderCount * (serviceFee - deliveryCost);
+        }
+    }
+
+    /**
+     * Per-customer revenue accumulator.
+     */
+    public static final class CustomerRevenue {
+        private final DoubleAdder revenue = new DoubleAdder();
+        private final LongAdder orders = new LongAdder();
+
+        private void add(double amount) {
+            revenue.add(amount);
+            orders.increment();
+        }
+
+        public double getRevenue() {
+            return revenue.sum();
+        }
+
+        public long getOrders() {
+            return orders.sum();
+        }
+    }
+
+    // Compensated sum of final prices and order count of the orders recorded on some threads
+    private static final class Stripe {
+        private double sum;           // high-order sum
+        private double compensation;  // negated low-order compensation
+        private double simpleSum;
+        private long count;
+
+        // Same steps as Collectors.sumWithCompensation
+        private void add(double value) {
+            double tmp = value - compensation;
+            double velvel = sum + tmp;
+            compensation = (velvel - sum) - tmp;
+            sum = velvel;
+        }
+
+        private synchronized void record(double price) {
+            add(price);
+            simpleSum += price;
+            count++;
+        }
+
+        // Same steps as the combiner of Collectors.summingDouble
+        private void merge(Stripe other) {
+            add(other.sum);
+            simpleSum += other.simpleSum;
+            add(-other.compensation);
+            count += other.count;
+        }
+
+        // Same steps as Collectors.computeFinalSum
+        private double total() {
+            double total = sum - compensation;
+            if (Double.isNaN(total) && Double.isInfinite(simpleSum)) {
+                return simpleSum;
+            }
+            return total;
+        }
+    }
+
+    public FinancialAggregates() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Records a completed order. The order's final price at this moment is the
+     * amount accounted for.
+     */
+    public void record(Order order) {
+        double price = order.getFinalPrice();
+        // A thread always lands on the same stripe, so its orders keep their order
+        stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)].record(price);
+
+        Customer customer = order.getCustomer();
+        if (customer != null) {
+            revenueByCustomer.computeIfAbsent(customer, c -> new CustomerRevenue()).add(price);
+        }
+    }
+
+    /**
+     * Returns the sum of final prices of all recorded orders.
+     */
+    public double getTotalIncome() {
+        return getTotals().income();
+    }
+
+    public long getOrderCount() {
+        return getTotals().orderCount();
+    }
+
+    /**
+     * Returns income and order count merged over the stripes. Each stripe is
+     * read under its own lock, so both values cover the same orders even while
+     * other threads record.
+     */
+    public Totals getTotals() {
+        Stripe merged = null;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (stripe.count == 0) {
+                    continue;
+                }
+                if (merged == null) {
+                    // Start from a copy, so a single stripe is returned exactly as summed
+                    merged = new Stripe();
+                    merged.sum = stripe.sum;
+                    merged.compensation = stripe.compensation;
+                    merged.simpleSum = stripe.simpleSum;
+                    merged.count = stripe.count;
+                } else {
+                    merged.merge(stripe);
+                }
+            }
+        }
+        return merged == null ? new Totals(0.0, 0) : new Totals(merged.total(), merged.count);
+    }
+
+    /**
+     * Returns the number of distinct customers with at least one recorded order.
+     */
+    public int getCustomerCount() {
+        return revenueByCustomer.size();
+    }
+
+    /**
+     * Returns the revenue recorded for a customer, or 0 if the customer has no completed orders.
+     */
+    public double getRevenue(Customer customer) {
+        CustomerRevenue revenue = revenueByCustomer.get(customer);
+        return revenue == null ? 0.0 : revenue.getRevenue();
+    }
+
+    /**
+     * Returns the total profit for the given fee settings.
+     * Profit per order is {@code finalPrice * markup + serviceFee - deliveryCost},
+     * so the total only depends on the income and the number of orders.
+     */
+    public double computeProfit(double serviceFee, double markupPercentage, double deliveryCost) {
+        return getTotals().profit(serviceFee, markupPercentage, deliveryCost);
+    }
+
+    /**
+     * Returns the average income per customer who has completed at least one order.
+     */
+    public double getAverageIncomePerCustomer() {
+        int customers = revenueByCustomer.size();
+        return customers == 0 ? 0.0 : getTotalIncome() / customers;
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.sum = 0.0;
+                stripe.compensation = 0.0;
+                stripe.simpleSum = 0.0;
+                stripe.count = 0;
+            }
+        }
+        revenueByCustomer.clear();
+    }
+}
@@ -0,0 +1,109 @@
+package com.foodora.analytics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Metrics of the special offer notification pipeline: offers submitted and
+ * delivered, batches, notifications sent to customers, offers delivered on
+ * the caller's thread because the queue was full, current queue depth, and
+ * delivery latency from submission to the end of the fan-out.
+ * Updates are lock-free, like {@link DispatchMetrics}.
+ */
+public class NotificationMetrics {
+    private final IntSupplier queueDepth;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder notifications = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * @param queueDepth returns the number of offers currently waiting
+     */
+    public NotificationMetrics(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    // Recording
+    public void recordSubmitted() {
+        submitted.increment();
+    }
+
+    public void recordCallerRun() {
+        callerRuns.increment();
+    }
+
+    /**
+     * Records a delivered batch.
+     * @param offerLatenciesNanos time each offer of the batch waited until it was delivered
+     * @param recipients number of customers notified
+     */
+    public void recordBatch(long[] offerLatenciesNanos, int recipients) {
+        batches.increment();
+        delivered.add(offerLatenciesNanos.length);
+        notifications.add(recipients);
+        for (long latency : offerLatenciesNanos) {
+            totalLatencyNanos.add(latency);
+            maxLatencyNanos.accumulate(latency);
+        }
+    }
+
+    // Readings
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * Returns the number of customer notifications sent; a batch counts once per customer.
+     */
+    public long getNotificationCount() {
+        return notifications.sum();
+    }
+
+    public long getCallerRunCount() {
+        return callerRuns.sum();
+    }
+
+    public double getAverageLatencyMicros() {
+        long count = delivered.sum();
+        return count == 0 ? 0.0 : totalLatencyNanos.sum() / 1_000.0 / count;
+    }
+
+    public double getMaxLatencyMicros() {
+        return maxLatencyNanos.get() / 1_000.0;
+    }
+
+    public void reset() {
+        submitted.reset();
+        delivered.reset();
+        batches.reset();
+        notifications.reset();
+        callerRuns.reset();
+        totalLatencyNanos.reset();
+        maxLatencyNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("queued=%d, submitted=%d, delivered=%d, batches=%d, notifications=%d, callerRuns=%d, "
+                + "avgLatency=%.1fus, maxLatency=%.1fus",
+            getQueueDepth(), getSubmittedCount(), getDeliveredCount(), getBatchCount(), getNotificationCount(),
+            getCallerRunCount(), getAverageLatencyMicros(), getMaxLatencyMicros());
+    }
+}
@@ -0,0 +1,235 @@
+package com.foodora.analytics;
+
+import com.foodora.model.Meal;
+import com.foodora.model.MenuItem;
+import com.foodora.model.Order;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Running order counts per half-meal and per a la carte item.
+ * Updated once per completed order, so the order sorting policies read the
+ * most or least ordered names from an ordered structure instead of recounting
+ * the whole order history on every call.
+ * <p>
+ * Completed orders are queued and counted by whichever thread holds the lock,
+ * so threads completing orders never wait for each other; reads count the
+ * queued orders first and always see every order recorded before them.
+ */
+public class OrderPopularityIndex {
+    private final Ranking halfMeals = new Ranking();
+    private final Ranking items = new Ranking();
+    private final Queue<Order> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Builds an index over the given orders, for callers that only hold a list.
+     */
+    public static OrderPopularityIndex of(Collection<Order> orders) {
+        Objects.requireNonNull(orders, "Orders cannot be null");
+        // Count first and rank once, instead of repositioning an entry on every increment
+        Map<String, long[]> halfMealCounts = new HashMap<>();
+        Map<String, long[]> itemCounts = new HashMap<>();
+        for (Order order : orders) {
+            count(order, halfMealCounts, itemCounts);
+        }
+        OrderPopularityIndex index = new OrderPopularityIndex();
+        index.addCounts(halfMealCounts, itemCounts);
+        return index;
+    }
+
+    /**
+     * Adds an order's half-meals and a la carte items to plain counters,
+     * held in one-element arrays so counting does not box.
+     */
+    static void count(Order order, Map<String, long[]> halfMealCounts, Map<String, long[]> itemCounts) {
+        if (order.getMeals() != null) {
+            for (Meal meal : order.getMeals()) {
+                if (meal != null && meal.isHalfMeal()) {
+                    halfMealCounts.computeIfAbsent(meal.getName(), name -> new long[1])[0]++;
+                }
+            }
+        }
+        if (order.getItems() != null) {
+            for (MenuItem item : order.getItems()) {
+                if (item != null) {
+                    itemCounts.computeIfAbsent(item.getName(), name -> new long[1])[0]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the half-meals and a la carte items of a completed order. If
+     * another thread is counting, the order is left in the queue for it.
+     */
+    public void record(Order order) {
+        pending.add(order);
+        if (lock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Called with the lock held
+    private void drain() {
+        Order order;
+        while ((order = pending.poll()) != null) {
+            apply(order);
+        }
+    }
+
+    private void apply(Order order) {
+        if (order.getMeals() != null) {
+            for (Meal meal : order.getMeals()) {
+                if (meal != null && meal.isHalfMeal()) {
+                    halfMeals.increment(meal.getName());
+                }
+            }
+        }
+        if (order.getItems() != null) {
+            for (MenuItem item : order.getItems()) {
+                if (item != null) {
+                    items.increment(item.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds counts gathered elsewhere, e.g. by the partial counters of a parallel analysis.
+     */
+    void addCounts(Map<String, long[]> halfMealCounts, Map<String, long[]> itemCounts) {
+        lock.lock();
+        try {
+            halfMealCounts.forEach((name, count) -> halfMeals.add(name, count[0]));
+            itemCounts.forEach((name, count) -> items.add(name, count[0]));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Ranking getHalfMeals() {
+        return halfMeals;
+    }
+
+    public Ranking getItems() {
+        return items;
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            pending.clear();
+            halfMeals.clear();
+            items.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Names ordered by count. Incrementing a count repositions a single entry,
+     * and the top or bottom {@code k} names are read in O(k + log n).
+     * Equal counts are ordered by name, so {@link #top} lists tied names in reverse order.
+     */
+    public final class Ranking {
+        private final Map<String, Counter> counters = new HashMap<>();
+        private final TreeSet<Counter> byCount = new TreeSet<>(
+            Comparator.<Counter>comparingLong(c -> c.count).thenComparing(c -> c.name));
+
+        private void increment(String name) {
+            add(name, 1);
+        }
+
+        private void add(String name, long count) {
+            Counter counter = counters.get(name);
+            if (counter == null) {
+                counter = new Counter(name);
+                counters.put(name, counter);
+            } else {
+                byCount.remove(counter);
+            }
+            counter.count += count;
+            byCount.add(counter);
+        }
+
+        private void clear() {
+            counters.clear();
+            byCount.clear();
+        }
+
+        /**
+         * Returns up to {@code k} names with the highest counts, most ordered first.
+         */
+        public Map<String, Integer> top(int k) {
+            lock.lock();
+            try {
+                drain();
+                return collect(byCount.descendingIterator(), k);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns up to {@code k} names with the lowest counts, least ordered first.
+         */
+        public Map<String, Integer> bottom(int k) {
+            lock.lock();
+            try {
+                drain();
+                return collect(byCount.iterator(), k);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public long getCount(String name) {
+            lock.lock();
+            try {
+                drain();
+                Counter counter = counters.get(name);
+                return counter == null ? 0 : counter.count;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int size() {
+            lock.lock();
+            try {
+                drain();
+                return counters.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Map<String, Integer> collect(Iterator<Counter> iterator, int k) {
+            if (k < 0) {
+                throw new IllegalArgumentException("Limit cannot be negative");
+            }
+            Map<String, Integer> result = new LinkedHashMap<>();
+            while (result.size() < k && iterator.hasNext()) {
+                Counter counter = iterator.next();
+                result.put(counter.name, (int) Math.min(counter.count, Integer.MAX_VALUE));
+            }
+            return result;
+        }
+    }
+
+    // Mutable count, repositioned in the ranking whenever it changes
+    private static final class Counter {
+        private final String name;
+        private long count;
+
+        private Counter(String name) {
+            this.name = name;
+        }
+    }
+}
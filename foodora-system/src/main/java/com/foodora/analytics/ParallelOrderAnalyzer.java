@@ -0,0 +1,182 @@
+package com.foodora.analytics;
+
+import com.foodora.model.Order;
+import com.foodora.policy.order.OrderSortingPolicy;
+import com.foodora.user.Courier;
+import com.foodora.user.Restaurant;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Fork/join analysis over large order histories.
+ * The order list is split into chunks; each chunk is counted into its own
+ * partial counters with primitive counts, and partials are merged pairwise
+ * as the tasks join. Counting is order-independent, so the results equal
+ * those of a sequential pass. Lists no longer than one chunk are counted
+ * on the calling thread.
+ */
+public class ParallelOrderAnalyzer {
+    public static final int DEFAULT_CHUNK_SIZE = 16_384;
+
+    private static final ParallelOrderAnalyzer DEFAULT = new ParallelOrderAnalyzer(ForkJoinPool.commonPool(),
+        DEFAULT_CHUNK_SIZE);
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ParallelOrderAnalyzer(ForkJoinPool pool, int chunkSize) {
+        this.pool = Objects.requireNonNull(pool, "Pool cannot be null");
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the analyzer running on the common fork/join pool.
+     */
+    public static ParallelOrderAnalyzer getDefault() {
+        return DEFAULT;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    // Analyses
+
+    /**
+     * Counts half-meals and a la carte items over the orders.
+     */
+    public OrderPopularityIndex popularity(List<Order> orders) {
+        PopularityCounts counts = reduce(orders, PopularityCounts::new, PopularityCounts::add,
+            PopularityCounts::merge);
+        OrderPopularityIndex index = new OrderPopularityIndex();
+        index.addCounts(counts.halfMeals.counts, counts.items.counts);
+        return index;
+    }
+
+    /**
+     * Applies a sorting policy to the orders, with the same result as
+     * {@link OrderSortingPolicy#analyzeOrders(List)}.
+     */
+    public Map<String, Integer> analyzeOrders(OrderSortingPolicy policy, List<Order> orders) {
+        Objects.requireNonNull(policy, "Sorting policy cannot be null");
+        return policy.analyzeOrders(popularity(orders), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Counts the orders per restaurant.
+     */
+    public Map<Restaurant, Integer> countRestaurantOrders(List<Order> orders) {
+        return reduce(orders, Counts<Restaurant>::new,
+            (counts, order) -> counts.increment(order.getRestaurant()), Counts::merge).toMap();
+    }
+
+    /**
+     * Counts the orders per courier.
+     */
+    public Map<Courier, Integer> countCourierDeliveries(List<Order> orders) {
+        return reduce(orders, Counts<Courier>::new,
+            (counts, order) -> counts.increment(order.getCourier()), Counts::merge).toMap();
+    }
+
+    /**
+     * Folds the orders into partial results, one per chunk, and merges them.
+     * @param newPartial creates an empty partial result
+     * @param accumulate adds one order to a partial result
+     * @param merge merges the second partial result into the first and returns it
+     */
+    public <A> A reduce(List<Order> orders, Supplier<A> newPartial, BiConsumer<A, Order> accumulate,
+                        BinaryOperator<A> merge) {
+        Objects.requireNonNull(orders, "Orders list cannot be null");
+        List<Order> source = orders instanceof RandomAccess ? orders : new ArrayList<>(orders);
+        ChunkTask<A> task = new ChunkTask<>(source, 0, source.size(), newPartial, accumulate, merge);
+        if (source.size() <= chunkSize) {
+            return task.compute();
+        }
+        return pool.invoke(task);
+    }
+
+    // Splits until a range fits in one chunk
+    private final class ChunkTask<A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Order> orders;
+        private final int from;
+        private final int to;
+        private final Supplier<A> newPartial;
+        private final BiConsumer<A, Order> accumulate;
+        private final BinaryOperator<A> merge;
+
+        private ChunkTask(List<Order> orders, int from, int to, Supplier<A> newPartial,
+                          BiConsumer<A, Order> accumulate, BinaryOperator<A> merge) {
+            this.orders = orders;
+            this.from = from;
+            this.to = to;
+            this.newPartial = newPartial;
+            this.accumulate = accumulate;
+            this.merge = merge;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from <= chunkSize) {
+                A partial = newPartial.get();
+                for (int i = from; i < to; i++) {
+                    accumulate.accept(partial, orders.get(i));
+                }
+                return partial;
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask<A> left = new ChunkTask<>(orders, from, middle, newPartial, accumulate, merge);
+            ChunkTask<A> right = new ChunkTask<>(orders, middle, to, newPartial, accumulate, merge);
+            left.fork();
+            A rightResult = right.compute();
+            return merge.apply(left.join(), rightResult);
+        }
+    }
+
+    // Partial counters
+
+    // Per-key counts held in one-element arrays, so counting does not box
+    private static final class Counts<K> {
+        private final Map<K, long[]> counts = new HashMap<>();
+
+        private void increment(K key) {
+            if (key != null) {
+                counts.computeIfAbsent(key, k -> new long[1])[0]++;
+            }
+        }
+
+        private Counts<K> merge(Counts<K> other) {
+            other.counts.forEach((key, count) -> counts.computeIfAbsent(key, k -> new long[1])[0] += count[0]);
+            return this;
+        }
+
+        private Map<K, Integer> toMap() {
+            Map<K, Integer> result = new HashMap<>();
+            counts.forEach((key, count) -> result.put(key, (int) Math.min(count[0], Integer.MAX_VALUE)));
+            return result;
+        }
+    }
+
+    private static final class PopularityCounts {
+        private final Counts<String> halfMeals = new Counts<>();
+        private final Counts<String> items = new Counts<>();
+
+        private void add(Order order) {
+            OrderPopularityIndex.count(order, halfMeals.counts, items.counts);
+        }
+
+        private PopularityCounts merge(PopularityCounts other) {
+            halfMeals.merge(other.halfMeals);
+            items.merge(other.items);
+            return this;
+        }
+    }
+}
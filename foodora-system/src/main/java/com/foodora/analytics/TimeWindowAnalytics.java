@@ -0,0 +1,122 @@
+package com.foodora.analytics;
+
+import com.foodora.model.Order;
+import com.foodora.user.Courier;
+import com.foodora.user.Restaurant;
+import com.foodora.user.UserRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Recent activity over sliding time windows: orders placed per restaurant,
+ * by the order's creation time, and deliveries completed per courier, by
+ * completion time. Answers questions such as "orders at this restaurant in
+ * the last 15 minutes" or "most active courier this shift" from time-bucketed
+ * counters instead of scanning orders.
+ */
+public class TimeWindowAnalytics {
+    public static final Duration DEFAULT_BUCKET_WIDTH = Duration.ofMinutes(1);
+    public static final int DEFAULT_BUCKET_COUNT = 24 * 60;  // One day of one-minute buckets
+
+    private final TimeWindowCounter<Restaurant> placedOrders;
+    private final TimeWindowCounter<Courier> deliveries;
+    private volatile Clock clock = Clock.systemDefaultZone();
+
+    public TimeWindowAnalytics() {
+        this(DEFAULT_BUCKET_WIDTH, DEFAULT_BUCKET_COUNT);
+    }
+
+    /**
+     * @param bucketWidth granularity of the windows
+     * @param bucketCount number of buckets kept; windows up to {@code bucketWidth * bucketCount} can be queried
+     */
+    public TimeWindowAnalytics(Duration bucketWidth, int bucketCount) {
+        placedOrders = new TimeWindowCounter<>(bucketWidth, bucketCount);
+        deliveries = new TimeWindowCounter<>(bucketWidth, bucketCount);
+    }
+
+    /**
+     * Sets the clock giving the current time, and the zone of order creation times.
+     */
+    public void setClock(Clock clock) {
+        this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    // Recording
+    public void recordPlaced(Order order) {
+        Clock current = clock;
+        Instant now = current.instant();
+        Instant createdAt = order.getCreatedAt() == null ? now
+            : order.getCreatedAt().atZone(current.getZone()).toInstant();
+        placedOrders.record(order.getRestaurant(), createdAt, now);
+    }
+
+    public void recordCompleted(Order order) {
+        if (order.getCourier() != null) {
+            Clock current = clock;
+            Instant now = current.instant();
+            Instant completedAt = order.getCompletedAt() == null ? now
+                : order.getCompletedAt().atZone(current.getZone()).toInstant();
+            deliveries.record(order.getCourier(), completedAt, now);
+        }
+    }
+
+    // Queries over the window ending now
+    public long getOrderCount(Restaurant restaurant, Duration window) {
+        return placedOrders.count(restaurant, window, clock.instant());
+    }
+
+    public Map<Restaurant, Long> getOrderCounts(Duration window) {
+        return placedOrders.counts(window, clock.instant());
+    }
+
+    public long getTotalOrders(Duration window) {
+        return placedOrders.total(window, clock.instant());
+    }
+
+    public long getDeliveryCount(Courier courier, Duration window) {
+        return deliveries.count(courier, window, clock.instant());
+    }
+
+    public Map<Courier, Long> getDeliveryCounts(Duration window) {
+        return deliveries.counts(window, clock.instant());
+    }
+
+    /**
+     * Returns the courier with the most deliveries in the window, ties going
+     * to the first registered, or null if no delivery was completed in the window.
+     */
+    public Courier getMostActiveCourier(Duration window) {
+        Courier selected = null;
+        long selectedCount = 0;
+        for (Map.Entry<Courier, Long> entry : getDeliveryCounts(window).entrySet()) {
+            long count = entry.getValue();
+            if (selected == null || count > selectedCount
+                    || (count == selectedCount && UserRegistry.registrationOrder(entry.getKey())
+                        < UserRegistry.registrationOrder(selected))) {
+                selected = entry.getKey();
+                selectedCount = count;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the longest window that can be queried.
+     */
+    public Duration getSpan() {
+        return placedOrders.getSpan();
+    }
+
+    public void clear() {
+        placedOrders.clear();
+        deliveries.clear();
+    }
+}
@@ -0,0 +1,166 @@
+package com.foodora.analytics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Per-key event counts over a sliding time window, kept in a ring of
+ * fixed-width time buckets. Each bucket holds the counts of the events that
+ * fell in its interval; a bucket is cleared and reused once its interval
+ * leaves the span of the ring, so memory is bounded by the number of buckets
+ * and the keys active within the span. Windowed queries read at most one
+ * ring's worth of buckets and never look at individual events.
+ * <p>
+ * A window covers the bucket holding the query time and as many earlier
+ * buckets as needed to cover its duration, so it is rounded up to whole
+ * buckets. Events older than the span of the ring are ignored.
+ */
+public class TimeWindowCounter<K> {
+    private final long bucketMillis;
+    private final Bucket<K>[] buckets;
+
+    // Counts of the events in one bucket interval
+    private static final class Bucket<K> {
+        private long interval = Long.MIN_VALUE;
+        private long total;
+        private final Map<K, long[]> counts = new HashMap<>();
+
+        private void reset(long interval) {
+            this.interval = interval;
+            total = 0;
+            counts.clear();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public TimeWindowCounter(Duration bucketWidth, int bucketCount) {
+        Objects.requireNonNull(bucketWidth, "Bucket width cannot be null");
+        if (bucketWidth.toMillis() <= 0) {
+            throw new IllegalArgumentException("Bucket width must be at least one millisecond");
+        }
+        if (bucketCount <= 0) {
+            throw new IllegalArgumentException("Bucket count must be positive");
+        }
+        this.bucketMillis = bucketWidth.toMillis();
+        this.buckets = (Bucket<K>[]) new Bucket<?>[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket<>();
+        }
+    }
+
+    /**
+     * Returns the longest window the counter can answer.
+     */
+    public Duration getSpan() {
+        return Duration.ofMillis(bucketMillis * buckets.length);
+    }
+
+    public Duration getBucketWidth() {
+        return Duration.ofMillis(bucketMillis);
+    }
+
+    /**
+     * Counts one event for the key at the given time.
+     * @param now current time, which decides which buckets are still in the ring
+     */
+    public synchronized void record(K key, Instant at, Instant now) {
+        Objects.requireNonNull(key, "Key cannot be null");
+        long current = intervalOf(now);
+        // Events stamped ahead of the clock count as current
+        long interval = Math.min(intervalOf(at), current);
+        if (interval <= current - buckets.length) {
+            return;
+        }
+        Bucket<K> bucket = buckets[slot(interval)];
+        if (bucket.interval != interval) {
+            if (bucket.interval > interval) {
+                // The slot already holds a later interval, so this event is out of the span
+                return;
+            }
+            bucket.reset(interval);
+        }
+        bucket.total++;
+        bucket.counts.computeIfAbsent(key, k -> new long[1])[0]++;
+    }
+
+    /**
+     * Returns the number of events for the key within the window ending at {@code now}.
+     */
+    public synchronized long count(K key, Duration window, Instant now) {
+        long count = 0;
+        long current = intervalOf(now);
+        for (long interval = firstInterval(window, current); interval <= current; interval++) {
+            Bucket<K> bucket = buckets[slot(interval)];
+            if (bucket.interval == interval) {
+                long[] bucketCount = bucket.counts.get(key);
+                if (bucketCount != null) {
+                    count += bucketCount[0];
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of events for all keys within the window ending at {@code now}.
+     */
+    public synchronized long total(Duration window, Instant now) {
+        long total = 0;
+        long current = intervalOf(now);
+        for (long interval = firstInterval(window, current); interval <= current; interval++) {
+            Bucket<K> bucket = buckets[slot(interval)];
+            if (bucket.interval == interval) {
+                total += bucket.total;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the per-key counts within the window ending at {@code now}.
+     * Keys without events in the window are absent.
+     */
+    public synchronized Map<K, Long> counts(Duration window, Instant now) {
+        Map<K, long[]> sums = new HashMap<>();
+        long current = intervalOf(now);
+        for (long interval = firstInterval(window, current); interval <= current; interval++) {
+            Bucket<K> bucket = buckets[slot(interval)];
+            if (bucket.interval == interval) {
+                bucket.counts.forEach((key, count) -> sums.computeIfAbsent(key, k -> new long[1])[0] += count[0]);
+            }
+        }
+        Map<K, Long> result = new HashMap<>();
+        sums.forEach((key, count) -> result.put(key, count[0]));
+        return result;
+    }
+
+    public synchronized void clear() {
+        for (Bucket<K> bucket : buckets) {
+            bucket.reset(Long.MIN_VALUE);
+        }
+    }
+
+    // Helper methods
+    private long intervalOf(Instant time) {
+        return Math.floorDiv(time.toEpochMilli(), bucketMillis);
+    }
+
+    private int slot(long interval) {
+        return (int) Math.floorMod(interval, (long) buckets.length);
+    }
+
+    private long firstInterval(Duration window, long current) {
+        Objects.requireNonNull(window, "Window cannot be null");
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        if (window.compareTo(getSpan()) > 0) {
+            throw new IllegalArgumentException("Window cannot exceed the counter span of " + getSpan());
+        }
+        long bucketsInWindow = (window.toMillis() + bucketMillis - 1) / bucketMillis;
+        return current - bucketsInWindow + 1;
+    }
+}
@@ -1,21 +1,20 @@
 package com.foodora.fidelity;
 
 import com.foodora.user.Customer;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * A fidelity card implementation that provides a chance to win a free meal.
  * Each purchase has a 5% chance of being completely free.
- * The randomization is done using a secure random number generator.
+ * The randomization uses a per-thread random number generator, so concurrent orders do not contend.
  */
 public class LotteryFidelityCard implements FidelityCard {
     private static final double WIN_PROBABILITY = 0.05; // 5% chance
-    private static final Random RANDOM = new Random(); // Single instance for better randomization
-    private String lastWinMessage; // Stores the last win message if any
+    private volatile String lastWinMessage; // Stores the last win message if any
 
     @Override
     public double applyDiscount(double totalPrice, Customer customer) {
-        if (RANDOM.nextDouble() < WIN_PROBABILITY) {
+        if (ThreadLocalRandom.current().nextDouble() < WIN_PROBABILITY) {
             lastWinMessage = String.format("🎉 Congratulations %s! You won a free meal worth %.2f€!", 
                 customer.getName(), totalPrice);
             return 0.0;
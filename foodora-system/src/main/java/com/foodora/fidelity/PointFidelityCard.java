@@ -18,9 +18,8 @@ public class PointFidelityCard implements FidelityCard {
         int earnedPoints = (int) (totalPrice / POINTS_EARNING_RATE);
         customer.addPoints(earnedPoints);
 
-        // Check if customer has enough points for a discount
-        if (customer.getPoints() >= POINTS_PER_DISCOUNT) {
-            customer.deductPoints(POINTS_PER_DISCOUNT);
+        // Redeem points for a discount if the balance allows it (atomic check-and-deduct)
+        if (customer.tryDeductPoints(POINTS_PER_DISCOUNT)) {
             return totalPrice * (1 - DISCOUNT_RATE); // Apply 10% discount
         }
 
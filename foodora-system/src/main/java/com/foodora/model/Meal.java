@@ -2,26 +2,36 @@ package com.foodora.model;
 
 import java.util.List;
 
+/**
+ * A fixed combination of menu items sold at a discount.
+ * A meal's items and discount factor never change after it is created, so
+ * its price is computed once and {@link #getPrice()} just returns it. A
+ * restaurant's default discount factors only apply to meals it creates
+ * afterwards.
+ */
 public class Meal {
     public enum MealType {STANDARD, VEGETARIAN, GLUTEN_FREE}
     public enum MealSize {HALF_MEAL, FULL_MEAL}
 
-    private String name;
-    private List<MenuItem> items;
-    private MealType mealType;
-    private MealSize mealSize;
-    private boolean is_meal_of_the_week;
-    private double discountFactor;
+    private final String name;
+    private final List<MenuItem> items;
+    private final MealType mealType;
+    private final MealSize mealSize;
+    private final boolean is_meal_of_the_week;
+    private final double discountFactor;
+    private final double price;
 
     public Meal(String name, List<MenuItem> items, MealType mealType, MealSize mealSize, boolean is_meal_of_the_week, double discountFactor) {
         this.name = name;
-        this.items = items;
+        // Copied, so the caller cannot change the items behind the cached price
+        this.items = List.copyOf(items);
         this.mealType = mealType;
         this.mealSize = mealSize;
         this.is_meal_of_the_week = is_meal_of_the_week;
         this.discountFactor = discountFactor;
 
         validateMeal();
+        this.price = computePrice();
     }
 
     private void validateMeal() {
@@ -65,7 +75,31 @@ public class Meal {
         return name;
     }
 
+    public List<MenuItem> getItems() {
+        return items;
+    }
+
+    public MealType getMealType() {
+        return mealType;
+    }
+
+    public MealSize getMealSize() {
+        return mealSize;
+    }
+
+    public boolean isMealOfTheWeek() {
+        return is_meal_of_the_week;
+    }
+
+    public double getDiscountFactor() {
+        return discountFactor;
+    }
+
     public double getPrice() {
+        return price;
+    }
+
+    private double computePrice() {
         double total = 0;
         for (MenuItem item : items) {
             total += item.getPrice();
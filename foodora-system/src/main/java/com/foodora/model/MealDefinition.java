@@ -0,0 +1,11 @@
+package com.foodora.model;
+
+import java.util.List;
+
+/**
+ * Describes a meal for a restaurant to create; the restaurant supplies the
+ * discount factor. Used to create several meals at once.
+ */
+public record MealDefinition(String name, List<MenuItem> items, Meal.MealType type, Meal.MealSize size,
+                             boolean mealOfTheWeek) {
+}
@@ -2,56 +2,149 @@ package com.foodora.model;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
+/**
+ * A restaurant's menu items, by category.
+ * The menu is published as one immutable snapshot holding the per-category
+ * lists, the combined list, a by-name index and an identity set of the items.
+ * Edits build a new snapshot and swap it in (copy-on-write), so readers never
+ * lock or allocate and always see a consistent menu, even while it is edited
+ * concurrently.
+ */
 public class Menu {
-    private List<MenuItem> starters;
-    private List<MenuItem> mainDishes;
-    private List<MenuItem> desserts;
+    private static final Snapshot EMPTY = new Snapshot(List.of(), List.of(), List.of());
 
-    public Menu() {
-        this.starters = new ArrayList<>();
-        this.mainDishes = new ArrayList<>();
-        this.desserts = new ArrayList<>();
+    private volatile Snapshot snapshot = EMPTY;
+
+    // Immutable view of the menu; built once per edit
+    private static final class Snapshot {
+        final List<MenuItem> starters;
+        final List<MenuItem> mainDishes;
+        final List<MenuItem> desserts;
+        final List<MenuItem> all;
+        final Map<String, MenuItem> byName;  // First item with the name, in menu order
+        final Set<MenuItem> items;  // MenuItem has identity equality
+
+        Snapshot(List<MenuItem> starters, List<MenuItem> mainDishes, List<MenuItem> desserts) {
+            this.starters = List.copyOf(starters);
+            this.mainDishes = List.copyOf(mainDishes);
+            this.desserts = List.copyOf(desserts);
+
+            List<MenuItem> combined = new ArrayList<>(starters.size() + mainDishes.size() + desserts.size());
+            combined.addAll(starters);
+            combined.addAll(mainDishes);
+            combined.addAll(desserts);
+            this.all = List.copyOf(combined);
+
+            Map<String, MenuItem> names = new HashMap<>();
+            Set<MenuItem> members = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (MenuItem item : combined) {
+                names.putIfAbsent(item.getName(), item);
+                members.add(item);
+            }
+            this.byName = Collections.unmodifiableMap(names);
+            this.items = Collections.unmodifiableSet(members);
+        }
+
+        List<MenuItem> category(MenuItem.Category category) {
+            return switch (category) {
+                case STARTER -> starters;
+                case MAIN_DISH -> mainDishes;
+                case DESSERT -> desserts;
+            };
+        }
+
+        Snapshot with(MenuItem.Category category, List<MenuItem> items) {
+            return new Snapshot(category == MenuItem.Category.STARTER ? items : starters,
+                category == MenuItem.Category.MAIN_DISH ? items : mainDishes,
+                category == MenuItem.Category.DESSERT ? items : desserts);
+        }
     }
 
-    public void addItem(MenuItem item) {
-        switch (item.getCategory()) {
-            case STARTER -> starters.add(item);
-            case MAIN_DISH -> mainDishes.add(item);
-            case DESSERT -> desserts.add(item);
+    public synchronized void addItem(MenuItem item) {
+        Snapshot current = snapshot;
+        List<MenuItem> items = new ArrayList<>(current.category(item.getCategory()));
+        items.add(item);
+        snapshot = current.with(item.getCategory(), items);
+    }
+
+    /**
+     * Adds several items as one edit: readers see either none or all of them.
+     */
+    public synchronized void addItems(Collection<MenuItem> added) {
+        if (added.isEmpty()) {
+            return;
+        }
+        Snapshot current = snapshot;
+        List<MenuItem> starters = new ArrayList<>(current.starters);
+        List<MenuItem> mainDishes = new ArrayList<>(current.mainDishes);
+        List<MenuItem> desserts = new ArrayList<>(current.desserts);
+        for (MenuItem item : added) {
+            switch (item.getCategory()) {
+                case STARTER -> starters.add(item);
+                case MAIN_DISH -> mainDishes.add(item);
+                case DESSERT -> desserts.add(item);
+            }
         }
+        snapshot = new Snapshot(starters, mainDishes, desserts);
     }
 
-    public void removeItem(MenuItem item) {
-        switch (item.getCategory()) {
-            case STARTER -> starters.remove(item);
-            case MAIN_DISH -> mainDishes.remove(item);
-            case DESSERT -> desserts.remove(item);
+    public synchronized void removeItem(MenuItem item) {
+        Snapshot current = snapshot;
+        if (!current.items.contains(item)) {
+            return;
         }
+        List<MenuItem> items = new ArrayList<>(current.category(item.getCategory()));
+        items.remove(item);
+        snapshot = current.with(item.getCategory(), items);
+    }
+
+    // Lookups, answered from the current snapshot
+    /**
+     * Finds the first item with the given name, in menu order.
+     */
+    public Optional<MenuItem> findItem(String name) {
+        return Optional.ofNullable(snapshot.byName.get(name));
+    }
+
+    /**
+     * Returns whether this exact item instance is on the menu.
+     */
+    public boolean contains(MenuItem item) {
+        return snapshot.items.contains(item);
+    }
+
+    public int size() {
+        return snapshot.all.size();
     }
 
     public List<MenuItem> getStarters() {
-        return Collections.unmodifiableList(starters);
+        return snapshot.starters;
     }
 
     public List<MenuItem> getMainDishes() {
-        return Collections.unmodifiableList(mainDishes);
+        return snapshot.mainDishes;
     }
 
     public List<MenuItem> getDesserts() {
-        return Collections.unmodifiableList(desserts);
+        return snapshot.desserts;
     }
 
     public List<MenuItem> getItems() {
         return getAllItems();
     }
 
+    /**
+     * Returns every item, starters first, then main dishes, then desserts.
+     */
     public List<MenuItem> getAllItems() {
-        return Stream.of(starters, mainDishes, desserts)
-                    .flatMap(List::stream)
-                    .collect(Collectors.toUnmodifiableList());
+        return snapshot.all;
     }
-}
\ No newline at end of file
+}
@@ -5,9 +5,17 @@ import com.foodora.user.Courier;
 import com.foodora.user.Restaurant;
 import com.foodora.util.IDGenerator;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.time.LocalDateTime;
 
+/**
+ * A customer's order at a restaurant.
+ * The item and meal totals are kept up to date as lines are added, so
+ * {@link #calculateTotalPrice()} neither iterates the lines nor allocates.
+ * Lines are only added through {@link #addItem(MenuItem)} and
+ * {@link #addMeal(Meal)}; the lists returned by the getters are read-only.
+ */
 public class Order {
     public enum OrderStatus {
         CREATED, PREPARING, READY_FOR_DELIVERY, IN_DELIVERY, DELIVERED, CANCELLED
@@ -20,31 +28,57 @@ public class Order {
     private Restaurant restaurant;
     private Courier courier;
 
-    private List<MenuItem> items;
-    private List<Meal> meals;
+    private final List<MenuItem> items = new ArrayList<>();
+    private final List<Meal> meals = new ArrayList<>();
+    private final List<MenuItem> itemsView = Collections.unmodifiableList(items);
+    private final List<Meal> mealsView = Collections.unmodifiableList(meals);
+    private final RunningSum itemTotal = new RunningSum();
+    private final RunningSum mealTotal = new RunningSum();
 
     private double finalPrice;
+    private volatile LocalDateTime completedAt;
 
     public Order(Customer customer, Restaurant restaurant, Courier courier, List<MenuItem> items, List<Meal> meals) {
+        this(IDGenerator.generateID("O"), LocalDateTime.now(), customer, restaurant, courier, items, meals);
+    }
+
+    /**
+     * Recreates an order with a known id and creation time, e.g. when restoring persisted state.
+     */
+    public Order(String orderId, LocalDateTime createdAt, Customer customer, Restaurant restaurant,
+                 Courier courier, List<MenuItem> items, List<Meal> meals) {
         if (customer == null || restaurant == null) {
             throw new IllegalArgumentException("Customer and restaurant cannot be null");
         }
         
-        this.orderId = IDGenerator.generateID("O");
-        this.createdAt = LocalDateTime.now();
+        this.orderId = orderId;
+        this.createdAt = createdAt;
         this.status = OrderStatus.CREATED;
         
         this.customer = customer;
         this.restaurant = restaurant;
         this.courier = courier;
-        this.items = items != null ? items : new ArrayList<>();
-        this.meals = meals != null ? meals : new ArrayList<>();
+        if (items != null) {
+            items.forEach(this::addItem);
+        }
+        if (meals != null) {
+            meals.forEach(this::addMeal);
+        }
     }
 
-    public double calculateTotalPrice() {
-        double itemTotal = items.stream().mapToDouble(MenuItem::getPrice).sum();
-        double mealTotal = meals.stream().mapToDouble(Meal::getPrice).sum();
-        return itemTotal + mealTotal;
+    // Lines
+    public synchronized void addItem(MenuItem item) {
+        items.add(item);
+        itemTotal.add(item.getPrice());
+    }
+
+    public synchronized void addMeal(Meal meal) {
+        meals.add(meal);
+        mealTotal.add(meal.getPrice());
+    }
+
+    public synchronized double calculateTotalPrice() {
+        return itemTotal.value() + mealTotal.value();
     }
 
     // Getters
@@ -67,10 +101,49 @@ public class Order {
         return finalPrice;
     }
 
-    public List<MenuItem> getItems() { return items; }
-    public List<Meal> getMeals() { return meals; }
+    /**
+     * Returns when the order was completed, or null while it is active.
+     */
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public List<MenuItem> getItems() { return itemsView; }
+    public List<Meal> getMeals() { return mealsView; }
 
     public void setCourier(Courier courier) {
         this.courier = courier;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Compensated sum of line prices; same steps, and so the same result, as
+     * summing the prices with a DoubleStream.
+     */
+    private static final class RunningSum {
+        private double sum;
+        private double compensation;
+        private double simpleSum;
+
+        void add(double price) {
+            // Same steps as Collectors.sumWithCompensation
+            double tmp = price - compensation;
+            double velvel = sum + tmp;
+            compensation = (velvel - sum) - tmp;
+            sum = velvel;
+            simpleSum += price;
+        }
+
+        double value() {
+            // Same steps as Collectors.computeFinalSum
+            double total = sum - compensation;
+            if (Double.isNaN(total) && Double.isInfinite(simpleSum)) {
+                return simpleSum;
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.foodora.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of orders by id, covering both active and completed orders.
+ * Also maps the client-supplied order names used by the CLUI to the internal
+ * order ids. An order stays in the id index for its whole life; completing it
+ * only removes it from the active map, so a lookup never misses an order that
+ * is being moved between the two sets.
+ */
+public class OrderIndex {
+    private final ConcurrentMap<String, Order> ordersById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Order> activeOrders = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> orderIdsByName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> namesByOrderId = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a newly placed order to the active set.
+     * @throws IllegalArgumentException if an order with the same id is already indexed
+     */
+    public void addActive(Order order) {
+        Objects.requireNonNull(order, "Order cannot be null");
+        if (ordersById.putIfAbsent(order.getOrderId(), order) != null) {
+            throw new IllegalArgumentException("Order already exists: " + order.getOrderId());
+        }
+        activeOrders.put(order.getOrderId(), order);
+    }
+
+    /**
+     * Binds a client-supplied name to an order id. A name can be reused once the
+     * order it pointed to has been completed.
+     * @throws IllegalArgumentException if the name is bound to an order that is still active
+     */
+    public void bindName(String name, Order order) {
+        Objects.requireNonNull(name, "Order name cannot be null");
+        Objects.requireNonNull(order, "Order cannot be null");
+        orderIdsByName.compute(name, (k, existingId) -> {
+            if (existingId != null && !existingId.equals(order.getOrderId())
+                    && activeOrders.containsKey(existingId)) {
+                throw new IllegalArgumentException("Order name already in use: " + name);
+            }
+            if (existingId != null) {
+                namesByOrderId.remove(existingId, name);
+            }
+            namesByOrderId.put(order.getOrderId(), name);
+            return order.getOrderId();
+        });
+    }
+
+    /**
+     * Atomically moves an order from the active set to the completed set.
+     * @return true if this call completed the order, false if it was not active
+     */
+    public boolean complete(Order order) {
+        return order != null && activeOrders.remove(order.getOrderId(), order);
+    }
+
+    /**
+     * Removes an order, active or completed, and any name bound to it.
+     */
+    public void remove(Order order) {
+        if (order == null) {
+            return;
+        }
+        String id = order.getOrderId();
+        activeOrders.remove(id, order);
+        ordersById.remove(id, order);
+        String name = namesByOrderId.remove(id);
+        if (name != null) {
+            orderIdsByName.remove(name, id);
+        }
+    }
+
+    // Lookups
+    public Optional<Order> findById(String orderId) {
+        return Optional.ofNullable(ordersById.get(orderId));
+    }
+
+    public Optional<Order> findByName(String name) {
+        String id = orderIdsByName.get(name);
+        return id == null ? Optional.empty() : findById(id);
+    }
+
+    /**
+     * Returns the client-supplied name bound to an order, if any.
+     */
+    public Optional<String> nameOf(Order order) {
+        return order == null ? Optional.empty() : Optional.ofNullable(namesByOrderId.get(order.getOrderId()));
+    }
+
+    /**
+     * Finds an order by client-supplied name first, then by internal id.
+     */
+    public Optional<Order> find(String nameOrId) {
+        Optional<Order> byName = findByName(nameOrId);
+        return byName.isPresent() ? byName : findById(nameOrId);
+    }
+
+    public boolean isActive(Order order) {
+        return order != null && activeOrders.get(order.getOrderId()) == order;
+    }
+
+    public Collection<Order> getActiveOrders() {
+        return Collections.unmodifiableCollection(activeOrders.values());
+    }
+
+    public int activeCount() {
+        return activeOrders.size();
+    }
+
+    public int size() {
+        return ordersById.size();
+    }
+
+    public void clear() {
+        ordersById.clear();
+        activeOrders.clear();
+        orderIdsByName.clear();
+        namesByOrderId.clear();
+    }
+}
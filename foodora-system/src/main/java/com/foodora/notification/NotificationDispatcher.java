@@ -0,0 +1,208 @@
+package com.foodora.notification;
+
+import com.foodora.analytics.NotificationMetrics;
+import com.foodora.user.Customer;
+import com.foodora.user.Restaurant;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers special offers to customers off the caller's thread.
+ * Submitting an offer only enqueues it in a bounded queue; worker threads
+ * take the offers waiting at that moment as one batch, look up the
+ * recipients of each restaurant in the batch once and send each customer a
+ * single notification with all of its offers from the batch.
+ * <p>
+ * When the queue is full, or after {@link #close()}, the submitting thread
+ * delivers its offer itself, which slows submitters down instead of losing
+ * offers. With more than one worker, batches may be delivered out of order.
+ */
+public class NotificationDispatcher implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(NotificationDispatcher.class.getName());
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+    public static final int DEFAULT_WORKERS = 1;
+    public static final int DEFAULT_MAX_BATCH = 64;
+
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final Function<Restaurant, ? extends Collection<Customer>> recipients;
+    private final BlockingQueue<SpecialOffer> queue;
+    private final int maxBatch;
+    private final ExecutorService workers;
+    private final NotificationMetrics metrics;
+    // Offers submitted but not delivered yet, queued or in a batch being delivered
+    private final AtomicLong pending = new AtomicLong();
+    private final Object idle = new Object();
+    private volatile boolean closed;
+
+    public NotificationDispatcher(Function<Restaurant, ? extends Collection<Customer>> recipients) {
+        this(recipients, DEFAULT_CAPACITY, DEFAULT_WORKERS, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * @param recipients returns the customers to notify of a restaurant's offers
+     * @param capacity maximum number of offers waiting for delivery
+     * @param workerCount number of delivery threads
+     * @param maxBatch maximum number of offers sent to a customer in one notification
+     */
+    public NotificationDispatcher(Function<Restaurant, ? extends Collection<Customer>> recipients, int capacity,
+                                  int workerCount, int maxBatch) {
+        if (capacity <= 0 || workerCount <= 0 || maxBatch <= 0) {
+            throw new IllegalArgumentException("Capacity, worker count and batch size must be positive");
+        }
+        this.recipients = recipients;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.metrics = new NotificationMetrics(queue::size);
+
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread thread = new Thread(r, "foodora-notify-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::deliverLoop);
+        }
+    }
+
+    /**
+     * Queues a special offer for the restaurant's recipients and returns.
+     */
+    public void submit(Restaurant restaurant, String message) {
+        SpecialOffer offer = new SpecialOffer(restaurant, message, System.nanoTime());
+        metrics.recordSubmitted();
+        pending.incrementAndGet();
+        if (closed || !queue.offer(offer)) {
+            metrics.recordCallerRun();
+            deliver(List.of(offer));
+        }
+    }
+
+    /**
+     * Waits until every offer submitted so far has been delivered.
+     * @return true if all offers were delivered, false if the timeout elapsed first
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (idle) {
+            while (pending.get() > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(idle, remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops the offers still waiting in the queue and resets the metrics.
+     */
+    public void clear() {
+        List<SpecialOffer> dropped = new ArrayList<>();
+        queue.drainTo(dropped);
+        completed(dropped.size());
+        metrics.reset();
+    }
+
+    public NotificationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Delivers the offers still queued, then stops the workers. Offers submitted
+     * afterwards are delivered on the submitting thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            if (!awaitIdle(CLOSE_TIMEOUT)) {
+                LOGGER.warning(String.format("Closing with %d undelivered special offers", queue.size()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdownNow();
+    }
+
+    // Delivery
+    private void deliverLoop() {
+        List<SpecialOffer> batch = new ArrayList<>(maxBatch);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatch - 1);
+                try {
+                    deliver(batch);
+                } catch (RuntimeException e) {
+                    // The pool does not replace a worker that dies; drop the batch and keep going
+                    LOGGER.log(Level.WARNING, String.format("Failed to deliver %d special offers", batch.size()), e);
+                } finally {
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Shutting down
+        }
+    }
+
+    private void deliver(List<SpecialOffer> batch) {
+        int notified = 0;
+        try {
+            // Group the batch by recipient, looking up each restaurant once
+            Map<Restaurant, Collection<Customer>> byRestaurant = new LinkedHashMap<>();
+            Map<Customer, List<SpecialOffer>> byCustomer = new LinkedHashMap<>();
+            for (SpecialOffer offer : batch) {
+                for (Customer customer : byRestaurant.computeIfAbsent(offer.restaurant(), recipients)) {
+                    byCustomer.computeIfAbsent(customer, c -> new ArrayList<>()).add(offer);
+                }
+            }
+            for (Map.Entry<Customer, List<SpecialOffer>> entry : byCustomer.entrySet()) {
+                try {
+                    entry.getKey().notifySpecialOffers(entry.getValue());
+                    notified++;
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to notify customer " + entry.getKey().getId(), e);
+                }
+            }
+        } finally {
+            long now = System.nanoTime();
+            long[] latencies = new long[batch.size()];
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = now - batch.get(i).submittedNanos();
+            }
+            try {
+                metrics.recordBatch(latencies, notified);
+            } finally {
+                completed(batch.size());
+            }
+        }
+    }
+
+    private void completed(int offers) {
+        if (offers > 0 && pending.addAndGet(-offers) == 0) {
+            synchronized (idle) {
+                idle.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.foodora.notification;
+
+import com.foodora.user.Restaurant;
+import java.util.Objects;
+
+/**
+ * A special offer announced by a restaurant, waiting to be delivered to customers.
+ * @param submittedNanos {@link System#nanoTime()} when the offer was submitted
+ */
+public record SpecialOffer(Restaurant restaurant, String message, long submittedNanos) {
+    public SpecialOffer {
+        Objects.requireNonNull(restaurant, "Restaurant cannot be null");
+        Objects.requireNonNull(message, "Message cannot be null");
+    }
+}
@@ -0,0 +1,260 @@
+package com.foodora.notification;
+
+import com.foodora.user.Customer;
+import com.foodora.user.Restaurant;
+import com.foodora.util.CompressedBitmap;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Who receives a restaurant's special offers.
+ * Registered customers get a dense index, and each restaurant keeps the
+ * indexes of its followers in a {@link CompressedBitmap}. A customer with
+ * notifications enabled receives the offers of the restaurants it follows;
+ * one that follows no restaurant at all falls back to receiving every
+ * offer, as before subscriptions existed. Customers with notifications
+ * disabled receive nothing but keep their subscriptions.
+ * <p>
+ * Finding the recipients of an offer visits the restaurant's followers and
+ * the fallback customers only, never the whole customer base.
+ */
+public class SubscriptionIndex {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Customer, Integer> indexes = new HashMap<>();
+    private final List<Customer> customers = new ArrayList<>();  // By index, null once unregistered
+    private final Map<Restaurant, CompressedBitmap> followers = new HashMap<>();
+    private int[] followCounts = new int[16];
+    // Customers with notifications enabled that follow no restaurant
+    private final CompressedBitmap everything = new CompressedBitmap();
+
+    // Customers
+    public void register(Customer customer) {
+        lock.writeLock().lock();
+        try {
+            if (indexes.containsKey(customer)) {
+                return;
+            }
+            int index = customers.size();
+            customers.add(customer);
+            indexes.put(customer, index);
+            if (index == followCounts.length) {
+                followCounts = Arrays.copyOf(followCounts, index * 2);
+            }
+            updateFallback(customer, index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void unregister(Customer customer) {
+        lock.writeLock().lock();
+        try {
+            Integer index = indexes.remove(customer);
+            if (index == null) {
+                return;
+            }
+            customers.set(index, null);
+            everything.remove(index);
+            if (followCounts[index] > 0) {
+                followers.values().forEach(bitmap -> bitmap.remove(index));
+                followers.values().removeIf(CompressedBitmap::isEmpty);
+                followCounts[index] = 0;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops a restaurant's followers, e.g. when the restaurant is removed.
+     */
+    public void unregister(Restaurant restaurant) {
+        lock.writeLock().lock();
+        try {
+            CompressedBitmap removed = followers.remove(restaurant);
+            if (removed != null) {
+                removed.forEach(index -> {
+                    followCounts[index]--;
+                    updateFallback(customers.get(index), index);
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-reads a customer's notification setting.
+     */
+    public void notificationsChanged(Customer customer) {
+        lock.writeLock().lock();
+        try {
+            Integer index = indexes.get(customer);
+            if (index != null) {
+                updateFallback(customer, index);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Subscriptions
+    /**
+     * Makes a registered customer follow a restaurant.
+     * @return true if the customer did not follow the restaurant yet, false
+     *         if it already did or is not registered
+     */
+    public boolean follow(Customer customer, Restaurant restaurant) {
+        Objects.requireNonNull(restaurant, "Restaurant cannot be null");
+        // Most calls come from repeat orders: check under the shared lock first
+        lock.readLock().lock();
+        try {
+            Integer index = indexes.get(customer);
+            CompressedBitmap bitmap = followers.get(restaurant);
+            if (index == null || (bitmap != null && bitmap.contains(index))) {
+                return false;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer index = indexes.get(customer);
+            if (index == null || !followers.computeIfAbsent(restaurant, r -> new CompressedBitmap()).add(index)) {
+                return false;
+            }
+            followCounts[index]++;
+            updateFallback(customer, index);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return true if the customer followed the restaurant
+     */
+    public boolean unfollow(Customer customer, Restaurant restaurant) {
+        lock.writeLock().lock();
+        try {
+            Integer index = indexes.get(customer);
+            CompressedBitmap bitmap = followers.get(restaurant);
+            if (index == null || bitmap == null || !bitmap.remove(index)) {
+                return false;
+            }
+            if (bitmap.isEmpty()) {
+                followers.remove(restaurant);
+            }
+            followCounts[index]--;
+            updateFallback(customer, index);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isFollowing(Customer customer, Restaurant restaurant) {
+        lock.readLock().lock();
+        try {
+            Integer index = indexes.get(customer);
+            CompressedBitmap bitmap = followers.get(restaurant);
+            return index != null && bitmap != null && bitmap.contains(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Restaurant> getFollowedRestaurants(Customer customer) {
+        lock.readLock().lock();
+        try {
+            Integer index = indexes.get(customer);
+            List<Restaurant> followed = new ArrayList<>();
+            if (index != null && followCounts[index] > 0) {
+                followers.forEach((restaurant, bitmap) -> {
+                    if (bitmap.contains(index)) {
+                        followed.add(restaurant);
+                    }
+                });
+            }
+            return followed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getFollowerCount(Restaurant restaurant) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap bitmap = followers.get(restaurant);
+            return bitmap == null ? 0 : bitmap.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the customers to notify of an offer from a restaurant: its
+     * followers with notifications enabled, then the customers that follow
+     * no restaurant and have notifications enabled.
+     */
+    public List<Customer> recipients(Restaurant restaurant) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap bitmap = followers.get(restaurant);
+            List<Customer> recipients = new ArrayList<>();
+            if (bitmap != null) {
+                bitmap.forEach(index -> {
+                    Customer customer = customers.get(index);
+                    if (customer.hasNotificationsEnabled()) {
+                        recipients.add(customer);
+                    }
+                });
+            }
+            // Disjoint from the followers: these customers follow nobody
+            everything.forEach(index -> recipients.add(customers.get(index)));
+            return recipients;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the approximate number of bytes used by the subscriber bitmaps.
+     */
+    public long getBitmapBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = everything.sizeInBytes();
+            for (CompressedBitmap bitmap : followers.values()) {
+                bytes += bitmap.sizeInBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            indexes.clear();
+            customers.clear();
+            followers.clear();
+            followCounts = new int[16];
+            everything.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Helper methods
+    private void updateFallback(Customer customer, int index) {
+        if (customer.hasNotificationsEnabled() && followCounts[index] == 0) {
+            everything.add(index);
+        } else {
+            everything.remove(index);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.foodora.persistence;
+
+import com.foodora.model.Order;
+import com.foodora.user.User;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One immutable archive file of completed orders, read through a memory map.
+ * <p>
+ * Layout: a fixed header, then blocks of up to {@link #BLOCK_ORDERS} orders,
+ * each deflate-compressed on its own, then a compressed table of the users
+ * the orders refer to, then the block index ({@code [long offset][int
+ * compressed length][int length][int order count]} per block) and the id
+ * index ({@code [long id hash][int block]} per order, sorted). A lookup by id
+ * binary-searches the id index in the map and inflates one block.
+ */
+final class ArchiveSegment {
+    static final int BLOCK_ORDERS = 256;
+
+    private static final int MAGIC = 0x464F4152;  // "FOAR"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 48;
+    private static final int BLOCK_ENTRY_BYTES = 20;
+    private static final int ID_ENTRY_BYTES = 12;
+
+    private final Path file;
+    private final MappedByteBuffer map;
+    private final int orderCount;
+    private final int blockCount;
+    private final long userTableOffset;
+    private final int userTableCompressed;
+    private final int userTableLength;
+    private final int blockIndexOffset;
+    private final int idIndexOffset;
+
+    // Decoded on first use; users removed from the registry resolve here
+    private volatile Map<String, User> users;
+
+    private ArchiveSegment(Path file, MappedByteBuffer map) throws IOException {
+        this.file = file;
+        this.map = map;
+        if (map.capacity() < HEADER_BYTES || map.getInt(0) != MAGIC) {
+            throw new IOException("Not an archive segment: " + file);
+        }
+        if (map.getInt(4) != VERSION) {
+            throw new IOException("Unsupported archive segment version " + map.getInt(4) + ": " + file);
+        }
+        orderCount = map.getInt(8);
+        blockCount = map.getInt(12);
+        userTableOffset = map.getLong(16);
+        userTableCompressed = map.getInt(24);
+        userTableLength = map.getInt(28);
+        blockIndexOffset = (int) map.getLong(32);
+        idIndexOffset = (int) map.getLong(40);
+        if ((long) idIndexOffset + (long) orderCount * ID_ENTRY_BYTES != map.capacity()) {
+            throw new IOException("Truncated archive segment: " + file);
+        }
+    }
+
+    /**
+     * Maps an existing segment file read-only.
+     */
+    static ArchiveSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ArchiveSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes orders to a new segment file. The file is written under a
+     * temporary name, forced to disk and then renamed, so a segment is
+     * either complete or absent.
+     * @param names returns the client-supplied name of an order, or null
+     */
+    static ArchiveSegment write(Path file, List<Order> orders, Function<Order, String> names) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Deflater deflater = new Deflater();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_BYTES);
+            RecordWriter out = new RecordWriter(64 * 1024);
+            int blocks = (orders.size() + BLOCK_ORDERS - 1) / BLOCK_ORDERS;
+            ByteBuffer blockIndex = ByteBuffer.allocate(blocks * BLOCK_ENTRY_BYTES);
+            long[] idIndex = new long[orders.size() * 2];
+            Map<String, User> referenced = new LinkedHashMap<>();
+
+            for (int block = 0; block < blocks; block++) {
+                int from = block * BLOCK_ORDERS;
+                int to = Math.min(orders.size(), from + BLOCK_ORDERS);
+                out.clear();
+                for (int i = from; i < to; i++) {
+                    Order order = orders.get(i);
+                    StateCodec.writeOrder(out, order, names.apply(order));
+                    idIndex[2 * i] = hash(order.getOrderId());
+                    idIndex[2 * i + 1] = block;
+                    for (User user : new User[]{order.getCustomer(), order.getRestaurant(), order.getCourier()}) {
+                        if (user != null) {
+                            referenced.putIfAbsent(user.getId(), user);
+                        }
+                    }
+                }
+                long offset = channel.position();
+                int compressed = writeCompressed(channel, deflater, out.bytes());
+                blockIndex.putLong(offset).putInt(compressed).putInt(out.size()).putInt(to - from);
+            }
+
+            out.clear();
+            out.putInt(referenced.size());
+            for (User user : referenced.values()) {
+                StateCodec.writeUser(out, user);
+            }
+            long userTableOffset = channel.position();
+            int userTableCompressed = writeCompressed(channel, deflater, out.bytes());
+
+            long blockIndexOffset = channel.position();
+            writeFully(channel, blockIndex.flip());
+            long idIndexOffset = channel.position();
+            writeFully(channel, sortedIdIndex(idIndex));
+            if (channel.position() > Integer.MAX_VALUE) {
+                throw new IOException("Archive segment too large: " + file);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC).putInt(VERSION)
+                .putInt(orders.size()).putInt(blocks)
+                .putLong(userTableOffset).putInt(userTableCompressed).putInt(out.size())
+                .putLong(blockIndexOffset).putLong(idIndexOffset);
+            channel.position(0);
+            writeFully(channel, header.flip());
+            channel.force(true);
+        } finally {
+            deflater.end();
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        return open(file);
+    }
+
+    // Reads
+    Path getFile() {
+        return file;
+    }
+
+    int getOrderCount() {
+        return orderCount;
+    }
+
+    long getSizeBytes() {
+        return map.capacity();
+    }
+
+    /**
+     * Finds an archived order by id.
+     * @param registry resolves ids of registered users; ids it does not know
+     *                 resolve to the user stored in the segment
+     */
+    Order find(String orderId, Function<String, User> registry) {
+        long hash = hash(orderId);
+        // First entry with the hash; collisions are checked against the decoded ids
+        int low = 0;
+        int high = orderCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (map.getLong(idIndexOffset + middle * ID_ENTRY_BYTES) < hash) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int lastBlock = -1;
+        for (int i = low; i < orderCount && map.getLong(idIndexOffset + i * ID_ENTRY_BYTES) == hash; i++) {
+            int block = map.getInt(idIndexOffset + i * ID_ENTRY_BYTES + 8);
+            if (block == lastBlock) {
+                continue;
+            }
+            lastBlock = block;
+            for (Order order : readBlock(block, registry, (found, name) -> { })) {
+                if (order.getOrderId().equals(orderId)) {
+                    return order;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decodes every order of the segment, in the order they were written.
+     */
+    void forEach(Function<String, User> registry, Consumer<Order> action) {
+        for (int block = 0; block < blockCount; block++) {
+            readBlock(block, registry, (order, name) -> { }).forEach(action);
+        }
+    }
+
+    /**
+     * Decodes every order of the segment with its stored name, in the order
+     * they were written. Users resolve to the copies stored in the segment.
+     */
+    void forEachNamed(StateCodec.OrderNameSink action) {
+        for (int block = 0; block < blockCount; block++) {
+            readBlock(block, id -> null, action);
+        }
+    }
+
+    // Helper methods
+    private List<Order> readBlock(int block, Function<String, User> registry, StateCodec.OrderNameSink names) {
+        int entry = blockIndexOffset + block * BLOCK_ENTRY_BYTES;
+        RecordReader in = new RecordReader(inflate(map.getLong(entry), map.getInt(entry + 8), map.getInt(entry + 12)));
+        Map<String, User> stored = users();
+        Function<String, User> resolve = id -> {
+            User user = registry.apply(id);
+            return user != null ? user : stored.get(id);
+        };
+        int count = map.getInt(entry + 16);
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(StateCodec.readOrder(in, resolve, names));
+        }
+        return orders;
+    }
+
+    private Map<String, User> users() {
+        Map<String, User> current = users;
+        if (current == null) {
+            synchronized (this) {
+                current = users;
+                if (current == null) {
+                    RecordReader in = new RecordReader(inflate(userTableOffset, userTableCompressed, userTableLength));
+                    int count = in.getInt();
+                    current = new HashMap<>(count * 2);
+                    for (int i = 0; i < count; i++) {
+                        User user = StateCodec.readUser(in);
+                        current.put(user.getId(), user);
+                    }
+                    users = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private ByteBuffer inflate(long offset, int compressed, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(map.slice((int) offset, compressed));
+            byte[] bytes = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                read += inflater.inflate(bytes, read, length - read);
+            }
+            if (read != length) {
+                throw new IllegalStateException("Corrupt archive block in " + file);
+            }
+            return ByteBuffer.wrap(bytes);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt archive block in " + file, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int writeCompressed(FileChannel channel, Deflater deflater, ByteBuffer input) throws IOException {
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        ByteBuffer output = ByteBuffer.allocate(Math.max(64, input.remaining() + input.remaining() / 8 + 64));
+        int written = 0;
+        while (!deflater.finished()) {
+            deflater.deflate(output);
+            written += output.position();
+            writeFully(channel, output.flip());
+            output.clear();
+        }
+        return written;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer sortedIdIndex(long[] entries) {
+        Integer[] order = new Integer[entries.length / 2];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byHash = Long.compare(entries[2 * a], entries[2 * b]);
+            return byHash != 0 ? byHash : Long.compare(entries[2 * a + 1], entries[2 * b + 1]);
+        });
+        ByteBuffer buffer = ByteBuffer.allocate(order.length * ID_ENTRY_BYTES);
+        for (int i : order) {
+            buffer.putLong(entries[2 * i]).putInt((int) entries[2 * i + 1]);
+        }
+        return buffer.flip();
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes of the id
+    static long hash(String orderId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : orderId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,90 @@
+package com.foodora.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk framing shared by journal segments and snapshots: each record is
+ * written as {@code [int length][int crc32c][payload]}. A frame with a bad
+ * length or checksum marks the end of the valid data, e.g. a write torn by a crash.
+ */
+final class Frames {
+    static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 64 << 20;
+    private static final int READ_BUFFER_BYTES = 1 << 20;
+
+    private Frames() {
+    }
+
+    /**
+     * Appends a framed record to the buffer.
+     * @return the buffer, or a larger copy if it had to grow
+     */
+    static ByteBuffer append(ByteBuffer target, RecordWriter record) {
+        ByteBuffer payload = record.bytes();
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+
+        int needed = HEADER_BYTES + payload.remaining();
+        if (target.remaining() < needed) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(target.capacity() * 2, target.position() + needed));
+            grown.put(target.flip());
+            target = grown;
+        }
+        return target.putInt(payload.remaining()).putInt((int) crc.getValue()).put(payload);
+    }
+
+    /**
+     * Reads every valid record of a file, in order.
+     * @return the length of the valid prefix of the file
+     */
+    static long read(Path file, Consumer<RecordReader> handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+            CRC32C crc = new CRC32C();
+            long valid = 0;
+            boolean eof = false;
+
+            while (true) {
+                while (!eof && buffer.hasRemaining()) {
+                    eof = channel.read(buffer) < 0;
+                }
+                buffer.flip();
+                while (buffer.remaining() >= HEADER_BYTES) {
+                    int start = buffer.position();
+                    int length = buffer.getInt(start);
+                    if (length < 0 || length > MAX_RECORD_BYTES) {
+                        return valid;
+                    }
+                    if (buffer.remaining() < HEADER_BYTES + length) {
+                        break;
+                    }
+                    ByteBuffer payload = buffer.slice(start + HEADER_BYTES, length);
+                    crc.reset();
+                    crc.update(payload.duplicate());
+                    if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+                        return valid;
+                    }
+                    handler.accept(new RecordReader(payload));
+                    buffer.position(start + HEADER_BYTES + length);
+                    valid += HEADER_BYTES + length;
+                }
+                if (eof) {
+                    return valid;  // Anything left is a torn tail
+                }
+                buffer.compact();
+                if (!buffer.hasRemaining()) {
+                    // One record larger than the buffer
+                    ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+                    grown.put(buffer.flip());
+                    buffer = grown;
+                }
+            }
+        }
+    }
+}
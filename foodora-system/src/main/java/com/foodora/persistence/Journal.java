@@ -0,0 +1,223 @@
+package com.foodora.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of state-changing operations, split into numbered segment files.
+ * Appends use group commit: records from concurrent callers are buffered and
+ * written (and optionally forced to disk) in one batch by whichever caller
+ * gets there first, while the others wait for that batch to finish.
+ * {@link #append} returns once the record is written.
+ */
+public class Journal implements Closeable {
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+
+    private final Path directory;
+    private final boolean fsync;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private FileChannel channel;
+    private long segment;
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private long appended;
+    private long written;
+    private boolean flushing;
+    private boolean closed;
+    private IOException failure;
+
+    private Journal(Path directory, long segment, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.segment = segment;
+        this.channel = openSegment(segment);
+    }
+
+    /**
+     * Opens a journal that appends to the given segment.
+     * @param fsync whether every commit is forced to the storage device; without it,
+     *              committed records survive a process crash but not a power loss
+     */
+    public static Journal open(Path directory, long segment, boolean fsync) throws IOException {
+        Files.createDirectories(directory);
+        return new Journal(directory, segment, fsync);
+    }
+
+    /**
+     * Appends a record and waits until it is committed.
+     * @throws UncheckedIOException if the journal could not be written
+     */
+    public void append(RecordWriter record) {
+        lock.lock();
+        try {
+            checkWritable();
+            pending = Frames.append(pending, record);
+            long sequence = ++appended;
+            awaitWritten(sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Commits everything appended so far and continues in a new segment.
+     * @return the index of the new segment
+     */
+    public long rotate() throws IOException {
+        lock.lock();
+        try {
+            checkWritable();
+            awaitWritten(appended);
+            closeChannel();
+            segment++;
+            channel = openSegment(segment);
+            return segment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSegment() {
+        lock.lock();
+        try {
+            return segment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            if (failure == null) {
+                awaitWritten(appended);
+            }
+            closed = true;
+            closeChannel();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Segment files
+    public static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Lists the journal segments in a directory, oldest first.
+     */
+    public static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(f -> segmentIndex(f) >= 0).forEach(segments::add);
+        }
+        segments.sort((a, b) -> Long.compare(segmentIndex(a), segmentIndex(b)));
+        return segments;
+    }
+
+    /**
+     * Returns the index of a segment file, or -1 if the file is not a segment.
+     */
+    public static long segmentIndex(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Helper methods (callers hold the lock)
+    private void awaitWritten(long sequence) {
+        while (written < sequence) {
+            if (failure != null) {
+                throw new UncheckedIOException("Journal write failed", failure);
+            }
+            if (flushing) {
+                flushed.awaitUninterruptibly();
+            } else {
+                flushPending();
+            }
+        }
+    }
+
+    // Writes the pending batch; the lock is released during the I/O so others can keep appending
+    private void flushPending() {
+        ByteBuffer batch = pending;
+        pending = spare;
+        long upTo = appended;
+        FileChannel target = channel;
+        flushing = true;
+        lock.unlock();
+        IOException error = null;
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                target.write(batch);
+            }
+            if (fsync) {
+                target.force(false);
+            }
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.lock();
+            batch.clear();
+            spare = batch;
+            flushing = false;
+            if (error == null) {
+                written = upTo;
+            } else {
+                failure = error;
+            }
+            flushed.signalAll();
+        }
+    }
+
+    private void checkWritable() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Journal write failed", failure);
+        }
+    }
+
+    private FileChannel openSegment(long index) throws IOException {
+        return FileChannel.open(segmentPath(directory, index),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void closeChannel() throws IOException {
+        if (fsync) {
+            channel.force(true);
+        }
+        channel.close();
+    }
+}
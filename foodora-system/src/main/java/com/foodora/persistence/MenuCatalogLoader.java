@@ -0,0 +1,198 @@
+package com.foodora.persistence;
+
+import com.foodora.model.Meal;
+import com.foodora.model.MealDefinition;
+import com.foodora.model.MenuItem;
+import com.foodora.user.Restaurant;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/**
+ * Streams a restaurant's catalog from a comma-separated file into its menu.
+ * Lines are read one at a time and applied in batches through
+ * {@link Restaurant#addMenuItems(List)} and {@link Restaurant#createMeals(List)},
+ * so a large catalog never has to fit in memory and customers get one
+ * notification per batch rather than per item.
+ * <p>
+ * Each line is either
+ * <pre>
+ * item,&lt;name&gt;,&lt;starter|main|dessert&gt;,&lt;standard|vegetarian|gluten-free&gt;,&lt;price&gt;
+ * meal,&lt;name&gt;,&lt;half|full&gt;,&lt;standard|vegetarian|gluten-free&gt;,&lt;true|false&gt;,&lt;item&gt;;&lt;item&gt;[;&lt;item&gt;]
+ * </pre>
+ * where the last field of a meal names its items, which must be on the menu
+ * or earlier in the file. Blank lines and lines starting with {@code #} are
+ * skipped; fields cannot contain commas. A malformed line stops the load,
+ * leaving the batches applied before it in place.
+ */
+public final class MenuCatalogLoader {
+    private static final Logger LOGGER = Logger.getLogger(MenuCatalogLoader.class.getName());
+
+    public static final int DEFAULT_BATCH_SIZE = 1_000;
+
+    /**
+     * Number of menu items and meals added by a load.
+     */
+    public record Result(int items, int meals) {
+    }
+
+    private final Restaurant restaurant;
+    private final int batchSize;
+    private final List<MenuItem> pendingItems = new ArrayList<>();
+    private final List<MealDefinition> pendingMeals = new ArrayList<>();
+    private int itemCount;
+    private int mealCount;
+
+    private MenuCatalogLoader(Restaurant restaurant, int batchSize) {
+        this.restaurant = restaurant;
+        this.batchSize = batchSize;
+    }
+
+    public static Result load(Path file, Restaurant restaurant) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return load(reader, restaurant, DEFAULT_BATCH_SIZE);
+        }
+    }
+
+    /**
+     * Loads a catalog, adding at most {@code batchSize} items or meals per batch.
+     * @throws IllegalArgumentException if a line is malformed or a batch is rejected
+     */
+    public static Result load(Reader reader, Restaurant restaurant, int batchSize) throws IOException {
+        Objects.requireNonNull(reader, "Reader cannot be null");
+        Objects.requireNonNull(restaurant, "Restaurant cannot be null");
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        MenuCatalogLoader loader = new MenuCatalogLoader(restaurant, batchSize);
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            try {
+                loader.accept(trimmed.split(",", -1));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("Line %d: %s", lineNumber, e.getMessage()), e);
+            }
+        }
+        loader.flushItems();
+        loader.flushMeals();
+        LOGGER.info(String.format("Loaded %d menu items and %d meals for restaurant %s",
+            loader.itemCount, loader.mealCount, restaurant.getName()));
+        return new Result(loader.itemCount, loader.mealCount);
+    }
+
+    // Lines
+    private void accept(String[] fields) {
+        switch (fields[0].trim().toLowerCase()) {
+            case "item" -> {
+                expectFields(fields, 5);
+                pendingItems.add(parseItem(fields));
+                if (pendingItems.size() >= batchSize) {
+                    flushItems();
+                }
+            }
+            case "meal" -> {
+                expectFields(fields, 6);
+                // Meals refer to items by name, so the items read so far must be on the menu
+                flushItems();
+                pendingMeals.add(parseMeal(fields));
+                if (pendingMeals.size() >= batchSize) {
+                    flushMeals();
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown record kind: " + fields[0].trim());
+        }
+    }
+
+    private MenuItem parseItem(String[] fields) {
+        String name = field(fields, 1);
+        MenuItem.Category category = switch (field(fields, 2).toLowerCase()) {
+            case "starter" -> MenuItem.Category.STARTER;
+            case "main" -> MenuItem.Category.MAIN_DISH;
+            case "dessert" -> MenuItem.Category.DESSERT;
+            default -> throw new IllegalArgumentException("Invalid category. Must be one of: starter, main, dessert");
+        };
+        String foodType = field(fields, 3).toLowerCase();
+        MenuItem.Type type = switch (foodType) {
+            case "standard", "gluten-free" -> MenuItem.Type.STANDARD;
+            case "vegetarian" -> MenuItem.Type.VEGETARIAN;
+            default -> throw new IllegalArgumentException(
+                "Invalid food type. Must be one of: standard, vegetarian, gluten-free");
+        };
+        double price;
+        try {
+            price = Double.parseDouble(field(fields, 4));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price format. Must be a number");
+        }
+        return new MenuItem(name, price, category, type, foodType.equals("gluten-free"));
+    }
+
+    private MealDefinition parseMeal(String[] fields) {
+        String name = field(fields, 1);
+        Meal.MealSize size = switch (field(fields, 2).toLowerCase()) {
+            case "half" -> Meal.MealSize.HALF_MEAL;
+            case "full" -> Meal.MealSize.FULL_MEAL;
+            default -> throw new IllegalArgumentException("Invalid meal size. Must be one of: half, full");
+        };
+        Meal.MealType type = switch (field(fields, 3).toLowerCase()) {
+            case "standard" -> Meal.MealType.STANDARD;
+            case "vegetarian" -> Meal.MealType.VEGETARIAN;
+            case "gluten-free" -> Meal.MealType.GLUTEN_FREE;
+            default -> throw new IllegalArgumentException(
+                "Invalid meal type. Must be one of: standard, vegetarian, gluten-free");
+        };
+        boolean mealOfTheWeek = Boolean.parseBoolean(field(fields, 4));
+        List<MenuItem> items = new ArrayList<>();
+        for (String itemName : field(fields, 5).split(";")) {
+            String trimmed = itemName.trim();
+            items.add(restaurant.getMenu().findItem(trimmed)
+                .orElseThrow(() -> new IllegalArgumentException("Item not found in restaurant menu: " + trimmed)));
+        }
+        return new MealDefinition(name, items, type, size, mealOfTheWeek);
+    }
+
+    private static void expectFields(String[] fields, int count) {
+        if (fields.length != count) {
+            throw new IllegalArgumentException(String.format("Expected %d fields, found %d", count, fields.length));
+        }
+    }
+
+    private static String field(String[] fields, int index) {
+        String value = fields[index].trim();
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException(String.format("Field %d cannot be empty", index + 1));
+        }
+        return value;
+    }
+
+    // Batches
+    private void flushItems() {
+        if (!pendingItems.isEmpty()) {
+            restaurant.addMenuItems(pendingItems);
+            itemCount += pendingItems.size();
+            pendingItems.clear();
+        }
+    }
+
+    private void flushMeals() {
+        if (!pendingMeals.isEmpty()) {
+            restaurant.createMeals(pendingMeals);
+            mealCount += pendingMeals.size();
+            pendingMeals.clear();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.foodora.persistence;
+
+import com.foodora.model.Order;
+import com.foodora.user.User;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Cold tier for completed orders: numbered, immutable segment files written
+ * once and then read through memory maps, so archived orders take no heap
+ * until they are read. Each segment carries an id index for point lookups
+ * and the users its orders refer to, so orders stay readable after their
+ * users are removed.
+ * <p>
+ * Small archive passes would leave one small segment each, so once
+ * {@link #COMPACT_SEGMENTS} segments under {@link #COMPACT_MAX_ORDERS} orders
+ * trail the archive they are merged into one. A merged segment is named
+ * after the range of segment numbers it replaces; segments left over by a
+ * merge that did not finish are deleted when the archive is opened.
+ */
+public class OrderArchive implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(OrderArchive.class.getName());
+
+    private static final String SEGMENT_PREFIX = "archive-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    static final int COMPACT_SEGMENTS = 8;
+    static final int COMPACT_MAX_ORDERS = 16 * ArchiveSegment.BLOCK_ORDERS;
+
+    private final Path directory;
+    // Replaced as a whole on every change, so readers never see a merge half done
+    private volatile List<ArchiveSegment> segments = List.of();
+    private long nextSegment;
+
+    private OrderArchive(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the archive in a directory, mapping the segments already in it.
+     * Segments left unfinished by a crash are deleted, and so are segments
+     * already merged into another one.
+     */
+    public static OrderArchive open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        OrderArchive archive = new OrderArchive(directory);
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.forEach(files::add);
+        }
+        List<Path> segmentFiles = new ArrayList<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX + ".tmp")) {
+                Files.deleteIfExists(file);
+            } else if (segmentRange(file) != null) {
+                segmentFiles.add(file);
+            }
+        }
+        // A merged segment sorts before the segments it replaced
+        segmentFiles.sort(Comparator.comparingLong((Path file) -> segmentRange(file)[0])
+            .thenComparing(Comparator.comparingLong((Path file) -> segmentRange(file)[1]).reversed()));
+        List<ArchiveSegment> opened = new ArrayList<>();
+        long covered = -1;
+        for (Path file : segmentFiles) {
+            long[] range = segmentRange(file);
+            if (range[1] <= covered) {
+                Files.deleteIfExists(file);  // Already merged into an earlier segment
+                continue;
+            }
+            opened.add(ArchiveSegment.open(file));
+            covered = range[1];
+        }
+        archive.segments = List.copyOf(opened);
+        archive.nextSegment = covered + 1;
+        LOGGER.info(String.format("Opened %d archive segments with %d orders in %s",
+            archive.getSegmentCount(), archive.getOrderCount(), directory));
+        return archive;
+    }
+
+    /**
+     * Writes orders to a new segment, then merges the trailing small segments
+     * if there are enough of them. Does nothing for an empty list.
+     * @param names returns the client-supplied name of an order, or null
+     */
+    public synchronized void append(List<Order> orders, Function<Order, String> names) throws IOException {
+        if (orders.isEmpty()) {
+            return;
+        }
+        ArchiveSegment written = ArchiveSegment.write(segmentFile(nextSegment, nextSegment), orders, names);
+        List<ArchiveSegment> current = new ArrayList<>(segments);
+        current.add(written);
+        segments = List.copyOf(current);
+        nextSegment++;
+        try {
+            compactTail();
+        } catch (IOException e) {
+            // The orders are archived; the small segments are merged on a later pass
+            LOGGER.warning(String.format("Could not merge archive segments in %s: %s", directory, e));
+        }
+    }
+
+    private void compactTail() throws IOException {
+        List<ArchiveSegment> current = segments;
+        int from = current.size();
+        while (from > 0 && current.get(from - 1).getOrderCount() < COMPACT_MAX_ORDERS) {
+            from--;
+        }
+        if (current.size() - from < COMPACT_SEGMENTS) {
+            return;
+        }
+
+        List<ArchiveSegment> run = current.subList(from, current.size());
+        List<Order> orders = new ArrayList<>();
+        Map<Order, String> names = new IdentityHashMap<>();
+        for (ArchiveSegment segment : run) {
+            segment.forEachNamed((order, name) -> {
+                orders.add(order);
+                if (name != null) {
+                    names.put(order, name);
+                }
+            });
+        }
+        long first = segmentRange(run.get(0).getFile())[0];
+        long last = segmentRange(run.get(run.size() - 1).getFile())[1];
+        ArchiveSegment merged = ArchiveSegment.write(segmentFile(first, last), orders, names::get);
+
+        List<ArchiveSegment> compacted = new ArrayList<>(current.subList(0, from));
+        compacted.add(merged);
+        segments = List.copyOf(compacted);
+        for (ArchiveSegment segment : run) {
+            Files.deleteIfExists(segment.getFile());
+        }
+        LOGGER.fine(String.format("Merged %d archive segments with %d orders in %s",
+            run.size(), orders.size(), directory));
+    }
+
+    // Reads
+    /**
+     * Finds an archived order by id. Every call decodes a fresh copy.
+     * @param users resolves ids of registered users; other ids resolve to the
+     *              users stored with the archived orders
+     */
+    public Optional<Order> findById(String orderId, Function<String, User> users) {
+        List<ArchiveSegment> current = segments;
+        // Newest first: recent history is looked up most
+        for (int i = current.size() - 1; i >= 0; i--) {
+            Order order = current.get(i).find(orderId, users);
+            if (order != null) {
+                return Optional.of(order);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public boolean contains(String orderId) {
+        return findById(orderId, id -> null).isPresent();
+    }
+
+    /**
+     * Decodes every archived order, oldest segment first.
+     */
+    public void forEach(Function<String, User> users, Consumer<Order> action) {
+        for (ArchiveSegment segment : segments) {
+            segment.forEach(users, action);
+        }
+    }
+
+    public long getOrderCount() {
+        long count = 0;
+        for (ArchiveSegment segment : segments) {
+            count += segment.getOrderCount();
+        }
+        return count;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public long getSizeBytes() {
+        long size = 0;
+        for (ArchiveSegment segment : segments) {
+            size += segment.getSizeBytes();
+        }
+        return size;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Releases the segments. The maps are unmapped once they are no longer
+     * reachable; orders already decoded stay valid.
+     */
+    @Override
+    public void close() {
+        segments = List.of();
+    }
+
+    private Path segmentFile(long first, long last) {
+        String range = first == last ? String.format("%016d", first) : String.format("%016d-%016d", first, last);
+        return directory.resolve(SEGMENT_PREFIX + range + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Returns the first and last segment numbers a segment file covers, or
+     * null if the file is not a segment.
+     */
+    static long[] segmentRange(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return null;
+        }
+        String range = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+        int dash = range.indexOf('-');
+        try {
+            long first = Long.parseLong(dash < 0 ? range : range.substring(0, dash));
+            long last = dash < 0 ? first : Long.parseLong(range.substring(dash + 1));
+            return first >= 0 && last >= first ? new long[]{first, last} : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
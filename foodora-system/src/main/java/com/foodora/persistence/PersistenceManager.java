@@ -0,0 +1,365 @@
+package com.foodora.persistence;
+
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Meal;
+import com.foodora.model.MenuItem;
+import com.foodora.model.Order;
+import com.foodora.user.Courier;
+import com.foodora.user.Restaurant;
+import com.foodora.user.User;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Makes the system state durable: every state-changing operation is appended
+ * to a {@link Journal}, and a compact snapshot of the whole state is written
+ * every {@code snapshotInterval} records, after which older journal segments
+ * are deleted. On startup the last snapshot is loaded and the journal written
+ * after it is replayed.
+ *
+ * <p>A checkpoint first rotates the journal and then captures the state, so
+ * every operation is either in the snapshot, in the new segment, or both;
+ * replay skips operations that are already applied.
+ */
+public class PersistenceManager implements StateJournal, Closeable {
+    private static final Logger LOGGER = Logger.getLogger(PersistenceManager.class.getName());
+
+    public static final long DEFAULT_SNAPSHOT_INTERVAL = 1_000_000;
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int SNAPSHOT_BUFFER_BYTES = 1 << 20;
+
+    private final MyFoodoraSystem system;
+    private final Path directory;
+    private final Journal journal;
+    private final long snapshotInterval;
+    private final AtomicLong recordsSinceSnapshot = new AtomicLong();
+    private final AtomicBoolean snapshotScheduled = new AtomicBoolean();
+    private final ExecutorService snapshotExecutor;
+    private final ThreadLocal<RecordWriter> writers = ThreadLocal.withInitial(() -> new RecordWriter(256));
+
+    private PersistenceManager(MyFoodoraSystem system, Path directory, Journal journal, long snapshotInterval) {
+        this.system = system;
+        this.directory = directory;
+        this.journal = journal;
+        this.snapshotInterval = snapshotInterval;
+        this.snapshotExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "foodora-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Restores the persisted state into the system, which should be empty, and
+     * opens the journal for new operations.
+     * @param fsync whether commits are forced to the storage device
+     * @param snapshotInterval number of journal records between automatic snapshots
+     */
+    public static PersistenceManager open(MyFoodoraSystem system, Path directory, boolean fsync,
+                                          long snapshotInterval) throws IOException {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive");
+        }
+        Files.createDirectories(directory);
+        long started = System.nanoTime();
+        Recovery recovery = new Recovery(system);
+        long nextSegment = recovery.recover(directory);
+        LOGGER.info(String.format("Recovered %d records from %s in %d ms", recovery.getRecordCount(),
+            directory, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)));
+
+        Journal journal = Journal.open(directory, nextSegment, fsync);
+        return new PersistenceManager(system, directory, journal, snapshotInterval);
+    }
+
+    // Journaled operations
+    @Override
+    public void userAdded(User user) {
+        RecordWriter out = start(RecordType.USER_ADD);
+        StateCodec.writeUser(out, user);
+        append(out);
+    }
+
+    @Override
+    public void userRemoved(User user) {
+        append(start(RecordType.USER_REMOVE).putString(user.getId()));
+    }
+
+    @Override
+    public void courierChanged(Courier courier) {
+        // Couriers decoded from archives, or not added yet, are not part of the state
+        if (!system.getUserRegistry().contains(courier)) {
+            return;
+        }
+        append(start(RecordType.COURIER_STATE)
+            .putString(courier.getId())
+            .putBoolean(courier.isOnDuty())
+            .putCoordinate(courier.getLocation()));
+    }
+
+    @Override
+    public void passwordChanged(User user) {
+        if (!system.getUserRegistry().contains(user)) {
+            return;
+        }
+        append(start(RecordType.PASSWORD).putString(user.getId()).putString(user.getPasswordHash()));
+    }
+
+    @Override
+    public void menuItemAdded(Restaurant restaurant, MenuItem item) {
+        RecordWriter out = start(RecordType.MENU_ITEM_ADD).putString(restaurant.getId());
+        StateCodec.writeMenuItem(out, item);
+        append(out);
+    }
+
+    @Override
+    public void menuItemRemoved(Restaurant restaurant, MenuItem item) {
+        RecordWriter out = start(RecordType.MENU_ITEM_REMOVE).putString(restaurant.getId());
+        StateCodec.writeMenuItem(out, item);
+        append(out);
+    }
+
+    @Override
+    public void mealAdded(Restaurant restaurant, Meal meal) {
+        RecordWriter out = start(RecordType.MEAL_ADD).putString(restaurant.getId());
+        StateCodec.writeMeal(out, meal);
+        append(out);
+    }
+
+    @Override
+    public void mealRemoved(Restaurant restaurant, Meal meal) {
+        append(start(RecordType.MEAL_REMOVE).putString(restaurant.getId()).putString(meal.getName()));
+    }
+
+    @Override
+    public void discountsChanged(Restaurant restaurant) {
+        append(start(RecordType.DISCOUNTS)
+            .putString(restaurant.getId())
+            .putDouble(restaurant.getDefaultGenericDiscountFactor())
+            .putDouble(restaurant.getDefaultSpecialDiscountFactor()));
+    }
+
+    @Override
+    public void orderPlaced(Order order, String orderName) {
+        RecordWriter out = start(RecordType.ORDER_PLACE);
+        StateCodec.writeOrder(out, order, orderName);
+        append(out);
+    }
+
+    @Override
+    public void orderCompleted(Order order, String orderName) {
+        RecordWriter out = start(RecordType.ORDER_COMPLETE);
+        StateCodec.writeOrder(out, order, orderName);
+        StateCodec.writeCompletedAt(out, order);
+        append(out);
+    }
+
+    @Override
+    public void feesChanged(double serviceFee, double markupPercentage, double deliveryCost) {
+        append(start(RecordType.FEES).putDouble(serviceFee).putDouble(markupPercentage).putDouble(deliveryCost));
+    }
+
+    @Override
+    public void policyChanged(Object policy) {
+        if (policy != null) {
+            append(start(RecordType.POLICY).putString(StateCodec.describePolicy(policy)));
+        }
+    }
+
+    // Snapshots
+    /**
+     * Writes a snapshot of the current state and deletes the journal segments it replaces.
+     */
+    public synchronized void checkpoint() throws IOException {
+        recordsSinceSnapshot.set(0);
+        long segment = journal.rotate();
+
+        Path temp = directory.resolve(SNAPSHOT_PREFIX + "tmp");
+        writeSnapshot(temp);
+        Files.move(temp, snapshotPath(directory, segment),
+            StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        // The new snapshot covers everything before its segment
+        for (Path file : listSnapshots(directory)) {
+            if (snapshotIndex(file) < segment) {
+                Files.deleteIfExists(file);
+            }
+        }
+        for (Path file : Journal.listSegments(directory)) {
+            if (Journal.segmentIndex(file) < segment) {
+                Files.deleteIfExists(file);
+            }
+        }
+        LOGGER.info(String.format("Wrote snapshot %d to %s", segment, directory));
+    }
+
+    private void writeSnapshot(Path file) throws IOException {
+        // Orders first: users captured afterwards include everyone the orders refer to
+        List<Order> active = new ArrayList<>(system.getOrderIndex().getActiveOrders());
+        List<Order> completed = system.getCompletedOrders();
+        List<User> users = new ArrayList<>(system.getUserRegistry().getAll());
+
+        Set<User> registered = Collections.newSetFromMap(new IdentityHashMap<>());
+        registered.addAll(users);
+        Set<User> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (List<Order> orders : List.of(completed, active)) {
+            for (Order order : orders) {
+                for (User user : new User[]{order.getCustomer(), order.getRestaurant(), order.getCourier()}) {
+                    if (user != null && !registered.contains(user)) {
+                        removed.add(user);
+                    }
+                }
+            }
+        }
+
+        RecordWriter out = new RecordWriter(4096);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_BUFFER_BYTES);
+
+            buffer = write(channel, buffer, out.clear().putByte(RecordType.FEES.code())
+                .putDouble(system.getServiceFee())
+                .putDouble(system.getMarkupPercentage())
+                .putDouble(system.getDeliveryCost()));
+            for (Object policy : List.of(system.getDeliveryPolicy(), system.getBatchDeliveryPolicy(),
+                    system.getTargetProfitPolicy(), system.getOrderSortingPolicy())) {
+                buffer = write(channel, buffer, out.clear().putByte(RecordType.POLICY.code())
+                    .putString(StateCodec.describePolicy(policy)));
+            }
+
+            for (User user : users) {
+                buffer = writeUser(channel, buffer, out, user);
+            }
+            // Users removed since their orders were placed are restored, then removed again
+            for (User user : removed) {
+                buffer = writeUser(channel, buffer, out, user);
+                buffer = write(channel, buffer, out.clear().putByte(RecordType.USER_REMOVE.code())
+                    .putString(user.getId()));
+            }
+
+            for (Order order : completed) {
+                out.clear().putByte(RecordType.ORDER_COMPLETE.code());
+                StateCodec.writeOrder(out, order, system.getOrderIndex().nameOf(order).orElse(null));
+                StateCodec.writeCompletedAt(out, order);
+                buffer = write(channel, buffer, out);
+            }
+            for (Order order : active) {
+                out.clear().putByte(RecordType.ORDER_PLACE.code());
+                StateCodec.writeOrder(out, order, system.getOrderIndex().nameOf(order).orElse(null));
+                buffer = write(channel, buffer, out);
+            }
+
+            buffer = write(channel, buffer, out.clear().putByte(RecordType.SNAPSHOT_END.code()));
+            drain(channel, buffer);
+            channel.force(true);
+        }
+    }
+
+    private ByteBuffer writeUser(FileChannel channel, ByteBuffer buffer, RecordWriter out, User user)
+            throws IOException {
+        out.clear().putByte(RecordType.USER_ADD.code());
+        StateCodec.writeUser(out, user);
+        buffer = write(channel, buffer, out);
+        if (user instanceof Restaurant restaurant) {
+            for (MenuItem item : restaurant.getMenu().getItems()) {
+                out.clear().putByte(RecordType.MENU_ITEM_ADD.code()).putString(restaurant.getId());
+                StateCodec.writeMenuItem(out, item);
+                buffer = write(channel, buffer, out);
+            }
+            for (Meal meal : restaurant.getMeals()) {
+                out.clear().putByte(RecordType.MEAL_ADD.code()).putString(restaurant.getId());
+                StateCodec.writeMeal(out, meal);
+                buffer = write(channel, buffer, out);
+            }
+        }
+        return buffer;
+    }
+
+    private static ByteBuffer write(FileChannel channel, ByteBuffer buffer, RecordWriter record) throws IOException {
+        if (buffer.position() >= SNAPSHOT_BUFFER_BYTES / 2) {
+            drain(channel, buffer);
+        }
+        return Frames.append(buffer, record);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    static Path snapshotPath(Path directory, long segment) {
+        return directory.resolve(String.format("%s%016d%s", SNAPSHOT_PREFIX, segment, SNAPSHOT_SUFFIX));
+    }
+
+    /**
+     * Lists the snapshots in a directory, newest first.
+     */
+    static List<Path> listSnapshots(Path directory) throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(f -> snapshotIndex(f) >= 0).forEach(snapshots::add);
+        }
+        snapshots.sort((a, b) -> Long.compare(snapshotIndex(b), snapshotIndex(a)));
+        return snapshots;
+    }
+
+    static long snapshotIndex(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(SNAPSHOT_PREFIX) || !name.endsWith(SNAPSHOT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        snapshotExecutor.shutdown();
+        try {
+            snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    // Helper methods
+    private RecordWriter start(RecordType type) {
+        return writers.get().clear().putByte(type.code());
+    }
+
+    private void append(RecordWriter record) {
+        journal.append(record);
+        if (recordsSinceSnapshot.incrementAndGet() >= snapshotInterval && snapshotScheduled.compareAndSet(false, true)) {
+            snapshotExecutor.execute(() -> {
+                try {
+                    checkpoint();
+                } catch (IOException | UncheckedIOException e) {
+                    LOGGER.log(Level.WARNING, String.format("Snapshot failed: %s", e.getMessage()), e);
+                } finally {
+                    snapshotScheduled.set(false);
+                }
+            });
+        }
+    }
+}
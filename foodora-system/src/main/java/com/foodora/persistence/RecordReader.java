@@ -0,0 +1,66 @@
+package com.foodora.persistence;
+
+import com.foodora.util.Coordinate;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the fields of one record written by {@link RecordWriter}.
+ */
+public final class RecordReader {
+    private final ByteBuffer buffer;
+
+    public RecordReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public byte getByte() {
+        return buffer.get();
+    }
+
+    public boolean getBoolean() {
+        return buffer.get() != 0;
+    }
+
+    public int getInt() {
+        return buffer.getInt();
+    }
+
+    public long getLong() {
+        return buffer.getLong();
+    }
+
+    public double getDouble() {
+        return buffer.getDouble();
+    }
+
+    public String getString() {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    public Coordinate getCoordinate() {
+        if (!getBoolean()) {
+            return null;
+        }
+        double x = getDouble();
+        double y = getDouble();
+        return new Coordinate(x, y);
+    }
+
+    public boolean hasRemaining() {
+        return buffer.hasRemaining();
+    }
+}
@@ -0,0 +1,47 @@
+package com.foodora.persistence;
+
+/**
+ * Types of journal and snapshot records. The code is the first byte of every record.
+ */
+public enum RecordType {
+    USER_ADD(1),
+    USER_REMOVE(2),
+    COURIER_STATE(3),
+    MENU_ITEM_ADD(4),
+    MENU_ITEM_REMOVE(5),
+    MEAL_ADD(6),
+    MEAL_REMOVE(7),
+    DISCOUNTS(8),
+    ORDER_PLACE(9),
+    ORDER_COMPLETE(10),
+    FEES(11),
+    POLICY(12),
+    SNAPSHOT_END(13),
+    PASSWORD(14);
+
+    private static final RecordType[] BY_CODE = new RecordType[15];
+
+    static {
+        for (RecordType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final int code;
+
+    RecordType(int code) {
+        this.code = code;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public static RecordType fromCode(int code) {
+        RecordType type = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown record type: " + code);
+        }
+        return type;
+    }
+}
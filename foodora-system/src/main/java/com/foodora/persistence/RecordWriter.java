@@ -0,0 +1,89 @@
+package com.foodora.persistence;
+
+import com.foodora.util.Coordinate;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Growable binary buffer for encoding one journal or snapshot record.
+ * Writers are reused per thread, so encoding does not allocate in the steady state.
+ */
+public final class RecordWriter {
+    private ByteBuffer buffer;
+
+    public RecordWriter(int initialCapacity) {
+        buffer = ByteBuffer.allocate(initialCapacity);
+    }
+
+    public RecordWriter clear() {
+        buffer.clear();
+        return this;
+    }
+
+    public RecordWriter putByte(int value) {
+        ensure(1).put((byte) value);
+        return this;
+    }
+
+    public RecordWriter putBoolean(boolean value) {
+        return putByte(value ? 1 : 0);
+    }
+
+    public RecordWriter putInt(int value) {
+        ensure(4).putInt(value);
+        return this;
+    }
+
+    public RecordWriter putLong(long value) {
+        ensure(8).putLong(value);
+        return this;
+    }
+
+    public RecordWriter putDouble(double value) {
+        ensure(8).putDouble(value);
+        return this;
+    }
+
+    /**
+     * Writes a UTF-8 string prefixed by its byte length; null is written as length -1.
+     */
+    public RecordWriter putString(String value) {
+        if (value == null) {
+            return putInt(-1);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensure(bytes.length).put(bytes);
+        return this;
+    }
+
+    public RecordWriter putCoordinate(Coordinate value) {
+        putBoolean(value != null);
+        if (value != null) {
+            putDouble(value.getX());
+            putDouble(value.getY());
+        }
+        return this;
+    }
+
+    public int size() {
+        return buffer.position();
+    }
+
+    /**
+     * Returns a read-only view of the bytes written so far.
+     */
+    public ByteBuffer bytes() {
+        return buffer.asReadOnlyBuffer().flip();
+    }
+
+    private ByteBuffer ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+            ByteBuffer grown = ByteBuffer.allocate(capacity);
+            grown.put(buffer.flip());
+            buffer = grown;
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,253 @@
+package com.foodora.persistence;
+
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Meal;
+import com.foodora.model.MenuItem;
+import com.foodora.model.Order;
+import com.foodora.policy.delivery.BatchDeliveryPolicy;
+import com.foodora.policy.delivery.DeliveryPolicy;
+import com.foodora.policy.order.OrderSortingPolicy;
+import com.foodora.policy.target.TargetProfitPolicy;
+import com.foodora.user.Courier;
+import com.foodora.user.Restaurant;
+import com.foodora.user.User;
+import com.foodora.util.Coordinate;
+import com.foodora.util.IDGenerator;
+import com.foodora.util.PasswordHash;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+/**
+ * Rebuilds the system state from the latest snapshot and the journal segments
+ * written after it. Records are applied idempotently: operations already
+ * reflected in the state are skipped.
+ */
+final class Recovery {
+    private static final Logger LOGGER = Logger.getLogger(Recovery.class.getName());
+
+    private final MyFoodoraSystem system;
+    // Every user seen so far, including removed ones still referenced by orders
+    private final Map<String, User> users = new HashMap<>();
+    private String lastOrderName;
+    private long records;
+    private boolean snapshotComplete;
+
+    Recovery(MyFoodoraSystem system) {
+        this.system = system;
+    }
+
+    /**
+     * Applies the persisted state to the system.
+     * @return the index of the journal segment to append to next
+     */
+    long recover(Path directory) throws IOException {
+        long firstSegment = 0;
+        for (Path snapshot : PersistenceManager.listSnapshots(directory)) {
+            snapshotComplete = false;
+            Frames.read(snapshot, this::apply);
+            if (snapshotComplete) {
+                firstSegment = PersistenceManager.snapshotIndex(snapshot);
+                break;
+            }
+            LOGGER.warning(String.format("Ignoring incomplete snapshot %s", snapshot));
+            system.reset();
+            users.clear();
+            records = 0;
+        }
+
+        long nextSegment = firstSegment;
+        for (Path segment : Journal.listSegments(directory)) {
+            long index = Journal.segmentIndex(segment);
+            nextSegment = Math.max(nextSegment, index + 1);
+            if (index < firstSegment) {
+                continue;
+            }
+            long valid = Frames.read(segment, this::apply);
+            if (valid < Files.size(segment)) {
+                LOGGER.warning(String.format("Truncating torn journal tail of %s at %d bytes", segment, valid));
+                try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                }
+            }
+        }
+        return nextSegment;
+    }
+
+    long getRecordCount() {
+        return records;
+    }
+
+    void apply(RecordReader in) {
+        records++;
+        RecordType type = RecordType.fromCode(in.getByte());
+        switch (type) {
+            case USER_ADD:
+                addUser(StateCodec.readUser(in));
+                break;
+            case USER_REMOVE:
+                registered(in.getString()).ifPresent(system::removeUser);
+                break;
+            case COURIER_STATE:
+                updateCourier(in.getString(), in.getBoolean(), in.getCoordinate());
+                break;
+            case PASSWORD: {
+                String id = in.getString();
+                PasswordHash hash = new PasswordHash(in.getString());
+                registered(id).ifPresent(user -> user.restorePasswordHash(hash));
+                break;
+            }
+            case MENU_ITEM_ADD:
+                addMenuItem(restaurant(in.getString()), StateCodec.readMenuItem(in));
+                break;
+            case MENU_ITEM_REMOVE:
+                removeMenuItem(restaurant(in.getString()), StateCodec.readMenuItem(in));
+                break;
+            case MEAL_ADD: {
+                Restaurant restaurant = restaurant(in.getString());
+                addMeal(restaurant, StateCodec.readMeal(in, item -> StateCodec.menuInstance(restaurant, item)));
+                break;
+            }
+            case MEAL_REMOVE:
+                removeMeal(restaurant(in.getString()), in.getString());
+                break;
+            case DISCOUNTS: {
+                restaurant(in.getString()).restoreDiscountFactors(in.getDouble(), in.getDouble());
+                break;
+            }
+            case ORDER_PLACE:
+                placeOrder(readOrder(in));
+                break;
+            case ORDER_COMPLETE: {
+                Order order = readOrder(in);
+                // Records written before completion times were stored fall back to the creation time
+                LocalDateTime completedAt = StateCodec.readCompletedAt(in);
+                order.setCompletedAt(completedAt != null ? completedAt : order.getCreatedAt());
+                completeOrder(order);
+                break;
+            }
+            case FEES:
+                system.setFees(in.getDouble(), in.getDouble(), in.getDouble());
+                break;
+            case POLICY:
+                setPolicy(StateCodec.createPolicy(in.getString()));
+                break;
+            case SNAPSHOT_END:
+                snapshotComplete = true;
+                break;
+            default:
+                throw new IllegalStateException("Unhandled record type: " + type);
+        }
+    }
+
+    // Users
+    private void addUser(User user) {
+        IDGenerator.advancePast(user.getId());
+        if (system.getUserRegistry().findById(user.getId()).isPresent()) {
+            return;
+        }
+        users.put(user.getId(), user);
+        system.addUser(user);
+    }
+
+    private void updateCourier(String id, boolean onDuty, Coordinate location) {
+        User user = users.get(id);
+        if (user instanceof Courier courier) {
+            if (location != null) {
+                courier.updateLocation(location);
+            }
+            courier.setOnDuty(onDuty);
+        }
+    }
+
+    private Optional<User> registered(String id) {
+        return system.getUserRegistry().findById(id);
+    }
+
+    private Restaurant restaurant(String id) {
+        User user = users.get(id);
+        if (!(user instanceof Restaurant restaurant)) {
+            throw new IllegalStateException("Unknown restaurant in record: " + id);
+        }
+        return restaurant;
+    }
+
+    // Menus
+    private void addMenuItem(Restaurant restaurant, MenuItem item) {
+        if (StateCodec.menuInstance(restaurant, item) == item) {
+            restaurant.restoreMenuItem(item);
+        }
+    }
+
+    private void removeMenuItem(Restaurant restaurant, MenuItem item) {
+        MenuItem existing = StateCodec.menuInstance(restaurant, item);
+        if (existing != item) {
+            restaurant.removeMenuItem(existing);
+        }
+    }
+
+    private void addMeal(Restaurant restaurant, Meal meal) {
+        if (StateCodec.mealInstance(restaurant, meal) == meal) {
+            restaurant.restoreMeal(meal);
+        }
+    }
+
+    private void removeMeal(Restaurant restaurant, String name) {
+        for (Meal meal : restaurant.getMeals()) {
+            if (meal.getName().equals(name)) {
+                restaurant.removeMeal(meal);
+                return;
+            }
+        }
+    }
+
+    // Orders
+    private Order readOrder(RecordReader in) {
+        Order order = StateCodec.readOrder(in, users::get, (decoded, name) -> lastOrderName = name);
+        IDGenerator.advancePast(order.getOrderId());
+        return order;
+    }
+
+    private void placeOrder(Order order) {
+        String name = lastOrderName;
+        if (system.getOrderIndex().findById(order.getOrderId()).isEmpty()) {
+            system.restoreOrder(order, name);
+        }
+    }
+
+    private void completeOrder(Order order) {
+        String name = lastOrderName;
+        Optional<Order> existing = system.getOrderIndex().findById(order.getOrderId());
+        if (existing.isPresent()) {
+            if (!system.isOrderActive(existing.get())) {
+                return;  // Already completed
+            }
+            // The completion record carries the final items and price
+            system.getOrderIndex().remove(existing.get());
+        }
+        system.restoreOrder(order, name);
+        system.completeOrder(order);
+    }
+
+    // Fees and policies
+    private void setPolicy(Object policy) {
+        if (policy instanceof DeliveryPolicy delivery) {
+            system.setDeliveryPolicy(delivery);
+        } else if (policy instanceof BatchDeliveryPolicy batch) {
+            system.setBatchDeliveryPolicy(batch);
+        } else if (policy instanceof TargetProfitPolicy target) {
+            system.setTargetProfitPolicy(target);
+        } else if (policy instanceof OrderSortingPolicy sorting) {
+            system.setOrderSortingPolicy(sorting);
+        } else {
+            throw new IllegalStateException("Unknown policy type: " + policy.getClass().getName());
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.foodora.persistence;
+
+import com.foodora.model.Meal;
+import com.foodora.model.Menu;
+import com.foodora.model.MenuItem;
+import com.foodora.model.Order;
+import com.foodora.policy.delivery.FairOccupationPolicy;
+import com.foodora.policy.delivery.MinTotalDistanceBatchPolicy;
+import com.foodora.user.*;
+import com.foodora.util.PasswordHash;
+import com.foodora.util.PasswordHasher;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Binary encoding of users, menus, orders and policies, shared by the journal,
+ * snapshots and any other store of system state.
+ */
+public final class StateCodec {
+    // User kinds in USER_ADD records
+    private static final int CUSTOMER = 1;
+    private static final int COURIER = 2;
+    private static final int RESTAURANT = 3;
+    private static final int MANAGER = 4;
+
+    private StateCodec() {
+    }
+
+    // Users
+    public static void writeUser(RecordWriter out, User user) {
+        if (user instanceof Customer customer) {
+            out.putByte(CUSTOMER);
+            writeCredentials(out, user);
+            out.putString(customer.getSurname())
+                .putCoordinate(customer.getAddress())
+                .putString(customer.getEmail())
+                .putString(customer.getPhoneNumber());
+        } else if (user instanceof Courier courier) {
+            out.putByte(COURIER);
+            writeCredentials(out, user);
+            out.putString(courier.getSurname())
+                .putCoordinate(courier.getLocation())
+                .putString(courier.getPhoneNumber())
+                .putBoolean(courier.isOnDuty());
+        } else if (user instanceof Restaurant restaurant) {
+            out.putByte(RESTAURANT);
+            writeCredentials(out, user);
+            out.putCoordinate(restaurant.getLocation())
+                .putDouble(restaurant.getDefaultGenericDiscountFactor())
+                .putDouble(restaurant.getDefaultSpecialDiscountFactor());
+        } else if (user instanceof Manager manager) {
+            out.putByte(MANAGER);
+            writeCredentials(out, user);
+            out.putString(manager.getSurname());
+        } else {
+            throw new IllegalArgumentException("Unsupported user type: " + user.getClass().getName());
+        }
+    }
+
+    /**
+     * Reads a user written by {@link #writeUser}. The user is not registered anywhere.
+     */
+    public static User readUser(RecordReader in) {
+        int kind = in.getByte();
+        String id = in.getString();
+        String name = in.getString();
+        String username = in.getString();
+        String password = in.getString();
+        // State written before passwords were hashed holds them in plaintext
+        PasswordHash hash = PasswordHasher.isHash(password) ? new PasswordHash(password) : PasswordHash.of(password);
+        User user;
+        switch (kind) {
+            case CUSTOMER:
+                user = new Customer(id, name, in.getString(), in.getCoordinate(), in.getString(),
+                    in.getString(), username, hash);
+                break;
+            case COURIER: {
+                Courier courier = new Courier(id, name, in.getString(), in.getCoordinate(), in.getString(),
+                    username, hash);
+                // Picked up by the courier index when the courier is registered
+                courier.setOnDuty(in.getBoolean());
+                user = courier;
+                break;
+            }
+            case RESTAURANT: {
+                Restaurant restaurant = new Restaurant(id, name, in.getCoordinate(), username, hash);
+                restaurant.restoreDiscountFactors(in.getDouble(), in.getDouble());
+                user = restaurant;
+                break;
+            }
+            case MANAGER:
+                user = new Manager(id, name, in.getString(), username, hash);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown user kind: " + kind);
+        }
+        return user;
+    }
+
+    private static void writeCredentials(RecordWriter out, User user) {
+        out.putString(user.getId())
+            .putString(user.getName())
+            .putString(user.getUsername())
+            .putString(user.getPasswordHash());
+    }
+
+    // Menus
+    public static void writeMenuItem(RecordWriter out, MenuItem item) {
+        out.putString(item.getName())
+            .putDouble(item.getPrice())
+            .putByte(item.getCategory().ordinal())
+            .putByte(item.getType().ordinal())
+            .putBoolean(item.isGlutenFree());
+    }
+
+    public static MenuItem readMenuItem(RecordReader in) {
+        return new MenuItem(in.getString(), in.getDouble(),
+            MenuItem.Category.values()[in.getByte()], MenuItem.Type.values()[in.getByte()], in.getBoolean());
+    }
+
+    public static void writeMeal(RecordWriter out, Meal meal) {
+        out.putString(meal.getName())
+            .putByte(meal.getMealType().ordinal())
+            .putByte(meal.getMealSize().ordinal())
+            .putBoolean(meal.isMealOfTheWeek())
+            .putDouble(meal.getDiscountFactor());
+        List<MenuItem> items = meal.getItems();
+        out.putInt(items.size());
+        for (MenuItem item : items) {
+            writeMenuItem(out, item);
+        }
+    }
+
+    /**
+     * Reads a meal written by {@link #writeMeal}.
+     * @param resolveItem maps each decoded item to the instance to use, e.g. the one on the menu
+     */
+    public static Meal readMeal(RecordReader in, Function<MenuItem, MenuItem> resolveItem) {
+        String name = in.getString();
+        Meal.MealType type = Meal.MealType.values()[in.getByte()];
+        Meal.MealSize size = Meal.MealSize.values()[in.getByte()];
+        boolean mealOfTheWeek = in.getBoolean();
+        double discount = in.getDouble();
+        int count = in.getInt();
+        List<MenuItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(resolveItem.apply(readMenuItem(in)));
+        }
+        return new Meal(name, items, type, size, mealOfTheWeek, discount);
+    }
+
+    // Orders
+    /**
+     * Writes an order with its items, meals and price, so the record is
+     * self-contained even if the menu changes later.
+     */
+    public static void writeOrder(RecordWriter out, Order order, String orderName) {
+        LocalDateTime createdAt = order.getCreatedAt();
+        out.putString(order.getOrderId())
+            .putLong(createdAt.toEpochSecond(ZoneOffset.UTC))
+            .putInt(createdAt.getNano())
+            .putByte(order.getStatus().ordinal())
+            .putString(order.getCustomer().getId())
+            .putString(order.getRestaurant().getId())
+            .putString(order.getCourier() == null ? null : order.getCourier().getId())
+            .putString(orderName);
+
+        // Copy first: items may still be added to an active order concurrently
+        List<MenuItem> items = new ArrayList<>(order.getItems());
+        out.putInt(items.size());
+        for (MenuItem item : items) {
+            writeMenuItem(out, item);
+        }
+        List<Meal> meals = new ArrayList<>(order.getMeals());
+        out.putInt(meals.size());
+        for (Meal meal : meals) {
+            writeMeal(out, meal);
+        }
+        out.putDouble(order.getFinalPrice());
+    }
+
+    /**
+     * Reads an order written by {@link #writeOrder}. Items and meals still on
+     * the restaurant's menu are resolved to the menu's instances.
+     * @param users resolves user ids, including users removed since the order was written
+     * @param names receives the client-supplied order name, or null
+     */
+    public static Order readOrder(RecordReader in, Function<String, User> users, OrderNameSink names) {
+        String orderId = in.getString();
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+        Order.OrderStatus status = Order.OrderStatus.values()[in.getByte()];
+        Customer customer = (Customer) resolve(users, in.getString());
+        Restaurant restaurant = (Restaurant) resolve(users, in.getString());
+        String courierId = in.getString();
+        Courier courier = courierId == null ? null : (Courier) resolve(users, courierId);
+        String orderName = in.getString();
+
+        int itemCount = in.getInt();
+        List<MenuItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(menuInstance(restaurant, readMenuItem(in)));
+        }
+        int mealCount = in.getInt();
+        List<Meal> meals = new ArrayList<>(mealCount);
+        for (int i = 0; i < mealCount; i++) {
+            meals.add(mealInstance(restaurant, readMeal(in, item -> menuInstance(restaurant, item))));
+        }
+
+        Order order = new Order(orderId, createdAt, customer, restaurant, courier, items, meals);
+        order.setStatus(status);
+        order.setFinalPrice(in.getDouble());
+        names.accept(order, orderName);
+        return order;
+    }
+
+    /**
+     * Writes when an order was completed, after the order itself in a
+     * completion record. Nothing is written for an order without a completion time.
+     */
+    public static void writeCompletedAt(RecordWriter out, Order order) {
+        LocalDateTime completedAt = order.getCompletedAt();
+        if (completedAt != null) {
+            out.putLong(completedAt.toEpochSecond(ZoneOffset.UTC))
+                .putInt(completedAt.getNano());
+        }
+    }
+
+    /**
+     * Reads a completion time written by {@link #writeCompletedAt}.
+     * @return the completion time, or null for records written without one
+     */
+    public static LocalDateTime readCompletedAt(RecordReader in) {
+        if (!in.hasRemaining()) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+    }
+
+    /**
+     * Receives the client-supplied name stored with an order, or null.
+     */
+    @FunctionalInterface
+    public interface OrderNameSink {
+        void accept(Order order, String orderName);
+    }
+
+    /**
+     * Returns the restaurant's own menu item when it still matches, so restored
+     * orders share instances with the menu; otherwise the decoded copy.
+     */
+    static MenuItem menuInstance(Restaurant restaurant, MenuItem decoded) {
+        // Usually the first item with the name; scan only when names are reused
+        Menu menu = restaurant.getMenu();
+        MenuItem named = menu.findItem(decoded.getName()).orElse(null);
+        if (named == null) {
+            return decoded;
+        }
+        if (matches(named, decoded)) {
+            return named;
+        }
+        for (MenuItem item : menu.getItems()) {
+            if (matches(item, decoded)) {
+                return item;
+            }
+        }
+        return decoded;
+    }
+
+    private static boolean matches(MenuItem item, MenuItem decoded) {
+        return item.getName().equals(decoded.getName()) && item.getPrice() == decoded.getPrice()
+            && item.getCategory() == decoded.getCategory() && item.getType() == decoded.getType()
+            && item.isGlutenFree() == decoded.isGlutenFree();
+    }
+
+    static Meal mealInstance(Restaurant restaurant, Meal decoded) {
+        for (Meal meal : restaurant.getMeals()) {
+            if (meal.getName().equals(decoded.getName()) && meal.getItems().equals(decoded.getItems())
+                    && meal.getDiscountFactor() == decoded.getDiscountFactor()) {
+                return meal;
+            }
+        }
+        return decoded;
+    }
+
+    private static User resolve(Function<String, User> users, String id) {
+        User user = users.apply(id);
+        if (user == null) {
+            throw new IllegalStateException("Unknown user in order record: " + id);
+        }
+        return user;
+    }
+
+    // Policies
+    /**
+     * Describes a policy as its class name, plus its setting for parameterised policies.
+     */
+    public static String describePolicy(Object policy) {
+        String className = policy.getClass().getName();
+        if (policy instanceof FairOccupationPolicy fair) {
+            return className + ":" + fair.getWorkload().name();
+        }
+        if (policy instanceof MinTotalDistanceBatchPolicy batch) {
+            return className + ":" + batch.getExactLimit();
+        }
+        return className;
+    }
+
+    public static Object createPolicy(String description) {
+        int separator = description.indexOf(':');
+        String className = separator < 0 ? description : description.substring(0, separator);
+        String argument = separator < 0 ? null : description.substring(separator + 1);
+        if (argument != null && className.equals(FairOccupationPolicy.class.getName())) {
+            return new FairOccupationPolicy(FairOccupationPolicy.Workload.valueOf(argument));
+        }
+        if (argument != null && className.equals(MinTotalDistanceBatchPolicy.class.getName())) {
+            return new MinTotalDistanceBatchPolicy(Integer.parseInt(argument));
+        }
+        try {
+            return Class.forName(className).getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot restore policy: " + description, e);
+        }
+    }
+}
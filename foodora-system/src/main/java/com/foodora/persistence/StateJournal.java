@@ -0,0 +1,39 @@
+package com.foodora.persistence;
+
+import com.foodora.model.Meal;
+import com.foodora.model.MenuItem;
+import com.foodora.model.Order;
+import com.foodora.user.Courier;
+import com.foodora.user.Restaurant;
+import com.foodora.user.User;
+
+/**
+ * Receives every state-changing operation of the system, after it has been
+ * applied in memory, so it can be made durable.
+ * All methods default to doing nothing; {@link #NONE} is used when
+ * persistence is disabled.
+ */
+public interface StateJournal {
+    StateJournal NONE = new StateJournal() {};
+
+    // Users
+    default void userAdded(User user) {}
+    default void userRemoved(User user) {}
+    default void courierChanged(Courier courier) {}
+    default void passwordChanged(User user) {}
+
+    // Menus
+    default void menuItemAdded(Restaurant restaurant, MenuItem item) {}
+    default void menuItemRemoved(Restaurant restaurant, MenuItem item) {}
+    default void mealAdded(Restaurant restaurant, Meal meal) {}
+    default void mealRemoved(Restaurant restaurant, Meal meal) {}
+    default void discountsChanged(Restaurant restaurant) {}
+
+    // Orders
+    default void orderPlaced(Order order, String orderName) {}
+    default void orderCompleted(Order order, String orderName) {}
+
+    // Fees and policies
+    default void feesChanged(double serviceFee, double markupPercentage, double deliveryCost) {}
+    default void policyChanged(Object policy) {}
+}
@@ -0,0 +1,33 @@
+package com.foodora.policy.delivery;
+
+import com.foodora.user.Courier;
+import com.foodora.model.Order;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interface defining the strategy for assigning couriers to a batch of pending orders at once.
+ * Unlike {@link DeliveryPolicy}, which picks a courier for one order at a time,
+ * implementations can optimise the assignment over the whole batch.
+ */
+public interface BatchDeliveryPolicy {
+    /**
+     * Assigns couriers to a batch of orders.
+     * @param orders Orders waiting for a courier
+     * @param couriers List of available couriers
+     * @return The selected courier for each order; orders without a suitable courier are left out
+     */
+    Map<Order, Courier> assignCouriers(List<Order> orders, List<Courier> couriers);
+
+    /**
+     * Assigns couriers using the system's index of on-duty couriers.
+     * Policies that can exploit the index override this; the default falls back
+     * to the list-based assignment over the on-duty couriers.
+     * @param orders Orders waiting for a courier
+     * @param couriers Index of on-duty couriers
+     * @return The selected courier for each order; orders without a suitable courier are left out
+     */
+    default Map<Order, Courier> assignCouriers(List<Order> orders, CourierIndex couriers) {
+        return assignCouriers(orders, couriers.getOnDutyCouriers());
+    }
+}
@@ -0,0 +1,143 @@
+package com.foodora.policy.delivery;
+
+import com.foodora.MyFoodoraSystem;
+import com.foodora.analytics.DispatchMetrics;
+import com.foodora.model.Order;
+import com.foodora.user.Courier;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects pending orders and places them in batches, so couriers are assigned
+ * over a whole batch by the system's {@link BatchDeliveryPolicy} instead of one
+ * order at a time. Batches are flushed explicitly or every dispatch window once
+ * {@link #start(Duration)} is called.
+ */
+public class BatchDispatcher implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(BatchDispatcher.class.getName());
+
+    private final MyFoodoraSystem system;
+    private final Queue<PendingOrder> pending = new ConcurrentLinkedQueue<>();
+    private final DispatchMetrics metrics = new DispatchMetrics();
+    private ScheduledExecutorService scheduler;
+
+    private record PendingOrder(Order order, CompletableFuture<Courier> result, long submittedAt) {}
+
+    public BatchDispatcher(MyFoodoraSystem system) {
+        this.system = Objects.requireNonNull(system, "System cannot be null");
+    }
+
+    /**
+     * Queues an order for the next batch.
+     * @return completed with the assigned courier once the order is placed, or
+     *         exceptionally if no courier could be found
+     */
+    public CompletableFuture<Courier> submit(Order order) {
+        Objects.requireNonNull(order, "Order cannot be null");
+        CompletableFuture<Courier> result = new CompletableFuture<>();
+        pending.add(new PendingOrder(order, result, System.nanoTime()));
+        return result;
+    }
+
+    /**
+     * Places all orders queued so far as one batch.
+     * @return the number of orders placed
+     */
+    public synchronized int flush() {
+        List<PendingOrder> batch = new ArrayList<>();
+        PendingOrder next;
+        while ((next = pending.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Order> orders = new ArrayList<>(batch.size());
+        batch.forEach(p -> orders.add(p.order()));
+        Set<Order> unassigned = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
+            unassigned.addAll(system.placeOrders(orders));
+        } catch (RuntimeException e) {
+            batch.forEach(p -> p.result().completeExceptionally(e));
+            throw e;
+        }
+
+        long now = System.nanoTime();
+        int placed = 0;
+        for (PendingOrder p : batch) {
+            if (unassigned.contains(p.order())) {
+                p.result().completeExceptionally(new RuntimeException("No available courier found for the order"));
+            } else {
+                metrics.record(p.order(), now - p.submittedAt());
+                p.result().complete(p.order().getCourier());
+                placed++;
+            }
+        }
+        return placed;
+    }
+
+    /**
+     * Starts flushing the pending orders every dispatch window.
+     */
+    public synchronized void start(Duration window) {
+        if (window == null || window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Dispatch window must be positive");
+        }
+        if (scheduler != null) {
+            throw new IllegalStateException("Dispatcher already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "batch-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = window.toNanos();
+        scheduler.scheduleAtFixedRate(this::flushQuietly, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops the dispatch window and places any orders still pending.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService stopped;
+        synchronized (this) {
+            stopped = scheduler;
+            scheduler = null;
+        }
+        if (stopped != null) {
+            stopped.shutdown();
+            try {
+                stopped.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Returns metrics for orders placed by this dispatcher, with latency measured
+     * from submission, i.e. including the time spent waiting for the batch.
+     */
+    public DispatchMetrics getMetrics() {
+        return metrics;
+    }
+
+    // A failed flush must not cancel the scheduled task
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, String.format("Batch dispatch failed: %s", e.getMessage()), e);
+        }
+    }
+}
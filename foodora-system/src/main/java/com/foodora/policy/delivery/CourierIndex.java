@@ -0,0 +1,539 @@
+package com.foodora.policy.delivery;
+
+import com.foodora.user.Courier;
+import com.foodora.user.UserRegistry;
+import com.foodora.util.Coordinate;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Index of on-duty couriers used by delivery policies.
+ * Couriers with a known location are kept in a uniform spatial grid, so the
+ * nearest courier to a point is found by searching outwards ring by ring
+ * instead of measuring the distance to every courier.
+ * On-duty couriers are also kept in two ordered sets for fair occupation: one
+ * by lifetime delivered orders and one by a time-decayed workload score, so the
+ * least loaded courier is found in O(log n).
+ * The index is kept up to date by the system whenever a courier is registered,
+ * removed, changes duty status, moves or completes a delivery.
+ */
+public class CourierIndex {
+    public static final double DEFAULT_CELL_SIZE = 1.0;
+    public static final Duration DEFAULT_WORKLOAD_HALF_LIFE = Duration.ofHours(1);
+
+    // Rescale decayed scores before exp() gets close to overflowing
+    private static final double MAX_DECAY_EXPONENT = 500.0;
+
+    private final double cellSize;
+    private final Predicate<Courier> membership;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // All on-duty couriers in registration order, including those without a location
+    private final ConcurrentNavigableMap<Long, Courier> onDuty = new ConcurrentSkipListMap<>();
+
+    // Spatial grid over on-duty couriers with a location (guarded by lock)
+    private final Map<Long, List<Entry>> cells = new HashMap<>();
+    private final Map<Courier, Entry> entries = new IdentityHashMap<>();
+    private int minCellX = Integer.MAX_VALUE;
+    private int maxCellX = Integer.MIN_VALUE;
+    private int minCellY = Integer.MAX_VALUE;
+    private int maxCellY = Integer.MIN_VALUE;
+
+    // Fair occupation orderings over on-duty couriers (guarded by lock)
+    private final Map<Courier, Workload> workloads = new IdentityHashMap<>();
+    private final NavigableSet<Workload> byDelivered = new TreeSet<>(
+        Comparator.comparingInt((Workload w) -> w.delivered).thenComparingLong(w -> w.order));
+    private final NavigableSet<Workload> byRecentWorkload = new TreeSet<>(
+        Comparator.comparingDouble((Workload w) -> w.decayedScore).thenComparingLong(w -> w.order));
+    private Clock clock = Clock.systemUTC();
+    private double decayRate = Math.log(2) / DEFAULT_WORKLOAD_HALF_LIFE.toMillis();
+    private long decayLandmark = clock.millis();
+
+    /**
+     * Delivery workload of a registered courier. The decayed score uses forward
+     * decay: each delivery adds exp(rate * (time - landmark)), so the relative
+     * order of scores never changes as time passes and the set stays sorted.
+     */
+    private static final class Workload {
+        final Courier courier;
+        final long order;
+        int delivered;
+        double decayedScore;
+        boolean queued;
+
+        Workload(Courier courier, long order, int delivered) {
+            this.courier = courier;
+            this.order = order;
+            this.delivered = delivered;
+        }
+    }
+
+    private record Candidate(Entry entry, double distance) {}
+
+    private static final Comparator<Candidate> NEAREST_FIRST =
+        Comparator.comparingDouble(Candidate::distance).thenComparingLong(c -> c.entry.order);
+
+    private static final class Entry {
+        final Courier courier;
+        final long order;
+        double x;
+        double y;
+        long cell;
+        int slot;
+
+        Entry(Courier courier, long order) {
+            this.courier = courier;
+            this.order = order;
+        }
+    }
+
+    public CourierIndex() {
+        this(DEFAULT_CELL_SIZE, courier -> true);
+    }
+
+    /**
+     * @param cellSize side length of a grid cell, in coordinate units
+     * @param membership tells whether a courier is registered; unregistered couriers are never indexed
+     */
+    public CourierIndex(double cellSize, Predicate<Courier> membership) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSize = cellSize;
+        this.membership = Objects.requireNonNull(membership, "Membership cannot be null");
+    }
+
+    /**
+     * Re-reads a courier's registration, duty status, location and delivered
+     * orders and updates the index. New deliveries count in the decayed
+     * workload as made now.
+     */
+    public void refresh(Courier courier) {
+        update(courier, null);
+    }
+
+    /**
+     * Like {@link #refresh(Courier)}, but new deliveries count in the decayed
+     * workload as made at {@code deliveredAt}, e.g. when replaying persisted orders.
+     */
+    public void refresh(Courier courier, Instant deliveredAt) {
+        update(courier, Objects.requireNonNull(deliveredAt, "Delivery time cannot be null"));
+    }
+
+    private void update(Courier courier, Instant deliveredAt) {
+        long order = UserRegistry.registrationOrder(courier);
+        lock.writeLock().lock();
+        try {
+            // Read the courier state under the lock so the last update always wins
+            Coordinate location = courier.getLocation();
+            if (!membership.test(courier)) {
+                onDuty.remove(order, courier);
+                removeFromGrid(courier);
+                dequeue(workloads.remove(courier));
+                return;
+            }
+
+            Workload workload = updateWorkload(courier, order,
+                deliveredAt == null ? clock.millis() : deliveredAt.toEpochMilli());
+            if (!courier.isOnDuty()) {
+                onDuty.remove(order, courier);
+                removeFromGrid(courier);
+                return;
+            }
+            onDuty.put(order, courier);
+            byDelivered.add(workload);
+            byRecentWorkload.add(workload);
+            workload.queued = true;
+            if (location == null) {
+                removeFromGrid(courier);
+            } else {
+                moveInGrid(courier, order, location);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the half-life of the time-decayed workload score. Existing decayed
+     * scores are reset, since they cannot be converted to a new decay rate.
+     */
+    public void setWorkloadHalfLife(Duration halfLife) {
+        if (halfLife == null || halfLife.isNegative() || halfLife.isZero()) {
+            throw new IllegalArgumentException("Half-life must be positive");
+        }
+        lock.writeLock().lock();
+        try {
+            decayRate = Math.log(2) / halfLife.toMillis();
+            decayLandmark = clock.millis();
+            rebuildRecentWorkload(0.0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the clock used to time deliveries for the decayed workload score.
+     */
+    public void setClock(Clock clock) {
+        Objects.requireNonNull(clock, "Clock cannot be null");
+        lock.writeLock().lock();
+        try {
+            this.clock = clock;
+            decayLandmark = clock.millis();
+            rebuildRecentWorkload(0.0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the on-duty courier with the fewest delivered orders.
+     * Ties are broken by registration order, like a scan in registration order.
+     * @return the courier, or null if no courier is on duty
+     */
+    public Courier findLeastDelivered() {
+        lock.readLock().lock();
+        try {
+            return byDelivered.isEmpty() ? null : byDelivered.first().courier;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the on-duty courier with the lowest time-decayed workload, i.e. the
+     * one who delivered least over the recent window.
+     * @return the courier, or null if no courier is on duty
+     */
+    public Courier findLeastRecentWorkload() {
+        lock.readLock().lock();
+        try {
+            return byRecentWorkload.isEmpty() ? null : byRecentWorkload.first().courier;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a courier's time-decayed workload: each delivery counts 1 when it
+     * happens and half as much after every half-life.
+     */
+    public double getRecentWorkload(Courier courier) {
+        lock.readLock().lock();
+        try {
+            Workload workload = workloads.get(courier);
+            if (workload == null) {
+                return 0.0;
+            }
+            return workload.decayedScore * Math.exp(-decayRate * (clock.millis() - decayLandmark));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the on-duty couriers in registration order.
+     */
+    public List<Courier> getOnDutyCouriers() {
+        return new ArrayList<>(onDuty.values());
+    }
+
+    public int onDutyCount() {
+        return onDuty.size();
+    }
+
+    /**
+     * Finds the on-duty courier minimising {@code distance(courier, target) + extraDistance}.
+     * Ties are broken by registration order, so the result is the same courier a
+     * linear scan over the couriers in registration order would pick.
+     * @param target point the courier has to reach first
+     * @param extraDistance fixed distance added to every candidate (e.g. restaurant to customer)
+     * @return the best courier, or null if no on-duty courier has a location
+     */
+    public Courier findNearest(Coordinate target, double extraDistance) {
+        Objects.requireNonNull(target, "Target cannot be null");
+        lock.readLock().lock();
+        try {
+            if (entries.isEmpty()) {
+                return null;
+            }
+            int cx = cellOf(target.getX());
+            int cy = cellOf(target.getY());
+            int maxRing = Math.max(
+                Math.max(Math.abs(cx - minCellX), Math.abs(cx - maxCellX)),
+                Math.max(Math.abs(cy - minCellY), Math.abs(cy - maxCellY)));
+
+            Entry best = null;
+            double bestTotal = Double.MAX_VALUE;
+            long cellsVisited = 0;
+
+            for (int ring = 0; ring <= maxRing; ring++) {
+                // Every cell in this ring and beyond is at least (ring - 1) cells away
+                double lowerBound = Math.max(0, ring - 1) * cellSize;
+                if (best != null && lowerBound + extraDistance > bestTotal) {
+                    break;
+                }
+                // Sparse grid: once the rings cost more than the occupied cells, scan those instead
+                cellsVisited += ring == 0 ? 1 : 8L * ring;
+                if (cellsVisited > cells.size()) {
+                    Entry nearest = scanAllCells(target, extraDistance);
+                    return nearest == null ? null : nearest.courier;
+                }
+                for (int dx = -ring; dx <= ring; dx++) {
+                    for (int dy = -ring; dy <= ring; dy++) {
+                        if (Math.abs(dx) != ring && Math.abs(dy) != ring) {
+                            continue;
+                        }
+                        List<Entry> cell = cells.get(key(cx + dx, cy + dy));
+                        if (cell == null) {
+                            continue;
+                        }
+                        for (Entry entry : cell) {
+                            double total = distance(entry, target) + extraDistance;
+                            if (isBetter(entry, total, best, bestTotal)) {
+                                bestTotal = total;
+                                best = entry;
+                            }
+                        }
+                    }
+                }
+            }
+            return best == null ? null : best.courier;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds up to {@code count} on-duty couriers nearest to a point, nearest first.
+     * Ties are broken by registration order.
+     * @return the couriers, or an empty list if no on-duty courier has a location
+     */
+    public List<Courier> findNearest(Coordinate target, int count) {
+        Objects.requireNonNull(target, "Target cannot be null");
+        if (count <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            // Worst candidate on top, so it is the one replaced by a better entry
+            PriorityQueue<Candidate> nearest = new PriorityQueue<>(NEAREST_FIRST.reversed());
+            if (count >= entries.size()) {
+                cells.values().forEach(cell -> cell.forEach(entry -> offer(nearest, entry, target, count)));
+                return sortedCouriers(nearest);
+            }
+
+            int cx = cellOf(target.getX());
+            int cy = cellOf(target.getY());
+            int maxRing = Math.max(
+                Math.max(Math.abs(cx - minCellX), Math.abs(cx - maxCellX)),
+                Math.max(Math.abs(cy - minCellY), Math.abs(cy - maxCellY)));
+            long cellsVisited = 0;
+
+            for (int ring = 0; ring <= maxRing; ring++) {
+                double lowerBound = Math.max(0, ring - 1) * cellSize;
+                if (nearest.size() == count && lowerBound > nearest.peek().distance) {
+                    break;
+                }
+                cellsVisited += ring == 0 ? 1 : 8L * ring;
+                if (cellsVisited > cells.size()) {
+                    nearest.clear();
+                    cells.values().forEach(cell -> cell.forEach(entry -> offer(nearest, entry, target, count)));
+                    break;
+                }
+                for (int dx = -ring; dx <= ring; dx++) {
+                    for (int dy = -ring; dy <= ring; dy++) {
+                        if (Math.abs(dx) != ring && Math.abs(dy) != ring) {
+                            continue;
+                        }
+                        List<Entry> cell = cells.get(key(cx + dx, cy + dy));
+                        if (cell != null) {
+                            cell.forEach(entry -> offer(nearest, entry, target, count));
+                        }
+                    }
+                }
+            }
+            return sortedCouriers(nearest);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            onDuty.clear();
+            cells.clear();
+            entries.clear();
+            workloads.clear();
+            byDelivered.clear();
+            byRecentWorkload.clear();
+            minCellX = Integer.MAX_VALUE;
+            maxCellX = Integer.MIN_VALUE;
+            minCellY = Integer.MAX_VALUE;
+            maxCellY = Integer.MIN_VALUE;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Helper methods (callers hold the lock)
+    private Workload updateWorkload(Courier courier, long order, long deliveredAt) {
+        int delivered = courier.getDeliveredOrders();
+        Workload workload = workloads.get(courier);
+        if (workload == null) {
+            workload = new Workload(courier, order, delivered);
+            workloads.put(courier, workload);
+            return workload;
+        }
+        // Keys must not change while the workload sits in the ordered sets
+        dequeue(workload);
+        if (delivered > workload.delivered) {
+            // Take the weight first: it may rescale every score, this one included
+            double weight = decayWeight(deliveredAt);
+            workload.decayedScore += (delivered - workload.delivered) * weight;
+        }
+        workload.delivered = delivered;
+        return workload;
+    }
+
+    private void dequeue(Workload workload) {
+        if (workload != null && workload.queued) {
+            byDelivered.remove(workload);
+            byRecentWorkload.remove(workload);
+            workload.queued = false;
+        }
+    }
+
+    // Weight of a delivery made at the given time, relative to the landmark
+    private double decayWeight(long time) {
+        double exponent = decayRate * (time - decayLandmark);
+        if (exponent > MAX_DECAY_EXPONENT) {
+            decayLandmark = time;
+            rebuildRecentWorkload(Math.exp(-exponent));
+            exponent = 0.0;
+        }
+        return Math.exp(exponent);
+    }
+
+    // Rescales every decayed score by the given factor and re-sorts the set
+    private void rebuildRecentWorkload(double factor) {
+        byRecentWorkload.clear();
+        for (Workload workload : workloads.values()) {
+            workload.decayedScore *= factor;
+            if (workload.queued) {
+                byRecentWorkload.add(workload);
+            }
+        }
+    }
+
+    private Entry scanAllCells(Coordinate target, double extraDistance) {
+        Entry best = null;
+        double bestTotal = Double.MAX_VALUE;
+        for (List<Entry> cell : cells.values()) {
+            for (Entry entry : cell) {
+                double total = distance(entry, target) + extraDistance;
+                if (isBetter(entry, total, best, bestTotal)) {
+                    bestTotal = total;
+                    best = entry;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static void offer(PriorityQueue<Candidate> nearest, Entry entry, Coordinate target, int count) {
+        Candidate candidate = new Candidate(entry, distance(entry, target));
+        if (nearest.size() < count) {
+            nearest.add(candidate);
+        } else if (NEAREST_FIRST.compare(candidate, nearest.peek()) < 0) {
+            nearest.poll();
+            nearest.add(candidate);
+        }
+    }
+
+    private static List<Courier> sortedCouriers(PriorityQueue<Candidate> nearest) {
+        List<Candidate> sorted = new ArrayList<>(nearest);
+        sorted.sort(NEAREST_FIRST);
+        List<Courier> result = new ArrayList<>(sorted.size());
+        for (Candidate candidate : sorted) {
+            result.add(candidate.entry.courier);
+        }
+        return result;
+    }
+
+    private static boolean isBetter(Entry entry, double total, Entry best, double bestTotal) {
+        return total < bestTotal || (best != null && total == bestTotal && entry.order < best.order);
+    }
+
+    private void moveInGrid(Courier courier, long order, Coordinate location) {
+        Entry entry = entries.get(courier);
+        int cx = cellOf(location.getX());
+        int cy = cellOf(location.getY());
+        long cell = key(cx, cy);
+        if (entry == null) {
+            entry = new Entry(courier, order);
+            entries.put(courier, entry);
+        } else if (entry.cell != cell) {
+            detach(entry);
+        } else {
+            entry.x = location.getX();
+            entry.y = location.getY();
+            return;
+        }
+        entry.x = location.getX();
+        entry.y = location.getY();
+        entry.cell = cell;
+        List<Entry> bucket = cells.computeIfAbsent(cell, k -> new ArrayList<>());
+        entry.slot = bucket.size();
+        bucket.add(entry);
+
+        minCellX = Math.min(minCellX, cx);
+        maxCellX = Math.max(maxCellX, cx);
+        minCellY = Math.min(minCellY, cy);
+        maxCellY = Math.max(maxCellY, cy);
+    }
+
+    private void removeFromGrid(Courier courier) {
+        Entry entry = entries.remove(courier);
+        if (entry != null) {
+            detach(entry);
+        }
+    }
+
+    // Swap-remove from the cell bucket in O(1)
+    private void detach(Entry entry) {
+        List<Entry> bucket = cells.get(entry.cell);
+        Entry last = bucket.remove(bucket.size() - 1);
+        if (last != entry) {
+            bucket.set(entry.slot, last);
+            last.slot = entry.slot;
+        }
+        if (bucket.isEmpty()) {
+            cells.remove(entry.cell);
+        }
+    }
+
+    private int cellOf(double value) {
+        return (int) Math.floor(value / cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    // Same formula as FastestDeliveryPolicy, so distances compare exactly
+    private static double distance(Entry entry, Coordinate target) {
+        double dx = entry.x - target.getX();
+        double dy = entry.y - target.getY();
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -16,4 +16,16 @@ public interface DeliveryPolicy {
      * @return The selected courier, or null if no suitable courier is found
      */
     Courier selectCourier(List<Courier> couriers, Order order);
+
+    /**
+     * Selects a courier using the system's index of on-duty couriers.
+     * Policies that can exploit the index override this; the default falls back
+     * to the list-based selection over the on-duty couriers.
+     * @param couriers Index of on-duty couriers
+     * @param order The order to be delivered
+     * @return The selected courier, or null if no suitable courier is found
+     */
+    default Courier selectCourier(CourierIndex couriers, Order order) {
+        return selectCourier(couriers.getOnDutyCouriers(), order);
+    }
 }
@@ -9,18 +9,59 @@ import java.util.Comparator;
  * A delivery policy that aims to distribute orders fairly among couriers.
  * It selects the courier with the least number of delivered orders to ensure
  * a balanced workload distribution.
+ * With {@link Workload#RECENT}, recent deliveries weigh more than old ones,
+ * so fairness reflects the recent window rather than lifetime totals.
  */
 public class FairOccupationPolicy implements DeliveryPolicy {
 
+    /**
+     * How a courier's workload is measured.
+     */
+    public enum Workload {
+        /** Total delivered orders */
+        LIFETIME,
+        /** Delivered orders decayed over time, see {@link CourierIndex#setWorkloadHalfLife} */
+        RECENT
+    }
+
+    private final Workload workload;
+
+    public FairOccupationPolicy() {
+        this(Workload.LIFETIME);
+    }
+
+    public FairOccupationPolicy(Workload workload) {
+        if (workload == null) {
+            throw new IllegalArgumentException("Workload cannot be null");
+        }
+        this.workload = workload;
+    }
+
+    public Workload getWorkload() {
+        return workload;
+    }
+
     @Override
     public Courier selectCourier(List<Courier> couriers, Order order) {
         if (couriers == null || couriers.isEmpty() || order == null) {
             return null;
         }
 
+        // Lists carry no delivery times, so they are always ranked by lifetime totals
         return couriers.stream()
             .filter(Courier::isOnDuty)
             .min(Comparator.comparingInt(Courier::getDeliveredOrders))
             .orElse(null);
     }
+
+    @Override
+    public Courier selectCourier(CourierIndex couriers, Order order) {
+        if (couriers == null || order == null) {
+            return null;
+        }
+
+        return workload == Workload.RECENT
+            ? couriers.findLeastRecentWorkload()
+            : couriers.findLeastDelivered();
+    }
 }
@@ -51,6 +51,28 @@ public class FastestDeliveryPolicy implements DeliveryPolicy {
         return bestCourier;
     }
 
+    /**
+     * Selects the fastest courier through the spatial index. Since the restaurant
+     * to customer leg is the same for every courier, this is the courier nearest
+     * to the restaurant; the result is the same as the list-based scan.
+     */
+    @Override
+    public Courier selectCourier(CourierIndex couriers, Order order) {
+        if (couriers == null || order == null) {
+            return null;
+        }
+
+        Coordinate restaurantLoc = order.getRestaurant().getLocation();
+        Coordinate customerLoc = order.getCustomer().getAddress();
+
+        // Validate locations
+        if (restaurantLoc == null || customerLoc == null) {
+            return null;
+        }
+
+        return couriers.findNearest(restaurantLoc, distanceBetween(restaurantLoc, customerLoc));
+    }
+
     /**
      * Calculates the total distance a courier needs to travel for delivery.
      * @param courierLoc Courier's current location
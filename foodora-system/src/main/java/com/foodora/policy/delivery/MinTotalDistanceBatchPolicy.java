@@ -0,0 +1,300 @@
+package com.foodora.policy.delivery;
+
+import com.foodora.user.Courier;
+import com.foodora.model.Order;
+import com.foodora.util.Coordinate;
+import java.util.*;
+
+/**
+ * A batch delivery policy that minimises the total distance travelled by couriers
+ * over the whole batch, instead of giving each order its own nearest courier.
+ * Each courier takes at most one order per matching round. Batches up to
+ * {@code exactLimit} orders are matched optimally with the Hungarian algorithm;
+ * larger batches use a greedy matching over each order's nearest couriers.
+ * Orders left over are matched again in further rounds among the couriers
+ * still free; only once every available courier has an order from the batch
+ * can a courier take a second one.
+ */
+public class MinTotalDistanceBatchPolicy implements BatchDeliveryPolicy {
+    public static final int DEFAULT_EXACT_LIMIT = 64;
+    // Couriers considered per order by the greedy matching
+    private static final int GREEDY_CANDIDATES = 8;
+
+    private final int exactLimit;
+
+    /**
+     * Source of the couriers nearest to a restaurant, nearest first.
+     */
+    private interface NearestCouriers {
+        List<Courier> find(Coordinate location, int count);
+    }
+
+    public MinTotalDistanceBatchPolicy() {
+        this(DEFAULT_EXACT_LIMIT);
+    }
+
+    public MinTotalDistanceBatchPolicy(int exactLimit) {
+        if (exactLimit < 0) {
+            throw new IllegalArgumentException("Exact matching limit cannot be negative");
+        }
+        this.exactLimit = exactLimit;
+    }
+
+    public int getExactLimit() {
+        return exactLimit;
+    }
+
+    @Override
+    public Map<Order, Courier> assignCouriers(List<Order> orders, List<Courier> couriers) {
+        if (orders == null || orders.isEmpty() || couriers == null || couriers.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+
+        List<Courier> available = new ArrayList<>();
+        for (Courier courier : couriers) {
+            if (courier.isOnDuty() && courier.getLocation() != null) {
+                available.add(courier);
+            }
+        }
+        return assign(orders, (location, count) -> nearestInList(available, location, count));
+    }
+
+    @Override
+    public Map<Order, Courier> assignCouriers(List<Order> orders, CourierIndex couriers) {
+        if (orders == null || orders.isEmpty() || couriers == null) {
+            return new LinkedHashMap<>();
+        }
+        return assign(orders, couriers::findNearest);
+    }
+
+    private Map<Order, Courier> assign(List<Order> orders, NearestCouriers nearest) {
+        Map<Order, Courier> assignment = new LinkedHashMap<>();
+        List<Order> pending = new ArrayList<>();
+        for (Order order : orders) {
+            if (order != null && order.getRestaurant().getLocation() != null
+                    && order.getCustomer().getAddress() != null) {
+                pending.add(order);
+            }
+        }
+
+        // Couriers holding an order from this batch are skipped until all of them hold one
+        Set<Courier> busy = Collections.newSetFromMap(new IdentityHashMap<>());
+        NearestCouriers free = (location, count) -> nearestFree(nearest, busy, location, count);
+        while (!pending.isEmpty()) {
+            List<Order> unmatched = pending.size() <= exactLimit
+                ? matchExactly(pending, free, assignment)
+                : matchGreedily(pending, free, assignment);
+            if (unmatched.size() == pending.size()) {
+                if (busy.isEmpty()) {
+                    break;  // No courier available at all
+                }
+                busy.clear();  // Every courier has an order; start handing out second ones
+                continue;
+            }
+            for (Order order : pending) {
+                Courier courier = assignment.get(order);
+                if (courier != null) {
+                    busy.add(courier);
+                }
+            }
+            pending = unmatched;
+        }
+        return assignment;
+    }
+
+    /**
+     * The count nearest couriers that are not busy. The search is widened by
+     * the number of busy couriers skipped until enough free ones are found or
+     * no courier is left.
+     */
+    private static List<Courier> nearestFree(NearestCouriers nearest, Set<Courier> busy,
+                                             Coordinate location, int count) {
+        int request = count;
+        while (true) {
+            List<Courier> found = nearest.find(location, request);
+            List<Courier> free = new ArrayList<>(count);
+            for (Courier courier : found) {
+                if (!busy.contains(courier)) {
+                    free.add(courier);
+                    if (free.size() == count) {
+                        return free;
+                    }
+                }
+            }
+            if (found.size() < request) {
+                return free;  // Every courier was looked at
+            }
+            request = count + (found.size() - free.size());
+        }
+    }
+
+    /**
+     * Optimal matching of the orders to couriers. Only each order's n nearest
+     * couriers are considered: an optimal matching never needs any other
+     * courier, since at most n - 1 of them are taken by the other orders.
+     */
+    private List<Order> matchExactly(List<Order> orders, NearestCouriers nearest, Map<Order, Courier> assignment) {
+        int n = orders.size();
+        Map<Courier, Integer> columns = new IdentityHashMap<>();
+        List<Courier> couriers = new ArrayList<>();
+        for (Order order : orders) {
+            for (Courier courier : nearest.find(order.getRestaurant().getLocation(), n)) {
+                if (columns.putIfAbsent(courier, couriers.size()) == null) {
+                    couriers.add(courier);
+                }
+            }
+        }
+        if (couriers.isEmpty()) {
+            return orders;
+        }
+
+        // Pad with free dummy couriers so every order can be matched; dummies mean "unassigned"
+        int m = Math.max(n, couriers.size());
+        double[][] cost = new double[n][m];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < couriers.size(); j++) {
+                cost[i][j] = deliveryDistance(couriers.get(j), orders.get(i));
+            }
+        }
+
+        int[] match = hungarian(cost, n, m);
+        List<Order> unmatched = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (match[i] < couriers.size()) {
+                assignment.put(orders.get(i), couriers.get(match[i]));
+            } else {
+                unmatched.add(orders.get(i));
+            }
+        }
+        return unmatched;
+    }
+
+    /**
+     * Greedy matching: all (order, nearby courier) pairs are taken shortest first,
+     * skipping pairs whose order or courier is already matched.
+     */
+    private List<Order> matchGreedily(List<Order> orders, NearestCouriers nearest, Map<Order, Courier> assignment) {
+        record Pair(int order, Courier courier, double distance) {}
+
+        List<Pair> pairs = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            for (Courier courier : nearest.find(order.getRestaurant().getLocation(), GREEDY_CANDIDATES)) {
+                pairs.add(new Pair(i, courier, deliveryDistance(courier, order)));
+            }
+        }
+        pairs.sort(Comparator.comparingDouble(Pair::distance).thenComparingInt(Pair::order));
+
+        boolean[] matched = new boolean[orders.size()];
+        Set<Courier> busy = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Pair pair : pairs) {
+            if (!matched[pair.order()] && busy.add(pair.courier())) {
+                matched[pair.order()] = true;
+                assignment.put(orders.get(pair.order()), pair.courier());
+            }
+        }
+
+        List<Order> unmatched = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            if (!matched[i]) {
+                unmatched.add(orders.get(i));
+            }
+        }
+        return unmatched;
+    }
+
+    /**
+     * Hungarian algorithm (shortest augmenting paths with potentials), O(n^2 * m).
+     * @param cost n x m cost matrix, n <= m
+     * @return the column matched to each row
+     */
+    private static int[] hungarian(double[][] cost, int n, int m) {
+        // 1-based, column 0 is the virtual start of each augmenting path
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] rowOf = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minSlack = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            rowOf[0] = i;
+            int j0 = 0;
+            Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = rowOf[j0];
+                int j1 = 0;
+                double delta = Double.POSITIVE_INFINITY;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    double slack = cost[i0 - 1][j - 1] - u[i0] - v[j];
+                    if (slack < minSlack[j]) {
+                        minSlack[j] = slack;
+                        way[j] = j0;
+                    }
+                    if (minSlack[j] < delta) {
+                        delta = minSlack[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[rowOf[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minSlack[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (rowOf[j0] != 0);
+            // Flip the augmenting path
+            do {
+                int j1 = way[j0];
+                rowOf[j0] = rowOf[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] match = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (rowOf[j] != 0) {
+                match[rowOf[j] - 1] = j - 1;
+            }
+        }
+        return match;
+    }
+
+    // The count nearest couriers in the list, nearest first; ties keep list order
+    private static List<Courier> nearestInList(List<Courier> couriers, Coordinate location, int count) {
+        Comparator<Integer> nearestFirst = Comparator
+            .comparingDouble((Integer i) -> couriers.get(i).getLocation().distanceTo(location))
+            .thenComparingInt(i -> i);
+        PriorityQueue<Integer> nearest = new PriorityQueue<>(nearestFirst.reversed());
+        for (int i = 0; i < couriers.size(); i++) {
+            nearest.add(i);
+            if (nearest.size() > count) {
+                nearest.poll();
+            }
+        }
+        List<Integer> sorted = new ArrayList<>(nearest);
+        sorted.sort(nearestFirst);
+        List<Courier> result = new ArrayList<>(sorted.size());
+        for (int i : sorted) {
+            result.add(couriers.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Distance a courier travels for an order: to the restaurant, then to the customer.
+     */
+    static double deliveryDistance(Courier courier, Order order) {
+        Coordinate restaurantLoc = order.getRestaurant().getLocation();
+        return courier.getLocation().distanceTo(restaurantLoc)
+            + restaurantLoc.distanceTo(order.getCustomer().getAddress());
+    }
+}
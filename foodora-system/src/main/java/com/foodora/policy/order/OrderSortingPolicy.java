@@ -1,5 +1,6 @@
 package com.foodora.policy.order;
 
+import com.foodora.analytics.OrderPopularityIndex;
 import com.foodora.model.Order;
 import java.util.List;
 import java.util.Map;
@@ -7,6 +8,8 @@ import java.util.Map;
 /**
  * Interface for analyzing and sorting orders based on different criteria.
  * Implementations can provide different strategies for analyzing order patterns.
+ * Policies are views over an {@link OrderPopularityIndex}, so the system can
+ * answer from its running counts without rescanning the completed orders.
  */
 public interface OrderSortingPolicy {
     /**
@@ -15,5 +18,18 @@ public interface OrderSortingPolicy {
      * @return Map of item names to their order counts, sorted according to the policy
      * @throws IllegalArgumentException if completedOrders is null
      */
-    Map<String, Integer> analyzeOrders(List<Order> completedOrders);
-} 
\ No newline at end of file
+    default Map<String, Integer> analyzeOrders(List<Order> completedOrders) {
+        if (completedOrders == null) {
+            throw new IllegalArgumentException("Completed orders list cannot be null");
+        }
+        return analyzeOrders(OrderPopularityIndex.of(completedOrders), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the first entries of this policy's ranking from maintained counts.
+     * @param index Running counts over the completed orders
+     * @param limit Maximum number of entries to return
+     * @return Map of up to {@code limit} names to their order counts, sorted according to the policy
+     */
+    Map<String, Integer> analyzeOrders(OrderPopularityIndex index, int limit);
+}
@@ -1,18 +1,21 @@
 package com.foodora.policy.target;
 
 import com.foodora.MyFoodoraSystem;
+import com.foodora.analytics.FinancialAggregates;
 
 /**
  * A target profit policy that adjusts the delivery cost to meet the target profit.
  * This policy assumes that changing delivery costs is the most effective way to optimize profits.
+ * The delivery cost is solved for directly and kept within
+ * [{@value #MIN_DELIVERY_COST}, {@value #MAX_DELIVERY_COST}]; when the target needs a cost
+ * outside that range, the nearest bound is used and the profit reached is returned.
  */
 public class TargetProfitByDeliveryCost implements TargetProfitPolicy {
     private static final double MIN_DELIVERY_COST = 1.0;
     private static final double MAX_DELIVERY_COST = 20.0;
-    private static final double ADJUSTMENT_STEP = 0.5;
 
     @Override
-    public void apply(MyFoodoraSystem system, double targetProfit) {
+    public double apply(MyFoodoraSystem system, double targetProfit) {
         if (system == null) {
             throw new IllegalArgumentException("System cannot be null");
         }
@@ -20,25 +23,19 @@ public class TargetProfitByDeliveryCost implements TargetProfitPolicy {
             throw new IllegalArgumentException("Target profit cannot be negative");
         }
 
-        double currentProfit = system.computeTotalProfit();
-        double currentDeliveryCost = system.getDeliveryCost();
-
-        // If we're already meeting the target, no changes needed
-        if (Math.abs(currentProfit - targetProfit) < 0.01) {
-            return;
+        FinancialAggregates.Totals totals = system.getFinancialAggregates().getTotals();
+        if (totals.orderCount() == 0) {
+            throw new IllegalStateException("Cannot compute target profit with no completed orders");
         }
 
-        // Adjust delivery cost up or down based on current profit
-        double newDeliveryCost;
-        if (currentProfit < targetProfit) {
-            // Need to decrease delivery cost to increase profit
-            newDeliveryCost = Math.max(MIN_DELIVERY_COST, currentDeliveryCost - ADJUSTMENT_STEP);
-        } else {
-            // Need to increase delivery cost to decrease profit
-            newDeliveryCost = Math.min(MAX_DELIVERY_COST, currentDeliveryCost + ADJUSTMENT_STEP);
-        }
+        double serviceFee = system.getServiceFee();
+        double markup = system.getMarkupPercentage();
+
+        // Profit falls by one per order for each unit of delivery cost
+        double deliveryCost = serviceFee + (totals.income() * markup - targetProfit) / totals.orderCount();
+        deliveryCost = Math.max(MIN_DELIVERY_COST, Math.min(MAX_DELIVERY_COST, deliveryCost));
 
-        // Apply the new delivery cost
-        system.setFees(system.getServiceFee(), system.getMarkupPercentage(), newDeliveryCost);
+        system.setFees(serviceFee, markup, deliveryCost);
+        return totals.profit(serviceFee, markup, deliveryCost);
     }
-} 
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package com.foodora.policy.target;
 
 import com.foodora.MyFoodoraSystem;
+import com.foodora.analytics.FinancialAggregates;
 import java.util.Objects;
 
 /**
@@ -11,24 +12,25 @@ import java.util.Objects;
 public class TargetProfitByMarkup implements TargetProfitPolicy {
     
     @Override
-    public void apply(MyFoodoraSystem system, double targetProfit) {
+    public double apply(MyFoodoraSystem system, double targetProfit) {
         Objects.requireNonNull(system, "System cannot be null");
         if (targetProfit < 0) {
             throw new IllegalArgumentException("Target profit cannot be negative");
         }
 
-        double income = system.computeTotalIncome();
-        int numOrders = system.getCompletedOrders().size();
-        if (numOrders == 0) {
+        FinancialAggregates.Totals totals = system.getFinancialAggregates().getTotals();
+        if (totals.orderCount() == 0) {
             throw new IllegalStateException("Cannot compute target profit with no completed orders");
         }
+        if (totals.income() <= 0) {
+            throw new IllegalStateException("Cannot compute target profit with no income");
+        }
 
-        double avgPrice = income / numOrders;
         double serviceFee = system.getServiceFee();
         double deliveryCost = system.getDeliveryCost();
 
         // Calculate required markup to achieve target profit
-        double markup = ((targetProfit / numOrders) + deliveryCost - serviceFee) / avgPrice;
+        double markup = (targetProfit - totals.orderCount() * (serviceFee - deliveryCost)) / totals.income();
         
         // Validate calculated markup
         if (markup < 0) {
@@ -37,5 +39,6 @@ public class TargetProfitByMarkup implements TargetProfitPolicy {
         }
 
         system.setFees(serviceFee, markup, deliveryCost);
+        return totals.profit(serviceFee, markup, deliveryCost);
     }
 }
@@ -1,6 +1,7 @@
 package com.foodora.policy.target;
 
 import com.foodora.MyFoodoraSystem;
+import com.foodora.analytics.FinancialAggregates;
 import java.util.Objects;
 
 /**
@@ -11,24 +12,22 @@ import java.util.Objects;
 public class TargetProfitByServiceFee implements TargetProfitPolicy {
     
     @Override
-    public void apply(MyFoodoraSystem system, double targetProfit) {
+    public double apply(MyFoodoraSystem system, double targetProfit) {
         Objects.requireNonNull(system, "System cannot be null");
         if (targetProfit < 0) {
             throw new IllegalArgumentException("Target profit cannot be negative");
         }
 
-        double income = system.computeTotalIncome();
-        int numOrders = system.getCompletedOrders().size();
-        if (numOrders == 0) {
+        FinancialAggregates.Totals totals = system.getFinancialAggregates().getTotals();
+        if (totals.orderCount() == 0) {
             throw new IllegalStateException("Cannot compute target profit with no completed orders");
         }
 
-        double avgPrice = income / numOrders;
         double markup = system.getMarkupPercentage();
         double deliveryCost = system.getDeliveryCost();
 
         // Calculate required service fee to achieve target profit
-        double serviceFee = (targetProfit / numOrders) + deliveryCost - (avgPrice * markup);
+        double serviceFee = (targetProfit - totals.income() * markup) / totals.orderCount() + deliveryCost;
         
         // Validate calculated service fee
         if (serviceFee < 0) {
@@ -37,5 +36,6 @@ public class TargetProfitByServiceFee implements TargetProfitPolicy {
         }
 
         system.setFees(serviceFee, markup, deliveryCost);
+        return totals.profit(serviceFee, markup, deliveryCost);
     }
 }
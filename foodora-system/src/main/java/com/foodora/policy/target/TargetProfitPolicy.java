@@ -5,6 +5,8 @@ import com.foodora.MyFoodoraSystem;
 /**
  * Interface for different strategies to achieve a target profit by adjusting various fee parameters.
  * Implementations can modify service fees, markup percentages, or delivery costs to reach the target.
+ * Profit is {@code income * markup + orders * (serviceFee - deliveryCost)} over the completed orders,
+ * so each fee is solved for in one step from the system's running totals.
  */
 public interface TargetProfitPolicy {
     /**
@@ -12,7 +14,9 @@ public interface TargetProfitPolicy {
      * 
      * @param system The MyFoodora system to adjust
      * @param targetProfit The target profit to achieve (must be positive)
+     * @return the profit of the completed orders with the new fees, which can differ from
+     *         the target when the adjusted fee is bounded
      * @throws IllegalArgumentException if targetProfit is negative or system is null
      */
-    void apply(MyFoodoraSystem system, double targetProfit);
+    double apply(MyFoodoraSystem system, double targetProfit);
 }
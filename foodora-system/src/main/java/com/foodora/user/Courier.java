@@ -1,21 +1,42 @@
 package com.foodora.user;
 
+import com.foodora.MyFoodoraSystem;
 import com.foodora.util.Coordinate;
 import com.foodora.util.IDGenerator;
+import com.foodora.util.PasswordHash;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Courier extends User {
     private String surname;
-    private Coordinate location;
+    private volatile Coordinate location;
     private String phoneNumber;
-    private int deliveredOrders;
-    private boolean onDuty;
+    private final AtomicInteger deliveredOrders;
+    private volatile boolean onDuty;
 
     public Courier(String name, String surname, Coordinate location, String phoneNumber, String username, String password) {
-        super(IDGenerator.generateID("CR"), name, username, password);
+        this(IDGenerator.generateID("CR"), name, surname, location, phoneNumber, username, password);
+    }
+
+    /**
+     * Recreates a courier with a known id, e.g. when restoring persisted state.
+     */
+    public Courier(String id, String name, String surname, Coordinate location, String phoneNumber,
+                   String username, String password) {
+        this(id, name, surname, location, phoneNumber, username, hashPassword(password));
+    }
+
+    /**
+     * Recreates a courier with a known id and password hash, e.g. when restoring persisted state.
+     */
+    public Courier(String id, String name, String surname, Coordinate location, String phoneNumber,
+                   String username, PasswordHash passwordHash) {
+        super(id, name, username);
+        setPasswordHash(passwordHash);
         this.surname = surname;
         this.location = location;
         this.phoneNumber = phoneNumber;
-        this.deliveredOrders = 0;
+        this.deliveredOrders = new AtomicInteger();
         this.onDuty = false;  // Default to off-duty
     }
 
@@ -25,32 +46,50 @@ public class Courier extends User {
     }
 
     public int getDeliveredOrders() { 
-        return deliveredOrders; 
+        return deliveredOrders.get(); 
     }
 
     public Coordinate getLocation() {
         return location;
     }
 
-    // Authentication method
-    @Override
-    public boolean authenticate(String username, String password) {
-        return this.username.equals(username) && this.password.equals(password);
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public String getSurname() {
+        return surname;
     }
 
     // Set duty status
     public void setOnDuty(boolean onDuty) {
         this.onDuty = onDuty;
+        MyFoodoraSystem system = MyFoodoraSystem.getInstance();
+        system.courierUpdated(this);
+        system.getJournal().courierChanged(this);
     }
 
     // Update current position
     public void updateLocation(Coordinate newLocation) {
         this.location = newLocation;
+        MyFoodoraSystem system = MyFoodoraSystem.getInstance();
+        system.courierUpdated(this);
+        system.getJournal().courierChanged(this);
     }
 
     // Call when a delivery is completed
     public void completeDelivery() {
-        this.deliveredOrders++;
+        this.deliveredOrders.incrementAndGet();
+        MyFoodoraSystem.getInstance().courierUpdated(this);
+    }
+
+    /**
+     * Counts a delivery completed at a known time, e.g. when restoring
+     * persisted orders, so it weighs in the recent workload as of that time.
+     */
+    public void completeDelivery(Instant deliveredAt) {
+        this.deliveredOrders.incrementAndGet();
+        MyFoodoraSystem.getInstance().getCourierIndex().refresh(this, deliveredAt);
     }
 
     // Courier response to delivery request
@@ -1,11 +1,15 @@
 package com.foodora.user;
 
+import com.foodora.MyFoodoraSystem;
 import com.foodora.model.Order;
 import com.foodora.fidelity.FidelityCard;
 import com.foodora.fidelity.BasicFidelityCard;
+import com.foodora.notification.SpecialOffer;
 import com.foodora.util.IDGenerator;
 import com.foodora.util.Coordinate;
+import com.foodora.util.PasswordHash;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 /**
@@ -16,27 +20,44 @@ public class Customer extends User {
     private static final Logger LOGGER = Logger.getLogger(Customer.class.getName());
     
     private final String surname;
-    private Coordinate address;
+    private volatile Coordinate address;
     private final String email;
-    private String phoneNumber;
+    private volatile String phoneNumber;
 
     private final List<Order> orderHistory;
-    private FidelityCard fidelityCard;
-    private int points;
-    private boolean notification;
+    private volatile FidelityCard fidelityCard;
+    private final AtomicInteger points;
+    private volatile boolean notification;
 
     public Customer(String name, String surname, Coordinate address, String email, 
                    String phoneNumber, String username, String password) {
-        super(IDGenerator.generateID("C"), name, username, password);
+        this(IDGenerator.generateID("C"), name, surname, address, email, phoneNumber, username, password);
+    }
+
+    /**
+     * Recreates a customer with a known id, e.g. when restoring persisted state.
+     */
+    public Customer(String id, String name, String surname, Coordinate address, String email,
+                   String phoneNumber, String username, String password) {
+        this(id, name, surname, address, email, phoneNumber, username, hashPassword(password));
+    }
+
+    /**
+     * Recreates a customer with a known id and password hash, e.g. when restoring persisted state.
+     */
+    public Customer(String id, String name, String surname, Coordinate address, String email,
+                   String phoneNumber, String username, PasswordHash passwordHash) {
+        super(id, name, username);
+        setPasswordHash(passwordHash);
         
         this.surname = Objects.requireNonNull(surname, "Surname cannot be null");
         this.address = Objects.requireNonNull(address, "Address cannot be null");
         this.email = Objects.requireNonNull(email, "Email cannot be null");
         this.phoneNumber = Objects.requireNonNull(phoneNumber, "Phone number cannot be null");
 
-        this.orderHistory = new ArrayList<>();
+        this.orderHistory = Collections.synchronizedList(new ArrayList<>());
         this.fidelityCard = new BasicFidelityCard();
-        this.points = 0;
+        this.points = new AtomicInteger();
         this.notification = false;
     }
 
@@ -72,19 +93,48 @@ public class Customer extends User {
      */
     public void unregisterFidelityCard() {
         this.fidelityCard = new BasicFidelityCard();
-        this.points = 0;  // Reset points when unregistering
+        this.points.set(0);  // Reset points when unregistering
     }
 
     public void enableNotification() {
         this.notification = true;
+        MyFoodoraSystem.getInstance().getSubscriptions().notificationsChanged(this);
         LOGGER.info("Notifications enabled for customer " + getName());
     }
 
     public void disableNotification() {
         this.notification = false;
+        MyFoodoraSystem.getInstance().getSubscriptions().notificationsChanged(this);
         LOGGER.info("Notifications disabled for customer " + getName());
     }
 
+    // Restaurant subscriptions
+    /**
+     * Follows a restaurant: with notifications enabled, the customer then receives
+     * the special offers of followed restaurants only.
+     * @throws IllegalArgumentException if the customer is not registered
+     */
+    public void followRestaurant(Restaurant restaurant) {
+        Objects.requireNonNull(restaurant, "Restaurant cannot be null");
+        MyFoodoraSystem system = MyFoodoraSystem.getInstance();
+        if (!system.getUserRegistry().contains(this)) {
+            throw new IllegalArgumentException("Customer is not registered");
+        }
+        system.getSubscriptions().follow(this, restaurant);
+    }
+
+    public void unfollowRestaurant(Restaurant restaurant) {
+        MyFoodoraSystem.getInstance().getSubscriptions().unfollow(this, restaurant);
+    }
+
+    public boolean isFollowing(Restaurant restaurant) {
+        return MyFoodoraSystem.getInstance().getSubscriptions().isFollowing(this, restaurant);
+    }
+
+    public List<Restaurant> getFollowedRestaurants() {
+        return MyFoodoraSystem.getInstance().getSubscriptions().getFollowedRestaurants(this);
+    }
+
     /**
      * Sends a notification about a special offer if notifications are enabled.
      */
@@ -98,6 +148,22 @@ public class Customer extends User {
         }
     }
 
+    /**
+     * Sends several special offers as one notification if notifications are enabled.
+     */
+    public void notifySpecialOffers(List<SpecialOffer> offers) {
+        Objects.requireNonNull(offers, "Offers cannot be null");
+        if (offers.size() == 1) {
+            notifySpecialOffer(offers.get(0).restaurant(), offers.get(0).message());
+        } else if (notification && !offers.isEmpty()) {
+            StringJoiner joined = new StringJoiner("; ");
+            for (SpecialOffer offer : offers) {
+                joined.add(offer.restaurant().getName() + ": " + offer.message());
+            }
+            LOGGER.info(String.format("🔔 %d special offers for %s: %s", offers.size(), getName(), joined));
+        }
+    }
+
     /**
      * Adds points to the customer's fidelity account.
      * @throws IllegalArgumentException if points is negative
@@ -106,7 +172,7 @@ public class Customer extends User {
         if (pts < 0) {
             throw new IllegalArgumentException("Cannot add negative points");
         }
-        this.points += pts;
+        this.points.addAndGet(pts);
     }
 
     /**
@@ -117,10 +183,28 @@ public class Customer extends User {
         if (pts < 0) {
             throw new IllegalArgumentException("Cannot deduct negative points");
         }
-        if (this.points < pts) {
+        if (!tryDeductPoints(pts)) {
             throw new IllegalArgumentException("Insufficient points balance");
         }
-        this.points -= pts;
+    }
+
+    /**
+     * Atomically deducts points if the balance is sufficient.
+     * @return true if the points were deducted, false if the balance was too low
+     * @throws IllegalArgumentException if points is negative
+     */
+    public boolean tryDeductPoints(int pts) {
+        if (pts < 0) {
+            throw new IllegalArgumentException("Cannot deduct negative points");
+        }
+        int current;
+        do {
+            current = points.get();
+            if (current < pts) {
+                return false;
+            }
+        } while (!points.compareAndSet(current, current - pts));
+        return true;
     }
 
     public boolean hasNotificationsEnabled() {
@@ -129,7 +213,9 @@ public class Customer extends User {
 
     // Getters
     public List<Order> getOrderHistory() {
-        return Collections.unmodifiableList(orderHistory);
+        synchronized (orderHistory) {
+            return List.copyOf(orderHistory);
+        }
     }
 
     public FidelityCard getFidelityCard() {
@@ -137,7 +223,7 @@ public class Customer extends User {
     }
 
     public int getPoints() {
-        return points;
+        return points.get();
     }
 
     public Coordinate getAddress() {
@@ -149,7 +235,9 @@ public class Customer extends User {
     }
 
     public void updatePhoneNumber(String newPhoneNumber) {
+        String oldPhoneNumber = this.phoneNumber;
         this.phoneNumber = Objects.requireNonNull(newPhoneNumber, "Phone number cannot be null");
+        MyFoodoraSystem.getInstance().getUserRegistry().reindexPhone(this, oldPhoneNumber, newPhoneNumber);
     }
 
     public String getSurname() {
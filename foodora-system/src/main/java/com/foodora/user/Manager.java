@@ -1,12 +1,15 @@
 package com.foodora.user;
 
 import com.foodora.MyFoodoraSystem;
+import com.foodora.analytics.CompletedOrderLedger;
+import com.foodora.analytics.ParallelOrderAnalyzer;
 import com.foodora.model.Order;
 import com.foodora.policy.delivery.DeliveryPolicy;
 import com.foodora.util.IDGenerator;
+import com.foodora.util.PasswordHash;
+import java.time.Duration;
 import java.util.*;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * Manager class representing system administrators in the Foodora system.
@@ -16,9 +19,25 @@ public class Manager extends User {
     private static final Logger LOGGER = Logger.getLogger(Manager.class.getName());
     
     private final String surname;
+    private volatile ParallelOrderAnalyzer orderAnalyzer = ParallelOrderAnalyzer.getDefault();
 
     public Manager(String name, String surname, String username, String password) {
-        super(IDGenerator.generateID("M"), name, username, password);
+        this(IDGenerator.generateID("M"), name, surname, username, password);
+    }
+
+    /**
+     * Recreates a manager with a known id, e.g. when restoring persisted state.
+     */
+    public Manager(String id, String name, String surname, String username, String password) {
+        this(id, name, surname, username, hashPassword(password));
+    }
+
+    /**
+     * Recreates a manager with a known id and password hash, e.g. when restoring persisted state.
+     */
+    public Manager(String id, String name, String surname, String username, PasswordHash passwordHash) {
+        super(id, name, username);
+        setPasswordHash(passwordHash);
         this.surname = Objects.requireNonNull(surname, "Surname cannot be null");
     }
 
@@ -91,8 +110,8 @@ public class Manager extends User {
         if (targetProfit < 0) {
             throw new IllegalArgumentException("Target profit cannot be negative");
         }
-        MyFoodoraSystem.getInstance().optimizeForTargetProfit(targetProfit);
-        LOGGER.info(String.format("Optimized system for target profit: %.2f€", targetProfit));
+        double achieved = MyFoodoraSystem.getInstance().optimizeForTargetProfit(targetProfit);
+        LOGGER.info(String.format("Optimized system for target profit: %.2f€ (achieved %.2f€)", targetProfit, achieved));
     }
 
     public void determineDeliveryPolicy(DeliveryPolicy policy) {
@@ -101,45 +120,75 @@ public class Manager extends User {
         LOGGER.info("Updated delivery policy to: " + policy.getClass().getSimpleName());
     }
 
-    // Analytics
+    // Analytics, counted in parallel chunks for large order histories; ties go to the first registered user
     public Restaurant getMostSellingRestaurant(List<Order> orders) {
         Objects.requireNonNull(orders, "Orders list cannot be null");
-        Map<Restaurant, Integer> salesCount = countRestaurantOrders(orders);
-
-        return salesCount.entrySet().stream()
-            .max(Map.Entry.comparingByValue())
-            .map(Map.Entry::getKey)
-            .orElse(null);
+        return selectByCount(countRestaurantOrders(orders), true);
     }
 
     public Restaurant getLeastSellingRestaurant(List<Order> orders) {
         Objects.requireNonNull(orders, "Orders list cannot be null");
-        Map<Restaurant, Integer> salesCount = countRestaurantOrders(orders, true);
-
-        return salesCount.entrySet().stream()
-            .min(Map.Entry.comparingByValue())
-            .map(Map.Entry::getKey)
-            .orElse(null);
+        return selectByCount(countRestaurantOrders(orders, true), false);
     }
 
     public Courier getMostActiveCourier(List<Order> orders) {
         Objects.requireNonNull(orders, "Orders list cannot be null");
-        Map<Courier, Integer> deliveryCount = countCourierDeliveries(orders);
-
-        return deliveryCount.entrySet().stream()
-            .max(Map.Entry.comparingByValue())
-            .map(Map.Entry::getKey)
-            .orElse(null);
+        return selectByCount(countCourierDeliveries(orders), true);
     }
 
     public Courier getLeastActiveCourier(List<Order> orders) {
         Objects.requireNonNull(orders, "Orders list cannot be null");
-        Map<Courier, Integer> deliveryCount = countCourierDeliveries(orders, true);
+        return selectByCount(countCourierDeliveries(orders, true), false);
+    }
+
+    // The same analytics over all completed orders, scanned from the columnar ledger
+    public Restaurant getMostSellingRestaurant() {
+        CompletedOrderLedger ledger = MyFoodoraSystem.getInstance().getCompletedOrderLedger();
+        return selectByCount(ledger.toUserCounts(ledger.countByRestaurant(), Restaurant.class), true);
+    }
+
+    public Restaurant getLeastSellingRestaurant() {
+        CompletedOrderLedger ledger = MyFoodoraSystem.getInstance().getCompletedOrderLedger();
+        Map<Restaurant, Integer> salesCount = ledger.toUserCounts(ledger.countByRestaurant(), Restaurant.class);
+        MyFoodoraSystem.getInstance().getUserRegistry().getRestaurants()
+            .forEach(r -> salesCount.putIfAbsent(r, 0));
+        return selectByCount(salesCount, false);
+    }
+
+    public Courier getMostActiveCourier() {
+        CompletedOrderLedger ledger = MyFoodoraSystem.getInstance().getCompletedOrderLedger();
+        return selectByCount(ledger.toUserCounts(ledger.countByCourier(), Courier.class), true);
+    }
+
+    public Courier getLeastActiveCourier() {
+        CompletedOrderLedger ledger = MyFoodoraSystem.getInstance().getCompletedOrderLedger();
+        Map<Courier, Integer> deliveryCount = ledger.toUserCounts(ledger.countByCourier(), Courier.class);
+        MyFoodoraSystem.getInstance().getUserRegistry().getCouriers()
+            .forEach(c -> deliveryCount.putIfAbsent(c, 0));
+        return selectByCount(deliveryCount, false);
+    }
 
-        return deliveryCount.entrySet().stream()
-            .min(Map.Entry.comparingByValue())
-            .map(Map.Entry::getKey)
-            .orElse(null);
+    /**
+     * Returns the courier with the most deliveries completed within the last
+     * {@code period}, e.g. the current shift, or null if there were none.
+     */
+    public Courier getMostActiveCourier(Duration period) {
+        return MyFoodoraSystem.getInstance().getTimeWindows().getMostActiveCourier(period);
+    }
+
+    /**
+     * Returns the number of orders placed at the restaurant within the last {@code period}.
+     */
+    public long getRecentOrderCount(Restaurant restaurant, Duration period) {
+        Objects.requireNonNull(restaurant, "Restaurant cannot be null");
+        return MyFoodoraSystem.getInstance().getTimeWindows().getOrderCount(restaurant, period);
+    }
+
+    /**
+     * Sets the analyzer used by the analytics methods, e.g. to run them on a dedicated pool.
+     */
+    public void setOrderAnalyzer(ParallelOrderAnalyzer orderAnalyzer) {
+        this.orderAnalyzer = Objects.requireNonNull(orderAnalyzer, "Order analyzer cannot be null");
     }
 
     // Helper methods
@@ -151,22 +200,12 @@ public class Manager extends User {
     }
 
     private Map<Restaurant, Integer> countRestaurantOrders(List<Order> orders, boolean includeAll) {
-        Map<Restaurant, Integer> salesCount = new HashMap<>();
+        Map<Restaurant, Integer> salesCount = orderAnalyzer.countRestaurantOrders(orders);
         
         if (includeAll) {
-            // Initialize all restaurants with 0 orders
-            MyFoodoraSystem.getInstance().getUsers().stream()
-                .filter(u -> u instanceof Restaurant)
-                .map(u -> (Restaurant) u)
-                .forEach(r -> salesCount.put(r, 0));
-        }
-        
-        // Count orders per restaurant
-        for (Order order : orders) {
-            Restaurant restaurant = order.getRestaurant();
-            if (restaurant != null) {
-                salesCount.merge(restaurant, 1, Integer::sum);
-            }
+            // Restaurants without orders count as 0
+            MyFoodoraSystem.getInstance().getUserRegistry().getRestaurants()
+                .forEach(r -> salesCount.putIfAbsent(r, 0));
         }
         
         return salesCount;
@@ -177,22 +216,12 @@ public class Manager extends User {
     }
 
     private Map<Courier, Integer> countCourierDeliveries(List<Order> orders, boolean includeAll) {
-        Map<Courier, Integer> deliveryCount = new HashMap<>();
+        Map<Courier, Integer> deliveryCount = orderAnalyzer.countCourierDeliveries(orders);
         
         if (includeAll) {
-            // Initialize all couriers with 0 deliveries
-            MyFoodoraSystem.getInstance().getUsers().stream()
-                .filter(u -> u instanceof Courier)
-                .map(u -> (Courier) u)
-                .forEach(c -> deliveryCount.put(c, 0));
-        }
-        
-        // Count deliveries per courier
-        for (Order order : orders) {
-            Courier courier = order.getCourier();
-            if (courier != null) {
-                deliveryCount.merge(courier, 1, Integer::sum);
-            }
+            // Couriers without deliveries count as 0
+            MyFoodoraSystem.getInstance().getUserRegistry().getCouriers()
+                .forEach(c -> deliveryCount.putIfAbsent(c, 0));
         }
         
         return deliveryCount;
@@ -202,6 +231,26 @@ public class Manager extends User {
         return countCourierDeliveries(orders, false);
     }
 
+    // Earlier registration wins a tie; ids only order users that were never registered
+    private static final Comparator<User> TIE_BREAK =
+        Comparator.comparingLong(UserRegistry::registrationOrder).thenComparing(User::getId);
+
+    // Picks the highest or lowest count, independent of the map's iteration order
+    private static <U extends User> U selectByCount(Map<U, Integer> counts, boolean highest) {
+        U selected = null;
+        int selectedCount = 0;
+        for (Map.Entry<U, Integer> entry : counts.entrySet()) {
+            int count = entry.getValue();
+            int cmp = selected == null ? 1 : (highest ? Integer.compare(count, selectedCount)
+                : Integer.compare(selectedCount, count));
+            if (cmp > 0 || (cmp == 0 && TIE_BREAK.compare(entry.getKey(), selected) < 0)) {
+                selected = entry.getKey();
+                selectedCount = count;
+            }
+        }
+        return selected;
+    }
+
     // Getters
     public String getSurname() {
         return surname;
@@ -2,11 +2,15 @@ package com.foodora.user;
 
 import com.foodora.model.Menu;
 import com.foodora.model.Meal;
+import com.foodora.model.MealDefinition;
 import com.foodora.model.MenuItem;
 import com.foodora.util.Coordinate;
 import com.foodora.util.IDGenerator;
+import com.foodora.util.PasswordHash;
 import com.foodora.MyFoodoraSystem;
+import com.foodora.persistence.StateJournal;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -22,39 +26,92 @@ public class Restaurant extends User {
     
     private final Coordinate location;
     private final Menu menu;
+    // Copy-on-write, like the menu: snapshot writers iterate it while meals are edited
     private final List<Meal> meals;
 
     private double defaultGenericDiscountFactor = 0.05; // 5% default for regular meals
     private double defaultSpecialDiscountFactor = 0.10; // 10% default for meal-of-the-week
     
     public Restaurant(String name, Coordinate location, String username, String password) {
-        super(IDGenerator.generateID("R"), name, username, password);
+        this(IDGenerator.generateID("R"), name, location, username, password);
+    }
+
+    /**
+     * Recreates a restaurant with a known id, e.g. when restoring persisted state.
+     */
+    public Restaurant(String id, String name, Coordinate location, String username, String password) {
+        this(id, name, location, username, hashPassword(password));
+    }
+
+    /**
+     * Recreates a restaurant with a known id and password hash, e.g. when restoring persisted state.
+     */
+    public Restaurant(String id, String name, Coordinate location, String username, PasswordHash passwordHash) {
+        super(id, name, username);
+        setPasswordHash(passwordHash);
         this.location = Objects.requireNonNull(location, "Location cannot be null");
         this.menu = new Menu();
-        this.meals = new ArrayList<>();
+        this.meals = new CopyOnWriteArrayList<>();
     }
 
     // Menu Management
     public void addMenuItem(MenuItem item) {
         Objects.requireNonNull(item, "Menu item cannot be null");
         menu.addItem(item);
+        MyFoodoraSystem.getInstance().getJournal().menuItemAdded(this, item);
         LOGGER.info(String.format("Added menu item: %s to restaurant %s", item.getName(), getName()));
         
         // Notify customers of new menu item
         notifyCustomers(String.format("New item added to menu: %s", item.getName()));
     }
 
+    /**
+     * Adds a menu item as it was persisted. Used to restore persisted state;
+     * customers are not notified.
+     */
+    public void restoreMenuItem(MenuItem item) {
+        menu.addItem(Objects.requireNonNull(item, "Menu item cannot be null"));
+    }
+
     public void removeMenuItem(MenuItem item) {
         Objects.requireNonNull(item, "Menu item cannot be null");
         menu.removeItem(item);
+        MyFoodoraSystem.getInstance().getJournal().menuItemRemoved(this, item);
         LOGGER.info(String.format("Removed menu item: %s from restaurant %s", item.getName(), getName()));
     }
 
+    /**
+     * Adds a batch of menu items at once. The whole batch is validated first
+     * and rejected if any item is invalid; otherwise the items appear on the
+     * menu together, and customers get a single notification for the batch.
+     * @throws IllegalArgumentException listing every invalid item
+     */
     public void addMenuItems(List<MenuItem> items) {
         Objects.requireNonNull(items, "Items list cannot be null");
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            MenuItem item = items.get(i);
+            if (item == null) {
+                errors.add(String.format("item %d: menu item cannot be null", i));
+            } else if (item.getName() == null || item.getCategory() == null || item.getType() == null) {
+                errors.add(String.format("item %d: name, category and type are required", i));
+            }
+        }
+        rejectBatch("menu items", errors);
+        if (items.isEmpty()) {
+            return;
+        }
+
+        menu.addItems(items);
+        StateJournal journal = MyFoodoraSystem.getInstance().getJournal();
         for (MenuItem item : items) {
-            addMenuItem(item);
+            journal.menuItemAdded(this, item);
         }
+        LOGGER.info(String.format("Added %d menu items to restaurant %s", items.size(), getName()));
+
+        notifyCustomers(items.size() == 1
+            ? String.format("New item added to menu: %s", items.get(0).getName())
+            : String.format("%d new items added to menu", items.size()));
     }
 
     public Menu getMenu() {
@@ -64,39 +121,101 @@ public class Restaurant extends User {
     // Meal Management
     public void createMeal(String name, List<MenuItem> items, Meal.MealType type, 
                          Meal.MealSize size, boolean isMealOfTheWeek) {
-        Objects.requireNonNull(name, "Meal name cannot be null");
-        Objects.requireNonNull(items, "Items list cannot be null");
-        Objects.requireNonNull(type, "Meal type cannot be null");
-        Objects.requireNonNull(size, "Meal size cannot be null");
+        Meal newMeal = newMeal(new MealDefinition(name, items, type, size, isMealOfTheWeek));
+        meals.add(newMeal);
+        MyFoodoraSystem.getInstance().getJournal().mealAdded(this, newMeal);
         
-        if (items.isEmpty()) {
+        LOGGER.info(String.format("Created new meal: %s at restaurant %s", name, getName()));
+        
+        if (isMealOfTheWeek) {
+            notifyCustomers(String.format("New meal of the week: %s!", name));
+        }
+    }
+
+    /**
+     * Creates a batch of meals at once. Every meal is validated first and the
+     * batch is rejected if any is invalid. Customers get a single notification
+     * for the new meals of the week in the batch, if any.
+     * @throws IllegalArgumentException listing every invalid meal
+     */
+    public void createMeals(List<MealDefinition> definitions) {
+        Objects.requireNonNull(definitions, "Meal definitions cannot be null");
+        List<Meal> created = new ArrayList<>(definitions.size());
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < definitions.size(); i++) {
+            try {
+                created.add(newMeal(Objects.requireNonNull(definitions.get(i), "Meal definition cannot be null")));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                errors.add(String.format("meal %d: %s", i, e.getMessage()));
+            }
+        }
+        rejectBatch("meals", errors);
+        if (created.isEmpty()) {
+            return;
+        }
+
+        meals.addAll(created);
+        StateJournal journal = MyFoodoraSystem.getInstance().getJournal();
+        for (Meal meal : created) {
+            journal.mealAdded(this, meal);
+        }
+        LOGGER.info(String.format("Created %d meals at restaurant %s", created.size(), getName()));
+
+        List<String> mealsOfTheWeek = created.stream()
+            .filter(Meal::isMealOfTheWeek)
+            .map(Meal::getName)
+            .collect(Collectors.toList());
+        if (!mealsOfTheWeek.isEmpty()) {
+            notifyCustomers(String.format("New meal of the week: %s!", String.join(", ", mealsOfTheWeek)));
+        }
+    }
+
+    // Validates a meal against this restaurant's menu and applies the default discount
+    private Meal newMeal(MealDefinition definition) {
+        Objects.requireNonNull(definition.name(), "Meal name cannot be null");
+        Objects.requireNonNull(definition.items(), "Items list cannot be null");
+        Objects.requireNonNull(definition.type(), "Meal type cannot be null");
+        Objects.requireNonNull(definition.size(), "Meal size cannot be null");
+        
+        if (definition.items().isEmpty()) {
             throw new IllegalArgumentException("Meal must contain at least one item");
         }
 
         // Verify all items are from this restaurant's menu
-        for (MenuItem item : items) {
-            if (!menu.getItems().contains(item)) {
+        for (MenuItem item : definition.items()) {
+            if (!menu.contains(item)) {
                 throw new IllegalArgumentException("All items must be from this restaurant's menu");
             }
         }
 
-        double discount = isMealOfTheWeek ? defaultSpecialDiscountFactor : defaultGenericDiscountFactor;
-        Meal newMeal = new Meal(name, items, type, size, isMealOfTheWeek, discount);
-        meals.add(newMeal);
-        
-        LOGGER.info(String.format("Created new meal: %s at restaurant %s", name, getName()));
-        
-        if (isMealOfTheWeek) {
-            notifyCustomers(String.format("New meal of the week: %s!", name));
+        double discount = definition.mealOfTheWeek() ? defaultSpecialDiscountFactor : defaultGenericDiscountFactor;
+        return new Meal(definition.name(), definition.items(), definition.type(), definition.size(),
+            definition.mealOfTheWeek(), discount);
+    }
+
+    private static void rejectBatch(String what, List<String> errors) {
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.format("Invalid %s, none were added: %s",
+                what, String.join("; ", errors)));
         }
     }
 
     public void removeMeal(Meal meal) {
         Objects.requireNonNull(meal, "Meal cannot be null");
-        meals.remove(meal);
+        if (meals.remove(meal)) {
+            MyFoodoraSystem.getInstance().getJournal().mealRemoved(this, meal);
+        }
         LOGGER.info(String.format("Removed meal: %s from restaurant %s", meal.getName(), getName()));
     }
 
+    /**
+     * Adds a meal exactly as it was persisted, keeping its discount factor.
+     * Used to restore persisted state; customers are not notified.
+     */
+    public void restoreMeal(Meal meal) {
+        meals.add(Objects.requireNonNull(meal, "Meal cannot be null"));
+    }
+
     public List<Meal> getMeals() {
         return Collections.unmodifiableList(meals);
     }
@@ -105,6 +224,7 @@ public class Restaurant extends User {
     public void setDefaultGenericDiscountFactor(double factor) {
         validateDiscountFactor(factor, "Generic discount");
         this.defaultGenericDiscountFactor = factor;
+        MyFoodoraSystem.getInstance().getJournal().discountsChanged(this);
         LOGGER.info(String.format("Updated generic discount to %.1f%% for restaurant %s", 
             factor * 100, getName()));
     }
@@ -112,10 +232,21 @@ public class Restaurant extends User {
     public void setDefaultSpecialDiscountFactor(double factor) {
         validateDiscountFactor(factor, "Special discount");
         this.defaultSpecialDiscountFactor = factor;
+        MyFoodoraSystem.getInstance().getJournal().discountsChanged(this);
         LOGGER.info(String.format("Updated special discount to %.1f%% for restaurant %s", 
             factor * 100, getName()));
     }
 
+    /**
+     * Sets both default discount factors as they were persisted. Used to restore persisted state.
+     */
+    public void restoreDiscountFactors(double genericFactor, double specialFactor) {
+        validateDiscountFactor(genericFactor, "Generic discount");
+        validateDiscountFactor(specialFactor, "Special discount");
+        this.defaultGenericDiscountFactor = genericFactor;
+        this.defaultSpecialDiscountFactor = specialFactor;
+    }
+
     private void validateDiscountFactor(double factor, String discountType) {
         if (factor < MIN_DISCOUNT || factor > MAX_DISCOUNT) {
             throw new IllegalArgumentException(
@@ -130,6 +261,13 @@ public class Restaurant extends User {
         LOGGER.info(String.format("Sent notification: %s", message));
     }
 
+    @Override
+    public void updateName(String newName) {
+        String oldName = getName();
+        super.updateName(newName);
+        MyFoodoraSystem.getInstance().getUserRegistry().reindexRestaurantName(this, oldName, newName);
+    }
+
     // Getters
     public double getDefaultGenericDiscountFactor() {
         return defaultGenericDiscountFactor;
@@ -142,10 +280,4 @@ public class Restaurant extends User {
     public Coordinate getLocation() {
         return location;
     }
-
-    // authenticate
-    @Override
-    public boolean authenticate(String username, String password) {
-        return this.username.equals(username) && this.password.equals(password);
-    }
 } 
\ No newline at end of file
@@ -0,0 +1,163 @@
+package com.foodora.user;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Logged-in sessions, keyed by opaque random tokens.
+ * A login checks the password hash once and issues a token; later requests
+ * present the token, which is resolved to its user with a single concurrent
+ * map lookup. Sessions expire after a period without use, and end when
+ * their user logs out, is removed or changes password.
+ */
+public class SessionStore {
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(30);
+
+    private static final int TOKEN_BYTES = 32;
+    // Expired sessions nobody presents again are swept every this many logins
+    private static final int SWEEP_INTERVAL = 1024;
+
+    private final UserRegistry users;
+    private final long timeoutNanos;
+    private final LongSupplier clock;
+    private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong logins = new AtomicLong();
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * A logged-in user and the token that identifies the session.
+     */
+    public static final class Session {
+        private final String token;
+        private final User user;
+        private volatile long expiresAt;
+
+        private Session(String token, User user, long expiresAt) {
+            this.token = token;
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public User getUser() {
+            return user;
+        }
+    }
+
+    public SessionStore(UserRegistry users) {
+        this(users, DEFAULT_TIMEOUT, System::nanoTime);
+    }
+
+    /**
+     * @param timeout how long a session stays valid after it was last used
+     * @param clock current time in nanoseconds
+     */
+    public SessionStore(UserRegistry users, Duration timeout, LongSupplier clock) {
+        this.users = Objects.requireNonNull(users, "User registry cannot be null");
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Session timeout must be positive");
+        }
+        this.timeoutNanos = timeout.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Checks the credentials of an active, registered user and opens a session.
+     * @return the new session, or empty if the credentials are wrong
+     */
+    public Optional<Session> login(String username, String password) {
+        Optional<User> user = users.findByUsername(username)
+            .filter(u -> u.isActive() && u.authenticate(username, password));
+        if (user.isEmpty()) {
+            return Optional.empty();
+        }
+        if (logins.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            purgeExpired();
+        }
+        Session session = new Session(newToken(), user.get(), clock.getAsLong() + timeoutNanos);
+        sessions.put(session.token, session);
+        return Optional.of(session);
+    }
+
+    /**
+     * Returns the user of a valid session and extends the session.
+     * @return the user, or empty if the token is unknown or has expired
+     */
+    public Optional<User> resolve(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return Optional.empty();
+        }
+        long now = clock.getAsLong();
+        if (now - session.expiresAt >= 0) {
+            sessions.remove(token, session);
+            return Optional.empty();
+        }
+        session.expiresAt = now + timeoutNanos;
+        return Optional.of(session.user);
+    }
+
+    public void logout(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    /**
+     * Ends every session of a user, e.g. when the user is removed.
+     */
+    public void invalidate(User user) {
+        sessions.values().removeIf(session -> session.user == user);
+    }
+
+    /**
+     * Changes the password of a session's user. The user's other sessions,
+     * opened with the old password, end; the session making the change stays valid.
+     * @throws IllegalArgumentException if the session is unknown or has expired,
+     *         the current password is incorrect or the new password is invalid
+     */
+    public void changePassword(String token, String currentPassword, String newPassword) {
+        User user = resolve(token)
+            .orElseThrow(() -> new IllegalArgumentException("Session is unknown or has expired"));
+        user.changePassword(currentPassword, newPassword);
+        sessions.values().removeIf(session -> session.user == user && !session.token.equals(token));
+    }
+
+    /**
+     * Removes the sessions that have expired.
+     * @return the number of sessions removed
+     */
+    public int purgeExpired() {
+        long now = clock.getAsLong();
+        int before = sessions.size();
+        sessions.values().removeIf(session -> now - session.expiresAt >= 0);
+        return Math.max(0, before - sessions.size());
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public void clear() {
+        sessions.clear();
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
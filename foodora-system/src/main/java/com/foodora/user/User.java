@@ -1,18 +1,28 @@
 package com.foodora.user;
 
+import com.foodora.MyFoodoraSystem;
+import com.foodora.util.PasswordHash;
+import com.foodora.util.PasswordHasher;
 import java.util.Objects;
 
 /**
  * Abstract base class for all users in the Foodora system.
  * Provides common functionality for authentication and user management.
  * All user types (Manager, Customer, Restaurant, Courier) inherit from this class.
+ * <p>
+ * Passwords are hashed as soon as they are set and only their salted hash
+ * (see {@link PasswordHasher}) is kept. Hashing is deliberately slow, so users
+ * whose password is already hashed are created from the {@link PasswordHash}.
  */
 public abstract class User {
     protected final String id;
     protected String name;
     protected String username;
-    protected String password;
-    protected boolean active;
+    private volatile String passwordHash;
+    protected volatile boolean active;
+
+    // Position in registration order, assigned by UserRegistry
+    volatile long registrationSequence;
 
     /**
      * Creates a new user with the specified details.
@@ -28,10 +38,54 @@ public abstract class User {
         this.id = Objects.requireNonNull(id, "ID cannot be null");
         this.name = Objects.requireNonNull(name, "Name cannot be null");
         this.username = Objects.requireNonNull(username, "Username cannot be null");
-        this.password = Objects.requireNonNull(password, "Password cannot be null");
+        Objects.requireNonNull(password, "Password cannot be null");
         this.active = true; // Users are active by default
         
         validateCredentials(username, password);
+        this.passwordHash = PasswordHasher.hash(password);
+    }
+
+    /**
+     * Creates a new user whose password is already hashed. The subclass
+     * constructor sets the hash with {@link #setPasswordHash(PasswordHash)};
+     * until then no password matches.
+     *
+     * @param id Unique identifier for the user
+     * @param name User's display name
+     * @param username Login username
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if username is invalid
+     */
+    protected User(String id, String name, String username) {
+        this.id = Objects.requireNonNull(id, "ID cannot be null");
+        this.name = Objects.requireNonNull(name, "Name cannot be null");
+        this.username = Objects.requireNonNull(username, "Username cannot be null");
+        this.active = true; // Users are active by default
+
+        validateUsername(username);
+    }
+
+    /**
+     * Sets the hash of a password that was hashed before, e.g. when restoring persisted state.
+     *
+     * @param passwordHash Hash of the login password
+     * @throws NullPointerException if passwordHash is null
+     */
+    protected final void setPasswordHash(PasswordHash passwordHash) {
+        this.passwordHash = Objects.requireNonNull(passwordHash, "Password hash cannot be null").encoded();
+    }
+
+    /**
+     * Validates a new password and hashes it, for the constructors of subclasses.
+     *
+     * @param password The password to hash
+     * @return The password hash
+     * @throws NullPointerException if password is null
+     * @throws IllegalArgumentException if password is invalid
+     */
+    protected static PasswordHash hashPassword(String password) {
+        checkPassword(Objects.requireNonNull(password, "Password cannot be null"));
+        return PasswordHash.of(password);
     }
 
     /**
@@ -42,22 +96,43 @@ public abstract class User {
      * @return true if authentication is successful, false otherwise
      */
     public boolean authenticate(String username, String password) {
-        return this.username.equals(username) && this.password.equals(password);
+        return this.username.equals(username) && PasswordHasher.verify(password, passwordHash);
     }
 
     /**
      * Updates the user's password after verifying the current password.
+     * Every session of the user ends, since it was opened with the old password;
+     * use {@link SessionStore#changePassword} to keep the session making the change.
      *
      * @param currentPassword The current password for verification
      * @param newPassword The new password to set
      * @throws IllegalArgumentException if current password is incorrect or new password is invalid
      */
     public void updatePassword(String currentPassword, String newPassword) {
+        changePassword(currentPassword, newPassword);
+        MyFoodoraSystem.getInstance().getSessions().invalidate(this);
+    }
+
+    /**
+     * Verifies the current password, then hashes and journals the new one.
+     */
+    void changePassword(String currentPassword, String newPassword) {
         if (!authenticate(username, currentPassword)) {
             throw new IllegalArgumentException("Current password is incorrect");
         }
         validatePassword(newPassword);
-        this.password = newPassword;
+        passwordHash = PasswordHasher.hash(newPassword);
+        MyFoodoraSystem.getInstance().getJournal().passwordChanged(this);
+    }
+
+    /**
+     * Replaces the password hash with a persisted one, when restoring state.
+     *
+     * @param passwordHash Hash of the login password
+     * @throws NullPointerException if passwordHash is null
+     */
+    public void restorePasswordHash(PasswordHash passwordHash) {
+        setPasswordHash(passwordHash);
     }
 
     /**
@@ -122,6 +197,10 @@ public abstract class User {
      * @throws IllegalArgumentException if password is invalid
      */
     protected void validatePassword(String password) {
+        checkPassword(password);
+    }
+
+    private static void checkPassword(String password) {
         if (password.length() < 6) {
             throw new IllegalArgumentException("Password must be at least 6 characters long");
         }
@@ -145,6 +224,15 @@ public abstract class User {
         return name;
     }
 
+    /**
+     * Gets the user's salted password hash, for persistence.
+     *
+     * @return The password hash
+     */
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
     /**
      * Gets the user's login username.
      *
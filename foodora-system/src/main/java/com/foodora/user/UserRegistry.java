@@ -0,0 +1,257 @@
+package com.foodora.user;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Indexed registry of all users in the Foodora system.
+ * Keeps hash indexes by id, username, email and phone number, plus typed
+ * collections per user kind, so lookups no longer scan the whole user base.
+ * All indexes are concurrent maps, so users can be added, removed and looked
+ * up from many threads without a registry-wide lock. Collections are returned
+ * in registration order.
+ */
+public class UserRegistry {
+    private final AtomicLong registrationCounter = new AtomicLong();
+
+    private final ConcurrentMap<String, User> usersByUsername = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, User> usersById = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, ConcurrentNavigableMap<Long, User>> usersByEmail = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentNavigableMap<Long, User>> usersByPhone = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentNavigableMap<Long, Restaurant>> restaurantsByName = new ConcurrentHashMap<>();
+
+    // Typed collections, keyed by registration sequence
+    private final ConcurrentNavigableMap<Long, Restaurant> restaurants = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<Long, Courier> couriers = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<Long, Customer> customers = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<Long, Manager> managers = new ConcurrentSkipListMap<>();
+
+    /**
+     * Registers a user and indexes it.
+     * The username is claimed atomically, so concurrent registrations of the
+     * same username let exactly one caller succeed.
+     * @throws IllegalArgumentException if the username or id is already registered
+     */
+    public void add(User user) {
+        Objects.requireNonNull(user, "User cannot be null");
+        if (usersByUsername.putIfAbsent(user.getUsername(), user) != null) {
+            throw new IllegalArgumentException("Username already exists: " + user.getUsername());
+        }
+        if (usersById.putIfAbsent(user.getId(), user) != null) {
+            usersByUsername.remove(user.getUsername(), user);
+            throw new IllegalArgumentException("User id already exists: " + user.getId());
+        }
+
+        long seq = registrationCounter.incrementAndGet();
+        user.registrationSequence = seq;
+        users.put(seq, user);
+        index(usersByEmail, emailOf(user), seq, user);
+        index(usersByPhone, phoneOf(user), seq, user);
+
+        if (user instanceof Restaurant restaurant) {
+            restaurants.put(seq, restaurant);
+            index(restaurantsByName, restaurant.getName(), seq, restaurant);
+        } else if (user instanceof Courier courier) {
+            couriers.put(seq, courier);
+        } else if (user instanceof Customer customer) {
+            customers.put(seq, customer);
+        } else if (user instanceof Manager manager) {
+            managers.put(seq, manager);
+        }
+
+        // A concurrent remove that ran before the entries above existed could not drop them
+        if (usersById.get(user.getId()) != user) {
+            usersByUsername.remove(user.getUsername(), user);
+            unindexAll(user, seq);
+        }
+    }
+
+    /**
+     * Removes a user and all of its index entries.
+     * @return true if the user was registered
+     */
+    public boolean remove(User user) {
+        if (user == null || !usersById.remove(user.getId(), user)) {
+            return false;
+        }
+
+        usersByUsername.remove(user.getUsername(), user);
+        unindexAll(user, user.registrationSequence);
+        return true;
+    }
+
+    public boolean contains(User user) {
+        return user != null && usersById.get(user.getId()) == user;
+    }
+
+    public boolean containsUsername(String username) {
+        return usersByUsername.containsKey(username);
+    }
+
+    // Lookups
+    public Optional<User> findById(String id) {
+        return Optional.ofNullable(usersById.get(id));
+    }
+
+    public Optional<User> findByUsername(String username) {
+        return Optional.ofNullable(usersByUsername.get(username));
+    }
+
+    /**
+     * Finds a user by username, only if it is of the requested type.
+     */
+    public <T extends User> Optional<T> findByUsername(String username, Class<T> type) {
+        User user = usersByUsername.get(username);
+        return type.isInstance(user) ? Optional.of(type.cast(user)) : Optional.empty();
+    }
+
+    public List<User> findByEmail(String email) {
+        return lookup(usersByEmail, email);
+    }
+
+    public List<User> findByPhone(String phoneNumber) {
+        return lookup(usersByPhone, phoneNumber);
+    }
+
+    /**
+     * Finds a restaurant by its display name. If several restaurants share the
+     * name, the earliest registered one is returned.
+     */
+    public Optional<Restaurant> findRestaurantByName(String name) {
+        ConcurrentNavigableMap<Long, Restaurant> matches = restaurantsByName.get(name);
+        if (matches == null) {
+            return Optional.empty();
+        }
+        Map.Entry<Long, Restaurant> first = matches.firstEntry();
+        return first == null ? Optional.empty() : Optional.of(first.getValue());
+    }
+
+    /**
+     * Returns the position of a user in registration order. Earlier registrations
+     * have smaller values; policies use it to break ties deterministically.
+     */
+    public static long registrationOrder(User user) {
+        return user.registrationSequence;
+    }
+
+    // Index maintenance for mutable attributes
+    void reindexPhone(User user, String oldPhone, String newPhone) {
+        if (!contains(user)) {
+            return;
+        }
+        unindex(usersByPhone, oldPhone, user.registrationSequence);
+        index(usersByPhone, newPhone, user.registrationSequence, user);
+    }
+
+    void reindexRestaurantName(Restaurant restaurant, String oldName, String newName) {
+        if (!contains(restaurant)) {
+            return;
+        }
+        unindex(restaurantsByName, oldName, restaurant.registrationSequence);
+        index(restaurantsByName, newName, restaurant.registrationSequence, restaurant);
+    }
+
+    // Typed views (unmodifiable, registration order, weakly consistent)
+    public Collection<User> getAll() {
+        return Collections.unmodifiableCollection(users.values());
+    }
+
+    public Collection<Restaurant> getRestaurants() {
+        return Collections.unmodifiableCollection(restaurants.values());
+    }
+
+    public Collection<Courier> getCouriers() {
+        return Collections.unmodifiableCollection(couriers.values());
+    }
+
+    public Collection<Customer> getCustomers() {
+        return Collections.unmodifiableCollection(customers.values());
+    }
+
+    public Collection<Manager> getManagers() {
+        return Collections.unmodifiableCollection(managers.values());
+    }
+
+    public int size() {
+        return usersById.size();
+    }
+
+    public void clear() {
+        usersById.clear();
+        usersByUsername.clear();
+        users.clear();
+        usersByEmail.clear();
+        usersByPhone.clear();
+        restaurantsByName.clear();
+        restaurants.clear();
+        couriers.clear();
+        customers.clear();
+        managers.clear();
+    }
+
+    // Helper methods
+    private static String emailOf(User user) {
+        return user instanceof Customer customer ? customer.getEmail() : null;
+    }
+
+    private static String phoneOf(User user) {
+        if (user instanceof Customer customer) {
+            return customer.getPhoneNumber();
+        } else if (user instanceof Courier courier) {
+            return courier.getPhoneNumber();
+        }
+        return null;
+    }
+
+    private static <T> void index(ConcurrentMap<String, ConcurrentNavigableMap<Long, T>> index,
+                                  String key, long seq, T value) {
+        if (key == null) {
+            return;
+        }
+        // compute() is atomic per key, so a concurrent unindex cannot drop the bucket we add to
+        index.compute(key, (k, bucket) -> {
+            ConcurrentNavigableMap<Long, T> target = bucket != null ? bucket : new ConcurrentSkipListMap<>();
+            target.put(seq, value);
+            return target;
+        });
+    }
+
+    // Drops the entries keyed by a registration sequence; a no-op for entries already gone
+    private void unindexAll(User user, long seq) {
+        users.remove(seq, user);
+        unindex(usersByEmail, emailOf(user), seq);
+        unindex(usersByPhone, phoneOf(user), seq);
+
+        if (user instanceof Restaurant restaurant) {
+            restaurants.remove(seq, restaurant);
+            unindex(restaurantsByName, restaurant.getName(), seq);
+        } else if (user instanceof Courier courier) {
+            couriers.remove(seq, courier);
+        } else if (user instanceof Customer customer) {
+            customers.remove(seq, customer);
+        } else if (user instanceof Manager manager) {
+            managers.remove(seq, manager);
+        }
+    }
+
+    private static <T> void unindex(ConcurrentMap<String, ConcurrentNavigableMap<Long, T>> index,
+                                    String key, long seq) {
+        if (key == null) {
+            return;
+        }
+        index.computeIfPresent(key, (k, bucket) -> {
+            bucket.remove(seq);
+            return bucket.isEmpty() ? null : bucket;
+        });
+    }
+
+    private static <T> List<T> lookup(ConcurrentMap<String, ConcurrentNavigableMap<Long, T>> index, String key) {
+        ConcurrentNavigableMap<Long, T> bucket = index.get(key);
+        return bucket == null ? List.of() : List.copyOf(bucket.values());
+    }
+}
@@ -0,0 +1,275 @@
+package com.foodora.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of non-negative ints stored as a compressed bitmap.
+ * Values are split by their high 16 bits into chunks of 65536; a chunk with
+ * few values is a sorted array of their low 16 bits (2 bytes per value), a
+ * dense chunk is a plain 8 KB bitmap. Sparse and dense sets both stay small,
+ * and iteration runs in ascending order over the stored values only.
+ * <p>
+ * Not thread-safe.
+ */
+public class CompressedBitmap {
+    // A chunk switches to a bitmap above this many values, where the array would outgrow 8 KB
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    private char[] keys = new char[0];
+    private Chunk[] chunks = new Chunk[0];
+    private int chunkCount;
+    private long cardinality;
+
+    /**
+     * Adds a value.
+     * @return true if the value was not already in the set
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public boolean add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value cannot be negative");
+        }
+        char key = (char) (value >>> 16);
+        int position = find(key);
+        if (position < 0) {
+            position = -position - 1;
+            insertChunk(position, key, new ArrayChunk());
+        }
+        Chunk chunk = chunks[position];
+        if (!chunk.add((char) value)) {
+            return false;
+        }
+        if (chunk instanceof ArrayChunk array && array.size > ARRAY_LIMIT) {
+            chunks[position] = array.toBitmap();
+        }
+        cardinality++;
+        return true;
+    }
+
+    /**
+     * Removes a value.
+     * @return true if the value was in the set
+     */
+    public boolean remove(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int position = find((char) (value >>> 16));
+        if (position < 0 || !chunks[position].remove((char) value)) {
+            return false;
+        }
+        Chunk chunk = chunks[position];
+        if (chunk.size() == 0) {
+            removeChunk(position);
+        } else if (chunk instanceof BitmapChunk bitmap && bitmap.size <= ARRAY_LIMIT / 2) {
+            // Well below the limit, so values moving around it do not convert back and forth
+            chunks[position] = bitmap.toArray();
+        }
+        cardinality--;
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int position = find((char) (value >>> 16));
+        return position >= 0 && chunks[position].contains((char) value);
+    }
+
+    public long cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Visits every value in ascending order.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * Returns the approximate number of bytes used by the stored values.
+     */
+    public long sizeInBytes() {
+        long bytes = (long) keys.length * Character.BYTES + (long) chunks.length * Integer.BYTES;
+        for (int i = 0; i < chunkCount; i++) {
+            bytes += chunks[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    public void clear() {
+        keys = new char[0];
+        chunks = new Chunk[0];
+        chunkCount = 0;
+        cardinality = 0;
+    }
+
+    // Chunk directory
+    private int find(char key) {
+        return Arrays.binarySearch(keys, 0, chunkCount, key);
+    }
+
+    private void insertChunk(int position, char key, Chunk chunk) {
+        if (chunkCount == keys.length) {
+            int capacity = Math.max(4, chunkCount * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            chunks = Arrays.copyOf(chunks, capacity);
+        }
+        System.arraycopy(keys, position, keys, position + 1, chunkCount - position);
+        System.arraycopy(chunks, position, chunks, position + 1, chunkCount - position);
+        keys[position] = key;
+        chunks[position] = chunk;
+        chunkCount++;
+    }
+
+    private void removeChunk(int position) {
+        System.arraycopy(keys, position + 1, keys, position, chunkCount - position - 1);
+        System.arraycopy(chunks, position + 1, chunks, position, chunkCount - position - 1);
+        chunkCount--;
+        chunks[chunkCount] = null;
+    }
+
+    // Chunks over the low 16 bits of the values
+    private abstract static class Chunk {
+        int size;
+
+        abstract boolean add(char low);
+
+        abstract boolean remove(char low);
+
+        abstract boolean contains(char low);
+
+        abstract void forEach(int high, IntConsumer action);
+
+        abstract long sizeInBytes();
+
+        int size() {
+            return size;
+        }
+    }
+
+    private static final class ArrayChunk extends Chunk {
+        private char[] values = new char[4];
+
+        @Override
+        boolean add(char low) {
+            int position = Arrays.binarySearch(values, 0, size, low);
+            if (position >= 0) {
+                return false;
+            }
+            position = -position - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT + 1, size + (size >> 1) + 1));
+            }
+            System.arraycopy(values, position, values, position + 1, size - position);
+            values[position] = low;
+            size++;
+            return true;
+        }
+
+        @Override
+        boolean remove(char low) {
+            int position = Arrays.binarySearch(values, 0, size, low);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(values, position + 1, values, position, size - position - 1);
+            size--;
+            if (values.length > 16 && size < values.length / 2) {
+                values = Arrays.copyOf(values, size + (size >> 2));
+            }
+            return true;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        long sizeInBytes() {
+            return (long) values.length * Character.BYTES;
+        }
+
+        BitmapChunk toBitmap() {
+            BitmapChunk bitmap = new BitmapChunk();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapChunk extends Chunk {
+        private final long[] words = new long[BITMAP_WORDS];
+
+        @Override
+        boolean add(char low) {
+            long bit = 1L << low;
+            int word = low >>> 6;
+            if ((words[word] & bit) != 0) {
+                return false;
+            }
+            words[word] |= bit;
+            size++;
+            return true;
+        }
+
+        @Override
+        boolean remove(char low) {
+            long bit = 1L << low;
+            int word = low >>> 6;
+            if ((words[word] & bit) == 0) {
+                return false;
+            }
+            words[word] &= ~bit;
+            size--;
+            return true;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    action.accept(high | (word << 6) | Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+        }
+
+        @Override
+        long sizeInBytes() {
+            return (long) BITMAP_WORDS * Long.BYTES;
+        }
+
+        ArrayChunk toArray() {
+            ArrayChunk array = new ArrayChunk();
+            array.values = new char[size];
+            forEach(0, value -> array.values[array.size++] = (char) value);
+            return array;
+        }
+    }
+}
@@ -1,14 +1,93 @@
 package com.foodora.util;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Generates sequential ids per prefix, formatted as {@code prefix-0001}.
+ * Counters are lock-free, so concurrent object creation does not serialize
+ * on id generation. When a node id is set, ids are formatted as
+ * {@code prefix-node-0001}, so several instances can mint globally unique ids
+ * without coordinating.
+ */
 public class IDGenerator {
-    private static final Map<String, Integer> counters = new HashMap<>();
+    private static final int MIN_DIGITS = 4;
 
-    public static synchronized String generateID(String prefix) {
-        int count = counters.getOrDefault(prefix, 0) + 1;
-        counters.put(prefix, count);
-        return String.format("%s-%04d", prefix, count);
+    private static final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private static volatile String nodeId;
+
+    public static String generateID(String prefix) {
+        Objects.requireNonNull(prefix, "Prefix cannot be null");
+        // Plain get first: computeIfAbsent may lock the bin even when the key exists
+        AtomicLong counter = counters.get(prefix);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(prefix, p -> new AtomicLong());
+        }
+        return format(prefix, nodeId, counter.incrementAndGet());
+    }
+
+    /**
+     * Makes sure ids generated from now on sort after the given id, which was
+     * minted earlier (e.g. by a previous run whose state was restored).
+     * Ids that do not end in a numeric counter are ignored.
+     */
+    public static void advancePast(String id) {
+        if (id == null) {
+            return;
+        }
+        int prefixEnd = id.indexOf('-');
+        int counterStart = id.lastIndexOf('-') + 1;
+        if (prefixEnd <= 0 || counterStart == id.length()) {
+            return;
+        }
+        long count = 0;
+        for (int i = counterStart; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9' || count > (Long.MAX_VALUE - 9) / 10) {
+                return;
+            }
+            count = count * 10 + (c - '0');
+        }
+        String prefix = id.substring(0, prefixEnd);
+        AtomicLong counter = counters.get(prefix);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(prefix, p -> new AtomicLong());
+        }
+        if (counter.get() < count) {
+            counter.accumulateAndGet(count, Math::max);
+        }
+    }
+
+    /**
+     * Sets the node id included in generated ids, or clears it with null.
+     * @throws IllegalArgumentException if the node id is empty or not alphanumeric
+     */
+    public static void setNodeId(String nodeId) {
+        if (nodeId != null && (nodeId.isEmpty() || !nodeId.chars().allMatch(Character::isLetterOrDigit))) {
+            throw new IllegalArgumentException("Node id must be alphanumeric: " + nodeId);
+        }
+        IDGenerator.nodeId = nodeId;
+    }
+
+    public static String getNodeId() {
+        return nodeId;
+    }
+
+    // Same output as String.format("%s-%04d", prefix, count), without parsing a format string
+    static String format(String prefix, String node, long count) {
+        String digits = Long.toString(count);
+        int padding = Math.max(0, MIN_DIGITS - digits.length());
+        int length = prefix.length() + 1 + (node == null ? 0 : node.length() + 1) + padding + digits.length();
+
+        StringBuilder id = new StringBuilder(length).append(prefix).append('-');
+        if (node != null) {
+            id.append(node).append('-');
+        }
+        for (int i = 0; i < padding; i++) {
+            id.append('0');
+        }
+        return id.append(digits).toString();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package com.foodora.util;
+
+/**
+ * A password hash made by {@link PasswordHasher#hash(String)}, used to create
+ * users whose password is already hashed, e.g. when restoring persisted state
+ * or importing users, without hashing again.
+ */
+public record PasswordHash(String encoded) {
+    public PasswordHash {
+        if (!PasswordHasher.isHash(encoded)) {
+            throw new IllegalArgumentException("Not a password hash");
+        }
+    }
+
+    /**
+     * Hashes a plaintext password with a new random salt.
+     */
+    public static PasswordHash of(String password) {
+        return new PasswordHash(PasswordHasher.hash(password));
+    }
+}
@@ -0,0 +1,83 @@
+package com.foodora.util;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Objects;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Salted, deliberately slow password hashes (PBKDF2 with HMAC-SHA256).
+ * A hash is stored as {@code pbkdf2-sha256$<iterations>$<salt>$<hash>}, with
+ * the salt and hash in Base64, so the iteration count can be raised later
+ * without invalidating existing hashes. The count for new hashes is read
+ * from the {@code foodora.passwordIterations} system property.
+ */
+public final class PasswordHasher {
+    public static final int DEFAULT_ITERATIONS = 100_000;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int ITERATIONS = Math.max(1, Integer.getInteger("foodora.passwordIterations", DEFAULT_ITERATIONS));
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private PasswordHasher() {
+    }
+
+    /**
+     * Hashes a password with a new random salt.
+     */
+    public static String hash(String password) {
+        Objects.requireNonNull(password, "Password cannot be null");
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + ITERATIONS + "$" + base64.encodeToString(salt) + "$"
+            + base64.encodeToString(derive(password, salt, ITERATIONS));
+    }
+
+    /**
+     * Checks a password against a hash made by {@link #hash(String)}, in time
+     * independent of where they differ.
+     */
+    public static boolean verify(String password, String hash) {
+        if (password == null || !isHash(hash)) {
+            return false;
+        }
+        String[] parts = hash.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        try {
+            int iterations = Integer.parseInt(parts[0]);
+            Base64.Decoder base64 = Base64.getDecoder();
+            byte[] expected = base64.decode(parts[2]);
+            return MessageDigest.isEqual(expected, derive(password, base64.decode(parts[1]), iterations));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether a stored value is a hash rather than a plaintext password.
+     */
+    public static boolean isHash(String value) {
+        return value != null && value.startsWith(PREFIX);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
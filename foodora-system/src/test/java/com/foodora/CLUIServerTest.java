@@ -0,0 +1,151 @@
+package com.foodora;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.user.Customer;
+import com.foodora.user.Manager;
+import com.foodora.user.Restaurant;
+import com.foodora.util.Coordinate;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Checks that CLUI server sessions are independent of each other and of the
+ * console, and that many clients can drive the system at once.
+ */
+public class CLUIServerTest {
+    private MyFoodoraSystem system;
+    private CLUIServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+        system.addUser(new Manager("CEO", "Manager", "ceo", "123456789"));
+        system.addUser(new Restaurant("LeBistro", new Coordinate(3.0, 3.0), "bistro1", "pass123"));
+        server = CLUIServer.listen(0);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void testSessionsAreIndependent() throws IOException {
+        try (Client restaurant = connect(); Client customer = connect()) {
+            assertEquals(List.of(CLUIServer.OK), restaurant.send("login bistro1 pass123"));
+            assertEquals(List.of(CLUIServer.OK), customer.send("login ceo 123456789"));
+
+            assertEquals(List.of("Added dish to menu: Le Salad", CLUIServer.OK),
+                restaurant.send("addDishRestaurantMenu \"Le Salad\" starter vegetarian 6.5"));
+            assertEquals(List.of("Error: Only restaurants can add dishes to menu"),
+                customer.send("addDishRestaurantMenu Soup starter standard 4"));
+            assertEquals(List.of("Error: Unknown command: bogus"), customer.send("bogus"));
+        }
+        assertTrue(system.getUserRegistry().findRestaurantByName("LeBistro").orElseThrow()
+            .getMenu().findItem("Le Salad").isPresent());
+        // The console session was not logged in by the clients
+        Exception e = assertThrows(Exception.class, () -> CLUI.executeCommand("logout", new String[0]));
+        assertEquals("Not logged in", e.getMessage());
+    }
+
+    @Test
+    void testConcurrentSessions() throws Exception {
+        int clients = 16;
+        for (int i = 0; i < clients; i++) {
+            system.addUser(new Customer("Customer" + i, "Test", new Coordinate(i, i),
+                "c" + i + "@foodora.com", "555-0000", "customer" + i, "pass123"));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                String username = "customer" + i;
+                results.add(pool.submit(() -> {
+                    List<String> replies = new ArrayList<>();
+                    try (Client client = connect()) {
+                        for (int round = 0; round < 20; round++) {
+                            replies.addAll(client.send("login " + username + " pass123"));
+                            replies.addAll(client.send("logout"));
+                        }
+                    }
+                    return replies;
+                }));
+            }
+            for (Future<List<String>> result : results) {
+                List<String> replies = result.get(30, TimeUnit.SECONDS);
+                assertEquals(40, replies.size());
+                assertTrue(replies.stream().allMatch(CLUIServer.OK::equals), replies.toString());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(clients, server.getSessionCount());
+        assertEquals(clients * 40, server.getCommandCount());
+    }
+
+    @Test
+    void testUnixDomainSocket() throws IOException {
+        Path socket = Files.createTempDirectory("foodora-clui").resolve("clui.sock");
+        try (CLUIServer unixServer = CLUIServer.listen(socket)) {
+            assertEquals(UnixDomainSocketAddress.of(socket), unixServer.getAddress());
+            SocketChannel channel = SocketChannel.open(unixServer.getAddress());
+            try (Client client = new Client(channel)) {
+                assertEquals(List.of(CLUIServer.OK), client.send("login bistro1 pass123"));
+            }
+            assertEquals(1, unixServer.getSessionCount());
+            assertEquals(1, unixServer.getCommandCount());
+        }
+        assertFalse(Files.exists(socket));
+    }
+
+    private Client connect() throws IOException {
+        InetSocketAddress address = (InetSocketAddress) server.getAddress();
+        return new Client(SocketChannel.open(address));
+    }
+
+    // Sends commands and reads their replies up to the status line
+    private static final class Client implements AutoCloseable {
+        private final SocketChannel channel;
+        private final BufferedReader in;
+        private final PrintStream out;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+            this.in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            this.out = new PrintStream(Channels.newOutputStream(channel), true, StandardCharsets.UTF_8);
+        }
+
+        List<String> send(String command) throws IOException {
+            out.println(command);
+            List<String> reply = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                reply.add(line);
+                if (line.equals(CLUIServer.OK) || line.startsWith("Error: ")) {
+                    break;
+                }
+            }
+            return reply;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.println("exit");
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.foodora;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.user.Restaurant;
+import com.foodora.util.Coordinate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks command lookup, the role and argument checks and argument parsing
+ * of the command registry.
+ */
+public class CommandRegistryTest {
+    private final List<Object> received = new ArrayList<>();
+    private CommandRegistry registry;
+    private CLUISession session;
+
+    @BeforeEach
+    void setUp() {
+        registry = new CommandRegistry()
+            .command("addDish", "addDishes")
+                .role(CLUISession.UserType.RESTAURANT, "Only restaurants")
+                .arity(1, "Needs a price")
+                .parse(args -> Double.parseDouble(args[0]))
+                .run((session, price) -> received.add(price))
+            .command("help")
+                .run((session, args) -> received.add(args.length));
+        session = new CLUISession();
+    }
+
+    @Test
+    void testLookupIgnoresCase() throws Exception {
+        registry.execute(session, "HELP", new String[] {"a", "b"});
+        registry.execute(session, "help", new String[0]);
+        assertEquals(List.of(2, 0), received);
+
+        CommandException e = assertThrows(CommandException.class,
+            () -> registry.execute(session, "Bogus", new String[0]));
+        assertEquals("Unknown command: bogus", e.getMessage());
+        // Rejections carry no stack trace
+        assertEquals(0, e.getStackTrace().length);
+    }
+
+    @Test
+    void testRoleIsCheckedBeforeArguments() throws Exception {
+        CommandException e = assertThrows(CommandException.class,
+            () -> registry.execute(session, "addDish", new String[0]));
+        assertEquals("Only restaurants", e.getMessage());
+
+        MyFoodoraSystem system = MyFoodoraSystem.getInstance();
+        system.reset();
+        system.addUser(new Restaurant("LeBistro", new Coordinate(3.0, 3.0), "bistro1", "pass123"));
+        session.login(system.getSessions().login("bistro1", "pass123").orElseThrow(),
+            CLUISession.UserType.RESTAURANT);
+        e = assertThrows(CommandException.class, () -> registry.execute(session, "adddishes", new String[0]));
+        assertEquals("Needs a price", e.getMessage());
+
+        registry.execute(session, "addDishes", new String[] {"6.5"});
+        assertEquals(List.of(6.5), received);
+        assertThrows(NumberFormatException.class, () -> registry.execute(session, "addDish", new String[] {"x"}));
+
+        // Once its token is gone, the session is logged out
+        system.getSessions().logout(session.getToken());
+        e = assertThrows(CommandException.class, () -> registry.execute(session, "addDish", new String[] {"1"}));
+        assertEquals("Session expired, please log in again", e.getMessage());
+        assertNull(session.getCurrentUser());
+    }
+
+    @Test
+    void testNamesAreUnique() {
+        assertThrows(IllegalStateException.class,
+            () -> registry.command("Help").run((session, args) -> {}));
+    }
+}
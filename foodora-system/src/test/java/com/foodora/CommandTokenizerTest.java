@@ -0,0 +1,48 @@
+package com.foodora;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks how command lines are split into tokens.
+ */
+public class CommandTokenizerTest {
+
+    @Test
+    void testPlainTokens() {
+        assertArrayEquals(new String[] {"login", "ceo", "123456789"},
+            CommandTokenizer.tokenize("  login \t ceo   123456789 "));
+        assertArrayEquals(new String[0], CommandTokenizer.tokenize("   "));
+        assertArrayEquals(new String[] {"help"}, CommandTokenizer.tokenize("help"));
+    }
+
+    @Test
+    void testQuotedTokens() {
+        assertArrayEquals(new String[] {"registerRestaurant", "Le Bistro", "10.5,20.3", "bistro1", ""},
+            CommandTokenizer.tokenize("registerRestaurant \"Le Bistro\" \"10.5,20.3\" bistro1 \"\""));
+        // Quoted and unquoted parts of a token are joined
+        assertArrayEquals(new String[] {"a", "b c d"}, CommandTokenizer.tokenize("a b\" c \"d"));
+        // An open quote runs to the end of the line
+        assertArrayEquals(new String[] {"a", "b c "}, CommandTokenizer.tokenize("a \"b c "));
+    }
+
+    @Test
+    void testSplitMatchesRegexSplit() {
+        for (String line : new String[] {"login ceo 123456789", "registerCustomer \"John\" \"Doe\"\t \"5.5,10.2\"",
+                "help", "a  b\u000Bc\fd"}) {
+            assertArrayEquals(line.trim().split("\\s+"), CommandTokenizer.split(line));
+        }
+        assertArrayEquals(new String[] {"a", "b"}, CommandTokenizer.split("  a b  "));
+    }
+
+    @Test
+    void testManyTokens() {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            line.append(i % 2 == 0 ? "t" + i : "\"t " + i + "\"").append(' ');
+        }
+        String[] tokens = CommandTokenizer.tokenize(line.toString());
+        assertEquals(100, tokens.length);
+        assertEquals("t 99", tokens[99]);
+    }
+}
@@ -0,0 +1,88 @@
+package com.foodora;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Checks that batch runs keep command output and log records in the output file.
+ */
+public class MainTest {
+    @TempDir
+    Path dir;
+
+    private final ByteArrayOutputStream console = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+    private final List<LogRecord> consoleLogs = new ArrayList<>();
+    private final Handler rootHandler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            consoleLogs.add(record);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        MyFoodoraSystem.getInstance().reset();
+        System.setOut(new PrintStream(console));
+        Logger.getLogger("").addHandler(rootHandler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Logger.getLogger("").removeHandler(rootHandler);
+        System.setOut(originalOut);
+        MyFoodoraSystem.getInstance().reset();
+    }
+
+    @Test
+    void testLogsGoToTheOutputFile() throws IOException {
+        String output = runBatch(false);
+        // The log record follows the command that caused it
+        int command = output.indexOf("> setDeliveryPolicy fastest");
+        assertTrue(command >= 0);
+        assertTrue(output.indexOf("Updated delivery policy to: FastestDeliveryPolicy") > command);
+        assertTrue(consoleLogs.isEmpty());
+        assertTrue(console.toString().startsWith("Batch completed: 2 commands (0 errors)"));
+    }
+
+    @Test
+    void testQuietSilencesInfoLogs() throws IOException {
+        String output = runBatch(true);
+        assertFalse(output.contains("> "));
+        assertFalse(output.contains("Updated delivery policy"));
+        assertTrue(consoleLogs.isEmpty());
+
+        // Logging is back to normal after the run
+        Logger.getLogger("com.foodora.user.Manager").info("after batch");
+        assertEquals(1, consoleLogs.size());
+    }
+
+    // Helpers
+    private String runBatch(boolean quiet) throws IOException {
+        Path scenario = dir.resolve("scenario.txt");
+        Files.write(scenario, List.of("login ceo 123456789", "setDeliveryPolicy fastest"));
+        Main.runBatch(scenario.toString(), quiet);
+        return Files.readString(dir.resolve("scenariooutput.txt"), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,121 @@
+package com.foodora;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.foodora.model.Order;
+import com.foodora.user.*;
+import com.foodora.util.Coordinate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stress test for concurrent order intake. Runs the same workload with an
+ * increasing number of threads and checks that no update is lost. Throughput
+ * is measured by ConcurrentOrderBenchmark in the benchmark profile.
+ */
+public class MyFoodoraSystemConcurrencyTest {
+    private static final int OPS_PER_THREAD = 5_000;
+    private static final int COURIERS = 32;
+
+    private MyFoodoraSystem system;
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+    }
+
+    @Test
+    void testNoLostUpdatesUnderConcurrency() throws Exception {
+        // At least a few threads, so updates interleave even on a single core
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            system.reset();
+            runWorkload(threads);
+        }
+    }
+
+    @Test
+    void testConcurrentRegistrationOfSameUsername() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger successes = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                Courier courier = new Courier("Mike", "Delivery", new Coordinate(0, 0),
+                    "555-0000", "mike.d", "pass123");
+                start.await();
+                try {
+                    system.addUser(courier);
+                    successes.incrementAndGet();
+                } catch (IllegalArgumentException expected) {
+                    // another thread claimed the username first
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(1, successes.get());
+        assertEquals(1, system.getUserRegistry().getCouriers().size());
+    }
+
+    private void runWorkload(int threads) throws Exception {
+        Restaurant restaurant = new Restaurant("LeBistro", new Coordinate(10, 10), "bistro1", "pass123");
+        system.addUser(restaurant);
+        List<Courier> couriers = new ArrayList<>();
+        for (int i = 0; i < COURIERS; i++) {
+            Courier courier = new Courier("Courier" + i, "Test", new Coordinate(i, i),
+                "555-0000", "courier" + i, "pass123");
+            courier.setOnDuty(true);
+            system.addUser(courier);
+            couriers.add(courier);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int threadId = t;
+            futures.add(pool.submit(() -> {
+                Customer customer = new Customer("Customer" + threadId, "Test", new Coordinate(0, 0),
+                    "c" + threadId + "@foodora.com", "555-0000", "customer" + threadId, "pass123");
+                system.addUser(customer);
+                start.await();
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    Order order = new Order(customer, restaurant, null, null, null);
+                    system.placeOrder(order);
+                    system.completeOrder(order);
+                    if (i % 64 == 0) {
+                        Customer guest = new Customer("Guest", "Test", new Coordinate(0, 0),
+                            "guest@foodora.com", "555-0000", "guest" + threadId + "-" + i, "pass123");
+                        system.addUser(guest);
+                        system.removeUser(guest);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        int expected = threads * OPS_PER_THREAD;
+        assertEquals(expected, system.getCompletedOrders().size());
+        assertEquals(expected, couriers.stream().mapToInt(Courier::getDeliveredOrders).sum());
+        assertEquals(1 + COURIERS + threads, system.getUserRegistry().size());
+    }
+}
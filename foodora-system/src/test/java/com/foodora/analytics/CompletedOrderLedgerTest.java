@@ -0,0 +1,116 @@
+package com.foodora.analytics;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Order;
+import com.foodora.user.*;
+import com.foodora.util.Coordinate;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Checks the columnar ledger against the completed Order objects it was built from.
+ */
+public class CompletedOrderLedgerTest {
+    private MyFoodoraSystem system;
+    private List<Customer> customers;
+    private List<Restaurant> restaurants;
+    private List<Courier> couriers;
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+
+        customers = new ArrayList<>();
+        restaurants = new ArrayList<>();
+        couriers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Customer customer = new Customer("Customer" + i, "Test", new Coordinate(i, i),
+                "c" + i + "@foodora.com", "555-0000", "customer" + i, "pass123");
+            Restaurant restaurant = new Restaurant("R" + i, new Coordinate(i, 0), "rest" + i, "pass123");
+            Courier courier = new Courier("Courier" + i, "Test", new Coordinate(0, i),
+                "555-0000", "courier" + i, "pass123");
+            system.addUser(customer);
+            system.addUser(restaurant);
+            system.addUser(courier);
+            courier.setOnDuty(true);
+            customers.add(customer);
+            restaurants.add(restaurant);
+            couriers.add(courier);
+        }
+    }
+
+    @Test
+    void testRowsMatchOrders() {
+        Random random = new Random(42);
+        // More than one page of rows
+        for (int i = 0; i < CompletedOrderLedger.PAGE_SIZE + 1_000; i++) {
+            Order order = new Order(customers.get(random.nextInt(10)), restaurants.get(random.nextInt(10)),
+                null, null, null);
+            order.setFinalPrice(Math.round(random.nextDouble() * 10_000) / 100.0);
+            system.placeOrder(order);
+            system.completeOrder(order);
+        }
+
+        CompletedOrderLedger ledger = system.getCompletedOrderLedger();
+        List<Order> completed = system.getCompletedOrders();
+        assertEquals(completed.size(), ledger.size());
+
+        int[] row = {0};
+        ledger.scan((page, from, to) -> {
+            for (int i = from; i < to; i++) {
+                Order order = completed.get(row[0]++);
+                assertEquals(order.getFinalPrice(), page.finalPrice(i));
+                assertSame(order.getRestaurant(), ledger.getUser(page.restaurant(i)));
+                assertSame(order.getCourier(), ledger.getUser(page.courier(i)));
+                assertSame(order.getCustomer(), ledger.getUser(page.customer(i)));
+                assertEquals(order.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                    page.createdAtMillis(i));
+                assertEquals(0, page.itemCount(i));
+            }
+        });
+        assertEquals(completed.size(), row[0]);
+
+        // Same summation in the same order as the running aggregates
+        assertEquals(system.computeTotalIncome(), ledger.getTotalIncome());
+    }
+
+    @Test
+    void testManagerAnalyticsMatchListBased() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2_000; i++) {
+            Restaurant restaurant = restaurants.get((int) Math.sqrt(random.nextInt(64)));
+            Order order = new Order(customers.get(random.nextInt(10)), restaurant, null, null, null);
+            system.placeOrder(order);
+            system.completeOrder(order);
+        }
+
+        Manager manager = new Manager("Alice", "Smith", "alice.s", "pass123");
+        List<Order> completed = system.getCompletedOrders();
+        assertSame(manager.getMostSellingRestaurant(completed), manager.getMostSellingRestaurant());
+        assertSame(manager.getLeastSellingRestaurant(completed), manager.getLeastSellingRestaurant());
+        assertSame(manager.getMostActiveCourier(completed), manager.getMostActiveCourier());
+        assertSame(manager.getLeastActiveCourier(completed), manager.getLeastActiveCourier());
+        // Restaurants 8 and 9 never get orders
+        assertSame(restaurants.get(8), manager.getLeastSellingRestaurant());
+
+        CompletedOrderLedger ledger = system.getCompletedOrderLedger();
+        Map<Restaurant, Integer> counts = ledger.toUserCounts(ledger.countByRestaurant(), Restaurant.class);
+        assertEquals(ParallelOrderAnalyzer.getDefault().countRestaurantOrders(completed), counts);
+    }
+
+    @Test
+    void testResetClearsLedger() {
+        Order order = new Order(customers.get(0), restaurants.get(0), null, null, null);
+        system.placeOrder(order);
+        system.completeOrder(order);
+        assertEquals(1, system.getCompletedOrderLedger().size());
+
+        system.reset();
+        assertEquals(0, system.getCompletedOrderLedger().size());
+        assertEquals(0, system.getCompletedOrderLedger().getUserCount());
+        assertEquals(0.0, system.getCompletedOrderLedger().getTotalIncome());
+    }
+}
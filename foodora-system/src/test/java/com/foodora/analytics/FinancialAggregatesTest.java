@@ -0,0 +1,138 @@
+package com.foodora.analytics;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Order;
+import com.foodora.user.*;
+import com.foodora.util.Coordinate;
+import java.util.*;
+
+/**
+ * Checks the running aggregates against full scans over the completed orders.
+ */
+public class FinancialAggregatesTest {
+    private MyFoodoraSystem system;
+    private List<Customer> customers;
+    private Restaurant restaurant;
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+
+        restaurant = new Restaurant("LeBistro", new Coordinate(3.0, 3.0), "bistro1", "pass123");
+        Courier courier = new Courier("Mike", "Delivery", new Coordinate(2.0, 2.0),
+            "555-0002", "mike.d", "pass123");
+        courier.setOnDuty(true);
+        system.addUser(restaurant);
+        system.addUser(courier);
+
+        customers = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Customer customer = new Customer("Customer" + i, "Test", new Coordinate(i, i),
+                "c" + i + "@foodora.com", "555-0000", "customer" + i, "pass123");
+            system.addUser(customer);
+            customers.add(customer);
+        }
+    }
+
+    @Test
+    void testEmptySystem() {
+        assertEquals(0.0, system.computeTotalIncome());
+        assertEquals(0.0, system.computeTotalProfit());
+        assertEquals(0.0, system.computeAvgIncomePerCustomer());
+    }
+
+    @Test
+    void testAggregatesMatchFullScan() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            Customer customer = customers.get(random.nextInt(customers.size()));
+            Order order = new Order(customer, restaurant, null, null, null);
+            order.setFinalPrice(Math.round(random.nextDouble() * 10_000) / 100.0);
+            system.placeOrder(order);
+            system.completeOrder(order);
+        }
+        List<Order> completed = system.getCompletedOrders();
+
+        // Income uses the same compensated summation, in the same order, as the scan
+        assertEquals(scanTotalIncome(completed), system.computeTotalIncome());
+        assertEquals(completed.size(), system.getCompletedOrderCount());
+        assertEquals(scanTotalProfit(completed), system.computeTotalProfit(), 1e-6);
+        assertEquals(scanAvgIncomePerCustomer(completed), system.computeAvgIncomePerCustomer(), 1e-9);
+
+        // Fee changes apply to the whole history, as they do for the scan
+        system.setFees(2.5, 0.2, 4.0);
+        assertEquals(scanTotalProfit(completed), system.computeTotalProfit(), 1e-6);
+    }
+
+    @Test
+    void testConcurrentCompletionsAllCounted() throws Exception {
+        int threads = 4;
+        int perThread = 2_500;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(t);
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    Order order = new Order(customers.get(random.nextInt(customers.size())), restaurant,
+                        null, null, null);
+                    // Whole prices sum exactly in any order, whichever stripes they land on
+                    order.setFinalPrice(1 + random.nextInt(100));
+                    system.placeOrder(order);
+                    system.completeOrder(order);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        List<Order> completed = system.getCompletedOrders();
+        assertEquals(threads * perThread, completed.size());
+        assertEquals(completed.size(), system.getCompletedOrderCount());
+        assertEquals(scanTotalIncome(completed), system.computeTotalIncome());
+        FinancialAggregates financials = system.getFinancialAggregates();
+        for (Customer customer : customers) {
+            double scanned = completed.stream().filter(o -> o.getCustomer() == customer)
+                .mapToDouble(Order::getFinalPrice).sum();
+            assertEquals(scanned, financials.getRevenue(customer));
+        }
+    }
+
+    @Test
+    void testPerCustomerRevenue() {
+        Customer customer = customers.get(0);
+        for (double price : new double[]{10.0, 20.5, 7.25}) {
+            Order order = new Order(customer, restaurant, null, null, null);
+            order.setFinalPrice(price);
+            system.placeOrder(order);
+            system.completeOrder(order);
+        }
+
+        FinancialAggregates financials = system.getFinancialAggregates();
+        assertEquals(37.75, financials.getRevenue(customer));
+        assertEquals(0.0, financials.getRevenue(customers.get(1)));
+        assertEquals(1, financials.getCustomerCount());
+        assertEquals(37.75, system.computeAvgIncomePerCustomer());
+    }
+
+    // Full-scan reference implementations
+    private double scanTotalIncome(List<Order> orders) {
+        return orders.stream().mapToDouble(Order::getFinalPrice).sum();
+    }
+
+    private double scanTotalProfit(List<Order> orders) {
+        return orders.stream().mapToDouble(system::computeProfitForOrder).sum();
+    }
+
+    private double scanAvgIncomePerCustomer(List<Order> orders) {
+        Map<Customer, Double> customerIncome = new HashMap<>();
+        for (Order order : orders) {
+            customerIncome.merge(order.getCustomer(), order.getFinalPrice(), Double::sum);
+        }
+        return customerIncome.values().stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+    }
+}
@@ -0,0 +1,138 @@
+package com.foodora.analytics;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Meal;
+import com.foodora.model.MenuItem;
+import com.foodora.model.Order;
+import com.foodora.policy.order.*;
+import com.foodora.user.*;
+import com.foodora.util.Coordinate;
+import java.util.*;
+
+/**
+ * Checks the running popularity counts and the policies reading from them
+ * against recounts over the completed orders.
+ */
+public class OrderPopularityIndexTest {
+    private MyFoodoraSystem system;
+    private Customer customer;
+    private Restaurant restaurant;
+    private List<MenuItem> items;
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+
+        customer = new Customer("John", "Doe", new Coordinate(1.0, 1.0),
+            "john@foodora.com", "555-0001", "john.doe", "pass123");
+        restaurant = new Restaurant("LeBistro", new Coordinate(3.0, 3.0), "bistro1", "pass123");
+        Courier courier = new Courier("Mike", "Delivery", new Coordinate(2.0, 2.0),
+            "555-0002", "mike.d", "pass123");
+        courier.setOnDuty(true);
+        system.addUser(customer);
+        system.addUser(restaurant);
+        system.addUser(courier);
+
+        items = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            MenuItem item = new MenuItem("Item" + i, 5.0 + i, MenuItem.Category.values()[i % 3],
+                MenuItem.Type.STANDARD, false);
+            restaurant.addMenuItem(item);
+            items.add(item);
+        }
+        // Items cycle through starter, main dish and dessert; even meals are half-meals
+        for (int i = 0; i < 8; i++) {
+            int first = 3 * (i % 4);
+            if (i % 2 == 0) {
+                restaurant.createMeal("Meal" + i, List.of(items.get(first), items.get(first + 1)),
+                    Meal.MealType.STANDARD, Meal.MealSize.HALF_MEAL, false);
+            } else {
+                restaurant.createMeal("Meal" + i, items.subList(first, first + 3),
+                    Meal.MealType.STANDARD, Meal.MealSize.FULL_MEAL, false);
+            }
+        }
+    }
+
+    @Test
+    void testPoliciesMatchRecount() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            List<MenuItem> orderItems = new ArrayList<>();
+            List<Meal> orderMeals = new ArrayList<>();
+            // Skewed picks so the counts are spread out
+            for (int j = random.nextInt(4); j > 0; j--) {
+                orderItems.add(items.get((int) Math.sqrt(random.nextInt(items.size() * items.size()))));
+            }
+            for (int j = random.nextInt(3); j > 0; j--) {
+                orderMeals.add(restaurant.getMeals().get(random.nextInt(restaurant.getMeals().size())));
+            }
+            Order order = new Order(customer, restaurant, null, orderItems, orderMeals);
+            system.placeOrder(order);
+            system.completeOrder(order);
+        }
+
+        Map<String, Long> itemCounts = new HashMap<>();
+        Map<String, Long> halfMealCounts = new HashMap<>();
+        for (Order order : system.getCompletedOrders()) {
+            order.getItems().forEach(item -> itemCounts.merge(item.getName(), 1L, Long::sum));
+            order.getMeals().stream().filter(Meal::isHalfMeal)
+                .forEach(meal -> halfMealCounts.merge(meal.getName(), 1L, Long::sum));
+        }
+
+        OrderPopularityIndex index = system.getOrderPopularity();
+        itemCounts.forEach((name, count) -> assertEquals(count, index.getItems().getCount(name)));
+        halfMealCounts.forEach((name, count) -> assertEquals(count, index.getHalfMeals().getCount(name)));
+        assertEquals(4, index.getHalfMeals().size());
+
+        assertRanking(halfMealCounts, new MostOrderedHalfMealPolicy(), true);
+        assertRanking(halfMealCounts, new LeastOrderedHalfMealPolicy(), false);
+        assertRanking(itemCounts, new MostOrderedItemAlaCartePolicy(), true);
+        assertRanking(itemCounts, new LeastOrderedItemAlaCartePolicy(), false);
+    }
+
+    @Test
+    void testTopK() {
+        int[] quantities = {5, 1, 3, 3};
+        for (int i = 0; i < quantities.length; i++) {
+            for (int j = 0; j < quantities[i]; j++) {
+                Order order = new Order(customer, restaurant, null, List.of(items.get(i)), List.of());
+                system.placeOrder(order);
+                system.completeOrder(order);
+            }
+        }
+
+        system.setOrderSortingPolicy(new MostOrderedItemAlaCartePolicy());
+        assertEquals(List.of("Item0", "Item3"), new ArrayList<>(system.analyzeOrders(2).keySet()));
+        system.setOrderSortingPolicy(new LeastOrderedItemAlaCartePolicy());
+        assertEquals(Map.of("Item1", 1), system.analyzeOrders(1));
+        assertEquals(4, system.analyzeOrders().size());
+        assertTrue(system.analyzeOrders(0).isEmpty());
+    }
+
+    @Test
+    void testListAnalysisIsIndependentOfSystem() {
+        Order order = new Order(customer, restaurant, null, List.of(items.get(0), items.get(0)),
+            List.of(restaurant.getMeals().get(0)));
+        Map<String, Integer> result = new MostOrderedItemAlaCartePolicy().analyzeOrders(List.of(order));
+        assertEquals(Map.of("Item0", 2), result);
+        assertTrue(system.analyzeOrders().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new MostOrderedHalfMealPolicy().analyzeOrders(null));
+    }
+
+    // Checks counts and ordering of the full ranking returned by a policy
+    private void assertRanking(Map<String, Long> expected, OrderSortingPolicy policy, boolean descending) {
+        system.setOrderSortingPolicy(policy);
+        Map<String, Integer> ranking = system.analyzeOrders();
+        assertEquals(expected.size(), ranking.size());
+        long previous = descending ? Long.MAX_VALUE : Long.MIN_VALUE;
+        for (Map.Entry<String, Integer> entry : ranking.entrySet()) {
+            assertEquals(expected.get(entry.getKey()).longValue(), entry.getValue().longValue());
+            assertTrue(descending ? entry.getValue() <= previous : entry.getValue() >= previous);
+            previous = entry.getValue();
+        }
+        assertEquals(ranking, policy.analyzeOrders(system.getCompletedOrders()));
+    }
+}
@@ -0,0 +1,147 @@
+package com.foodora.analytics;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Meal;
+import com.foodora.model.MenuItem;
+import com.foodora.model.Order;
+import com.foodora.policy.order.*;
+import com.foodora.user.*;
+import com.foodora.util.Coordinate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks that chunked parallel analysis returns the same results as a
+ * sequential pass over the same orders.
+ */
+public class ParallelOrderAnalyzerTest {
+    private static ForkJoinPool pool;
+
+    private MyFoodoraSystem system;
+    private List<Restaurant> restaurants;
+    private List<Courier> couriers;
+    private List<Order> orders;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+        Random random = new Random(42);
+
+        Customer customer = new Customer("John", "Doe", new Coordinate(1.0, 1.0),
+            "john@foodora.com", "555-0001", "john.doe", "pass123");
+        system.addUser(customer);
+        restaurants = new ArrayList<>();
+        couriers = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Restaurant restaurant = new Restaurant("R" + i, new Coordinate(i, i), "rest" + i, "pass123");
+            Courier courier = new Courier("Courier" + i, "Test", new Coordinate(i, 0),
+                "555-0000", "courier" + i, "pass123");
+            system.addUser(restaurant);
+            system.addUser(courier);
+            restaurants.add(restaurant);
+            couriers.add(courier);
+        }
+
+        List<MenuItem> starters = new ArrayList<>();
+        List<MenuItem> mains = new ArrayList<>();
+        List<Meal> meals = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            starters.add(new MenuItem("Starter" + i, 4.0, MenuItem.Category.STARTER, MenuItem.Type.STANDARD, false));
+            mains.add(new MenuItem("Main" + i, 12.0, MenuItem.Category.MAIN_DISH, MenuItem.Type.STANDARD, false));
+            meals.add(new Meal("HalfMeal" + i, List.of(starters.get(i), mains.get(i)),
+                Meal.MealType.STANDARD, Meal.MealSize.HALF_MEAL, false, 0.05));
+        }
+
+        orders = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            // Skewed towards higher indexes; restaurants 15 to 19 get no orders
+            Restaurant restaurant = restaurants.get((int) Math.sqrt(random.nextInt(15 * 15)));
+            Courier courier = random.nextInt(10) == 0 ? null : couriers.get((int) Math.sqrt(random.nextInt(400)));
+            List<MenuItem> items = List.of(starters.get(random.nextInt(10)), mains.get(random.nextInt(10)));
+            Order order = new Order(customer, restaurant, courier, items, List.of(meals.get(random.nextInt(10))));
+            orders.add(order);
+        }
+    }
+
+    @Test
+    void testPolicyResultsMatchSequential() {
+        ParallelOrderAnalyzer analyzer = new ParallelOrderAnalyzer(pool, 100);
+        for (OrderSortingPolicy policy : List.of(new MostOrderedHalfMealPolicy(), new LeastOrderedHalfMealPolicy(),
+                new MostOrderedItemAlaCartePolicy(), new LeastOrderedItemAlaCartePolicy())) {
+            Map<String, Integer> expected = policy.analyzeOrders(orders);
+            Map<String, Integer> actual = analyzer.analyzeOrders(policy, orders);
+            assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(actual.entrySet()));
+        }
+    }
+
+    @Test
+    void testCountsMatchSequential() {
+        Map<Restaurant, Integer> restaurantCounts = new HashMap<>();
+        Map<Courier, Integer> courierCounts = new HashMap<>();
+        for (Order order : orders) {
+            restaurantCounts.merge(order.getRestaurant(), 1, Integer::sum);
+            if (order.getCourier() != null) {
+                courierCounts.merge(order.getCourier(), 1, Integer::sum);
+            }
+        }
+
+        ParallelOrderAnalyzer analyzer = new ParallelOrderAnalyzer(pool, 100);
+        assertEquals(restaurantCounts, analyzer.countRestaurantOrders(orders));
+        assertEquals(courierCounts, analyzer.countCourierDeliveries(orders));
+        // Lists without random access are copied before splitting
+        assertEquals(restaurantCounts, analyzer.countRestaurantOrders(new LinkedList<>(orders)));
+    }
+
+    @Test
+    void testManagerAnalyticsMatchSequential() {
+        Manager parallel = new Manager("Alice", "Smith", "alice.s", "pass123");
+        parallel.setOrderAnalyzer(new ParallelOrderAnalyzer(pool, 100));
+        Manager sequential = new Manager("Bob", "Jones", "bob.j", "pass123");
+        sequential.setOrderAnalyzer(new ParallelOrderAnalyzer(pool, Integer.MAX_VALUE));
+
+        assertSame(sequential.getMostSellingRestaurant(orders), parallel.getMostSellingRestaurant(orders));
+        assertSame(sequential.getLeastSellingRestaurant(orders), parallel.getLeastSellingRestaurant(orders));
+        assertSame(sequential.getMostActiveCourier(orders), parallel.getMostActiveCourier(orders));
+        assertSame(sequential.getLeastActiveCourier(orders), parallel.getLeastActiveCourier(orders));
+
+        assertSame(restaurants.get(14), parallel.getMostSellingRestaurant(orders));
+        // Several restaurants have no orders; the first registered one is reported
+        assertSame(restaurants.get(15), parallel.getLeastSellingRestaurant(orders));
+    }
+
+    @Test
+    void testTiesGoToFirstRegistered() {
+        // As strings the later id sorts first
+        Restaurant first = new Restaurant("R-99999", "First", new Coordinate(1.0, 1.0), "first", "pass123");
+        Restaurant second = new Restaurant("R-100000", "Second", new Coordinate(2.0, 2.0), "second", "pass123");
+        system.addUser(first);
+        system.addUser(second);
+        Customer customer = system.getUserRegistry().findByUsername("john.doe", Customer.class).orElseThrow();
+        List<Order> tied = List.of(new Order(customer, second, null, null, null),
+            new Order(customer, first, null, null, null));
+
+        Manager manager = new Manager("Alice", "Smith", "alice.s", "pass123");
+        assertSame(first, manager.getMostSellingRestaurant(tied));
+    }
+
+    @Test
+    void testEmptyHistory() {
+        ParallelOrderAnalyzer analyzer = new ParallelOrderAnalyzer(pool, 100);
+        assertTrue(analyzer.countRestaurantOrders(List.of()).isEmpty());
+        assertTrue(analyzer.analyzeOrders(new MostOrderedHalfMealPolicy(), List.of()).isEmpty());
+        assertNull(new Manager("Alice", "Smith", "alice.s", "pass123").getMostActiveCourier(List.of()));
+    }
+}
@@ -0,0 +1,185 @@
+package com.foodora.analytics;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Order;
+import com.foodora.user.*;
+import com.foodora.util.Coordinate;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Checks the time-bucketed counters against brute-force counts over the
+ * recorded events, and the system-level windows against a fake clock.
+ */
+public class TimeWindowAnalyticsTest {
+    private static final Instant START = Instant.parse("2026-01-05T12:00:00Z");
+
+    private MyFoodoraSystem system;
+    private MutableClock clock;
+
+    private static final class MutableClock extends Clock {
+        private long millis = START.toEpochMilli();
+
+        void advance(Duration duration) {
+            millis += duration.toMillis();
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+        clock = new MutableClock();
+        system.getTimeWindows().setClock(clock);
+    }
+
+    @Test
+    void testCounterMatchesBruteForce() {
+        TimeWindowCounter<String> counter = new TimeWindowCounter<>(Duration.ofSeconds(10), 60);
+        List<long[]> events = new ArrayList<>();  // {time, key}
+        Random random = new Random(42);
+        long now = START.toEpochMilli();
+
+        for (int step = 0; step < 5_000; step++) {
+            now += random.nextInt(2_000);
+            // Mostly current events, some late ones
+            long at = now - (random.nextInt(10) == 0 ? random.nextInt(700_000) : 0);
+            int key = random.nextInt(5);
+            counter.record("k" + key, Instant.ofEpochMilli(at), Instant.ofEpochMilli(now));
+            events.add(new long[]{at, key});
+
+            if (step % 50 == 0) {
+                Duration window = Duration.ofSeconds(1 + random.nextInt(600));
+                // Windows are rounded up to whole buckets ending with the current one
+                long bucket = 10_000;
+                long from = (Math.floorDiv(now, bucket) - (window.toMillis() + bucket - 1) / bucket + 1) * bucket;
+                long oldest = (Math.floorDiv(now, bucket) - 59) * bucket;
+                long expectedTotal = 0;
+                long expectedKey0 = 0;
+                for (long[] event : events) {
+                    if (event[0] >= Math.max(from, oldest)) {
+                        expectedTotal++;
+                        if (event[1] == 0) {
+                            expectedKey0++;
+                        }
+                    }
+                }
+                assertEquals(expectedTotal, counter.total(window, Instant.ofEpochMilli(now)));
+                assertEquals(expectedKey0, counter.count("k0", window, Instant.ofEpochMilli(now)));
+                assertEquals(expectedKey0, counter.counts(window, Instant.ofEpochMilli(now)).getOrDefault("k0", 0L));
+            }
+        }
+    }
+
+    @Test
+    void testWindowLimits() {
+        TimeWindowCounter<String> counter = new TimeWindowCounter<>(Duration.ofMinutes(1), 60);
+        assertEquals(Duration.ofHours(1), counter.getSpan());
+        assertThrows(IllegalArgumentException.class, () -> counter.total(Duration.ofHours(2), START));
+        assertThrows(IllegalArgumentException.class, () -> counter.total(Duration.ZERO, START));
+
+        counter.record("a", START, START);
+        assertEquals(1, counter.total(Duration.ofHours(1), START.plus(Duration.ofMinutes(59))));
+        // Once the ring has moved past the bucket, its events are gone
+        assertEquals(0, counter.total(Duration.ofHours(1), START.plus(Duration.ofMinutes(61))));
+        counter.record("a", START.plus(Duration.ofMinutes(61)), START.plus(Duration.ofMinutes(61)));
+        assertEquals(0, counter.count("a", Duration.ofMinutes(1), START.plus(Duration.ofMinutes(120))));
+    }
+
+    @Test
+    void testRestaurantAndCourierWindows() {
+        Customer customer = new Customer("John", "Doe", new Coordinate(1.0, 1.0),
+            "john@foodora.com", "555-0001", "john.doe", "pass123");
+        Restaurant bistro = new Restaurant("LeBistro", new Coordinate(3.0, 3.0), "bistro1", "pass123");
+        Restaurant diner = new Restaurant("Diner", new Coordinate(5.0, 5.0), "diner1", "pass123");
+        Courier mike = new Courier("Mike", "Delivery", new Coordinate(2.0, 2.0), "555-0002", "mike.d", "pass123");
+        Courier anna = new Courier("Anna", "Delivery", new Coordinate(40.0, 40.0), "555-0003", "anna.d", "pass123");
+        for (User user : List.of(customer, bistro, diner, mike, anna)) {
+            system.addUser(user);
+        }
+        mike.setOnDuty(true);
+        anna.setOnDuty(true);
+        Manager manager = new Manager("Alice", "Smith", "alice.s", "pass123");
+
+        // Two bistro orders, delivered by Anna, then 40 minutes pass
+        mike.setOnDuty(false);
+        for (int i = 0; i < 2; i++) {
+            system.completeOrder(place(customer, bistro, Duration.ZERO));
+        }
+        mike.setOnDuty(true);
+        clock.advance(Duration.ofMinutes(40));
+
+        // Three orders now, one at the bistro and two at the diner, delivered by Mike;
+        // the bistro order was created five minutes ago
+        system.completeOrder(place(customer, bistro, Duration.ofMinutes(-5)));
+        system.completeOrder(place(customer, diner, Duration.ZERO));
+        system.completeOrder(place(customer, diner, Duration.ZERO));
+
+        TimeWindowAnalytics windows = system.getTimeWindows();
+        assertEquals(1, manager.getRecentOrderCount(bistro, Duration.ofMinutes(15)));
+        assertEquals(3, manager.getRecentOrderCount(bistro, Duration.ofHours(1)));
+        assertEquals(Map.of(bistro, 1L, diner, 2L), windows.getOrderCounts(Duration.ofMinutes(15)));
+        assertEquals(5, windows.getTotalOrders(Duration.ofDays(1)));
+
+        // Deliveries are timed by completion: Anna's two were 40 minutes ago
+        assertEquals(2, windows.getDeliveryCount(anna, Duration.ofHours(1)));
+        assertSame(mike, manager.getMostActiveCourier(Duration.ofMinutes(15)));
+
+        clock.advance(Duration.ofDays(2));
+        assertNull(manager.getMostActiveCourier(Duration.ofHours(8)));
+        assertEquals(0, windows.getTotalOrders(Duration.ofDays(1)));
+    }
+
+    @Test
+    void testMostActiveTieGoesToFirstRegistered() {
+        Customer customer = new Customer("John", "Doe", new Coordinate(1.0, 1.0),
+            "john@foodora.com", "555-0001", "john.doe", "pass123");
+        Restaurant bistro = new Restaurant("LeBistro", new Coordinate(3.0, 3.0), "bistro1", "pass123");
+        // As strings the later id sorts first
+        Courier first = new Courier("C-99999", "Mike", "Delivery", new Coordinate(2.0, 2.0),
+            "555-0002", "mike.d", "pass123");
+        Courier second = new Courier("C-100000", "Anna", "Delivery", new Coordinate(4.0, 4.0),
+            "555-0003", "anna.d", "pass123");
+        for (User user : List.of(customer, bistro, first, second)) {
+            system.addUser(user);
+        }
+        for (Courier courier : List.of(second, first)) {
+            courier.setOnDuty(true);
+            system.completeOrder(place(customer, bistro, Duration.ZERO));
+            courier.setOnDuty(false);
+        }
+
+        assertEquals(1, system.getTimeWindows().getDeliveryCount(second, Duration.ofHours(1)));
+        assertSame(first, system.getTimeWindows().getMostActiveCourier(Duration.ofHours(1)));
+    }
+
+    // Places an order created at the given offset from the clock
+    private Order place(Customer customer, Restaurant restaurant, Duration offset) {
+        LocalDateTime createdAt = LocalDateTime.ofInstant(clock.instant().plus(offset), ZoneOffset.UTC);
+        Order order = new Order("O-test-" + UUID.randomUUID(), createdAt, customer, restaurant, null, null, null);
+        system.placeOrder(order);
+        return order;
+    }
+}
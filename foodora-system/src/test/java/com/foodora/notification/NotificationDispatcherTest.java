@@ -0,0 +1,192 @@
+package com.foodora.notification;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.analytics.NotificationMetrics;
+import com.foodora.model.MenuItem;
+import com.foodora.user.*;
+import com.foodora.util.Coordinate;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks that special offers are delivered asynchronously, batched per
+ * customer, and that a full queue falls back to the caller's thread.
+ */
+public class NotificationDispatcherTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private MyFoodoraSystem system;
+    private Restaurant restaurant;
+
+    // Records every batch it is notified with
+    private static class RecordingCustomer extends Customer {
+        final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+        volatile CountDownLatch blocker;
+
+        RecordingCustomer(String username) {
+            super("Test", "Customer", new Coordinate(0, 0), username + "@foodora.com", "555-0000",
+                username, "pass123");
+        }
+
+        @Override
+        public void notifySpecialOffers(List<SpecialOffer> offers) {
+            CountDownLatch current = blocker;
+            if (current != null) {
+                try {
+                    current.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            List<String> messages = new ArrayList<>();
+            offers.forEach(offer -> messages.add(offer.message()));
+            batches.add(messages);
+        }
+
+        List<String> received() {
+            List<String> all = new ArrayList<>();
+            synchronized (batches) {
+                batches.forEach(all::addAll);
+            }
+            return all;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+        restaurant = new Restaurant("LeBistro", new Coordinate(3.0, 3.0), "bistro1", "pass123");
+        system.addUser(restaurant);
+    }
+
+    @Test
+    void testMenuChangesNotifySubscribedCustomers() throws InterruptedException {
+        RecordingCustomer subscribed = new RecordingCustomer("alice");
+        RecordingCustomer unsubscribed = new RecordingCustomer("bob");
+        subscribed.enableNotification();
+        system.addUser(subscribed);
+        system.addUser(unsubscribed);
+
+        restaurant.addMenuItem(new MenuItem("Salad", 6.0, MenuItem.Category.STARTER, MenuItem.Type.VEGETARIAN, true));
+        restaurant.notifyCustomers("Half price today");
+        assertTrue(system.getNotifications().awaitIdle(TIMEOUT));
+
+        assertEquals(List.of("New item added to menu: Salad", "Half price today"), subscribed.received());
+        assertTrue(unsubscribed.batches.isEmpty());
+        NotificationMetrics metrics = system.getNotificationMetrics();
+        assertEquals(2, metrics.getSubmittedCount());
+        assertEquals(2, metrics.getDeliveredCount());
+        assertEquals(0, metrics.getQueueDepth());
+    }
+
+    @Test
+    void testOffersQueuedDuringDeliveryAreBatched() throws InterruptedException {
+        RecordingCustomer customer = new RecordingCustomer("alice");
+        customer.enableNotification();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(r -> List.of(customer), 100, 1, 64);
+        try {
+            // The first offer holds the worker while the others queue up
+            customer.blocker = new CountDownLatch(1);
+            dispatcher.submit(restaurant, "offer 0");
+            waitUntil(() -> dispatcher.getMetrics().getQueueDepth() == 0);
+            for (int i = 1; i <= 10; i++) {
+                dispatcher.submit(restaurant, "offer " + i);
+            }
+            assertEquals(10, dispatcher.getMetrics().getQueueDepth());
+            customer.blocker.countDown();
+            assertTrue(dispatcher.awaitIdle(TIMEOUT));
+
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i <= 10; i++) {
+                expected.add("offer " + i);
+            }
+            assertEquals(expected, customer.received());
+            assertEquals(2, customer.batches.size());
+            assertEquals(2, dispatcher.getMetrics().getBatchCount());
+            assertEquals(2, dispatcher.getMetrics().getNotificationCount());
+            assertTrue(dispatcher.getMetrics().getMaxLatencyMicros() > 0);
+        } finally {
+            customer.blocker.countDown();
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    void testFullQueueDeliversOnCallerThread() throws InterruptedException {
+        RecordingCustomer customer = new RecordingCustomer("alice");
+        customer.enableNotification();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(r -> List.of(customer), 2, 1, 64);
+        CountDownLatch held = new CountDownLatch(1);
+        try {
+            customer.blocker = held;
+            dispatcher.submit(restaurant, "held");
+            waitUntil(() -> dispatcher.getMetrics().getQueueDepth() == 0);
+            dispatcher.submit(restaurant, "queued 1");
+            dispatcher.submit(restaurant, "queued 2");
+
+            // The caller delivers the overflow itself once the customer is released
+            customer.blocker = null;
+            dispatcher.submit(restaurant, "overflow");
+            assertEquals(1, dispatcher.getMetrics().getCallerRunCount());
+            assertEquals(List.of("overflow"), customer.received());
+        } finally {
+            held.countDown();
+            dispatcher.close();
+        }
+        assertEquals(Set.of("held", "queued 1", "queued 2", "overflow"), new HashSet<>(customer.received()));
+    }
+
+    @Test
+    void testWorkerSurvivesFailingBatch() throws InterruptedException {
+        RecordingCustomer customer = new RecordingCustomer("alice");
+        customer.enableNotification();
+        Restaurant broken = new Restaurant("Broken", new Coordinate(4.0, 4.0), "broken1", "pass123");
+        NotificationDispatcher dispatcher = new NotificationDispatcher(r -> {
+            if (r == broken) {
+                throw new IllegalStateException("Recipient lookup failed");
+            }
+            return List.of(customer);
+        });
+        try {
+            dispatcher.submit(broken, "lost");
+            assertTrue(dispatcher.awaitIdle(TIMEOUT));
+
+            // The single worker is still running and delivers later offers
+            dispatcher.submit(restaurant, "delivered");
+            assertTrue(dispatcher.awaitIdle(TIMEOUT));
+            assertEquals(List.of("delivered"), customer.received());
+            assertEquals(0, dispatcher.getMetrics().getCallerRunCount());
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    void testCloseDeliversQueuedOffers() {
+        RecordingCustomer customer = new RecordingCustomer("alice");
+        customer.enableNotification();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(r -> List.of(customer));
+        for (int i = 0; i < 100; i++) {
+            dispatcher.submit(restaurant, "offer " + i);
+        }
+        dispatcher.close();
+        assertEquals(100, customer.received().size());
+
+        // After closing, offers are delivered on the caller's thread
+        dispatcher.submit(restaurant, "late");
+        assertEquals("late", customer.received().get(100));
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(1);
+        }
+    }
+}
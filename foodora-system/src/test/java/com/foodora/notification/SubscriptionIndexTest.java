@@ -0,0 +1,163 @@
+package com.foodora.notification;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Order;
+import com.foodora.user.*;
+import com.foodora.util.CompressedBitmap;
+import com.foodora.util.Coordinate;
+import java.util.*;
+
+/**
+ * Checks who receives a restaurant's offers as customers follow, unfollow
+ * and order, and the compressed bitmaps behind the index against a TreeSet.
+ */
+public class SubscriptionIndexTest {
+    private MyFoodoraSystem system;
+    private SubscriptionIndex subscriptions;
+    private Restaurant bistro;
+    private Restaurant diner;
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+        subscriptions = system.getSubscriptions();
+        bistro = new Restaurant("LeBistro", new Coordinate(3.0, 3.0), "bistro1", "pass123");
+        diner = new Restaurant("Diner", new Coordinate(5.0, 5.0), "diner1", "pass123");
+        system.addUser(bistro);
+        system.addUser(diner);
+    }
+
+    @Test
+    void testFollowersAndFallback() {
+        Customer alice = customer("alice", true);
+        Customer bob = customer("bob", true);
+        Customer carol = customer("carol", false);
+
+        // Following nobody, opted-in customers receive every offer
+        assertEquals(List.of(alice, bob), subscriptions.recipients(bistro));
+
+        alice.followRestaurant(diner);
+        assertTrue(alice.isFollowing(diner));
+        assertEquals(List.of(bob), subscriptions.recipients(bistro));
+        assertEquals(List.of(alice, bob), subscriptions.recipients(diner));
+
+        // Subscriptions are kept while notifications are off
+        carol.followRestaurant(bistro);
+        assertEquals(List.of(bob), subscriptions.recipients(bistro));
+        carol.enableNotification();
+        assertEquals(List.of(carol, bob), subscriptions.recipients(bistro));
+
+        alice.unfollowRestaurant(diner);
+        assertEquals(List.of(carol, alice, bob), subscriptions.recipients(bistro));
+        assertEquals(List.of(bistro), carol.getFollowedRestaurants());
+
+        Customer unregistered = new Customer("Dave", "Test", new Coordinate(0, 0), "dave@foodora.com",
+            "555-0000", "dave", "pass123");
+        assertThrows(IllegalArgumentException.class, () -> unregistered.followRestaurant(bistro));
+    }
+
+    @Test
+    void testCompletedOrdersFollowRestaurant() {
+        Courier courier = new Courier("Mike", "Delivery", new Coordinate(2.0, 2.0), "555-0002", "mike.d", "pass123");
+        system.addUser(courier);
+        courier.setOnDuty(true);
+        Customer alice = customer("alice", true);
+        Customer bob = customer("bob", true);
+
+        for (int i = 0; i < 3; i++) {
+            Order order = new Order(alice, diner, null, null, null);
+            system.placeOrder(order);
+            system.completeOrder(order);
+        }
+        assertEquals(List.of(diner), alice.getFollowedRestaurants());
+        assertEquals(1, subscriptions.getFollowerCount(diner));
+        assertEquals(List.of(bob), subscriptions.recipients(bistro));
+
+        system.setAutoFollow(false);
+        Order order = new Order(bob, diner, null, null, null);
+        system.placeOrder(order);
+        system.completeOrder(order);
+        assertFalse(bob.isFollowing(diner));
+    }
+
+    @Test
+    void testRemovedUsersLeaveIndex() {
+        Customer alice = customer("alice", true);
+        Customer bob = customer("bob", true);
+        alice.followRestaurant(bistro);
+        bob.followRestaurant(bistro);
+        bob.followRestaurant(diner);
+
+        system.removeUser(alice);
+        assertEquals(List.of(bob), subscriptions.recipients(bistro));
+
+        // Without the bistro, bob still follows the diner only
+        system.removeUser(bistro);
+        assertEquals(0, subscriptions.getFollowerCount(bistro));
+        assertEquals(List.of(diner), bob.getFollowedRestaurants());
+        system.removeUser(diner);
+        assertEquals(List.of(bob), subscriptions.recipients(diner));
+    }
+
+    @Test
+    void testBitmapMatchesTreeSet() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+        for (int step = 0; step < 200_000; step++) {
+            // Dense values in the first chunks, sparse ones further out
+            int value = random.nextBoolean() ? random.nextInt(3 * 65536) : random.nextInt(Integer.MAX_VALUE);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), bitmap.remove(value));
+            } else {
+                assertEquals(expected.add(value), bitmap.add(value));
+            }
+        }
+        assertEquals(expected.size(), bitmap.cardinality());
+        List<Integer> values = new ArrayList<>();
+        bitmap.forEach(values::add);
+        assertEquals(new ArrayList<>(expected), values);
+        for (int i = 0; i < 10_000; i++) {
+            int value = random.nextInt(3 * 65536);
+            assertEquals(expected.contains(value), bitmap.contains(value));
+        }
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+    }
+
+    @Test
+    void testBitmapIsCompact() {
+        CompressedBitmap dense = new CompressedBitmap();
+        CompressedBitmap sparse = new CompressedBitmap();
+        for (int i = 0; i < 1_000_000; i++) {
+            dense.add(i);
+            if (i % 100 == 0) {
+                sparse.add(i);
+            }
+        }
+        // About one bit per value when dense, about two bytes per value when sparse
+        assertTrue(dense.sizeInBytes() < 1_000_000 / 8 * 11 / 10, "dense: " + dense.sizeInBytes());
+        assertTrue(sparse.sizeInBytes() < 10_000 * 3, "sparse: " + sparse.sizeInBytes());
+
+        for (int i = 0; i < 1_000_000; i++) {
+            if (i % 100 != 0) {
+                dense.remove(i);
+            }
+        }
+        assertEquals(10_000, dense.cardinality());
+        // Arrays shrink as values are removed, keeping some spare capacity
+        assertTrue(dense.sizeInBytes() < 10_000 * 4, "thinned: " + dense.sizeInBytes());
+    }
+
+    private Customer customer(String username, boolean notifications) {
+        Customer customer = new Customer(username, "Test", new Coordinate(1.0, 1.0), username + "@foodora.com",
+            "555-0001", username, "pass123");
+        system.addUser(customer);
+        if (notifications) {
+            customer.enableNotification();
+        }
+        return customer;
+    }
+}
@@ -0,0 +1,75 @@
+package com.foodora.order;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Order;
+import com.foodora.user.*;
+import com.foodora.util.Coordinate;
+
+public class OrderIndexTest {
+    private MyFoodoraSystem system;
+    private Customer customer;
+    private Restaurant restaurant;
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+
+        customer = new Customer("John", "Doe", new Coordinate(1.0, 1.0),
+            "john@foodora.com", "555-0001", "john.doe", "pass123");
+        restaurant = new Restaurant("LeBistro", new Coordinate(3.0, 3.0), "bistro1", "pass123");
+        Courier courier = new Courier("Mike", "Delivery", new Coordinate(2.0, 2.0),
+            "555-0002", "mike.d", "pass123");
+        courier.setOnDuty(true);
+
+        system.addUser(customer);
+        system.addUser(restaurant);
+        system.addUser(courier);
+    }
+
+    @Test
+    void testLookupByNameAndId() {
+        Order order = new Order(customer, restaurant, null, null, null);
+        system.placeOrder(order, "Order1");
+
+        assertSame(order, system.findOrder("Order1").orElseThrow());
+        assertSame(order, system.findOrder(order.getOrderId()).orElseThrow());
+        assertTrue(system.isOrderActive(order));
+        assertTrue(system.findOrder("Unknown").isEmpty());
+    }
+
+    @Test
+    void testCompleteMovesOrderToCompletedSet() {
+        Order order = new Order(customer, restaurant, null, null, null);
+        system.placeOrder(order, "Order1");
+        system.completeOrder(order);
+
+        assertFalse(system.isOrderActive(order));
+        assertSame(order, system.findOrder("Order1").orElseThrow());
+        assertEquals(1, system.getCompletedOrders().size());
+
+        // Completing twice has no further effect
+        system.completeOrder(order);
+        assertEquals(1, system.getCompletedOrders().size());
+        assertEquals(1, order.getCourier().getDeliveredOrders());
+    }
+
+    @Test
+    void testOrderNameReuse() {
+        Order first = new Order(customer, restaurant, null, null, null);
+        system.placeOrder(first, "Order1");
+
+        Order clash = new Order(customer, restaurant, null, null, null);
+        assertThrows(IllegalArgumentException.class, () -> system.placeOrder(clash, "Order1"));
+        assertTrue(system.findOrder(clash.getOrderId()).isEmpty());
+
+        // Once the first order is completed its name can be reused
+        system.completeOrder(first);
+        Order second = new Order(customer, restaurant, null, null, null);
+        system.placeOrder(second, "Order1");
+        assertSame(second, system.findOrder("Order1").orElseThrow());
+        assertSame(first, system.findOrder(first.getOrderId()).orElseThrow());
+    }
+}
@@ -0,0 +1,93 @@
+package com.foodora.order;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.model.Meal;
+import com.foodora.model.MenuItem;
+import com.foodora.model.Order;
+import com.foodora.user.Customer;
+import com.foodora.user.Restaurant;
+import com.foodora.util.Coordinate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that incrementally maintained order totals and cached meal prices
+ * match pricing computed from scratch.
+ */
+public class OrderPricingTest {
+    private Customer customer;
+    private Restaurant restaurant;
+    private MenuItem salad;
+    private MenuItem steak;
+    private MenuItem cake;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer("John", "Doe", new Coordinate(1.0, 1.0), "john@foodora.com",
+            "555-0001", "john.d", "pass123");
+        restaurant = new Restaurant("LeBistro", new Coordinate(3.0, 3.0), "bistro1", "pass123");
+        salad = new MenuItem("Salad", 6.1, MenuItem.Category.STARTER, MenuItem.Type.VEGETARIAN, true);
+        steak = new MenuItem("Steak", 18.3, MenuItem.Category.MAIN_DISH, MenuItem.Type.STANDARD, true);
+        cake = new MenuItem("Cake", 5.7, MenuItem.Category.DESSERT, MenuItem.Type.VEGETARIAN, false);
+    }
+
+    @Test
+    void testTotalsMatchStreamSum() {
+        Random random = new Random(7);
+        List<MenuItem> items = new ArrayList<>();
+        List<Meal> meals = new ArrayList<>();
+        Order order = new Order(customer, restaurant, null, null, null);
+        for (int i = 0; i < 1_000; i++) {
+            MenuItem item = new MenuItem("Dish" + i, random.nextDouble() * 30, MenuItem.Category.MAIN_DISH,
+                MenuItem.Type.STANDARD, false);
+            items.add(item);
+            order.addItem(item);
+            if (i % 10 == 0) {
+                Meal meal = new Meal("Meal" + i, List.of(salad, item), Meal.MealType.STANDARD,
+                    Meal.MealSize.HALF_MEAL, false, random.nextDouble() / 2);
+                meals.add(meal);
+                order.addMeal(meal);
+            }
+            double expected = items.stream().mapToDouble(MenuItem::getPrice).sum()
+                + meals.stream().mapToDouble(Meal::getPrice).sum();
+            assertEquals(expected, order.calculateTotalPrice());
+        }
+
+        // Orders built from lists add every line the same way
+        Order rebuilt = new Order(customer, restaurant, null, items, meals);
+        assertEquals(order.calculateTotalPrice(), rebuilt.calculateTotalPrice());
+        assertEquals(items, rebuilt.getItems());
+        assertEquals(meals, rebuilt.getMeals());
+    }
+
+    @Test
+    void testLinesOnlyChangeThroughOrder() {
+        List<MenuItem> items = new ArrayList<>(List.of(salad));
+        Order order = new Order(customer, restaurant, null, items, null);
+        // The order keeps its own copy of the lines
+        items.add(steak);
+        assertEquals(List.of(salad), order.getItems());
+        assertThrows(UnsupportedOperationException.class, () -> order.getItems().add(cake));
+        assertThrows(UnsupportedOperationException.class, () -> order.getMeals().clear());
+        assertEquals(salad.getPrice(), order.calculateTotalPrice());
+    }
+
+    @Test
+    void testMealPriceIsFixedAtCreation() {
+        restaurant.getMenu().addItem(salad);
+        restaurant.getMenu().addItem(steak);
+        restaurant.getMenu().addItem(cake);
+        restaurant.createMeal("Full", new ArrayList<>(List.of(salad, steak, cake)), Meal.MealType.STANDARD,
+            Meal.MealSize.FULL_MEAL, false);
+        Meal meal = restaurant.getMeals().get(0);
+        double price = (salad.getPrice() + steak.getPrice() + cake.getPrice()) * (1 - 0.05);
+        assertEquals(price, meal.getPrice());
+
+        // New defaults apply to meals created afterwards only
+        restaurant.setDefaultGenericDiscountFactor(0.2);
+        assertEquals(price, meal.getPrice());
+        assertEquals(0.05, meal.getDiscountFactor());
+    }
+}
@@ -0,0 +1,218 @@
+package com.foodora.persistence;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.MenuItem;
+import com.foodora.model.Order;
+import com.foodora.user.*;
+import com.foodora.util.Coordinate;
+import com.foodora.util.IDGenerator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Checks that archiving moves old completed orders out of memory while the
+ * aggregates stay the same and archived orders can still be found by id.
+ */
+public class OrderArchiveTest {
+    private static final Duration RETENTION = Duration.ofDays(1);
+    private static final Duration CHECK_INTERVAL = Duration.ofHours(1);
+
+    @TempDir
+    Path dataDir;
+
+    private MyFoodoraSystem system;
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        system.reset();
+    }
+
+    @Test
+    void testOldOrdersMoveToArchive() throws IOException {
+        populate();
+        List<Order> completed = system.getCompletedOrders();
+        double income = system.computeTotalIncome();
+        Manager manager = new Manager("Alice", "Smith", "alice.s", "pass123");
+        Restaurant mostSelling = manager.getMostSellingRestaurant(completed);
+        Map<String, Integer> popularity = system.analyzeOrders(5);
+
+        OrderArchive archive = system.enableArchive(dataDir.resolve("archive"), RETENTION, CHECK_INTERVAL);
+        assertEquals(600, archive.getOrderCount());
+        assertEquals(1, archive.getSegmentCount());
+        assertEquals(20, system.getCompletedOrders().size());
+        assertEquals(completed.size(), system.getCompletedOrderCount());
+        assertEquals(income, system.computeTotalIncome());
+        assertSame(mostSelling, manager.getMostSellingRestaurant());
+        assertEquals(popularity, system.analyzeOrders(5));
+
+        // Archived orders are found by id, decoded with the registered users and menu items
+        for (Order order : completed.subList(0, 600)) {
+            assertTrue(system.getOrderIndex().findById(order.getOrderId()).isEmpty());
+            Order found = system.findOrder(order.getOrderId()).orElseThrow();
+            assertEquals(order.getFinalPrice(), found.getFinalPrice());
+            assertEquals(order.getCreatedAt(), found.getCreatedAt());
+            assertSame(order.getCustomer(), found.getCustomer());
+            assertSame(order.getRestaurant(), found.getRestaurant());
+            assertSame(order.getItems().get(0), found.getItems().get(0));
+        }
+        assertTrue(system.findOrder("O-missing").isEmpty());
+
+        // Nothing more is old enough
+        assertEquals(0, system.archiveCompletedOrders());
+        assertEquals(1, archive.getSegmentCount());
+    }
+
+    @Test
+    void testReopenCountsArchivedOrdersOnce() throws IOException {
+        system.enablePersistence(dataDir, false, PersistenceManager.DEFAULT_SNAPSHOT_INTERVAL);
+        populate();
+        double income = system.computeTotalIncome();
+        long count = system.getCompletedOrderCount();
+        system.enableArchive(dataDir.resolve("archive"), RETENTION, CHECK_INTERVAL);
+
+        // The journal still holds the archived completions: they are restored, then archived again
+        reopen();
+        assertEquals(count, system.getCompletedOrderCount());
+        assertEquals(income, system.computeTotalIncome(), 1e-6);
+        assertEquals(20, system.getCompletedOrders().size());
+        assertEquals(600, system.getArchive().getOrderCount());
+
+        // After a checkpoint the archived orders come from the archive alone
+        PersistenceManager persistence = (PersistenceManager) system.getJournal();
+        persistence.checkpoint();
+        reopen();
+        assertEquals(count, system.getCompletedOrderCount());
+        assertEquals(count, system.getCompletedOrderLedger().size());
+        assertEquals(income, system.computeTotalIncome(), 1e-6);
+        assertEquals(600, system.getArchive().getOrderCount());
+    }
+
+    @Test
+    void testRemovedUserResolvedFromSegment() throws IOException {
+        populate();
+        Order first = system.getCompletedOrders().get(0);
+        system.enableArchive(dataDir.resolve("archive"), RETENTION, CHECK_INTERVAL);
+        system.removeUser(first.getCustomer());
+
+        Order found = system.findOrder(first.getOrderId()).orElseThrow();
+        assertNotSame(first.getCustomer(), found.getCustomer());
+        assertEquals(first.getCustomer().getId(), found.getCustomer().getId());
+        assertEquals(first.getCustomer().getName(), found.getCustomer().getName());
+    }
+
+    @Test
+    void testSmallPassesAreMerged() throws IOException {
+        populate();
+        List<Order> completed = system.getCompletedOrders().subList(0, 600);
+        Path directory = dataDir.resolve("archive");
+        Map<String, String> names = new HashMap<>();
+        for (int i = 0; i < completed.size(); i += 3) {
+            names.put(completed.get(i).getOrderId(), "order" + i);
+        }
+        try (OrderArchive archive = OrderArchive.open(directory)) {
+            // One small pass a minute would otherwise leave a segment each
+            for (int pass = 0; pass < 60; pass++) {
+                List<Order> batch = completed.subList(pass * 10, pass * 10 + 10);
+                archive.append(batch, order -> names.get(order.getOrderId()));
+                assertTrue(archive.getSegmentCount() < OrderArchive.COMPACT_SEGMENTS);
+            }
+            assertEquals(600, archive.getOrderCount());
+            for (Order order : completed) {
+                assertEquals(order.getFinalPrice(),
+                    archive.findById(order.getOrderId(), id -> null).orElseThrow().getFinalPrice());
+            }
+        }
+
+        // A merge cut short by a crash leaves the segments it replaced behind
+        Path merged;
+        try (var files = Files.list(directory)) {
+            merged = files.filter(f -> f.getFileName().toString().contains("-0000")).findFirst().orElseThrow();
+        }
+        long first = OrderArchive.segmentRange(merged)[0];
+        Files.copy(merged, directory.resolve(String.format("archive-%016d.seg", first)));
+
+        try (OrderArchive reopened = OrderArchive.open(directory)) {
+            assertEquals(600, reopened.getOrderCount());
+            Set<String> ids = new HashSet<>();
+            reopened.forEach(id -> null, order -> assertTrue(ids.add(order.getOrderId())));
+            assertEquals(600, ids.size());
+            try (var files = Files.list(directory)) {
+                assertEquals(reopened.getSegmentCount(), files.count());
+            }
+        }
+
+        // Names written with the orders survive the merges
+        Map<String, String> stored = new HashMap<>();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                ArchiveSegment.open(file).forEachNamed((order, name) -> {
+                    if (name != null) {
+                        stored.put(order.getOrderId(), name);
+                    }
+                });
+            }
+        }
+        assertEquals(names, stored);
+    }
+
+    @Test
+    void testRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class,
+            () -> system.enableArchive(dataDir, Duration.ofDays(-1), CHECK_INTERVAL));
+        assertThrows(IllegalArgumentException.class,
+            () -> system.enableArchive(dataDir, RETENTION, Duration.ZERO));
+        assertNull(system.getArchive());
+    }
+
+    // Helpers
+    // 600 completed orders from ten days ago, spanning three archive blocks, then 20 recent ones
+    private void populate() {
+        List<Customer> customers = new ArrayList<>();
+        List<Restaurant> restaurants = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Customer customer = new Customer("Customer" + i, "Test", new Coordinate(i, i),
+                "c" + i + "@foodora.com", "555-0000", "customer" + i, "pass123");
+            Restaurant restaurant = new Restaurant("R" + i, new Coordinate(i, 0), "rest" + i, "pass123");
+            system.addUser(customer);
+            system.addUser(restaurant);
+            restaurant.addMenuItem(new MenuItem("Soup" + i, 4.0 + i, MenuItem.Category.STARTER,
+                MenuItem.Type.VEGETARIAN, true));
+            customers.add(customer);
+            restaurants.add(restaurant);
+        }
+        Courier courier = new Courier("Mike", "Delivery", new Coordinate(2.0, 2.0), "555-0002", "mike.d", "pass123");
+        system.addUser(courier);
+        courier.setOnDuty(true);
+
+        Random random = new Random(42);
+        LocalDateTime old = LocalDateTime.now().minusDays(10);
+        for (int i = 0; i < 620; i++) {
+            LocalDateTime createdAt = i < 600 ? old.plusSeconds(i) : LocalDateTime.now();
+            Restaurant restaurant = restaurants.get((int) Math.sqrt(random.nextInt(16)));
+            Order order = new Order(IDGenerator.generateID("O"), createdAt, customers.get(random.nextInt(4)),
+                restaurant, null, new ArrayList<>(restaurant.getMenu().getItems()), new ArrayList<>());
+            order.setFinalPrice(order.calculateTotalPrice() + random.nextInt(100) / 100.0);
+            system.placeOrder(order);
+            system.completeOrder(order);
+        }
+    }
+
+    private void reopen() throws IOException {
+        system.reset();
+        system.enablePersistence(dataDir, false, PersistenceManager.DEFAULT_SNAPSHOT_INTERVAL);
+        system.enableArchive(dataDir.resolve("archive"), RETENTION, CHECK_INTERVAL);
+    }
+}
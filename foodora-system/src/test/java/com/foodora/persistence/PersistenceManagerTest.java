@@ -0,0 +1,273 @@
+package com.foodora.persistence;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Meal;
+import com.foodora.model.MenuItem;
+import com.foodora.model.Order;
+import com.foodora.policy.delivery.FairOccupationPolicy;
+import com.foodora.user.*;
+import com.foodora.util.Coordinate;
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checks that the state rebuilt from snapshots and journal segments matches
+ * the state that was persisted.
+ */
+public class PersistenceManagerTest {
+    @TempDir
+    Path dataDir;
+
+    private MyFoodoraSystem system;
+    private PersistenceManager persistence;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        system = MyFoodoraSystem.getInstance();
+        persistence = system.enablePersistence(dataDir, false, PersistenceManager.DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        system.reset();
+    }
+
+    @Test
+    void testJournalReplay() throws IOException {
+        populate();
+        Map<String, Object> expected = describe();
+
+        reopen();
+        assertEquals(expected, describe());
+        assertTrue(system.findOrder("dinner").isPresent());
+    }
+
+    @Test
+    void testSnapshotAndTail() throws IOException {
+        populate();
+        persistence.checkpoint();
+
+        // Changes after the checkpoint come from the journal tail
+        Restaurant restaurant = system.getUserRegistry().findByUsername("bistro1", Restaurant.class).orElseThrow();
+        restaurant.addMenuItem(new MenuItem("Tart", 5.5, MenuItem.Category.DESSERT, MenuItem.Type.VEGETARIAN, false));
+        system.setFees(3.0, 0.15, 1.0);
+        Map<String, Object> expected = describe();
+
+        reopen();
+        assertEquals(expected, describe());
+        try (Stream<Path> files = Files.list(dataDir)) {
+            assertEquals(1, files.filter(p -> p.getFileName().toString().startsWith("snapshot-")).count());
+        }
+    }
+
+    @Test
+    void testIdsContinueAfterRecovery() throws IOException {
+        populate();
+        Customer before = system.getUserRegistry().findByUsername("john.doe", Customer.class).orElseThrow();
+
+        reopen();
+        Customer customer = new Customer("Jane", "Roe", new Coordinate(0, 0),
+            "jane@foodora.com", "555-0009", "jane.roe", "pass123");
+        assertNotEquals(before.getId(), customer.getId());
+        assertTrue(system.getUserRegistry().findById(before.getId()).isPresent());
+    }
+
+    @Test
+    void testTornTailIsDiscarded() throws IOException {
+        populate();
+        Map<String, Object> expected = describe();
+        system.disablePersistence();
+
+        // A crash in the middle of a write leaves a partial frame at the end of the segment
+        Path segment;
+        try (Stream<Path> files = Files.list(dataDir)) {
+            segment = files.filter(p -> p.getFileName().toString().startsWith("journal-"))
+                .max(Comparator.naturalOrder()).orElseThrow();
+        }
+        Files.write(segment, new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        reopen();
+        assertEquals(expected, describe());
+    }
+
+    @Test
+    void testRemovedUserReferencedByOrder() throws IOException {
+        populate();
+        Customer customer = system.getUserRegistry().findByUsername("john.doe", Customer.class).orElseThrow();
+        system.removeUser(customer);
+        persistence.checkpoint();
+        Map<String, Object> expected = describe();
+
+        reopen();
+        assertEquals(expected, describe());
+        assertFalse(system.getUserRegistry().containsUsername("john.doe"));
+        assertEquals("John", system.getCompletedOrders().get(0).getCustomer().getName());
+    }
+
+    // Helpers
+    @Test
+    void testPasswordsArePersistedAsHashes() throws IOException {
+        populate();
+        persistence.checkpoint();
+        try (Stream<Path> files = Files.list(dataDir)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                String content = new String(Files.readAllBytes(file), java.nio.charset.StandardCharsets.ISO_8859_1);
+                assertFalse(content.contains("pass123"), file.toString());
+            }
+        }
+
+        reopen();
+        Customer customer = system.getUserRegistry().findByUsername("john.doe", Customer.class).orElseThrow();
+        assertTrue(customer.authenticate("john.doe", "pass123"));
+        assertFalse(customer.authenticate("john.doe", "pass124"));
+    }
+
+    @Test
+    void testChangedPasswordIsReplayed() throws IOException {
+        populate();
+        persistence.checkpoint();
+        Customer customer = system.getUserRegistry().findByUsername("john.doe", Customer.class).orElseThrow();
+        customer.updatePassword("pass123", "changed456");
+
+        reopen();
+        customer = system.getUserRegistry().findByUsername("john.doe", Customer.class).orElseThrow();
+        assertTrue(customer.authenticate("john.doe", "changed456"));
+        assertFalse(customer.authenticate("john.doe", "pass123"));
+    }
+
+    @Test
+    void testRecoveredDeliveriesKeepTheirCompletionTime() throws IOException {
+        populate();
+        Courier courier = system.getUserRegistry().findByUsername("mike.d", Courier.class).orElseThrow();
+        Customer customer = system.getUserRegistry().findByUsername("john.doe", Customer.class).orElseThrow();
+        Restaurant restaurant = system.getUserRegistry().findByUsername("bistro1", Restaurant.class).orElseThrow();
+        Order old = new Order(customer, restaurant, null, null, null);
+        system.placeOrder(old);
+        old.setCompletedAt(LocalDateTime.now().minusDays(2));
+        system.completeOrder(old);
+        persistence.checkpoint();
+        Order recent = new Order(customer, restaurant, null, null, null);
+        system.placeOrder(recent);
+        system.completeOrder(recent);
+        LocalDateTime completedAt = recent.getCompletedAt();
+        assertNotNull(completedAt);
+
+        // Deliveries from the snapshot and from the journal tail count when they were made
+        reopen();
+        courier = system.getUserRegistry().findByUsername("mike.d", Courier.class).orElseThrow();
+        assertEquals(2, system.getTimeWindows().getDeliveryCount(courier, Duration.ofDays(1)));
+        assertEquals(completedAt, system.findOrder(recent.getOrderId()).orElseThrow().getCompletedAt());
+    }
+
+    @Test
+    void testRecoveredDeliveriesDecayFromTheirCompletionTime() throws IOException {
+        populate();
+        Customer customer = system.getUserRegistry().findByUsername("john.doe", Customer.class).orElseThrow();
+        Restaurant restaurant = system.getUserRegistry().findByUsername("bistro1", Restaurant.class).orElseThrow();
+        Courier veteran = new Courier("Vera", "Delivery", new Coordinate(9.0, 9.0), "555-0003", "vera.d", "pass123");
+        system.addUser(veteran);
+        for (int i = 0; i < 3; i++) {
+            Order old = new Order(customer, restaurant, veteran, null, null);
+            system.restoreOrder(old, null);
+            old.setCompletedAt(LocalDateTime.now().minusDays(2));
+            system.completeOrder(old);
+        }
+        double before = system.getCourierIndex().getRecentWorkload(veteran);
+
+        // Replayed deliveries must not all count as made at restart
+        reopen();
+        veteran = system.getUserRegistry().findByUsername("vera.d", Courier.class).orElseThrow();
+        Courier courier = system.getUserRegistry().findByUsername("mike.d", Courier.class).orElseThrow();
+        assertEquals(3, veteran.getDeliveredOrders());
+        assertEquals(before, system.getCourierIndex().getRecentWorkload(veteran), 0.01);
+        assertTrue(system.getCourierIndex().getRecentWorkload(veteran)
+            < system.getCourierIndex().getRecentWorkload(courier));
+    }
+
+    private void populate() {
+        Customer customer = new Customer("John", "Doe", new Coordinate(1.0, 1.0),
+            "john@foodora.com", "555-0001", "john.doe", "pass123");
+        Restaurant restaurant = new Restaurant("LeBistro", new Coordinate(3.0, 3.0), "bistro1", "pass123");
+        Courier courier = new Courier("Mike", "Delivery", new Coordinate(2.0, 2.0),
+            "555-0002", "mike.d", "pass123");
+        system.addUser(customer);
+        system.addUser(restaurant);
+        system.addUser(courier);
+        courier.setOnDuty(true);
+
+        MenuItem salad = new MenuItem("Salad", 6.0, MenuItem.Category.STARTER, MenuItem.Type.VEGETARIAN, true);
+        MenuItem steak = new MenuItem("Steak", 18.0, MenuItem.Category.MAIN_DISH, MenuItem.Type.STANDARD, true);
+        restaurant.addMenuItem(salad);
+        restaurant.addMenuItem(steak);
+        restaurant.setDefaultGenericDiscountFactor(0.1);
+        restaurant.createMeal("Classic", List.of(salad, steak), Meal.MealType.STANDARD,
+            Meal.MealSize.HALF_MEAL, false);
+
+        system.setFees(2.0, 0.1, 3.0);
+        system.setDeliveryPolicy(new FairOccupationPolicy(FairOccupationPolicy.Workload.RECENT));
+
+        Order lunch = new Order(customer, restaurant, null, new ArrayList<>(List.of(salad)),
+            new ArrayList<>(restaurant.getMeals()));
+        lunch.setFinalPrice(lunch.calculateTotalPrice());
+        system.placeOrder(lunch);
+        system.completeOrder(lunch);
+
+        Order dinner = new Order(customer, restaurant, null, new ArrayList<>(List.of(steak)), new ArrayList<>());
+        dinner.setFinalPrice(dinner.calculateTotalPrice());
+        system.placeOrder(dinner, "dinner");
+    }
+
+    private void reopen() throws IOException {
+        system.disablePersistence();
+        system.reset();
+        persistence = system.enablePersistence(dataDir, false, PersistenceManager.DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    private Map<String, Object> describe() {
+        Map<String, Object> state = new TreeMap<>();
+        for (User user : system.getUsers()) {
+            String key = "user " + user.getId();
+            state.put(key, user.getClass().getSimpleName() + " " + user.getUsername() + " " + user.getName());
+            if (user instanceof Courier) {
+                Courier courier = (Courier) user;
+                Coordinate location = courier.getLocation();
+                state.put(key + " courier", courier.isOnDuty() + " " + location.getX() + "," + location.getY()
+                    + " " + courier.getDeliveredOrders());
+            } else if (user instanceof Restaurant) {
+                Restaurant restaurant = (Restaurant) user;
+                state.put(key + " menu", restaurant.getMenu().getItems().stream()
+                    .map(i -> i.getName() + "=" + i.getPrice()).collect(Collectors.toList()));
+                state.put(key + " meals", restaurant.getMeals().stream()
+                    .map(m -> m.getName() + "=" + m.getPrice()).collect(Collectors.toList()));
+                state.put(key + " discounts", restaurant.getDefaultGenericDiscountFactor()
+                    + " " + restaurant.getDefaultSpecialDiscountFactor());
+            }
+        }
+        for (Order order : system.getCompletedOrders()) {
+            state.put("completed " + order.getOrderId(), describe(order));
+        }
+        for (Order order : system.getOrderIndex().getActiveOrders()) {
+            state.put("active " + order.getOrderId(), describe(order)
+                + " " + system.getOrderIndex().nameOf(order).orElse(""));
+        }
+        state.put("fees", system.getServiceFee() + " " + system.getMarkupPercentage() + " " + system.getDeliveryCost());
+        state.put("income", system.computeTotalIncome());
+        state.put("delivery", String.valueOf(StateCodec.describePolicy(system.getDeliveryPolicy())));
+        return state;
+    }
+
+    private static String describe(Order order) {
+        return order.getStatus() + " " + order.getCustomer().getId() + " " + order.getRestaurant().getId()
+            + " " + (order.getCourier() == null ? "-" : order.getCourier().getId())
+            + " " + order.getItems().size() + " " + order.getMeals().size()
+            + " " + order.getFinalPrice() + " " + order.getCreatedAt();
+    }
+}
@@ -0,0 +1,231 @@
+package com.foodora.policy;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.analytics.DispatchMetrics;
+import com.foodora.model.Order;
+import com.foodora.policy.delivery.*;
+import com.foodora.user.*;
+import com.foodora.util.Coordinate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Checks batch courier assignment against brute force and the per-order path.
+ */
+public class BatchDeliveryPolicyTest {
+    private MyFoodoraSystem system;
+    private Customer customer;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+        random = new Random(3);
+        customer = new Customer("John", "Doe", new Coordinate(0.0, 0.0),
+            "john@foodora.com", "555-0001", "john.doe", "pass123");
+        system.addUser(customer);
+    }
+
+    @Test
+    void testExactMatchingIsOptimal() {
+        MinTotalDistanceBatchPolicy policy = new MinTotalDistanceBatchPolicy();
+        for (int round = 0; round < 200; round++) {
+            system.reset();
+            system.addUser(customer);
+            List<Courier> couriers = addCouriers(2 + random.nextInt(6), 20);
+            List<Order> orders = newOrders(1 + random.nextInt(couriers.size()), 20, "r" + round);
+
+            Map<Order, Courier> fromList = policy.assignCouriers(orders, couriers);
+            Map<Order, Courier> fromIndex = policy.assignCouriers(orders, system.getCourierIndex());
+            assertEquals(orders.size(), fromList.size());
+            assertEquals(orders.size(), new HashSet<>(fromList.values()).size());
+
+            double best = bruteForce(orders, couriers, 0, new boolean[couriers.size()]);
+            assertEquals(best, totalDistance(fromList), 1e-9);
+            assertEquals(best, totalDistance(fromIndex), 1e-9);
+        }
+    }
+
+    @Test
+    void testBatchBeatsGreedyPerOrder() {
+        // The first order takes the courier both orders are closest to
+        Courier a = addCourier("courierA", new Coordinate(1.0, 0.0));
+        Courier b = addCourier("courierB", new Coordinate(-2.0, 0.0));
+        Order first = newOrder(new Coordinate(0.0, 0.0), "rest1");
+        Order second = newOrder(new Coordinate(2.0, 0.0), "rest2");
+
+        Map<Order, Courier> batch = new MinTotalDistanceBatchPolicy()
+            .assignCouriers(List.of(first, second), system.getCourierIndex());
+        assertSame(b, batch.get(first));
+        assertSame(a, batch.get(second));
+    }
+
+    @Test
+    void testMoreOrdersThanCouriers() {
+        List<Courier> couriers = addCouriers(5, 50);
+        List<Order> orders = newOrders(300, 50, "rest");
+
+        // Greedy matching for the large batch, exact for the leftover rounds
+        for (MinTotalDistanceBatchPolicy policy : List.of(
+                new MinTotalDistanceBatchPolicy(), new MinTotalDistanceBatchPolicy(0))) {
+            Map<Order, Courier> assignment = policy.assignCouriers(orders, system.getCourierIndex());
+            assertEquals(orders.size(), assignment.size());
+            assertTrue(couriers.containsAll(assignment.values()));
+        }
+    }
+
+    @Test
+    void testClusteredGreedyUsesDistinctCouriers() {
+        // Every order shares one restaurant, so all orders have the same nearest candidates
+        List<Courier> couriers = addCouriers(200, 50);
+        Restaurant restaurant = new Restaurant("R", new Coordinate(25.0, 25.0), "cluster", "pass123");
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            orders.add(new Order(customer, restaurant, null, null, null));
+        }
+
+        Map<Order, Courier> assignment = new MinTotalDistanceBatchPolicy()
+            .assignCouriers(orders, system.getCourierIndex());
+        assertEquals(100, assignment.size());
+        assertEquals(100, new HashSet<>(assignment.values()).size());
+        assertEquals(assignment, new MinTotalDistanceBatchPolicy().assignCouriers(orders, couriers));
+    }
+
+    @Test
+    void testSecondOrderOnlyOnceEveryCourierHasOne() {
+        List<Courier> couriers = addCouriers(30, 50);
+        List<Order> orders = newOrders(75, 50, "rest");
+
+        for (MinTotalDistanceBatchPolicy policy : List.of(
+                new MinTotalDistanceBatchPolicy(), new MinTotalDistanceBatchPolicy(0))) {
+            Map<Order, Courier> assignment = policy.assignCouriers(orders, system.getCourierIndex());
+            Map<Courier, Integer> load = new HashMap<>();
+            for (Courier courier : assignment.values()) {
+                load.merge(courier, 1, Integer::sum);
+            }
+            assertEquals(75, assignment.size());
+            assertEquals(couriers.size(), load.size());
+            assertTrue(Collections.max(load.values()) - Collections.min(load.values()) <= 1);
+        }
+    }
+
+    @Test
+    void testMetricsCompareBothPaths() {
+        addCouriers(40, 50);
+        List<Order> single = newOrders(30, 50, "single");
+        List<Order> batch = new ArrayList<>();
+        for (Order order : single) {
+            batch.add(new Order(customer, order.getRestaurant(), null, null, null));
+        }
+
+        for (Order order : single) {
+            system.placeOrder(order);
+            order.getCourier().setOnDuty(false);  // one order per courier, as in a batch
+        }
+        for (Courier courier : system.getUserRegistry().getCouriers()) {
+            courier.setOnDuty(true);
+        }
+        assertTrue(system.placeOrders(batch).isEmpty());
+
+        DispatchMetrics perOrder = system.getSingleDispatchMetrics();
+        DispatchMetrics batched = system.getBatchDispatchMetrics();
+        assertEquals(30, perOrder.getOrderCount());
+        assertEquals(30, batched.getOrderCount());
+        assertTrue(batched.getTotalDistance() <= perOrder.getTotalDistance() + 1e-9);
+        assertTrue(system.isOrderActive(batch.get(0)));
+    }
+
+    @Test
+    void testDispatcherCompletesSubmittedOrders() throws Exception {
+        addCouriers(3, 10);
+        try (BatchDispatcher dispatcher = new BatchDispatcher(system)) {
+            List<CompletableFuture<Courier>> results = new ArrayList<>();
+            for (Order order : newOrders(5, 10, "rest")) {
+                results.add(dispatcher.submit(order));
+            }
+            assertEquals(5, dispatcher.getPendingCount());
+            assertEquals(5, dispatcher.flush());
+            for (CompletableFuture<Courier> result : results) {
+                assertNotNull(result.get());
+            }
+            assertEquals(5, dispatcher.getMetrics().getOrderCount());
+        }
+    }
+
+    @Test
+    void testDispatcherWithoutCouriers() {
+        try (BatchDispatcher dispatcher = new BatchDispatcher(system)) {
+            Order order = newOrder(new Coordinate(1.0, 1.0), "rest1");
+            CompletableFuture<Courier> result = dispatcher.submit(order);
+            assertEquals(0, dispatcher.flush());
+            assertThrows(ExecutionException.class, result::get);
+            assertFalse(system.isOrderActive(order));
+        }
+    }
+
+    // Helper methods
+    private Courier addCourier(String username, Coordinate location) {
+        Courier courier = new Courier("Test", "Courier", location, "555-0000", username, "pass123");
+        system.addUser(courier);
+        courier.setOnDuty(true);
+        return courier;
+    }
+
+    private List<Courier> addCouriers(int count, int mapSize) {
+        List<Courier> couriers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            couriers.add(addCourier("courier" + i, randomPoint(mapSize)));
+        }
+        return couriers;
+    }
+
+    private Order newOrder(Coordinate location, String username) {
+        Restaurant restaurant = new Restaurant("R", location, username, "pass123");
+        return new Order(customer, restaurant, null, null, null);
+    }
+
+    private List<Order> newOrders(int count, int mapSize, String prefix) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            orders.add(newOrder(randomPoint(mapSize), prefix + i));
+        }
+        return orders;
+    }
+
+    private Coordinate randomPoint(int mapSize) {
+        return new Coordinate(random.nextInt(mapSize), random.nextInt(mapSize));
+    }
+
+    private static double totalDistance(Map<Order, Courier> assignment) {
+        double total = 0.0;
+        for (Map.Entry<Order, Courier> e : assignment.entrySet()) {
+            total += distance(e.getValue(), e.getKey());
+        }
+        return total;
+    }
+
+    private static double distance(Courier courier, Order order) {
+        Coordinate restaurant = order.getRestaurant().getLocation();
+        return courier.getLocation().distanceTo(restaurant) + restaurant.distanceTo(order.getCustomer().getAddress());
+    }
+
+    private static double bruteForce(List<Order> orders, List<Courier> couriers, int next, boolean[] used) {
+        if (next == orders.size()) {
+            return 0.0;
+        }
+        double best = Double.MAX_VALUE;
+        for (int j = 0; j < couriers.size(); j++) {
+            if (!used[j]) {
+                used[j] = true;
+                best = Math.min(best, distance(couriers.get(j), orders.get(next))
+                    + bruteForce(orders, couriers, next + 1, used));
+                used[j] = false;
+            }
+        }
+        return best;
+    }
+}
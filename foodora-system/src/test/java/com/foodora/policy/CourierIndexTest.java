@@ -0,0 +1,87 @@
+package com.foodora.policy;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Order;
+import com.foodora.policy.delivery.*;
+import com.foodora.user.*;
+import com.foodora.util.Coordinate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that index-based courier selection picks the same courier as the
+ * list-based scan, while couriers move and change duty status.
+ */
+public class CourierIndexTest {
+    private MyFoodoraSystem system;
+    private List<Courier> couriers;
+    private Customer customer;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+        random = new Random(7);
+
+        customer = new Customer("John", "Doe", new Coordinate(1.0, 1.0),
+            "john@foodora.com", "555-0001", "john.doe", "pass123");
+        system.addUser(customer);
+
+        couriers = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            // Integer coordinates on a small map produce plenty of exact ties
+            Courier courier = new Courier("Courier" + i, "Test",
+                new Coordinate(random.nextInt(60), random.nextInt(60)), "555-0000", "courier" + i, "pass123");
+            system.addUser(courier);
+            courier.setOnDuty(random.nextInt(4) != 0);
+            couriers.add(courier);
+        }
+    }
+
+    @Test
+    void testFastestSelectionMatchesScan() {
+        FastestDeliveryPolicy policy = new FastestDeliveryPolicy();
+        for (int round = 0; round < 500; round++) {
+            Restaurant restaurant = new Restaurant("R" + round,
+                new Coordinate(random.nextDouble() * 80 - 10, random.nextDouble() * 80 - 10), "rest" + round, "pass123");
+            Order order = new Order(customer, restaurant, null, null, null);
+
+            Courier expected = policy.selectCourier(couriers, order);
+            Courier actual = policy.selectCourier(system.getCourierIndex(), order);
+            assertSame(expected, actual);
+
+            // Move some couriers around and toggle duty between queries
+            Courier moving = couriers.get(random.nextInt(couriers.size()));
+            moving.updateLocation(new Coordinate(random.nextInt(60), random.nextInt(60)));
+            Courier toggling = couriers.get(random.nextInt(couriers.size()));
+            toggling.setOnDuty(!toggling.isOnDuty());
+        }
+    }
+
+    @Test
+    void testIndexTracksRegistrationAndDuty() {
+        CourierIndex index = system.getCourierIndex();
+        long onDuty = couriers.stream().filter(Courier::isOnDuty).count();
+        assertEquals(onDuty, index.onDutyCount());
+
+        Courier courier = couriers.stream().filter(Courier::isOnDuty).findFirst().orElseThrow();
+        system.removeUser(courier);
+        assertFalse(index.getOnDutyCouriers().contains(courier));
+
+        // Unregistered couriers are not indexed, even when they go on duty
+        courier.setOnDuty(true);
+        assertFalse(index.getOnDutyCouriers().contains(courier));
+    }
+
+    @Test
+    void testNoCourierAvailable() {
+        couriers.forEach(c -> c.setOnDuty(false));
+        Restaurant restaurant = new Restaurant("R", new Coordinate(5, 5), "rest1", "pass123");
+        Order order = new Order(customer, restaurant, null, null, null);
+        assertNull(new FastestDeliveryPolicy().selectCourier(system.getCourierIndex(), order));
+    }
+}
@@ -0,0 +1,156 @@
+package com.foodora.policy;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Order;
+import com.foodora.policy.delivery.*;
+import com.foodora.user.*;
+import com.foodora.util.Coordinate;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the fairness orderings of the courier index against the list-based
+ * scan and the time-decayed workload against a fake clock.
+ */
+public class FairOccupationIndexTest {
+    private MyFoodoraSystem system;
+    private List<Courier> couriers;
+    private Customer customer;
+    private Restaurant restaurant;
+    private MutableClock clock;
+
+    private static final class MutableClock extends Clock {
+        private long millis;
+
+        void advance(Duration duration) {
+            millis += duration.toMillis();
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+        clock = new MutableClock();
+        system.getCourierIndex().setClock(clock);
+
+        customer = new Customer("John", "Doe", new Coordinate(1.0, 1.0),
+            "john@foodora.com", "555-0001", "john.doe", "pass123");
+        restaurant = new Restaurant("LeBistro", new Coordinate(3.0, 3.0), "bistro1", "pass123");
+        system.addUser(customer);
+        system.addUser(restaurant);
+
+        couriers = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Courier courier = new Courier("Courier" + i, "Test", new Coordinate(i, i),
+                "555-0000", "courier" + i, "pass123");
+            system.addUser(courier);
+            courier.setOnDuty(true);
+            couriers.add(courier);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        system.getCourierIndex().setClock(Clock.systemUTC());
+        system.getCourierIndex().setWorkloadHalfLife(CourierIndex.DEFAULT_WORKLOAD_HALF_LIFE);
+    }
+
+    @Test
+    void testLifetimeSelectionMatchesScan() {
+        FairOccupationPolicy policy = new FairOccupationPolicy();
+        Random random = new Random(11);
+        for (int round = 0; round < 1000; round++) {
+            Order order = new Order(customer, restaurant, null, null, null);
+            Courier expected = policy.selectCourier(couriers, order);
+            Courier actual = policy.selectCourier(system.getCourierIndex(), order);
+            assertSame(expected, actual);
+
+            system.placeOrder(order);
+            system.completeOrder(order);
+            if (random.nextInt(10) == 0) {
+                Courier toggling = couriers.get(random.nextInt(couriers.size()));
+                toggling.setOnDuty(!toggling.isOnDuty());
+            }
+        }
+    }
+
+    @Test
+    void testRecentWorkloadDecays() {
+        CourierIndex index = system.getCourierIndex();
+        index.setWorkloadHalfLife(Duration.ofHours(1));
+        Courier veteran = couriers.get(0);
+        Courier newcomer = couriers.get(1);
+        couriers.stream().skip(2).forEach(c -> c.setOnDuty(false));
+
+        // Many old deliveries for one courier, a few recent ones for the other
+        for (int i = 0; i < 8; i++) {
+            veteran.completeDelivery();
+        }
+        clock.advance(Duration.ofHours(4));
+        for (int i = 0; i < 2; i++) {
+            newcomer.completeDelivery();
+        }
+
+        assertEquals(0.5, index.getRecentWorkload(veteran), 1e-9);
+        assertEquals(2.0, index.getRecentWorkload(newcomer), 1e-9);
+
+        Order order = new Order(customer, restaurant, null, null, null);
+        assertSame(newcomer, new FairOccupationPolicy().selectCourier(index, order));
+        assertSame(veteran, new FairOccupationPolicy(FairOccupationPolicy.Workload.RECENT)
+            .selectCourier(index, order));
+    }
+
+    @Test
+    void testRecentWorkloadSurvivesLongRuns() {
+        CourierIndex index = system.getCourierIndex();
+        index.setWorkloadHalfLife(Duration.ofMinutes(1));
+        Courier first = couriers.get(0);
+        Courier second = couriers.get(1);
+
+        // Far enough apart to force rescaling of the decayed scores
+        for (int day = 0; day < 30; day++) {
+            clock.advance(Duration.ofDays(1));
+            first.completeDelivery();
+        }
+        second.completeDelivery();
+        second.completeDelivery();
+
+        assertEquals(1.0, index.getRecentWorkload(first), 1e-9);
+        assertEquals(2.0, index.getRecentWorkload(second), 1e-9);
+        assertTrue(Double.isFinite(index.getRecentWorkload(first)));
+    }
+
+    @Test
+    void testNoCourierAvailable() {
+        couriers.forEach(c -> c.setOnDuty(false));
+        Order order = new Order(customer, restaurant, null, null, null);
+        assertNull(new FairOccupationPolicy().selectCourier(system.getCourierIndex(), order));
+        assertNull(new FairOccupationPolicy(FairOccupationPolicy.Workload.RECENT)
+            .selectCourier(system.getCourierIndex(), order));
+    }
+}
@@ -0,0 +1,97 @@
+package com.foodora.policy;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Order;
+import com.foodora.policy.target.*;
+import com.foodora.user.*;
+import com.foodora.util.Coordinate;
+
+/**
+ * Checks that each target profit policy reaches the target in a single call.
+ */
+public class TargetProfitPolicyTest {
+    private MyFoodoraSystem system;
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+        system.setFees(5.0, 0.1, 10.0);
+
+        Restaurant restaurant = new Restaurant("LeBistro", new Coordinate(3.0, 3.0), "bistro1", "pass123");
+        Customer customer = new Customer("Alice", "Smith", new Coordinate(1.0, 1.0),
+            "alice@foodora.com", "555-0001", "alice", "pass123");
+        Courier courier = new Courier("Mike", "Delivery", new Coordinate(2.0, 2.0),
+            "555-0002", "mike.d", "pass123");
+        courier.setOnDuty(true);
+        system.addUser(restaurant);
+        system.addUser(courier);
+        system.addUser(customer);
+
+        // 40 orders, 1000 of income
+        for (int i = 0; i < 40; i++) {
+            Order order = new Order(customer, restaurant, null, null, null);
+            order.setFinalPrice(i % 2 == 0 ? 20.0 : 30.0);
+            system.placeOrder(order);
+            system.completeOrder(order);
+        }
+    }
+
+    @Test
+    void testServiceFeeReachesTarget() {
+        double achieved = new TargetProfitByServiceFee().apply(system, 300.0);
+        assertEquals(300.0, achieved, 1e-9);
+        assertEquals(300.0, system.computeTotalProfit(), 1e-9);
+        // 300 = 1000 * 0.1 + 40 * (fee - 10)
+        assertEquals(15.0, system.getServiceFee(), 1e-9);
+        assertEquals(0.1, system.getMarkupPercentage());
+        assertEquals(10.0, system.getDeliveryCost());
+    }
+
+    @Test
+    void testMarkupReachesTarget() {
+        double achieved = new TargetProfitByMarkup().apply(system, 300.0);
+        assertEquals(300.0, achieved, 1e-9);
+        assertEquals(300.0, system.computeTotalProfit(), 1e-9);
+        // 300 = 1000 * markup + 40 * (5 - 10)
+        assertEquals(0.5, system.getMarkupPercentage(), 1e-12);
+
+        // Fees alone already bring 200, more than the target
+        system.setFees(15.0, 0.5, 10.0);
+        assertThrows(IllegalStateException.class, () -> new TargetProfitByMarkup().apply(system, 100.0));
+    }
+
+    @Test
+    void testDeliveryCostReachesTargetInOneCall() {
+        TargetProfitPolicy policy = new TargetProfitByDeliveryCost();
+        double achieved = policy.apply(system, 100.0);
+        assertEquals(100.0, achieved, 1e-9);
+        assertEquals(100.0, system.computeTotalProfit(), 1e-9);
+        // 100 = 1000 * 0.1 + 40 * (5 - cost)
+        assertEquals(5.0, system.getDeliveryCost(), 1e-9);
+
+        // Targets past the cost bounds stop at the bound and report what was reached
+        achieved = policy.apply(system, 1000.0);
+        assertEquals(1.0, system.getDeliveryCost());
+        assertEquals(1000 * 0.1 + 40 * (5.0 - 1.0), achieved, 1e-9);
+        assertEquals(achieved, system.computeTotalProfit(), 1e-9);
+    }
+
+    @Test
+    void testSystemUsesSelectedPolicy() {
+        system.setTargetProfitPolicy(new TargetProfitByMarkup());
+        assertEquals(250.0, system.optimizeForTargetProfit(250.0), 1e-9);
+        assertEquals(0.45, system.getMarkupPercentage(), 1e-12);
+    }
+
+    @Test
+    void testNoCompletedOrders() {
+        system.reset();
+        assertThrows(IllegalStateException.class, () -> new TargetProfitByServiceFee().apply(system, 100.0));
+        assertThrows(IllegalStateException.class, () -> new TargetProfitByMarkup().apply(system, 100.0));
+        assertThrows(IllegalStateException.class, () -> new TargetProfitByDeliveryCost().apply(system, 100.0));
+        assertThrows(IllegalArgumentException.class, () -> new TargetProfitByServiceFee().apply(system, -1.0));
+    }
+}
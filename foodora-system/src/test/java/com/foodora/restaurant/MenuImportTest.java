@@ -0,0 +1,111 @@
+package com.foodora.restaurant;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Meal;
+import com.foodora.model.MealDefinition;
+import com.foodora.model.MenuItem;
+import com.foodora.persistence.MenuCatalogLoader;
+import com.foodora.user.Restaurant;
+import com.foodora.util.Coordinate;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks bulk menu and meal imports: batch validation, atomic application,
+ * a single notification per batch, and the streaming catalog loader.
+ */
+public class MenuImportTest {
+    private MyFoodoraSystem system;
+    private Restaurant restaurant;
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+        restaurant = new Restaurant("LeBistro", new Coordinate(3.0, 3.0), "bistro1", "pass123");
+        system.addUser(restaurant);
+    }
+
+    @Test
+    void testBulkAddNotifiesOnce() {
+        List<MenuItem> items = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            items.add(new MenuItem("Dish" + i, 10 + i, MenuItem.Category.values()[i % 3],
+                MenuItem.Type.STANDARD, false));
+        }
+        long submitted = system.getNotificationMetrics().getSubmittedCount();
+        restaurant.addMenuItems(items);
+
+        assertEquals(300, restaurant.getMenu().size());
+        assertEquals(100, restaurant.getMenu().getStarters().size());
+        assertEquals(submitted + 1, system.getNotificationMetrics().getSubmittedCount());
+    }
+
+    @Test
+    void testInvalidBatchIsRejectedWhole() {
+        MenuItem salad = new MenuItem("Salad", 6.0, MenuItem.Category.STARTER, MenuItem.Type.VEGETARIAN, true);
+        MenuItem broken = new MenuItem(null, 6.0, MenuItem.Category.STARTER, MenuItem.Type.VEGETARIAN, true);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> restaurant.addMenuItems(Arrays.asList(salad, null, broken)));
+        // Every problem is reported, not just the first
+        assertTrue(e.getMessage().contains("item 1") && e.getMessage().contains("item 2"), e.getMessage());
+        assertEquals(0, restaurant.getMenu().size());
+    }
+
+    @Test
+    void testBulkCreateMeals() {
+        MenuItem salad = new MenuItem("Salad", 6.0, MenuItem.Category.STARTER, MenuItem.Type.VEGETARIAN, true);
+        MenuItem steak = new MenuItem("Steak", 18.0, MenuItem.Category.MAIN_DISH, MenuItem.Type.STANDARD, true);
+        MenuItem cake = new MenuItem("Cake", 5.0, MenuItem.Category.DESSERT, MenuItem.Type.VEGETARIAN, false);
+        restaurant.addMenuItems(List.of(salad, steak, cake));
+        MenuItem offMenu = new MenuItem("Soup", 4.0, MenuItem.Category.STARTER, MenuItem.Type.STANDARD, true);
+
+        assertThrows(IllegalArgumentException.class, () -> restaurant.createMeals(List.of(
+            new MealDefinition("Lunch", List.of(salad, steak), Meal.MealType.STANDARD, Meal.MealSize.HALF_MEAL, false),
+            new MealDefinition("Soup", List.of(offMenu, steak), Meal.MealType.STANDARD, Meal.MealSize.HALF_MEAL, false))));
+        assertTrue(restaurant.getMeals().isEmpty());
+
+        long submitted = system.getNotificationMetrics().getSubmittedCount();
+        restaurant.createMeals(List.of(
+            new MealDefinition("Lunch", List.of(salad, steak), Meal.MealType.STANDARD, Meal.MealSize.HALF_MEAL, false),
+            new MealDefinition("Feast", List.of(salad, steak, cake), Meal.MealType.STANDARD, Meal.MealSize.FULL_MEAL, true),
+            new MealDefinition("Sweet", List.of(steak, cake), Meal.MealType.STANDARD, Meal.MealSize.HALF_MEAL, true)));
+        assertEquals(3, restaurant.getMeals().size());
+        assertEquals(0.10, restaurant.getMeals().get(1).getDiscountFactor());
+        // One notification for both meals of the week
+        assertEquals(submitted + 1, system.getNotificationMetrics().getSubmittedCount());
+    }
+
+    @Test
+    void testCatalogLoader() throws IOException {
+        StringBuilder catalog = new StringBuilder("# Catalog\n\n");
+        for (int i = 0; i < 250; i++) {
+            catalog.append("item,Dish").append(i).append(",main,standard,").append(10 + i).append('\n');
+        }
+        catalog.append("item,Salad,starter,vegetarian,6.5\n")
+            .append("item,Sorbet,dessert,gluten-free,4\n")
+            .append("meal,Light,half,standard,false,Salad;Dish0\n")
+            .append("meal,Special,full,standard,true,Salad; Dish1 ;Sorbet\n");
+
+        long submitted = system.getNotificationMetrics().getSubmittedCount();
+        MenuCatalogLoader.Result result = MenuCatalogLoader.load(new StringReader(catalog.toString()), restaurant, 100);
+        assertEquals(new MenuCatalogLoader.Result(252, 2), result);
+        assertEquals(252, restaurant.getMenu().size());
+        assertTrue(restaurant.getMenu().findItem("Sorbet").orElseThrow().isGlutenFree());
+        assertEquals(List.of("Light", "Special"), restaurant.getMeals().stream().map(Meal::getName).toList());
+        // Items in batches of 100, then one batch of meals
+        assertEquals(submitted + 4, system.getNotificationMetrics().getSubmittedCount());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> MenuCatalogLoader.load(
+            new StringReader("item,Tea,drink,standard,2\n"), restaurant, 100));
+        assertTrue(e.getMessage().startsWith("Line 1:"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> MenuCatalogLoader.load(
+            new StringReader("meal,Ghost,half,standard,false,Nothing;Dish2\n"), restaurant, 100));
+        assertEquals(2, restaurant.getMeals().size());
+    }
+}
@@ -0,0 +1,150 @@
+package com.foodora.restaurant;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.model.Meal;
+import com.foodora.model.Menu;
+import com.foodora.model.MenuItem;
+import com.foodora.user.Restaurant;
+import com.foodora.util.Coordinate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks the menu's snapshots, lookups and copy-on-write edits.
+ */
+public class MenuTest {
+    private Menu menu;
+    private MenuItem salad;
+    private MenuItem steak;
+    private MenuItem cake;
+
+    @BeforeEach
+    void setUp() {
+        menu = new Menu();
+        salad = new MenuItem("Salad", 6.0, MenuItem.Category.STARTER, MenuItem.Type.VEGETARIAN, true);
+        steak = new MenuItem("Steak", 18.0, MenuItem.Category.MAIN_DISH, MenuItem.Type.STANDARD, true);
+        cake = new MenuItem("Cake", 5.0, MenuItem.Category.DESSERT, MenuItem.Type.VEGETARIAN, false);
+    }
+
+    @Test
+    void testLookupsAndOrder() {
+        menu.addItem(cake);
+        menu.addItem(steak);
+        menu.addItem(salad);
+
+        assertEquals(List.of(salad, steak, cake), menu.getItems());
+        assertEquals(List.of(steak), menu.getMainDishes());
+        assertSame(steak, menu.findItem("Steak").orElseThrow());
+        assertTrue(menu.findItem("Soup").isEmpty());
+        assertTrue(menu.contains(cake));
+        // Membership is by instance, as MenuItem has no value equality
+        assertFalse(menu.contains(new MenuItem("Cake", 5.0, MenuItem.Category.DESSERT,
+            MenuItem.Type.VEGETARIAN, false)));
+        assertEquals(3, menu.size());
+    }
+
+    @Test
+    void testSnapshotsAreSharedAndImmutable() {
+        menu.addItem(salad);
+        List<MenuItem> before = menu.getItems();
+        // Reads do not copy
+        assertSame(before, menu.getAllItems());
+        assertThrows(UnsupportedOperationException.class, () -> before.add(steak));
+
+        menu.addItem(steak);
+        menu.removeItem(salad);
+        assertEquals(List.of(salad), before);
+        assertEquals(List.of(steak), menu.getItems());
+        assertFalse(menu.contains(salad));
+        assertTrue(menu.findItem("Salad").isEmpty());
+
+        // Removing an item that is not on the menu leaves the snapshot alone
+        List<MenuItem> current = menu.getItems();
+        menu.removeItem(cake);
+        assertSame(current, menu.getItems());
+    }
+
+    @Test
+    void testFirstItemWinsForDuplicateNames() {
+        MenuItem cheapSalad = new MenuItem("Salad", 4.0, MenuItem.Category.MAIN_DISH, MenuItem.Type.STANDARD, false);
+        menu.addItem(cheapSalad);
+        menu.addItem(salad);
+        // Starters come first in menu order
+        assertSame(salad, menu.findItem("Salad").orElseThrow());
+        menu.removeItem(salad);
+        assertSame(cheapSalad, menu.findItem("Salad").orElseThrow());
+    }
+
+    @Test
+    void testReadersSeeConsistentSnapshotsDuringEdits() throws InterruptedException {
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    // Iterating a snapshot never sees a concurrent edit
+                    for (MenuItem item : menu.getItems()) {
+                        if (item == null || !menu.findItem(item.getName()).isPresent() && menu.contains(item)) {
+                            failure.compareAndSet(null, "Inconsistent snapshot");
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e.toString());
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 2_000; i++) {
+            MenuItem item = new MenuItem("Dish" + i, i, MenuItem.Category.values()[i % 3],
+                MenuItem.Type.STANDARD, false);
+            menu.addItem(item);
+            if (i % 2 == 1) {
+                menu.removeItem(item);
+            }
+        }
+        done.set(true);
+        reader.join();
+        assertNull(failure.get());
+        assertEquals(1_000, menu.size());
+    }
+
+    @Test
+    void testMealsIterateDuringEdits() throws InterruptedException {
+        MyFoodoraSystem.getInstance().reset();
+        Restaurant restaurant = new Restaurant("R", new Coordinate(0.0, 0.0), "rest1", "pass123");
+        restaurant.addMenuItem(salad);
+        restaurant.addMenuItem(steak);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        // Iterates the meals the way the snapshot writer does
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    for (Meal meal : restaurant.getMeals()) {
+                        if (meal == null) {
+                            failure.compareAndSet(null, "Null meal");
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e.toString());
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 2_000; i++) {
+            Meal meal = new Meal("Meal" + i, List.of(salad, steak), Meal.MealType.STANDARD, Meal.MealSize.HALF_MEAL,
+                false, 0.05);
+            restaurant.restoreMeal(meal);
+            if (i % 2 == 1) {
+                restaurant.removeMeal(meal);
+            }
+        }
+        done.set(true);
+        reader.join();
+        assertNull(failure.get());
+        assertEquals(1_000, restaurant.getMeals().size());
+    }
+}
@@ -0,0 +1,130 @@
+package com.foodora.user;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.util.Coordinate;
+import com.foodora.util.PasswordHash;
+import com.foodora.util.PasswordHasher;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks password hashing and the login, lookup and expiry of sessions.
+ */
+public class SessionStoreTest {
+    private MyFoodoraSystem system;
+    private AtomicLong now;
+    private SessionStore sessions;
+    private Customer alice;
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+        now = new AtomicLong();
+        sessions = new SessionStore(system.getUserRegistry(), Duration.ofMinutes(30), now::get);
+        alice = new Customer("Alice", "Smith", new Coordinate(1.0, 1.0), "alice@foodora.com",
+            "555-0001", "alice", "pass123");
+        system.addUser(alice);
+    }
+
+    @Test
+    void testPasswordHashes() {
+        String first = PasswordHasher.hash("pass123");
+        String second = PasswordHasher.hash("pass123");
+        // Salted: the same password never hashes the same way twice
+        assertNotEquals(first, second);
+        assertTrue(PasswordHasher.verify("pass123", first));
+        assertTrue(PasswordHasher.verify("pass123", second));
+        assertFalse(PasswordHasher.verify("pass124", first));
+        assertFalse(PasswordHasher.verify("pass123", "pass123"));
+        assertFalse(first.contains("pass123"));
+
+        assertTrue(PasswordHasher.isHash(alice.getPasswordHash()));
+        alice.updatePassword("pass123", "newpass456");
+        assertTrue(PasswordHasher.verify("newpass456", alice.getPasswordHash()));
+        assertThrows(IllegalArgumentException.class, () -> new PasswordHash("plaintext"));
+
+        // Users made from an existing hash keep it as is
+        PasswordHash hash = new PasswordHash(first);
+        Courier courier = new Courier("CR1", "Mike", "Delivery", new Coordinate(2.0, 2.0), "555-0002", "mike.d", hash);
+        assertEquals(first, courier.getPasswordHash());
+        assertTrue(courier.authenticate("mike.d", "pass123"));
+    }
+
+    @Test
+    void testLoginAndResolve() {
+        assertTrue(sessions.login("alice", "wrong1").isEmpty());
+        assertTrue(sessions.login("nobody", "pass123").isEmpty());
+
+        SessionStore.Session session = sessions.login("alice", "pass123").orElseThrow();
+        assertSame(alice, session.getUser());
+        assertSame(alice, sessions.resolve(session.getToken()).orElseThrow());
+        assertTrue(sessions.resolve("forged").isEmpty());
+
+        // Each login gets its own token
+        Set<String> tokens = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            tokens.add(sessions.login("alice", "pass123").orElseThrow().getToken());
+        }
+        assertEquals(5, tokens.size());
+
+        sessions.logout(session.getToken());
+        assertTrue(sessions.resolve(session.getToken()).isEmpty());
+
+        alice.setActive(false);
+        assertTrue(sessions.login("alice", "pass123").isEmpty());
+    }
+
+    @Test
+    void testSessionsExpireWhenIdle() {
+        String token = sessions.login("alice", "pass123").orElseThrow().getToken();
+        String idle = sessions.login("alice", "pass123").orElseThrow().getToken();
+
+        // Use keeps a session alive
+        for (int i = 0; i < 3; i++) {
+            now.addAndGet(Duration.ofMinutes(20).toNanos());
+            assertTrue(sessions.resolve(token).isPresent());
+        }
+        assertTrue(sessions.resolve(idle).isEmpty());
+        assertEquals(1, sessions.size());
+
+        now.addAndGet(Duration.ofMinutes(31).toNanos());
+        assertEquals(1, sessions.purgeExpired());
+        assertTrue(sessions.resolve(token).isEmpty());
+    }
+
+    @Test
+    void testRemovedUserLosesSessions() {
+        SessionStore systemSessions = system.getSessions();
+        String token = systemSessions.login("alice", "pass123").orElseThrow().getToken();
+        system.removeUser(alice);
+        assertTrue(systemSessions.resolve(token).isEmpty());
+        assertEquals(0, systemSessions.size());
+    }
+
+    @Test
+    void testPasswordChangeEndsOtherSessions() {
+        String current = sessions.login("alice", "pass123").orElseThrow().getToken();
+        String other = sessions.login("alice", "pass123").orElseThrow().getToken();
+        assertThrows(IllegalArgumentException.class, () -> sessions.changePassword(current, "wrong1", "newpass456"));
+        assertTrue(sessions.resolve(other).isPresent());
+
+        sessions.changePassword(current, "pass123", "newpass456");
+        assertSame(alice, sessions.resolve(current).orElseThrow());
+        assertTrue(sessions.resolve(other).isEmpty());
+        assertTrue(sessions.login("alice", "pass123").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> sessions.changePassword(other, "newpass456", "pass789"));
+    }
+
+    @Test
+    void testPasswordUpdateEndsEverySession() {
+        SessionStore systemSessions = system.getSessions();
+        String token = systemSessions.login("alice", "pass123").orElseThrow().getToken();
+        alice.updatePassword("pass123", "newpass456");
+        assertTrue(systemSessions.resolve(token).isEmpty());
+    }
+}
@@ -0,0 +1,105 @@
+package com.foodora.user;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.foodora.MyFoodoraSystem;
+import com.foodora.util.Coordinate;
+import com.foodora.util.PasswordHash;
+
+public class UserRegistryTest {
+    private MyFoodoraSystem system;
+    private UserRegistry registry;
+    private Customer customer;
+    private Courier courier;
+    private Restaurant restaurant;
+
+    @BeforeEach
+    void setUp() {
+        system = MyFoodoraSystem.getInstance();
+        system.reset();
+        registry = system.getUserRegistry();
+
+        customer = new Customer("John", "Doe", new Coordinate(1.0, 1.0),
+            "john@foodora.com", "555-0001", "john.doe", "pass123");
+        courier = new Courier("Mike", "Delivery", new Coordinate(2.0, 2.0),
+            "555-0002", "mike.d", "pass123");
+        restaurant = new Restaurant("LeBistro", new Coordinate(3.0, 3.0), "bistro1", "pass123");
+
+        system.addUser(customer);
+        system.addUser(courier);
+        system.addUser(restaurant);
+    }
+
+    @Test
+    void testLookupByIndexes() {
+        assertSame(customer, registry.findByUsername("john.doe").orElseThrow());
+        assertSame(courier, registry.findById(courier.getId()).orElseThrow());
+        assertEquals(java.util.List.of(customer), registry.findByEmail("john@foodora.com"));
+        assertEquals(java.util.List.of(courier), registry.findByPhone("555-0002"));
+        assertSame(restaurant, registry.findRestaurantByName("LeBistro").orElseThrow());
+    }
+
+    @Test
+    void testTypedLookup() {
+        assertTrue(registry.findByUsername("mike.d", Courier.class).isPresent());
+        assertTrue(registry.findByUsername("mike.d", Customer.class).isEmpty());
+        assertEquals(1, registry.getCouriers().size());
+        assertEquals(1, registry.getCustomers().size());
+        assertEquals(1, registry.getRestaurants().size());
+        assertTrue(registry.getManagers().isEmpty());
+    }
+
+    @Test
+    void testDuplicateUsernameRejected() {
+        Customer duplicate = new Customer("Jane", "Doe", new Coordinate(1.0, 1.0),
+            "jane@foodora.com", "555-0003", "john.doe", "pass123");
+        assertThrows(IllegalArgumentException.class, () -> system.addUser(duplicate));
+        assertEquals(3, registry.size());
+    }
+
+    @Test
+    void testRemoveUserClearsIndexes() {
+        system.removeUser(customer);
+
+        assertFalse(registry.containsUsername("john.doe"));
+        assertTrue(registry.findById(customer.getId()).isEmpty());
+        assertTrue(registry.findByEmail("john@foodora.com").isEmpty());
+        assertTrue(registry.findByPhone("555-0001").isEmpty());
+        assertTrue(registry.getCustomers().isEmpty());
+        assertFalse(system.getUsers().contains(customer));
+    }
+
+    @Test
+    void testRemoveRacingAddLeavesNoEntries() throws Exception {
+        UserRegistry fresh = new UserRegistry();
+        PasswordHash password = PasswordHash.of("pass123");
+        for (int i = 0; i < 2_000; i++) {
+            Courier racer = new Courier("CR-race" + i, "Racer", "Test", new Coordinate(0, 0),
+                "555-0000", "racer" + i, password);
+            Thread remover = new Thread(() -> {
+                while (!fresh.remove(racer)) {
+                    Thread.onSpinWait();
+                }
+            });
+            remover.start();
+            fresh.add(racer);
+            remover.join();
+
+            assertFalse(fresh.contains(racer));
+            assertTrue(fresh.getAll().isEmpty(), "Removed user still listed after " + i + " rounds");
+            assertTrue(fresh.getCouriers().isEmpty());
+            assertTrue(fresh.findByPhone("555-0000").isEmpty());
+        }
+    }
+
+    @Test
+    void testMutableAttributesAreReindexed() {
+        customer.updatePhoneNumber("555-9999");
+        assertTrue(registry.findByPhone("555-0001").isEmpty());
+        assertEquals(java.util.List.of(customer), registry.findByPhone("555-9999"));
+
+        restaurant.updateName("ChezMoi");
+        assertTrue(registry.findRestaurantByName("LeBistro").isEmpty());
+        assertSame(restaurant, registry.findRestaurantByName("ChezMoi").orElseThrow());
+    }
+}
@@ -0,0 +1,65 @@
+package com.foodora.util;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class IDGeneratorTest {
+
+    @AfterEach
+    void tearDown() {
+        IDGenerator.setNodeId(null);
+    }
+
+    @Test
+    void testFormatMatchesStringFormat() {
+        for (long count : new long[]{1, 9, 10, 999, 1000, 9999, 10000, 123456, Long.MAX_VALUE}) {
+            assertEquals(String.format("%s-%04d", "CR", count), IDGenerator.format("CR", null, count));
+        }
+    }
+
+    @Test
+    void testSequentialIdsPerPrefix() {
+        String first = IDGenerator.generateID("TEST");
+        String second = IDGenerator.generateID("TEST");
+        long n = Long.parseLong(first.substring("TEST-".length()));
+        assertEquals(String.format("TEST-%04d", n + 1), second);
+    }
+
+    @Test
+    void testNodeId() {
+        IDGenerator.setNodeId("eu1");
+        assertTrue(IDGenerator.generateID("NODE").matches("NODE-eu1-\\d{4,}"));
+        assertEquals("O-eu1-0042", IDGenerator.format("O", "eu1", 42));
+
+        assertThrows(IllegalArgumentException.class, () -> IDGenerator.setNodeId(""));
+        assertThrows(IllegalArgumentException.class, () -> IDGenerator.setNodeId("eu-1"));
+    }
+
+    @Test
+    void testConcurrentIdsAreUnique() throws Exception {
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    List<String> ids = new ArrayList<>(perThread);
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(IDGenerator.generateID("CONC"));
+                    }
+                    return ids;
+                }));
+            }
+            Set<String> unique = new HashSet<>();
+            for (Future<List<String>> future : futures) {
+                unique.addAll(future.get());
+            }
+            assertEquals(threads * perThread, unique.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}